@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.benchmark;
+
+import apoc.ApocSettings;
+import apoc.util.TestUtil;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.test.TestDatabaseManagementServiceBuilder;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * An impermanent database with the given APOC procedures registered.
+ * File import and export are enabled and resolved against a temporary directory that is removed on shutdown.
+ */
+public class BenchmarkDatabase {
+
+    private final Path directory;
+    private final DatabaseManagementService managementService;
+    private final GraphDatabaseService db;
+
+    public BenchmarkDatabase(Class<?>... procedures) {
+        try {
+            directory = Files.createTempDirectory("apoc-benchmark");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        managementService = new TestDatabaseManagementServiceBuilder(directory)
+                .impermanent()
+                .setConfig(GraphDatabaseSettings.load_csv_file_url_root, directory)
+                .setConfig(ApocSettings.apoc_export_file_enabled, true)
+                .setConfig(ApocSettings.apoc_import_file_enabled, true)
+                .build();
+        db = managementService.database(GraphDatabaseSettings.DEFAULT_DATABASE_NAME);
+        TestUtil.registerProcedure(db, procedures);
+    }
+
+    public GraphDatabaseService db() {
+        return db;
+    }
+
+    /** The directory file names in import and export statements are resolved against */
+    public Path directory() {
+        return directory;
+    }
+
+    /** Runs the statement in its own transaction and hands every row to the blackhole */
+    public void run(String statement, Map<String, Object> params, Blackhole blackhole) {
+        db.executeTransactionally(statement, params, result -> {
+            result.forEachRemaining(blackhole::consume);
+            return null;
+        });
+    }
+
+    /** Runs the statement in its own transaction and exhausts its result, as procedures stream lazily */
+    public void run(String statement) {
+        db.executeTransactionally(statement, Map.of(), result -> {
+            result.forEachRemaining(row -> {});
+            return null;
+        });
+    }
+
+    public void shutdown() {
+        managementService.shutdown();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder())
+                    .forEach(file -> file.toFile().delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
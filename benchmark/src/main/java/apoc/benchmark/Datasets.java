@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.benchmark;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+
+/**
+ * Generates the benchmark data from fixed seeds, so every run and every version measures the same data.
+ */
+public final class Datasets {
+
+    public static final Label PERSON = Label.label("Person");
+    public static final RelationshipType KNOWS = RelationshipType.withName("KNOWS");
+
+    private static final long SEED = 42;
+    private static final int BATCH_SIZE = 10_000;
+    private static final int CITIES = 50;
+
+    private Datasets() {}
+
+    public static List<Long> longs(int size) {
+        Random random = new Random(SEED);
+        List<Long> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(random.nextLong());
+        }
+        return values;
+    }
+
+    public static List<Double> doubles(int size) {
+        Random random = new Random(SEED);
+        List<Double> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(random.nextGaussian() * 1000);
+        }
+        return values;
+    }
+
+    public static List<String> words(int size) {
+        Random random = new Random(SEED);
+        List<String> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(word(random));
+        }
+        return values;
+    }
+
+    /** A map of the given number of entries, every tenth value is a nested map */
+    public static Map<String, Object> map(int size) {
+        Random random = new Random(SEED);
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            map.put("key" + i, i % 10 == 0 ? Map.of("nested", word(random), "value", (long) i) : word(random));
+        }
+        return map;
+    }
+
+    private static String word(Random random) {
+        char[] chars = new char[3 + random.nextInt(10)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * A social graph of {@code :Person {id, name, age, city}} nodes where every person
+     * {@code -[:KNOWS {since}]->} the given number of other persons, preferring persons with lower ids.
+     */
+    public static class SocialGraph {
+        public final int persons;
+        private final String[] names;
+        private final long[] ages;
+        private final String[] cities;
+        private final int[] knowsFrom;
+        private final int[] knowsTo;
+        private final long[] since;
+
+        public SocialGraph(int persons, int knowsPerPerson) {
+            this.persons = persons;
+            Random random = new Random(SEED);
+            names = new String[persons];
+            ages = new long[persons];
+            cities = new String[persons];
+            for (int i = 0; i < persons; i++) {
+                names[i] = word(random);
+                ages[i] = 18 + random.nextInt(70);
+                cities[i] = "City" + random.nextInt(CITIES);
+            }
+            int relationships = persons * knowsPerPerson;
+            knowsFrom = new int[relationships];
+            knowsTo = new int[relationships];
+            since = new long[relationships];
+            for (int i = 0; i < relationships; i++) {
+                knowsFrom[i] = i / knowsPerPerson;
+                // squaring skews the targets towards low ids, which gives a few well connected persons
+                double skewed = random.nextDouble();
+                knowsTo[i] = (int) (skewed * skewed * persons);
+                since[i] = 1990 + random.nextInt(35);
+            }
+        }
+
+        public void create(GraphDatabaseService db) {
+            long[] nodeIds = new long[persons];
+            for (int from = 0; from < persons; from += BATCH_SIZE) {
+                try (Transaction tx = db.beginTx()) {
+                    for (int i = from; i < Math.min(persons, from + BATCH_SIZE); i++) {
+                        Node node = tx.createNode(PERSON);
+                        node.setProperty("id", (long) i);
+                        node.setProperty("name", names[i]);
+                        node.setProperty("age", ages[i]);
+                        node.setProperty("city", cities[i]);
+                        nodeIds[i] = node.getId();
+                    }
+                    tx.commit();
+                }
+            }
+            for (int from = 0; from < knowsFrom.length; from += BATCH_SIZE) {
+                try (Transaction tx = db.beginTx()) {
+                    for (int i = from; i < Math.min(knowsFrom.length, from + BATCH_SIZE); i++) {
+                        Node start = tx.getNodeById(nodeIds[knowsFrom[i]]);
+                        Node end = tx.getNodeById(nodeIds[knowsTo[i]]);
+                        start.createRelationshipTo(end, KNOWS).setProperty("since", since[i]);
+                    }
+                    tx.commit();
+                }
+            }
+        }
+
+        /** Writes the graph in the format of apoc.import.csv */
+        public void writeCsv(Path nodesFile, Path relationshipsFile) {
+            try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(nodesFile))) {
+                writer.println("id:ID,name,age:long,city");
+                for (int i = 0; i < persons; i++) {
+                    writer.println(i + "," + names[i] + "," + ages[i] + "," + cities[i]);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(relationshipsFile))) {
+                writer.println(":START_ID,:END_ID,since:long");
+                for (int i = 0; i < knowsFrom.length; i++) {
+                    writer.println(knowsFrom[i] + "," + knowsTo[i] + "," + since[i]);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.benchmark;
+
+import apoc.export.arrow.ExportArrow;
+import apoc.export.csv.ExportCSV;
+import apoc.export.json.ExportJson;
+import apoc.load.LoadArrow;
+import apoc.load.LoadJson;
+import apoc.meta.Meta;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Exports of a generated social graph to CSV, JSON and Arrow files, and loading the exported JSON and Arrow files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(
+        value = 1,
+        jvmArgs = {"-Xms4g", "-Xmx4g"})
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class ExportBenchmark {
+
+    @Param({"10000"})
+    public int persons;
+
+    private BenchmarkDatabase db;
+    private final Map<String, Object> params = Map.of();
+
+    @Setup
+    public void setUp() {
+        // the Arrow export looks up the property types with apoc.meta
+        db = new BenchmarkDatabase(
+                ExportCSV.class, ExportJson.class, ExportArrow.class, LoadJson.class, LoadArrow.class, Meta.class);
+        new Datasets.SocialGraph(persons, 5).create(db.db());
+        db.run("CALL apoc.export.json.all('graph.json', {})");
+        db.run("CALL apoc.export.arrow.all('graph.arrow', {})");
+    }
+
+    @TearDown
+    public void tearDown() {
+        db.shutdown();
+    }
+
+    @Benchmark
+    public void exportCsv(Blackhole blackhole) {
+        db.run("CALL apoc.export.csv.all('export.csv', {})", params, blackhole);
+    }
+
+    @Benchmark
+    public void exportJson(Blackhole blackhole) {
+        db.run("CALL apoc.export.json.all('export.json', {})", params, blackhole);
+    }
+
+    @Benchmark
+    public void exportArrow(Blackhole blackhole) {
+        db.run("CALL apoc.export.arrow.all('export.arrow', {})", params, blackhole);
+    }
+
+    @Benchmark
+    public void loadJson(Blackhole blackhole) {
+        db.run("CALL apoc.load.json('graph.json') YIELD value RETURN value", params, blackhole);
+    }
+
+    @Benchmark
+    public void loadArrow(Blackhole blackhole) {
+        db.run("CALL apoc.load.arrow('graph.arrow') YIELD value RETURN value", params, blackhole);
+    }
+}
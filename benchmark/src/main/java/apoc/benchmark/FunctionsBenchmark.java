@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.benchmark;
+
+import apoc.coll.Coll;
+import apoc.map.Maps;
+import apoc.text.Strings;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The apoc.coll, apoc.map and apoc.text functions, called through Cypher with lists and maps of the given size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(
+        value = 1,
+        jvmArgs = {"-Xms4g", "-Xmx4g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FunctionsBenchmark {
+
+    @Param({"100", "100000"})
+    public int size;
+
+    private BenchmarkDatabase db;
+    private Map<String, Object> params;
+
+    @Setup
+    public void setUp() {
+        db = new BenchmarkDatabase(Coll.class, Maps.class, Strings.class);
+        params = Map.of(
+                "longs", Datasets.longs(size),
+                "doubles", Datasets.doubles(size),
+                "words", Datasets.words(size),
+                "map", Datasets.map(size));
+    }
+
+    @TearDown
+    public void tearDown() {
+        db.shutdown();
+    }
+
+    @Benchmark
+    public void collSum(Blackhole blackhole) {
+        db.run("RETURN apoc.coll.sum($doubles) AS value", params, blackhole);
+    }
+
+    @Benchmark
+    public void collAvg(Blackhole blackhole) {
+        db.run("RETURN apoc.coll.avg($longs) AS value", params, blackhole);
+    }
+
+    @Benchmark
+    public void collStdev(Blackhole blackhole) {
+        db.run("RETURN apoc.coll.stdev($doubles) AS value", params, blackhole);
+    }
+
+    @Benchmark
+    public void collMinMax(Blackhole blackhole) {
+        db.run("RETURN apoc.coll.min($longs) AS min, apoc.coll.max($doubles) AS max", params, blackhole);
+    }
+
+    @Benchmark
+    public void collSort(Blackhole blackhole) {
+        db.run("RETURN apoc.coll.sort($longs) AS value", params, blackhole);
+    }
+
+    @Benchmark
+    public void collRunningTotal(Blackhole blackhole) {
+        db.run("RETURN apoc.coll.runningTotal($doubles) AS value", params, blackhole);
+    }
+
+    @Benchmark
+    public void collToSet(Blackhole blackhole) {
+        db.run("RETURN apoc.coll.toSet($words) AS value", params, blackhole);
+    }
+
+    @Benchmark
+    public void mapFromLists(Blackhole blackhole) {
+        db.run("RETURN apoc.map.fromLists($words, $longs) AS value", params, blackhole);
+    }
+
+    @Benchmark
+    public void mapMerge(Blackhole blackhole) {
+        db.run("RETURN apoc.map.merge($map, {extra: 1}) AS value", params, blackhole);
+    }
+
+    @Benchmark
+    public void mapFlatten(Blackhole blackhole) {
+        db.run("RETURN apoc.map.flatten($map) AS value", params, blackhole);
+    }
+
+    @Benchmark
+    public void textJoin(Blackhole blackhole) {
+        db.run("RETURN apoc.text.join($words, ' ') AS value", params, blackhole);
+    }
+
+    @Benchmark
+    public void textReplace(Blackhole blackhole) {
+        db.run("RETURN [word IN $words | apoc.text.replace(word, '[aeiou]', '')] AS value", params, blackhole);
+    }
+
+    @Benchmark
+    public void textLevenshteinSimilarity(Blackhole blackhole) {
+        db.run(
+                "RETURN [word IN $words | apoc.text.levenshteinSimilarity(word, 'benchmark')] AS value",
+                params,
+                blackhole);
+    }
+
+    @Benchmark
+    public void textClean(Blackhole blackhole) {
+        db.run("RETURN [word IN $words | apoc.text.clean(word)] AS value", params, blackhole);
+    }
+}
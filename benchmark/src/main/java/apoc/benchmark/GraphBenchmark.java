@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.benchmark;
+
+import apoc.meta.Meta;
+import apoc.neighbors.Neighbors;
+import apoc.nodes.Grouping;
+import apoc.path.PathExplorer;
+import apoc.periodic.Periodic;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Batching, traversal, grouping and meta sampling procedures on a generated social graph.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(
+        value = 1,
+        jvmArgs = {"-Xms4g", "-Xmx4g"})
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class GraphBenchmark {
+
+    @Param({"100000"})
+    public int persons;
+
+    @Param({"5"})
+    public int knowsPerPerson;
+
+    private BenchmarkDatabase db;
+    private Map<String, Object> params;
+
+    @Setup
+    public void setUp() {
+        db = new BenchmarkDatabase(Periodic.class, PathExplorer.class, Neighbors.class, Grouping.class, Meta.class);
+        new Datasets.SocialGraph(persons, knowsPerPerson).create(db.db());
+        db.run("CREATE INDEX person_id FOR (p:Person) ON (p.id)");
+        db.run("CALL db.awaitIndexes()");
+        params = Map.of("id", (long) persons / 2);
+    }
+
+    @TearDown
+    public void tearDown() {
+        db.shutdown();
+    }
+
+    @Benchmark
+    public void periodicIterate(Blackhole blackhole) {
+        db.run(
+                "CALL apoc.periodic.iterate('MATCH (p:Person) RETURN p', 'SET p.score = p.age * 2', {batchSize: 1000}) "
+                        + "YIELD total RETURN total",
+                params,
+                blackhole);
+    }
+
+    @Benchmark
+    public void periodicIterateParallel(Blackhole blackhole) {
+        db.run(
+                "CALL apoc.periodic.iterate('MATCH (p:Person) RETURN p', 'SET p.score = p.age * 2', {batchSize: 1000, parallel: true}) "
+                        + "YIELD total RETURN total",
+                params,
+                blackhole);
+    }
+
+    @Benchmark
+    public void pathExpandConfig(Blackhole blackhole) {
+        db.run(
+                "MATCH (p:Person {id: $id}) "
+                        + "CALL apoc.path.expandConfig(p, {relationshipFilter: 'KNOWS>', maxLevel: 3}) YIELD path "
+                        + "RETURN count(*)",
+                params,
+                blackhole);
+    }
+
+    @Benchmark
+    public void pathExpandConfigNodeGlobal(Blackhole blackhole) {
+        db.run(
+                "MATCH (p:Person {id: $id}) "
+                        + "CALL apoc.path.expandConfig(p, {relationshipFilter: 'KNOWS', maxLevel: 3, uniqueness: 'NODE_GLOBAL'}) YIELD path "
+                        + "RETURN count(*)",
+                params,
+                blackhole);
+    }
+
+    @Benchmark
+    public void neighborsToHopCount(Blackhole blackhole) {
+        db.run(
+                "MATCH (p:Person {id: $id}) CALL apoc.neighbors.tohop.count(p, 'KNOWS', 3) YIELD value RETURN value",
+                params,
+                blackhole);
+    }
+
+    @Benchmark
+    public void nodesGroup(Blackhole blackhole) {
+        db.run(
+                "CALL apoc.nodes.group(['Person'], ['city'], [{`*`: 'count', age: ['min', 'max', 'avg']}, {`*`: 'count'}]) "
+                        + "YIELD node, relationships RETURN node, relationships",
+                params,
+                blackhole);
+    }
+
+    @Benchmark
+    public void metaSchemaSampled(Blackhole blackhole) {
+        db.run("CALL apoc.meta.schema({sample: 100}) YIELD value RETURN value", params, blackhole);
+    }
+
+    @Benchmark
+    public void metaNodeTypePropertiesSampled(Blackhole blackhole) {
+        db.run("CALL apoc.meta.nodeTypeProperties({sample: 100})", params, blackhole);
+    }
+
+    @Benchmark
+    public void metaStats(Blackhole blackhole) {
+        db.run("CALL apoc.meta.stats()", params, blackhole);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.benchmark;
+
+import apoc.export.csv.ImportCsv;
+import apoc.export.json.ExportJson;
+import apoc.export.json.ImportJson;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Imports of a generated social graph from CSV and JSON files into an empty database.
+ * Every import is measured once and the database is emptied again after each iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(
+        value = 1,
+        jvmArgs = {"-Xms4g", "-Xmx4g"})
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class ImportBenchmark {
+
+    @Param({"10000"})
+    public int persons;
+
+    private BenchmarkDatabase db;
+    private final Map<String, Object> params = Map.of();
+
+    @Setup
+    public void setUp() {
+        db = new BenchmarkDatabase(ImportCsv.class, ImportJson.class, ExportJson.class);
+        Datasets.SocialGraph graph = new Datasets.SocialGraph(persons, 5);
+        graph.writeCsv(db.directory().resolve("persons.csv"), db.directory().resolve("knows.csv"));
+        graph.create(db.db());
+        db.run("CALL apoc.export.json.all('graph.json', {})");
+        db.run("CREATE CONSTRAINT person_import_id FOR (p:Person) REQUIRE p.neo4jImportId IS UNIQUE");
+        deleteAll();
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteAll() {
+        db.run("MATCH (n) DETACH DELETE n");
+    }
+
+    @TearDown
+    public void tearDown() {
+        db.shutdown();
+    }
+
+    @Benchmark
+    public void importCsv(Blackhole blackhole) {
+        db.run(
+                "CALL apoc.import.csv([{fileName: 'persons.csv', labels: ['Person']}], [{fileName: 'knows.csv', type: 'KNOWS'}], {})",
+                params,
+                blackhole);
+    }
+
+    @Benchmark
+    public void importJson(Blackhole blackhole) {
+        db.run("CALL apoc.import.json('graph.json')", params, blackhole);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.agg;
+
+import apoc.sketch.HyperLogLog;
+import org.neo4j.procedure.*;
+
+public class DistinctSketch {
+    @UserAggregationFunction("apoc.agg.distinctCount")
+    @Description(
+            "apoc.agg.distinctCount(value, [precision = 14]) - returns the estimated number of distinct non-null values using a HyperLogLog sketch of 2^precision bytes")
+    public DistinctCountFunction distinctCount() {
+        return new DistinctCountFunction();
+    }
+
+    @UserAggregationFunction("apoc.agg.distinctSketch")
+    @Description(
+            "apoc.agg.distinctSketch(value, [precision = 14]) - returns a HyperLogLog sketch of the non-null values as a byte array, that can be stored in a property, merged and queried with apoc.sketch.distinctCount")
+    public DistinctSketchFunction distinctSketch() {
+        return new DistinctSketchFunction();
+    }
+
+    @UserAggregationFunction("apoc.agg.distinctSketchMerge")
+    @Description(
+            "apoc.agg.distinctSketchMerge(sketch) - merges the distinct count sketches created with apoc.agg.distinctSketch into one")
+    public DistinctSketchMergeFunction distinctSketchMerge() {
+        return new DistinctSketchMergeFunction();
+    }
+
+    public static class DistinctCountFunction {
+        private HyperLogLog sketch;
+
+        @UserAggregationUpdate
+        public void aggregate(
+                @Name("value") Object value, @Name(value = "precision", defaultValue = "14") long precision) {
+            if (sketch == null) {
+                sketch = new HyperLogLog((int) precision);
+            }
+            sketch.add(value);
+        }
+
+        @UserAggregationResult
+        public long result() {
+            return sketch == null ? 0 : sketch.cardinality();
+        }
+    }
+
+    public static class DistinctSketchFunction {
+        private HyperLogLog sketch;
+
+        @UserAggregationUpdate
+        public void aggregate(
+                @Name("value") Object value, @Name(value = "precision", defaultValue = "14") long precision) {
+            if (sketch == null) {
+                sketch = new HyperLogLog((int) precision);
+            }
+            sketch.add(value);
+        }
+
+        @UserAggregationResult
+        public byte[] result() {
+            return sketch == null ? null : sketch.toBytes();
+        }
+    }
+
+    public static class DistinctSketchMergeFunction {
+        private HyperLogLog sketch;
+
+        @UserAggregationUpdate
+        public void aggregate(@Name("sketch") byte[] sketch) {
+            if (sketch == null) return;
+            HyperLogLog other = HyperLogLog.fromBytes(sketch);
+            if (this.sketch == null) {
+                this.sketch = other;
+            } else {
+                this.sketch.merge(other);
+            }
+        }
+
+        @UserAggregationResult
+        public byte[] result() {
+            return sketch == null ? null : sketch.toBytes();
+        }
+    }
+}
@@ -18,9 +18,9 @@
  */
 package apoc.agg;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import apoc.sketch.TDigest;
+import java.util.Map;
+import org.eclipse.collections.impl.list.mutable.primitive.DoubleArrayList;
 import org.neo4j.procedure.*;
 
 /**
@@ -29,25 +29,43 @@ import org.neo4j.procedure.*;
  */
 public class Median {
     @UserAggregationFunction("apoc.agg.median")
-    @Description("apoc.agg.median(number) - returns median for non-null numeric values")
+    @Description(
+            "apoc.agg.median(number, [config]) - returns median for non-null numeric values, config `{mode: 'exact' (default) or 'sketch', compression: 100}`")
     public MedianFunction median() {
         return new MedianFunction();
     }
 
     public static class MedianFunction {
-        private List<Double> values = new ArrayList<>();
+        private final DoubleArrayList values = new DoubleArrayList();
+        private TDigest digest;
+        private boolean configured;
 
         @UserAggregationUpdate
-        public void aggregate(@Name("value") Object value) {
+        public void aggregate(
+                @Name("value") Object value, @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+            if (!configured) {
+                QuantileConfig quantileConfig = new QuantileConfig(config, QuantileConfig.Mode.EXACT);
+                if (quantileConfig.getMode() == QuantileConfig.Mode.SKETCH) {
+                    digest = new TDigest(quantileConfig.getCompression());
+                }
+                configured = true;
+            }
             if (value instanceof Number) {
-                values.add(((Number) value).doubleValue());
+                if (digest != null) {
+                    digest.add(((Number) value).doubleValue());
+                } else {
+                    values.add(((Number) value).doubleValue());
+                }
             }
         }
 
         @UserAggregationResult
         public Object result() {
+            if (digest != null) {
+                return digest.isEmpty() ? null : digest.quantile(0.5);
+            }
             if (values.isEmpty()) return null;
-            Collections.sort(values);
+            values.sortThis();
             int size = values.size();
             if (size % 2 == 1) {
                 return values.get(size / 2);
@@ -20,11 +20,14 @@ package apoc.agg;
 
 import static java.util.Arrays.asList;
 
+import apoc.sketch.TDigest;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import org.HdrHistogram.DoubleHistogram;
 import org.HdrHistogram.Histogram;
 import org.HdrHistogram.HistogramUtil;
+import org.eclipse.collections.impl.list.mutable.primitive.DoubleArrayList;
 import org.neo4j.procedure.*;
 
 /**
@@ -34,7 +37,7 @@ import org.neo4j.procedure.*;
 public class Percentiles {
     @UserAggregationFunction("apoc.agg.percentiles")
     @Description(
-            "apoc.agg.percentiles(value,[percentiles = 0.5,0.75,0.9,0.95,0.99]) - returns given percentiles for values")
+            "apoc.agg.percentiles(value,[percentiles = 0.5,0.75,0.9,0.95,0.99],[config]) - returns given percentiles for values, config `{mode: 'histogram' (default), 'exact' or 'sketch', compression: 100}`")
     public PercentilesFunction percentiles() {
         return new PercentilesFunction();
     }
@@ -43,14 +46,38 @@ public class Percentiles {
 
         private Histogram values = new Histogram(3);
         private DoubleHistogram doubles;
+        private DoubleArrayList exact;
+        private TDigest digest;
+        private boolean configured;
         private List<Double> percentiles = asList(0.5D, 0.75D, 0.9D, 0.95D, 0.9D, 0.99D);
 
         @UserAggregationUpdate
         public void aggregate(
                 @Name("value") Number value,
-                @Name(value = "percentiles", defaultValue = "[0.5,0.75,0.9,0.95,0.99]") List<Double> percentiles) {
+                @Name(value = "percentiles", defaultValue = "[0.5,0.75,0.9,0.95,0.99]") List<Double> percentiles,
+                @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+            if (!configured) {
+                QuantileConfig quantileConfig = new QuantileConfig(config, QuantileConfig.Mode.HISTOGRAM);
+                switch (quantileConfig.getMode()) {
+                    case EXACT:
+                        exact = new DoubleArrayList();
+                        values = null;
+                        break;
+                    case SKETCH:
+                        digest = new TDigest(quantileConfig.getCompression());
+                        values = null;
+                        break;
+                    default:
+                        break;
+                }
+                configured = true;
+            }
             if (value != null) {
-                if (doubles != null) {
+                if (exact != null) {
+                    exact.add(value.doubleValue());
+                } else if (digest != null) {
+                    digest.add(value.doubleValue());
+                } else if (doubles != null) {
                     doubles.recordValue(value.doubleValue());
                 } else if (value instanceof Double || value instanceof Float) {
                     this.doubles = HistogramUtil.toDoubleHistogram(values, 5);
@@ -65,14 +92,26 @@ public class Percentiles {
 
         @UserAggregationResult
         public List<Number> result() {
-            long totalCount = values != null ? values.getTotalCount() : doubles.getTotalCount();
+            long totalCount;
+            if (exact != null) {
+                totalCount = exact.size();
+                exact.sortThis();
+            } else if (digest != null) {
+                totalCount = digest.count();
+            } else {
+                totalCount = values != null ? values.getTotalCount() : doubles.getTotalCount();
+            }
             boolean empty = totalCount == 0;
             List<Number> result = new ArrayList<>(percentiles.size());
             for (Double percentile : percentiles) {
                 if (percentile == null || empty) {
                     result.add(null);
                 } else {
-                    if (values != null) {
+                    if (exact != null) {
+                        result.add(QuantileConfig.nearestRank(exact, percentile));
+                    } else if (digest != null) {
+                        result.add(digest.quantile(percentile));
+                    } else if (values != null) {
                         result.add(values.getValueAtPercentile(percentile * 100D));
                     } else {
                         result.add(doubles.getValueAtPercentile(percentile * 100D));
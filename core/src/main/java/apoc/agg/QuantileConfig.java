@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.agg;
+
+import apoc.sketch.TDigest;
+import apoc.util.Util;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import org.eclipse.collections.impl.list.mutable.primitive.DoubleArrayList;
+
+/**
+ * Config of the quantile aggregations: {@code mode} is one of {@code exact}, which keeps all values in a primitive
+ * array, {@code sketch}, which uses a t-digest with the given {@code compression}, or {@code histogram}.
+ */
+class QuantileConfig {
+
+    enum Mode {
+        EXACT,
+        SKETCH,
+        HISTOGRAM;
+
+        static Mode from(String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(
+                        "Unknown quantile mode " + name + ", supported are: exact, sketch, histogram");
+            }
+        }
+    }
+
+    private final Mode mode;
+    private final double compression;
+
+    QuantileConfig(Map<String, Object> config, Mode defaultMode) {
+        config = config == null ? Collections.emptyMap() : config;
+        Object mode = config.get("mode");
+        this.mode = mode == null ? defaultMode : Mode.from(mode.toString());
+        this.compression = Util.toDouble(config.getOrDefault("compression", TDigest.DEFAULT_COMPRESSION));
+    }
+
+    Mode getMode() {
+        return mode;
+    }
+
+    double getCompression() {
+        return compression;
+    }
+
+    /**
+     * The value at the given percentile of the sorted values, using the nearest rank,
+     * rounded the same way as the histogram so both modes agree on integer values.
+     */
+    static double nearestRank(DoubleArrayList sorted, double percentile) {
+        long rank = (long) (percentile * sorted.size() + 0.5);
+        return sorted.get((int) Math.min(sorted.size() - 1, Math.max(0, rank - 1)));
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.agg;
+
+import apoc.sketch.TDigest;
+import org.neo4j.procedure.*;
+
+public class QuantileSketch {
+    @UserAggregationFunction("apoc.agg.quantileSketch")
+    @Description(
+            "apoc.agg.quantileSketch(number, [compression = 100]) - returns a t-digest of the non-null numeric values as a byte array, that can be stored in a property, merged and queried with apoc.sketch.percentiles")
+    public QuantileSketchFunction quantileSketch() {
+        return new QuantileSketchFunction();
+    }
+
+    @UserAggregationFunction("apoc.agg.quantileSketchMerge")
+    @Description(
+            "apoc.agg.quantileSketchMerge(sketch) - merges the quantile sketches created with apoc.agg.quantileSketch into one")
+    public QuantileSketchMergeFunction quantileSketchMerge() {
+        return new QuantileSketchMergeFunction();
+    }
+
+    public static class QuantileSketchFunction {
+        private TDigest digest;
+
+        @UserAggregationUpdate
+        public void aggregate(
+                @Name("value") Object value, @Name(value = "compression", defaultValue = "100.0") double compression) {
+            if (digest == null) {
+                digest = new TDigest(compression);
+            }
+            if (value instanceof Number) {
+                digest.add(((Number) value).doubleValue());
+            }
+        }
+
+        @UserAggregationResult
+        public byte[] result() {
+            return digest == null || digest.isEmpty() ? null : digest.toBytes();
+        }
+    }
+
+    public static class QuantileSketchMergeFunction {
+        private TDigest digest;
+
+        @UserAggregationUpdate
+        public void aggregate(@Name("sketch") byte[] sketch) {
+            if (sketch == null) return;
+            TDigest other = TDigest.fromBytes(sketch);
+            if (digest == null) {
+                digest = other;
+            } else {
+                digest.merge(other);
+            }
+        }
+
+        @UserAggregationResult
+        public byte[] result() {
+            return digest == null ? null : digest.toBytes();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.agg;
+
+import apoc.sketch.SpaceSaving;
+import java.util.List;
+import java.util.Map;
+import org.neo4j.procedure.*;
+
+public class TopKSketch {
+    @UserAggregationFunction("apoc.agg.topK")
+    @Description(
+            "apoc.agg.topK(value, k, [capacity = max(1000, 10 * k)]) - returns the k most frequent non-null values as a list of {item, count, error} using a space-saving sketch of the given capacity")
+    public TopKFunction topK() {
+        return new TopKFunction();
+    }
+
+    @UserAggregationFunction("apoc.agg.topKSketch")
+    @Description(
+            "apoc.agg.topKSketch(value, [capacity = 1000]) - returns a space-saving sketch of the most frequent non-null values as a byte array, that can be stored in a property, merged and queried with apoc.sketch.topK")
+    public TopKSketchFunction topKSketch() {
+        return new TopKSketchFunction();
+    }
+
+    @UserAggregationFunction("apoc.agg.topKSketchMerge")
+    @Description(
+            "apoc.agg.topKSketchMerge(sketch) - merges the top-k sketches created with apoc.agg.topKSketch into one")
+    public TopKSketchMergeFunction topKSketchMerge() {
+        return new TopKSketchMergeFunction();
+    }
+
+    public static class TopKFunction {
+        private SpaceSaving sketch;
+        private int k;
+
+        @UserAggregationUpdate
+        public void aggregate(
+                @Name("value") Object value,
+                @Name("k") long k,
+                @Name(value = "capacity", defaultValue = "-1") long capacity) {
+            if (sketch == null) {
+                this.k = (int) k;
+                sketch = new SpaceSaving(
+                        (int) (capacity > 0 ? capacity : Math.max(SpaceSaving.DEFAULT_CAPACITY, 10 * k)));
+            }
+            sketch.add(value);
+        }
+
+        @UserAggregationResult
+        public List<Map<String, Object>> result() {
+            return sketch == null ? List.of() : sketch.top(k);
+        }
+    }
+
+    public static class TopKSketchFunction {
+        private SpaceSaving sketch;
+
+        @UserAggregationUpdate
+        public void aggregate(
+                @Name("value") Object value, @Name(value = "capacity", defaultValue = "1000") long capacity) {
+            if (sketch == null) {
+                sketch = new SpaceSaving((int) capacity);
+            }
+            sketch.add(value);
+        }
+
+        @UserAggregationResult
+        public byte[] result() {
+            return sketch == null ? null : sketch.toBytes();
+        }
+    }
+
+    public static class TopKSketchMergeFunction {
+        private SpaceSaving sketch;
+
+        @UserAggregationUpdate
+        public void aggregate(@Name("sketch") byte[] sketch) {
+            if (sketch == null) return;
+            SpaceSaving other = SpaceSaving.fromBytes(sketch);
+            if (this.sketch == null) {
+                this.sketch = other;
+            } else {
+                this.sketch.merge(other);
+            }
+        }
+
+        @UserAggregationResult
+        public byte[] result() {
+            return sketch == null ? null : sketch.toBytes();
+        }
+    }
+}
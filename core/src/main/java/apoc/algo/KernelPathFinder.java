@@ -0,0 +1,537 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.algo;
+
+import apoc.path.RelationshipTypeAndDirections;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import org.eclipse.collections.api.list.primitive.ImmutableLongList;
+import org.eclipse.collections.impl.factory.primitive.LongLists;
+import org.eclipse.collections.impl.map.mutable.primitive.LongDoubleHashMap;
+import org.eclipse.collections.impl.map.mutable.primitive.LongLongHashMap;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
+import org.neo4j.graphalgo.WeightedPath;
+import org.neo4j.graphalgo.impl.util.PathImpl;
+import org.neo4j.graphalgo.impl.util.WeightedPathImpl;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.internal.helpers.collection.PrefetchingIterator;
+import org.neo4j.internal.kernel.api.CursorFactory;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.PropertyCursor;
+import org.neo4j.internal.kernel.api.Read;
+import org.neo4j.internal.kernel.api.RelationshipTraversalCursor;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.storageengine.api.PropertySelection;
+import org.neo4j.storageengine.api.RelationshipSelection;
+import org.neo4j.values.storable.NumberValue;
+import org.neo4j.values.storable.PointValue;
+import org.neo4j.values.storable.TextValue;
+import org.neo4j.values.storable.Value;
+
+/**
+ * Weighted shortest path search (Dijkstra, or A* when an estimate is configured) over kernel cursors.
+ * Relationship types and the weight and coordinate property keys are resolved to token ids once,
+ * distances and predecessors are kept in primitive maps keyed by node id and the open set is a
+ * primitive binary heap, so no {@link org.neo4j.graphdb.Node} or {@link org.neo4j.graphdb.Relationship}
+ * is created until a found path is returned.
+ * The search stops as soon as the end node is settled; more than one path is found with Yen's algorithm.
+ */
+class KernelPathFinder implements AutoCloseable {
+
+    static final String ENGINE_CONFIG_KEY = "engine";
+    static final String KERNEL_ENGINE = "kernel";
+    private static final long NO_NODE = -1L;
+
+    private final Transaction tx;
+    private final Read read;
+    private final RelationshipSelection[] selections;
+    private final int weightKey;
+    private final double defaultWeight;
+
+    private final NodeCursor nodeCursor;
+    private final RelationshipTraversalCursor relationshipCursor;
+    private final PropertyCursor propertyCursor;
+    private final NodeCursor estimateNodeCursor;
+    private final PropertyCursor estimatePropertyCursor;
+
+    private final LongDoubleHashMap weights = new LongDoubleHashMap();
+    private final LongDoubleHashMap estimates = new LongDoubleHashMap();
+    private final LongDoubleHashMap distances = new LongDoubleHashMap();
+    private final LongLongHashMap previousNode = new LongLongHashMap();
+    private final LongLongHashMap previousRelationship = new LongLongHashMap();
+    private final LongHashSet settled = new LongHashSet();
+    private final Heap heap = new Heap();
+
+    private long unexpanded = NO_NODE;
+    private int[] estimateKeys;
+    private boolean estimateFromPoint;
+    private double[] goalCoordinates;
+
+    KernelPathFinder(
+            Transaction tx,
+            KernelTransaction ktx,
+            String relationshipTypesAndDirections,
+            String weightPropertyName,
+            double defaultWeight) {
+        this.tx = tx;
+        this.read = ktx.dataRead();
+        TokenRead tokenRead = ktx.tokenRead();
+        this.selections = RelationshipTypeAndDirections.selections(
+                tokenRead, RelationshipTypeAndDirections.parse(relationshipTypesAndDirections));
+        this.weightKey = tokenRead.propertyKey(weightPropertyName);
+        this.defaultWeight = defaultWeight;
+        CursorFactory cursors = ktx.cursors();
+        this.nodeCursor = cursors.allocateNodeCursor(ktx.cursorContext());
+        this.relationshipCursor = cursors.allocateRelationshipTraversalCursor(ktx.cursorContext());
+        this.propertyCursor = cursors.allocatePropertyCursor(ktx.cursorContext(), ktx.memoryTracker());
+        this.estimateNodeCursor = cursors.allocateNodeCursor(ktx.cursorContext());
+        this.estimatePropertyCursor = cursors.allocatePropertyCursor(ktx.cursorContext(), ktx.memoryTracker());
+    }
+
+    static boolean isEnabled(Map<String, Object> config) {
+        return config != null
+                && KERNEL_ENGINE.equalsIgnoreCase(String.valueOf(config.getOrDefault(ENGINE_CONFIG_KEY, "")));
+    }
+
+    /**
+     * Turns the search into A*, estimating the remaining cost by the geographic distance in meters
+     * between the latitude and longitude properties of a node and those of the end node.
+     */
+    KernelPathFinder withGeoEstimate(TokenRead tokenRead, String latPropertyName, String lonPropertyName) {
+        this.estimateKeys = new int[] {tokenRead.propertyKey(latPropertyName), tokenRead.propertyKey(lonPropertyName)};
+        this.estimateFromPoint = false;
+        return this;
+    }
+
+    /**
+     * Turns the search into A*, estimating the remaining cost by the geographic distance in meters
+     * between the point property of a node and that of the end node.
+     */
+    KernelPathFinder withPointEstimate(TokenRead tokenRead, String pointPropertyName) {
+        this.estimateKeys = new int[] {tokenRead.propertyKey(pointPropertyName)};
+        this.estimateFromPoint = true;
+        return this;
+    }
+
+    /**
+     * @return up to {@code numberOfWantedPaths} loopless paths ordered by ascending weight
+     */
+    List<WeightedPath> findPaths(long startNodeId, long endNodeId, int numberOfWantedPaths) {
+        if (numberOfWantedPaths < 1) {
+            return List.of();
+        }
+        if (estimateKeys != null) {
+            estimates.clear();
+            goalCoordinates = coordinates(endNodeId);
+        }
+        RawPath shortest = search(startNodeId, endNodeId, new LongHashSet(), new LongHashSet());
+        if (shortest == null) {
+            return List.of();
+        }
+        List<RawPath> found = new ArrayList<>();
+        found.add(shortest);
+        PriorityQueue<RawPath> candidates = new PriorityQueue<>();
+        Set<ImmutableLongList> seen = new HashSet<>();
+        seen.add(shortest.relationshipList());
+
+        while (found.size() < numberOfWantedPaths) {
+            RawPath previous = found.get(found.size() - 1);
+            for (int spur = 0; spur < previous.relationships.length; spur++) {
+                LongHashSet bannedRelationships = new LongHashSet();
+                for (RawPath path : found) {
+                    if (path.relationships.length > spur && path.sharesRoot(previous, spur)) {
+                        bannedRelationships.add(path.relationships[spur]);
+                    }
+                }
+                LongHashSet bannedNodes = new LongHashSet();
+                for (int i = 0; i < spur; i++) {
+                    bannedNodes.add(previous.nodes[i]);
+                }
+                RawPath spurPath = search(previous.nodes[spur], endNodeId, bannedNodes, bannedRelationships);
+                if (spurPath != null) {
+                    RawPath candidate = previous.root(spur).append(spurPath);
+                    if (seen.add(candidate.relationshipList())) {
+                        candidates.add(candidate);
+                    }
+                }
+            }
+            if (candidates.isEmpty()) {
+                break;
+            }
+            found.add(candidates.poll());
+        }
+
+        List<WeightedPath> result = new ArrayList<>(found.size());
+        for (RawPath path : found) {
+            result.add(path.toWeightedPath(tx));
+        }
+        return result;
+    }
+
+    /**
+     * Runs one expansion from the start node and returns the path to each end node as soon as it is settled,
+     * so the paths are ordered by ascending weight. The expansion stops once every end node is settled
+     * or the closest remaining node is further away than {@code maxCost}.
+     * The iterator uses the state of this finder, which must not be used otherwise until it is exhausted.
+     */
+    Iterator<WeightedPath> pathsTo(long startNodeId, long[] endNodeIds, double maxCost) {
+        LongHashSet remaining = LongHashSet.newSetWith(endNodeIds);
+        LongHashSet none = new LongHashSet();
+        reset(startNodeId);
+        return new PrefetchingIterator<>() {
+            @Override
+            protected WeightedPath fetchNextOrNull() {
+                while (!remaining.isEmpty()) {
+                    long nodeId = settleNext(none, none, maxCost);
+                    if (nodeId == NO_NODE) {
+                        return null;
+                    }
+                    if (remaining.remove(nodeId)) {
+                        return path(startNodeId, nodeId).toWeightedPath(tx);
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    private RawPath search(long startNodeId, long endNodeId, LongHashSet bannedNodes, LongHashSet bannedRelationships) {
+        reset(startNodeId);
+        long nodeId;
+        while ((nodeId = settleNext(bannedNodes, bannedRelationships, Double.POSITIVE_INFINITY)) != NO_NODE) {
+            if (nodeId == endNodeId) {
+                return path(startNodeId, endNodeId);
+            }
+        }
+        return null;
+    }
+
+    private void reset(long startNodeId) {
+        distances.clear();
+        previousNode.clear();
+        previousRelationship.clear();
+        settled.clear();
+        heap.clear();
+        unexpanded = NO_NODE;
+
+        distances.put(startNodeId, 0D);
+        heap.push(startNodeId, estimate(startNodeId));
+    }
+
+    /**
+     * Expands the node settled by the previous call, then settles the closest node which is not settled yet.
+     * Expanding lazily means the search stops on the end node without reading its relationships.
+     *
+     * @return the id of the settled node, or {@link #NO_NODE} when no node within {@code maxCost} is left
+     */
+    private long settleNext(LongHashSet bannedNodes, LongHashSet bannedRelationships, double maxCost) {
+        if (unexpanded != NO_NODE) {
+            expand(unexpanded, bannedNodes, bannedRelationships);
+            unexpanded = NO_NODE;
+        }
+        while (!heap.isEmpty()) {
+            long nodeId = heap.peekId();
+            heap.pop();
+            if (!settled.add(nodeId)) {
+                continue;
+            }
+            if (distances.get(nodeId) > maxCost) {
+                heap.clear();
+                return NO_NODE;
+            }
+            unexpanded = nodeId;
+            return nodeId;
+        }
+        return NO_NODE;
+    }
+
+    private void expand(long nodeId, LongHashSet bannedNodes, LongHashSet bannedRelationships) {
+        double distance = distances.get(nodeId);
+        read.singleNode(nodeId, nodeCursor);
+        if (!nodeCursor.next()) {
+            return;
+        }
+        for (RelationshipSelection selection : selections) {
+            nodeCursor.relationships(relationshipCursor, selection);
+            while (relationshipCursor.next()) {
+                long relationshipId = relationshipCursor.relationshipReference();
+                long otherId = relationshipCursor.otherNodeReference();
+                if (otherId == nodeId
+                        || settled.contains(otherId)
+                        || bannedNodes.contains(otherId)
+                        || bannedRelationships.contains(relationshipId)) {
+                    continue;
+                }
+                double newDistance = distance + weight(relationshipId);
+                // a NaN weight never compares lower, so those relationships are not traversable
+                if (newDistance < distances.getIfAbsent(otherId, Double.POSITIVE_INFINITY)) {
+                    distances.put(otherId, newDistance);
+                    previousNode.put(otherId, nodeId);
+                    previousRelationship.put(otherId, relationshipId);
+                    heap.push(otherId, newDistance + estimate(otherId));
+                }
+            }
+        }
+    }
+
+    private RawPath path(long startNodeId, long endNodeId) {
+        int length = 0;
+        for (long nodeId = endNodeId; nodeId != startNodeId; nodeId = previousNode.get(nodeId)) {
+            length++;
+        }
+        long[] nodes = new long[length + 1];
+        long[] relationships = new long[length];
+        double[] costs = new double[length + 1];
+        long nodeId = endNodeId;
+        for (int i = length; i > 0; i--) {
+            nodes[i] = nodeId;
+            costs[i] = distances.get(nodeId);
+            relationships[i - 1] = previousRelationship.get(nodeId);
+            nodeId = previousNode.get(nodeId);
+        }
+        nodes[0] = startNodeId;
+        return new RawPath(nodes, relationships, costs);
+    }
+
+    private double weight(long relationshipId) {
+        double weight = weights.getIfAbsent(relationshipId, Double.NaN);
+        if (!Double.isNaN(weight) || weights.containsKey(relationshipId)) {
+            return weight;
+        }
+        weight = defaultWeight;
+        if (weightKey != TokenRead.NO_TOKEN) {
+            relationshipCursor.properties(propertyCursor, PropertySelection.selection(weightKey));
+            if (propertyCursor.next()) {
+                weight = toDouble(propertyCursor.propertyValue());
+            }
+        }
+        weights.put(relationshipId, weight);
+        return weight;
+    }
+
+    private double toDouble(Value value) {
+        if (value instanceof NumberValue) {
+            return ((NumberValue) value).doubleValue();
+        }
+        if (value instanceof TextValue) {
+            try {
+                return Double.parseDouble(((TextValue) value).stringValue());
+            } catch (NumberFormatException e) {
+                return defaultWeight;
+            }
+        }
+        return defaultWeight;
+    }
+
+    private double estimate(long nodeId) {
+        if (goalCoordinates == null) {
+            return 0D;
+        }
+        double estimate = estimates.getIfAbsent(nodeId, -1D);
+        if (estimate < 0) {
+            double[] coordinates = coordinates(nodeId);
+            estimate = coordinates == null
+                    ? 0D
+                    : PathFinding.GeoEstimateEvaluatorPointCustom.distance(
+                            coordinates[0], coordinates[1], goalCoordinates[0], goalCoordinates[1]);
+            estimates.put(nodeId, estimate);
+        }
+        return estimate;
+    }
+
+    /**
+     * @return the longitude and latitude of the node, or null if they are not set
+     */
+    private double[] coordinates(long nodeId) {
+        if (estimateKeys == null) {
+            return null;
+        }
+        for (int key : estimateKeys) {
+            if (key == TokenRead.NO_TOKEN) {
+                return null;
+            }
+        }
+        read.singleNode(nodeId, estimateNodeCursor);
+        if (!estimateNodeCursor.next()) {
+            return null;
+        }
+        estimateNodeCursor.properties(estimatePropertyCursor, PropertySelection.selection(estimateKeys));
+        if (estimateFromPoint) {
+            if (estimatePropertyCursor.next() && estimatePropertyCursor.propertyValue() instanceof PointValue) {
+                double[] coordinate = ((PointValue) estimatePropertyCursor.propertyValue()).coordinate();
+                return new double[] {coordinate[0], coordinate[1]};
+            }
+            return null;
+        }
+        double latitude = Double.NaN;
+        double longitude = Double.NaN;
+        while (estimatePropertyCursor.next()) {
+            Value value = estimatePropertyCursor.propertyValue();
+            if (!(value instanceof NumberValue)) {
+                return null;
+            }
+            if (estimatePropertyCursor.propertyKey() == estimateKeys[0]) {
+                latitude = ((NumberValue) value).doubleValue();
+            } else {
+                longitude = ((NumberValue) value).doubleValue();
+            }
+        }
+        return Double.isNaN(latitude) || Double.isNaN(longitude) ? null : new double[] {longitude, latitude};
+    }
+
+    @Override
+    public void close() {
+        estimatePropertyCursor.close();
+        estimateNodeCursor.close();
+        propertyCursor.close();
+        relationshipCursor.close();
+        nodeCursor.close();
+    }
+
+    /**
+     * A path as node and relationship ids, with the cumulative cost at each node.
+     */
+    private static class RawPath implements Comparable<RawPath> {
+        final long[] nodes;
+        final long[] relationships;
+        final double[] costs;
+
+        RawPath(long[] nodes, long[] relationships, double[] costs) {
+            this.nodes = nodes;
+            this.relationships = relationships;
+            this.costs = costs;
+        }
+
+        double weight() {
+            return costs[costs.length - 1];
+        }
+
+        boolean sharesRoot(RawPath other, int length) {
+            return Arrays.equals(relationships, 0, length, other.relationships, 0, length);
+        }
+
+        RawPath root(int length) {
+            return new RawPath(
+                    Arrays.copyOf(nodes, length + 1),
+                    Arrays.copyOf(relationships, length),
+                    Arrays.copyOf(costs, length + 1));
+        }
+
+        RawPath append(RawPath spur) {
+            int length = relationships.length;
+            long[] joinedNodes = Arrays.copyOf(nodes, length + spur.nodes.length);
+            System.arraycopy(spur.nodes, 1, joinedNodes, length + 1, spur.nodes.length - 1);
+            long[] joinedRelationships = Arrays.copyOf(relationships, length + spur.relationships.length);
+            System.arraycopy(spur.relationships, 0, joinedRelationships, length, spur.relationships.length);
+            double[] joinedCosts = Arrays.copyOf(costs, length + spur.costs.length);
+            double rootCost = costs[length];
+            for (int i = 1; i < spur.costs.length; i++) {
+                joinedCosts[length + i] = rootCost + spur.costs[i];
+            }
+            return new RawPath(joinedNodes, joinedRelationships, joinedCosts);
+        }
+
+        ImmutableLongList relationshipList() {
+            return LongLists.immutable.with(relationships);
+        }
+
+        WeightedPath toWeightedPath(Transaction tx) {
+            PathImpl.Builder builder = new PathImpl.Builder(tx.getNodeById(nodes[0]));
+            for (long relationshipId : relationships) {
+                builder = builder.push(tx.getRelationshipById(relationshipId));
+            }
+            return new WeightedPathImpl(weight(), builder.build());
+        }
+
+        @Override
+        public int compareTo(RawPath other) {
+            int result = Double.compare(weight(), other.weight());
+            return result != 0 ? result : Integer.compare(relationships.length, other.relationships.length);
+        }
+    }
+
+    /**
+     * Binary min-heap of node ids by priority. Entries are never decreased, a node whose distance improves
+     * is pushed again and the stale entries are skipped once the node is settled.
+     */
+    private static class Heap {
+        private long[] ids = new long[64];
+        private double[] priorities = new double[64];
+        private int size;
+
+        void clear() {
+            size = 0;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        long peekId() {
+            return ids[0];
+        }
+
+        void push(long id, double priority) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                priorities = Arrays.copyOf(priorities, size * 2);
+            }
+            int index = size++;
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (priorities[parent] <= priority) {
+                    break;
+                }
+                ids[index] = ids[parent];
+                priorities[index] = priorities[parent];
+                index = parent;
+            }
+            ids[index] = id;
+            priorities[index] = priority;
+        }
+
+        void pop() {
+            long id = ids[--size];
+            double priority = priorities[size];
+            int index = 0;
+            int half = size >>> 1;
+            while (index < half) {
+                int child = 2 * index + 1;
+                if (child + 1 < size && priorities[child + 1] < priorities[child]) {
+                    child++;
+                }
+                if (priority <= priorities[child]) {
+                    break;
+                }
+                ids[index] = ids[child];
+                priorities[index] = priorities[child];
+                index = child;
+            }
+            ids[index] = id;
+            priorities[index] = priority;
+        }
+    }
+}
@@ -23,12 +23,18 @@ import apoc.result.PathResult;
 import apoc.result.WeightedPathResult;
 import apoc.util.Util;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 import org.neo4j.graphalgo.*;
 import org.neo4j.graphdb.*;
 import org.neo4j.internal.helpers.collection.Pair;
+import org.neo4j.kernel.api.KernelTransaction;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Description;
 import org.neo4j.procedure.Name;
@@ -59,7 +65,7 @@ public class PathFinding {
             return distance(nodeCoordinates[0], nodeCoordinates[1], cachedGoalCoordinates[0], cachedGoalCoordinates[1]);
         }
 
-        private static double distance(double longitude1, double latitude1, double longitude2, double latitude2) {
+        static double distance(double longitude1, double latitude1, double longitude2, double latitude2) {
             latitude1 = Math.toRadians(latitude1);
             longitude1 = Math.toRadians(longitude1);
             latitude2 = Math.toRadians(latitude2);
@@ -87,17 +93,27 @@ public class PathFinding {
     @Context
     public Transaction tx;
 
+    @Context
+    public KernelTransaction ktx;
+
     @Procedure
-    @Description("apoc.algo.aStar(startNode, endNode, 'KNOWS|<WORKS_WITH|IS_MANAGER_OF>', 'distance','lat','lon') "
-            + "YIELD path, weight - run A* with relationship property name as cost function")
+    @Description(
+            "apoc.algo.aStar(startNode, endNode, 'KNOWS|<WORKS_WITH|IS_MANAGER_OF>', 'distance','lat','lon', {engine:'kernel'}) "
+                    + "YIELD path, weight - run A* with relationship property name as cost function")
     public Stream<WeightedPathResult> aStar(
             @Name("startNode") Node startNode,
             @Name("endNode") Node endNode,
             @Name("relationshipTypesAndDirections") String relTypesAndDirs,
             @Name("weightPropertyName") String weightPropertyName,
             @Name("latPropertyName") String latPropertyName,
-            @Name("lonPropertyName") String lonPropertyName) {
+            @Name("lonPropertyName") String lonPropertyName,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
 
+        if (KernelPathFinder.isEnabled(config)) {
+            KernelPathFinder finder = new KernelPathFinder(tx, ktx, relTypesAndDirs, weightPropertyName, Double.NaN)
+                    .withGeoEstimate(ktx.tokenRead(), latPropertyName, lonPropertyName);
+            return streamKernelPaths(startNode, endNode, finder, 1);
+        }
         PathFinder<WeightedPath> algo = GraphAlgoFactory.aStar(
                 new BasicEvaluationContext(tx, db),
                 buildPathExpander(relTypesAndDirs),
@@ -109,7 +125,7 @@ public class PathFinding {
     @Procedure
     @Description(
             "apoc.algo.aStarConfig(startNode, endNode, 'KNOWS|<WORKS_WITH|IS_MANAGER_OF>', {weight:'dist',default:10,"
-                    + "x:'lon',y:'lat', pointPropName:'point'}) YIELD path, weight - run A* with relationship property name as cost function")
+                    + "x:'lon',y:'lat', pointPropName:'point', engine:'kernel'}) YIELD path, weight - run A* with relationship property name as cost function")
     public Stream<WeightedPathResult> aStarConfig(
             @Name("startNode") Node startNode,
             @Name("endNode") Node endNode,
@@ -121,6 +137,19 @@ public class PathFinding {
                 config.getOrDefault("weight", "distance").toString();
         double defaultCost = ((Number) config.getOrDefault("default", Double.MAX_VALUE)).doubleValue();
         String pointPropertyName = (String) config.get("pointPropName");
+        if (KernelPathFinder.isEnabled(config)) {
+            KernelPathFinder finder =
+                    new KernelPathFinder(tx, ktx, relTypesAndDirs, relationshipCostPropertyKey, defaultCost);
+            if (pointPropertyName != null) {
+                finder.withPointEstimate(ktx.tokenRead(), pointPropertyName);
+            } else {
+                finder.withGeoEstimate(
+                        ktx.tokenRead(),
+                        config.getOrDefault("y", "latitude").toString(),
+                        config.getOrDefault("x", "longitude").toString());
+            }
+            return streamKernelPaths(startNode, endNode, finder, 1);
+        }
         final EstimateEvaluator<Double> estimateEvaluator;
         if (pointPropertyName != null) {
             estimateEvaluator = new GeoEstimateEvaluatorPointCustom(pointPropertyName);
@@ -139,7 +168,7 @@ public class PathFinding {
 
     @Procedure
     @Description(
-            "apoc.algo.dijkstra(startNode, endNode, 'KNOWS|<WORKS_WITH|IS_MANAGER_OF>', 'distance', defaultValue, numberOfWantedResults) YIELD path,"
+            "apoc.algo.dijkstra(startNode, endNode, 'KNOWS|<WORKS_WITH|IS_MANAGER_OF>', 'distance', defaultValue, numberOfWantedResults, {engine:'kernel'}) YIELD path,"
                     + " weight - run dijkstra with relationship property name as cost function")
     public Stream<WeightedPathResult> dijkstra(
             @Name("startNode") Node startNode,
@@ -147,8 +176,13 @@ public class PathFinding {
             @Name("relationshipTypesAndDirections") String relTypesAndDirs,
             @Name("weightPropertyName") String weightPropertyName,
             @Name(value = "defaultWeight", defaultValue = "NaN") double defaultWeight,
-            @Name(value = "numberOfWantedPaths", defaultValue = "1") long numberOfWantedPaths) {
+            @Name(value = "numberOfWantedPaths", defaultValue = "1") long numberOfWantedPaths,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
 
+        if (KernelPathFinder.isEnabled(config)) {
+            KernelPathFinder finder = new KernelPathFinder(tx, ktx, relTypesAndDirs, weightPropertyName, defaultWeight);
+            return streamKernelPaths(startNode, endNode, finder, (int) numberOfWantedPaths);
+        }
         PathFinder<WeightedPath> algo = GraphAlgoFactory.dijkstra(
                 buildPathExpander(relTypesAndDirs),
                 (relationship, direction) -> Util.toDouble(relationship.getProperty(weightPropertyName, defaultWeight)),
@@ -156,6 +190,35 @@ public class PathFinding {
         return WeightedPathResult.streamWeightedPathResult(startNode, endNode, algo);
     }
 
+    @Procedure
+    @Description(
+            "apoc.algo.dijkstraMany(startNode, [endNodes], 'KNOWS|<WORKS_WITH|IS_MANAGER_OF>', 'distance', defaultValue, {maxCost:100}) YIELD path,"
+                    + " weight - run a single dijkstra expansion from startNode and return the path to each of endNodes as it is reached")
+    public Stream<WeightedPathResult> dijkstraMany(
+            @Name("startNode") Node startNode,
+            @Name("endNodes") List<Node> endNodes,
+            @Name("relationshipTypesAndDirections") String relTypesAndDirs,
+            @Name("weightPropertyName") String weightPropertyName,
+            @Name(value = "defaultWeight", defaultValue = "NaN") double defaultWeight,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+
+        if (startNode == null || endNodes == null || endNodes.isEmpty()) {
+            return Stream.empty();
+        }
+        config = config == null ? Collections.emptyMap() : config;
+        Double maxCost = Util.toDouble(config.get("maxCost"));
+        long[] endNodeIds = endNodes.stream()
+                .filter(Objects::nonNull)
+                .mapToLong(Node::getId)
+                .toArray();
+        KernelPathFinder finder = new KernelPathFinder(tx, ktx, relTypesAndDirs, weightPropertyName, defaultWeight);
+        Iterator<WeightedPath> paths =
+                finder.pathsTo(startNode.getId(), endNodeIds, maxCost == null ? Double.POSITIVE_INFINITY : maxCost);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(paths, Spliterator.ORDERED), false)
+                .map(WeightedPathResult::new)
+                .onClose(finder::close);
+    }
+
     @Procedure
     @Description("apoc.algo.allSimplePaths(startNode, endNode, 'KNOWS|<WORKS_WITH|IS_MANAGER_OF>', 5) YIELD path, "
             + "weight - run allSimplePaths with relationships given and maxNodes")
@@ -191,6 +254,14 @@ public class PathFinding {
         return WeightedPathResult.streamWeightedPathResult(startNode, endNode, algo);
     }
 
+    private static Stream<WeightedPathResult> streamKernelPaths(
+            Node startNode, Node endNode, KernelPathFinder finder, int numberOfWantedPaths) {
+        try (finder) {
+            return finder.findPaths(startNode.getId(), endNode.getId(), numberOfWantedPaths).stream()
+                    .map(WeightedPathResult::new);
+        }
+    }
+
     public static PathExpander<Double> buildPathExpander(String relationshipsAndDirections) {
         PathExpanderBuilder builder = PathExpanderBuilder.empty();
         for (Pair<RelationshipType, Direction> pair : RelationshipTypeAndDirections.parse(relationshipsAndDirections)) {
@@ -25,15 +25,21 @@ import apoc.util.Util;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Stream;
 import org.apache.commons.lang3.ArrayUtils;
 import org.neo4j.exceptions.Neo4jException;
+import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.Entity;
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.procedure.*;
 
@@ -43,6 +49,13 @@ import org.neo4j.procedure.*;
  */
 public class Atomic {
 
+    public static final Label SHARD_LABEL = Label.label("AtomicShard");
+    public static final RelationshipType SHARD_OF = RelationshipType.withName("SHARD_OF");
+    public static final String SHARD_PROPERTY = "property";
+    public static final String SHARD_INDEX = "shard";
+    public static final String SHARD_VALUE = "value";
+    public static final int DEFAULT_SHARDS = 8;
+
     @Context
     public GraphDatabaseService db;
 
@@ -266,6 +279,143 @@ public class Atomic {
         return Stream.of(new AtomicResults(entity, property, oldValue[0], entity.getProperty(property)));
     }
 
+    /**
+     * increment a counter spread over shard nodes
+     */
+    @Procedure(mode = Mode.WRITE)
+    @Description(
+            "apoc.atomic.addSharded(node,propertyName,number,{shards:8}) Adds the 'number' value to one of the shards of a sharded counter, read it with apoc.atomic.shardedValue")
+    public Stream<ShardedResults> addSharded(
+            @Name("container") Object container,
+            @Name("propertyName") String property,
+            @Name("number") Number number,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+        Node node = checkIsNode(container);
+        if (config == null) config = Collections.emptyMap();
+        int shards = Util.toInteger(config.getOrDefault("shards", DEFAULT_SHARDS));
+        if (shards < 1) {
+            throw new RuntimeException("The number of shards must be at least 1, but was " + shards);
+        }
+        long times = Util.toLong(config.getOrDefault("times", 5));
+        // writers on the same thread, or with the same key, always use the same shard
+        Object key = config.get("key");
+        long hash = key == null ? Thread.currentThread().getId() : key.hashCode();
+        int shard = Math.floorMod(Long.hashCode(hash * 0x9E3779B97F4A7C15L), shards);
+
+        Node shardNode = getOrCreateShard(node, property, shard);
+        final Number[] newValue = new Number[1];
+        final Number[] oldValue = new Number[1];
+
+        final ExecutionContext executionContext = new ExecutionContext(tx, shardNode, SHARD_VALUE);
+        retry(
+                executionContext,
+                (context) -> {
+                    // a new shard starts from zero, of the same kind of number as the increment
+                    Number zero = number instanceof Double || number instanceof Float ? (Number) 0D : (Number) 0L;
+                    oldValue[0] = (Number) shardNode.getProperty(SHARD_VALUE, zero);
+                    newValue[0] = AtomicUtils.sum(oldValue[0], number);
+                    shardNode.setProperty(SHARD_VALUE, newValue[0]);
+                    return newValue[0];
+                },
+                times);
+
+        return Stream.of(new ShardedResults(node, property, shard, oldValue[0], newValue[0]));
+    }
+
+    /**
+     * fold the shards of a sharded counter into the node's property
+     */
+    @Procedure(mode = Mode.WRITE)
+    @Description(
+            "apoc.atomic.compactSharded(node,propertyName) Adds the values of the shards of a sharded counter to the node's property and resets the shards")
+    public Stream<AtomicResults> compactSharded(
+            @Name("container") Object container,
+            @Name("propertyName") String property,
+            @Name(value = "times", defaultValue = "5") Long times) {
+        Node node = checkIsNode(container);
+        final Object[] oldValue = new Object[1];
+        final Object[] newValue = new Object[1];
+
+        final ExecutionContext executionContext = new ExecutionContext(tx, node, property);
+        retry(
+                executionContext,
+                (context) -> {
+                    Number total = (Number) node.getProperty(property, null);
+                    oldValue[0] = total;
+                    for (Node shardNode : shardsOf(node, property)) {
+                        tx.acquireWriteLock(shardNode);
+                        Number value = (Number) shardNode.getProperty(SHARD_VALUE, null);
+                        if (value == null) continue;
+                        total = total == null ? value : AtomicUtils.sum(total, value);
+                        shardNode.setProperty(SHARD_VALUE, AtomicUtils.sub(value, value));
+                    }
+                    if (total != null) {
+                        node.setProperty(property, total);
+                    }
+                    newValue[0] = total;
+                    return total;
+                },
+                times);
+
+        return Stream.of(new AtomicResults(node, property, oldValue[0], newValue[0]));
+    }
+
+    @UserFunction
+    @Description(
+            "apoc.atomic.shardedValue(node,propertyName) Returns the value of a sharded counter, the node's property plus the values of all its shards")
+    public Number shardedValue(@Name("container") Object container, @Name("propertyName") String property) {
+        Node node = checkIsNode(container);
+        Number total = (Number) node.getProperty(property, null);
+        for (Node shardNode : shardsOf(node, property)) {
+            Number value = (Number) shardNode.getProperty(SHARD_VALUE, null);
+            if (value == null) continue;
+            total = total == null ? value : AtomicUtils.sum(total, value);
+        }
+        return total;
+    }
+
+    private Node getOrCreateShard(Node node, String property, int shard) {
+        Node shardNode = findShard(node, property, shard);
+        if (shardNode != null) {
+            return shardNode;
+        }
+        // only creating a shard locks the counter node, increments just lock their shard
+        tx.acquireWriteLock(node);
+        shardNode = findShard(node, property, shard);
+        if (shardNode == null) {
+            shardNode = tx.createNode(SHARD_LABEL);
+            shardNode.setProperty(SHARD_PROPERTY, property);
+            shardNode.setProperty(SHARD_INDEX, (long) shard);
+            shardNode.createRelationshipTo(node, SHARD_OF);
+        }
+        return shardNode;
+    }
+
+    private Node findShard(Node node, String property, int shard) {
+        for (Node shardNode : shardsOf(node, property)) {
+            if (((Number) shardNode.getProperty(SHARD_INDEX)).intValue() == shard) {
+                return shardNode;
+            }
+        }
+        return null;
+    }
+
+    private List<Node> shardsOf(Node node, String property) {
+        List<Node> shards = new ArrayList<>();
+        for (Relationship rel : node.getRelationships(Direction.INCOMING, SHARD_OF)) {
+            Node shardNode = rel.getStartNode();
+            if (property.equals(shardNode.getProperty(SHARD_PROPERTY, null))) {
+                shards.add(shardNode);
+            }
+        }
+        return shards;
+    }
+
+    private Node checkIsNode(Object container) {
+        if (!(container instanceof Node)) throw new RuntimeException("You Must pass a Node for a sharded counter");
+        return Util.rebind(tx, (Node) container);
+    }
+
     private static class ExecutionContext {
         private final Transaction tx;
 
@@ -290,14 +440,16 @@ public class Atomic {
     }
 
     private void retry(ExecutionContext executionContext, Function<ExecutionContext, Object> work, Long times) {
-        try {
-            tx.acquireWriteLock(executionContext.entity);
-            work.apply(executionContext);
-        } catch (Neo4jException | NotFoundException | AssertionError e) {
-            if (times > 0) {
-                retry(executionContext, work, times - 1);
-            } else {
-                throw e;
+        for (long attempt = 0; ; attempt++) {
+            try {
+                tx.acquireWriteLock(executionContext.entity);
+                work.apply(executionContext);
+                return;
+            } catch (Neo4jException | NotFoundException | AssertionError e) {
+                if (attempt >= times) {
+                    throw e;
+                }
+                AtomicUtils.backoff(attempt);
             }
         }
     }
@@ -306,6 +458,22 @@ public class Atomic {
         if (!(container instanceof Entity)) throw new RuntimeException("You Must pass Node or Relationship");
     }
 
+    public class ShardedResults {
+        public Object container;
+        public String property;
+        public long shard;
+        public Object oldValue;
+        public Object newValue;
+
+        public ShardedResults(Object container, String property, long shard, Object oldValue, Object newValue) {
+            this.container = container;
+            this.property = property;
+            this.shard = shard;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+        }
+    }
+
     public class AtomicResults {
         public Object container;
         public String property;
@@ -18,6 +18,8 @@
  */
 package apoc.atomic.util;
 
+import java.util.concurrent.ThreadLocalRandom;
+
 /**
  * @author AgileLARUS
  *
@@ -44,4 +46,21 @@ public class AtomicUtils {
         if (oldValue instanceof Byte) return oldValue.byteValue() - number.byteValue();
         return null;
     }
+
+    public static final long BACKOFF_BASE_MILLIS = 10;
+    public static final long BACKOFF_MAX_MILLIS = 1000;
+
+    /**
+     * Sleeps for a random time between 0 and an exponentially growing bound ("full jitter"), so that writers which
+     * failed on the same lock do not all come back at the same time.
+     */
+    public static void backoff(long attempt) {
+        long bound = BACKOFF_BASE_MILLIS << Math.min(attempt, 16);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(Math.min(bound, BACKOFF_MAX_MILLIS) + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting to retry", e);
+        }
+    }
 }
@@ -25,7 +25,6 @@ import static java.util.Arrays.asList;
 
 import apoc.result.ListResult;
 import apoc.util.Util;
-import com.google.common.util.concurrent.AtomicDouble;
 import java.lang.reflect.Array;
 import java.text.Collator;
 import java.util.ArrayList;
@@ -82,8 +81,7 @@ public class Coll {
             @Name("list") List<Number> list,
             @Name(value = "isBiasCorrected", defaultValue = "true") boolean isBiasCorrected) {
         if (list == null || list.isEmpty()) return null;
-        final double stdev = new StandardDeviation(isBiasCorrected)
-                .evaluate(list.stream().mapToDouble(Number::doubleValue).toArray());
+        final double stdev = new StandardDeviation(isBiasCorrected).evaluate(NumericLists.toDoubles(list));
         if ((long) stdev == stdev) return (long) stdev;
         return stdev;
     }
@@ -93,14 +91,14 @@ public class Coll {
             "apoc.coll.runningTotal(list1) - returns an accumulative array. For example apoc.coll.runningTotal([1,2,3.5]) return [1,3,6.5]")
     public List<Number> runningTotal(@Name("list") List<Number> list) {
         if (list == null || list.isEmpty()) return null;
-        AtomicDouble sum = new AtomicDouble();
-        return list.stream()
-                .map(i -> {
-                    double value = sum.addAndGet(i.doubleValue());
-                    if (value == sum.longValue()) return sum.longValue();
-                    return value;
-                })
-                .collect(Collectors.toList());
+        List<Number> result = new ArrayList<>(list.size());
+        double sum = 0;
+        for (Number number : list) {
+            sum += number.doubleValue();
+            if (sum == (long) sum) result.add((long) sum);
+            else result.add(sum);
+        }
+        return result;
     }
 
     @Procedure
@@ -167,6 +165,8 @@ public class Coll {
     public Object min(@Name("values") List<Object> list) {
         if (list == null || list.isEmpty()) return null;
         if (list.size() == 1) return list.get(0);
+        int index = NumericLists.indexOfExtreme(list, false);
+        if (index >= 0) return list.get(index);
 
         try (Result result = tx.execute(
                 "cypher runtime=slotted return reduce(res=null, x in $list | CASE WHEN res IS NULL OR x<res THEN x ELSE res END) as value",
@@ -180,6 +180,8 @@ public class Coll {
     public Object max(@Name("values") List<Object> list) {
         if (list == null || list.isEmpty()) return null;
         if (list.size() == 1) return list.get(0);
+        int index = NumericLists.indexOfExtreme(list, true);
+        if (index >= 0) return list.get(index);
         try (Result result = tx.execute(
                 "cypher runtime=slotted return reduce(res=null, x in $list | CASE WHEN res IS NULL OR res<x THEN x ELSE res END) as value",
                 Collections.singletonMap("list", list))) {
@@ -790,7 +792,9 @@ public class Coll {
     @Description("apoc.coll.sort(coll) sort on Collections")
     public List<Object> sort(@Name("coll") List<Object> coll) {
         if (coll == null || coll.isEmpty()) return Collections.emptyList();
-        List sorted = new ArrayList<>(coll);
+        List sorted = NumericLists.sort(coll);
+        if (sorted != null) return sorted;
+        sorted = new ArrayList<>(coll);
         Collections.sort((List<? extends Comparable>) sorted);
         return sorted;
     }
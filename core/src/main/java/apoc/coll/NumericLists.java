@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.coll;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Primitive fast paths for the numeric functions of {@link Coll}.
+ * They only apply to lists holding nothing but integers or nothing but floats, for any other list they return
+ * null or -1 and the caller keeps its generic handling, so results and null semantics stay the same.
+ */
+final class NumericLists {
+
+    private NumericLists() {}
+
+    static double[] toDoubles(List<Number> list) {
+        double[] values = new double[list.size()];
+        int i = 0;
+        for (Number number : list) {
+            values[i++] = number.doubleValue();
+        }
+        return values;
+    }
+
+    /**
+     * Index of the first smallest (or largest) value, like a Cypher reduce with a strict comparison.
+     * Returns -1 if the list is not purely integers or purely floats, or if it contains NaN.
+     */
+    static int indexOfExtreme(List<Object> list, boolean max) {
+        Object first = list.get(0);
+        int bestIndex = 0, i = 0;
+        if (first instanceof Long) {
+            long best = (Long) first;
+            for (Object value : list) {
+                if (!(value instanceof Long)) return -1;
+                long current = (Long) value;
+                if (max ? current > best : current < best) {
+                    best = current;
+                    bestIndex = i;
+                }
+                i++;
+            }
+            return bestIndex;
+        }
+        if (first instanceof Double) {
+            double best = (Double) first;
+            for (Object value : list) {
+                if (!(value instanceof Double)) return -1;
+                double current = (Double) value;
+                if (Double.isNaN(current)) return -1;
+                if (max ? current > best : current < best) {
+                    best = current;
+                    bestIndex = i;
+                }
+                i++;
+            }
+            return bestIndex;
+        }
+        return -1;
+    }
+
+    /**
+     * Sorts a list of only integers or only floats over a primitive array, which is sorted in parallel when large.
+     * The primitive orders agree with {@link Long#compareTo} and {@link Double#compareTo}.
+     */
+    static List<Object> sort(List<Object> list) {
+        Object first = list.get(0);
+        if (first instanceof Long) {
+            long[] values = new long[list.size()];
+            int i = 0;
+            for (Object value : list) {
+                if (!(value instanceof Long)) return null;
+                values[i++] = (Long) value;
+            }
+            Arrays.parallelSort(values);
+            List<Object> sorted = new ArrayList<>(values.length);
+            for (long value : values) {
+                sorted.add(value);
+            }
+            return sorted;
+        }
+        if (first instanceof Double) {
+            double[] values = new double[list.size()];
+            int i = 0;
+            for (Object value : list) {
+                if (!(value instanceof Double)) return null;
+                values[i++] = (Double) value;
+            }
+            Arrays.parallelSort(values);
+            List<Object> sorted = new ArrayList<>(values.length);
+            for (double value : values) {
+                sorted.add(value);
+            }
+            return sorted;
+        }
+        return null;
+    }
+}
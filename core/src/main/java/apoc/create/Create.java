@@ -205,7 +205,8 @@ public class Create {
     public Stream<NodeResult> vNodes(
             @Name("label") List<String> labelNames, @Name("props") List<Map<String, Object>> props) {
         Label[] labels = Util.labels(labelNames);
-        return props.stream().map(p -> new NodeResult(new VirtualNode(labels, p)));
+        VirtualGraphArena arena = new VirtualGraphArena();
+        return props.stream().map(p -> new NodeResult(arena.createNode(labels, p)));
     }
 
     @Procedure
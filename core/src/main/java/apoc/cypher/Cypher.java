@@ -67,6 +67,7 @@ public class Cypher {
     public static final String COMPILED_PREFIX = "CYPHER runtime=" + Util.COMPILED;
     public static final int PARTITIONS = 100 * Runtime.getRuntime().availableProcessors();
     public static final int MAX_BATCH = 10000;
+    public static final int DEFAULT_FAST_MODE_BATCH_SIZE = 1000;
 
     @Context
     public Transaction tx;
@@ -171,6 +172,33 @@ public class Cypher {
         }
     }
 
+    private void runStatementsInBatches(
+            Reader reader,
+            BlockingQueue<RowResult> queue,
+            Map<String, Object> params,
+            boolean addStatistics,
+            int batchSize) {
+        Scanner scanner = new Scanner(reader);
+        scanner.useDelimiter(";\r?\n");
+        try (StatementBatcher<RowResult> batcher = new StatementBatcher<>(
+                db,
+                params,
+                batchSize,
+                (result, rows) -> consumeResult(result, rows, addStatistics),
+                putInto(queue),
+                e -> {
+                    throw new RuntimeException(e);
+                })) {
+            while (scanner.hasNext()) {
+                String stmt = removeShellControlCommands(scanner.next());
+                if (stmt.trim().isEmpty()) continue;
+                if (!StatementBatcher.isSchemaStatement(stmt)) {
+                    batcher.add(stmt);
+                }
+            }
+        }
+    }
+
     private void runSchemaStatementsInTx(
             Reader reader,
             BlockingQueue<RowResult> queue,
@@ -204,6 +232,17 @@ public class Cypher {
         int queueCapacity = Util.toInteger(config.getOrDefault("queueCapacity", 100));
 
         StringReader stringReader = new StringReader(cypher);
+        if (Util.toBoolean(config.get("fastMode"))) {
+            int batchSize = Util.toInteger(config.getOrDefault("batchSize", DEFAULT_FAST_MODE_BATCH_SIZE));
+            BlockingQueue<RowResult> queue = runInSeparateThreadAndSendTombstone(
+                    queueCapacity,
+                    internalQueue ->
+                            runStatementsInBatches(stringReader, internalQueue, params, addStatistics, batchSize),
+                    RowResult.TOMBSTONE);
+            return StreamSupport.stream(
+                    new QueueBasedSpliterator<>(queue, RowResult.TOMBSTONE, terminationGuard, Integer.MAX_VALUE),
+                    false);
+        }
         return runManyStatements(stringReader, params, false, addStatistics, timeout, queueCapacity);
     }
 
@@ -221,22 +260,31 @@ public class Cypher {
             Pattern.compile("^:?\\b(begin|commit|rollback)\\b", Pattern.CASE_INSENSITIVE);
 
     private Object consumeResult(Result result, BlockingQueue<RowResult> queue, boolean addStatistics, long timeout) {
-        try {
-            long time = System.currentTimeMillis();
-            int row = 0;
-            while (result.hasNext()) {
-                terminationGuard.check();
-                Map<String, Object> mapResult = EntityUtil.anyRebind(tx, result.next());
-                queue.put(new RowResult(row++, mapResult));
-            }
-            if (addStatistics) {
-                queue.put(
-                        new RowResult(-1, toMap(result.getQueryStatistics(), System.currentTimeMillis() - time, row)));
-            }
-            return row;
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
+        return consumeResult(result, putInto(queue), addStatistics);
+    }
+
+    private int consumeResult(Result result, Consumer<RowResult> rows, boolean addStatistics) {
+        long time = System.currentTimeMillis();
+        int row = 0;
+        while (result.hasNext()) {
+            terminationGuard.check();
+            Map<String, Object> mapResult = EntityUtil.anyRebind(tx, result.next());
+            rows.accept(new RowResult(row++, mapResult));
+        }
+        if (addStatistics) {
+            rows.accept(new RowResult(-1, toMap(result.getQueryStatistics(), System.currentTimeMillis() - time, row)));
         }
+        return row;
+    }
+
+    private static Consumer<RowResult> putInto(BlockingQueue<RowResult> queue) {
+        return row -> {
+            try {
+                queue.put(row);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        };
     }
 
     private String removeShellControlCommands(String stmt) {
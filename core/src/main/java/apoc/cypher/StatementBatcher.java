@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.cypher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
+
+/**
+ * Runs the statements of a script in grouped transactions: consecutive statements share one transaction
+ * of up to {@code batchSize} statements, periodic statements and calls of procedures managing their own transactions
+ * run on their own in an implicit transaction.
+ * The rows of a batch are kept in memory and only handed on once the batch has committed. When a batch fails it is
+ * rolled back and its statements are replayed one transaction each, so a failing statement is reported on its own.
+ *
+ * The static helpers classify statements lexically, so a statement is planned only once, when it runs.
+ */
+public class StatementBatcher<T> implements AutoCloseable {
+
+    private static final Pattern SCHEMA = Pattern.compile(
+            "(?:create|drop)\\s+(?:(?:btree|range|text|point|fulltext|lookup)\\s+)?(?:index|constraint)\\b"
+                    + "|call\\s+db\\.(?:createIndex|createUniquePropertyConstraint|createNodeKey"
+                    + "|index\\.fulltext\\.(?:createNodeIndex|createRelationshipIndex|drop))\\b",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern PERIODIC_COMMIT =
+            Pattern.compile("using\\s+periodic\\s+commit\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern IN_TRANSACTIONS = Pattern.compile("in\\s+transactions\\b", Pattern.CASE_INSENSITIVE);
+    // procedures that commit transactions of their own or write files, a rollback would not undo their effects
+    private static final Pattern OWN_TRANSACTIONS = Pattern.compile(
+            "call\\s+apoc\\.(?:periodic|export|import|cypher\\.(?:runFiles?|runSchemaFiles?|runMany|parallel2?|mapParallel2?))\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    private final GraphDatabaseService db;
+    private final Map<String, Object> params;
+    private final int batchSize;
+    private final BiConsumer<Result, Consumer<T>> consumer;
+    private final Consumer<T> sink;
+    private final Consumer<Exception> onError;
+
+    private final List<String> statements = new ArrayList<>();
+
+    /**
+     * @param consumer turns the result of a statement into rows
+     * @param sink receives the rows of committed statements
+     * @param onError receives the failure of a single statement, it may rethrow to stop the script
+     */
+    public StatementBatcher(
+            GraphDatabaseService db,
+            Map<String, Object> params,
+            int batchSize,
+            BiConsumer<Result, Consumer<T>> consumer,
+            Consumer<T> sink,
+            Consumer<Exception> onError) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("The batchSize must be at least 1 but was " + batchSize);
+        }
+        this.db = db;
+        this.params = params;
+        this.batchSize = batchSize;
+        this.consumer = consumer;
+        this.sink = sink;
+        this.onError = onError;
+    }
+
+    public void add(String stmt) {
+        if (isPeriodicStatement(stmt)) {
+            flush();
+            try {
+                db.executeTransactionally(stmt, params, result -> {
+                    consumer.accept(result, sink);
+                    return null;
+                });
+            } catch (Exception e) {
+                onError.accept(e);
+            }
+            return;
+        }
+        statements.add(stmt);
+        if (statements.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    public void flush() {
+        if (statements.isEmpty()) {
+            return;
+        }
+        try {
+            Exception failure = runInTx(statements);
+            if (failure != null && statements.size() == 1) {
+                onError.accept(failure);
+            } else if (failure != null) {
+                for (String stmt : statements) {
+                    failure = runInTx(List.of(stmt));
+                    if (failure != null) {
+                        onError.accept(failure);
+                    }
+                }
+            }
+        } finally {
+            statements.clear();
+        }
+    }
+
+    /** Runs the statements in one transaction and hands their rows to the sink only if it commits */
+    private Exception runInTx(List<String> stmts) {
+        List<T> rows = new ArrayList<>();
+        try (Transaction tx = db.beginTx()) {
+            for (String stmt : stmts) {
+                try (Result result = tx.execute(stmt, params)) {
+                    consumer.accept(result, rows::add);
+                }
+            }
+            tx.commit();
+        } catch (Exception e) {
+            return e;
+        }
+        rows.forEach(sink);
+        return null;
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    /** Whether the statement creates or drops an index or a constraint */
+    public static boolean isSchemaStatement(String stmt) {
+        Matcher matcher = SCHEMA.matcher(stmt);
+        return matcher.region(skipBlank(stmt, 0), stmt.length()).lookingAt();
+    }
+
+    /**
+     * Whether the statement starts with {@code USING PERIODIC COMMIT}, contains {@code CALL {...} IN TRANSACTIONS}
+     * or calls a procedure that commits its own transactions or writes files, like {@code apoc.periodic.iterate}
+     * or {@code apoc.export.csv.all}
+     */
+    public static boolean isPeriodicStatement(String stmt) {
+        int length = stmt.length();
+        if (PERIODIC_COMMIT.matcher(stmt).region(skipBlank(stmt, 0), length).lookingAt()) {
+            return true;
+        }
+        Matcher inTransactions = IN_TRANSACTIONS.matcher(stmt);
+        Matcher ownTransactions = OWN_TRANSACTIONS.matcher(stmt);
+        int i = 0;
+        while (i < length) {
+            char c = stmt.charAt(i);
+            if (c == '\'' || c == '"' || c == '`') {
+                i = skipQuoted(stmt, i, c);
+            } else if (c == '/' && i + 1 < length && (stmt.charAt(i + 1) == '/' || stmt.charAt(i + 1) == '*')) {
+                i = skipBlank(stmt, i);
+            } else if (c == '}'
+                    && inTransactions.region(skipBlank(stmt, i + 1), length).lookingAt()) {
+                return true;
+            } else if ((c == 'c' || c == 'C')
+                    && (i == 0 || !Character.isJavaIdentifierPart(stmt.charAt(i - 1)))
+                    && ownTransactions.region(i, length).lookingAt()) {
+                return true;
+            } else {
+                i++;
+            }
+        }
+        return false;
+    }
+
+    /** Returns the index of the closing quote + 1, backslash escapes are only honoured in string literals */
+    private static int skipQuoted(String stmt, int start, char quote) {
+        int i = start + 1;
+        while (i < stmt.length()) {
+            char c = stmt.charAt(i);
+            if (c == '\\' && quote != '`') {
+                i += 2;
+            } else if (c == quote) {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+        return i;
+    }
+
+    /** Returns the index of the first character from {@code start} that is neither whitespace nor part of a comment */
+    private static int skipBlank(String stmt, int start) {
+        int length = stmt.length();
+        int i = start;
+        while (i < length) {
+            char c = stmt.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '/' && i + 1 < length && stmt.charAt(i + 1) == '/') {
+                int end = stmt.indexOf('\n', i);
+                i = end == -1 ? length : end + 1;
+            } else if (c == '/' && i + 1 < length && stmt.charAt(i + 1) == '*') {
+                int end = stmt.indexOf("*/", i + 2);
+                i = end == -1 ? length : end + 2;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+}
@@ -31,6 +31,7 @@ import org.neo4j.procedure.UserFunction;
 public class Extract {
 
     public static final Pattern DOMAIN = Pattern.compile("([\\w-]+\\.[\\w-]+)+(\\w+)");
+    private static final Pattern SEPARATORS = Pattern.compile("[@/<>]");
 
     @UserFunction
     @Description(
@@ -38,13 +39,13 @@ public class Extract {
     public String domain(final @Name("url_or_email_address") String value) {
         if (value != null) {
             if (value.contains("@")) {
-                String[] tokens = value.split("[@/<>]");
+                String[] tokens = SEPARATORS.split(value);
                 for (int i = tokens.length - 1; i >= 0; i--) {
                     String token = tokens[i];
                     if (DOMAIN.matcher(token).matches()) return token;
                 }
             } else {
-                for (String part : value.split("[@/<>]")) {
+                for (String part : SEPARATORS.split(value)) {
                     if (DOMAIN.matcher(part).matches()) return part;
                 }
             }
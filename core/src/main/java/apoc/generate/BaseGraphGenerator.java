@@ -19,7 +19,6 @@
 package apoc.generate;
 
 import apoc.generate.config.GeneratorConfiguration;
-import java.util.List;
 
 /**
  * Base class for {@link GraphGenerator} implementations.
@@ -38,15 +37,15 @@ public abstract class BaseGraphGenerator implements GraphGenerator {
      * Generate (i.e. create and persist) nodes.
      *
      * @param configuration generator config.
-     * @return list of node IDs of the generated nodes.
+     * @return node IDs of the generated nodes, indexed by the node numbers used by the relationship generator.
      */
-    protected abstract List<Long> generateNodes(GeneratorConfiguration configuration);
+    protected abstract long[] generateNodes(GeneratorConfiguration configuration);
 
     /**
      * Generate (i.e. create and persist) relationships.
      *
      * @param config generator config.
-     * @param nodes  list of node IDs of the generated nodes.
+     * @param nodes  node IDs of the generated nodes.
      */
-    protected abstract void generateRelationships(final GeneratorConfiguration config, List<Long> nodes);
+    protected abstract void generateRelationships(final GeneratorConfiguration config, long[] nodes);
 }
@@ -18,20 +18,33 @@
  */
 package apoc.generate;
 
+import apoc.atomic.util.AtomicUtils;
 import apoc.generate.config.GeneratorConfiguration;
-import apoc.generate.relationship.RelationshipGenerator;
-import java.util.ArrayList;
-import java.util.List;
+import apoc.generate.node.NodeCreator;
+import apoc.generate.relationship.RelationshipCreator;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import org.neo4j.graphdb.GraphDatabaseService;
-import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Transaction;
-import org.neo4j.internal.helpers.collection.Pair;
+import org.neo4j.graphdb.TransientFailureException;
 
 /**
  * {@link GraphGenerator} for Neo4j.
+ * <p/>
+ * Nodes and relationships are created in batches of {@link GeneratorConfiguration#getBatchSize()}, up to
+ * {@link GeneratorConfiguration#getConcurrency()} of them in parallel transactions. Edges are taken from the
+ * relationship generator as a stream and only the batches being written are kept in memory, as int arrays.
  */
 public class Neo4jGraphGenerator extends BaseGraphGenerator {
 
+    private static final int MAX_RETRIES = 10;
+
     private final GraphDatabaseService database;
 
     public Neo4jGraphGenerator(GraphDatabaseService database) {
@@ -42,25 +55,23 @@ public class Neo4jGraphGenerator extends BaseGraphGenerator {
      * {@inheritDoc}
      */
     @Override
-    protected List<Long> generateNodes(final GeneratorConfiguration config) {
-        final List<Long> nodes = new ArrayList<>();
-
-        int numberOfNodes = config.getNumberOfNodes();
+    protected long[] generateNodes(final GeneratorConfiguration config) {
+        final int numberOfNodes = config.getNumberOfNodes();
+        final int batchSize = config.getBatchSize();
+        final NodeCreator nodeCreator = config.getNodeCreator();
+        final long[] nodes = new long[numberOfNodes];
 
-        Transaction tx = database.beginTx();
-        try {
-            for (int i = 1; i <= numberOfNodes; i++) {
-                nodes.add(config.getNodeCreator().createNode(tx).getId());
-
-                if (i % config.getBatchSize() == 0) {
-                    tx.commit();
-                    tx.close();
-                    tx = database.beginTx();
-                }
+        try (BatchWriter writer = new BatchWriter(config.getConcurrency())) {
+            for (int from = 0; from < numberOfNodes; from += batchSize) {
+                final int start = from;
+                final int end = Math.min(numberOfNodes, from + batchSize);
+                writer.submit(tx -> {
+                    for (int i = start; i < end; i++) {
+                        nodes[i] = nodeCreator.createNode(tx).getId();
+                    }
+                });
             }
-            tx.commit();
-        } finally {
-            tx.close();
+            writer.awaitAll();
         }
 
         return nodes;
@@ -70,28 +81,96 @@ public class Neo4jGraphGenerator extends BaseGraphGenerator {
      * {@inheritDoc}
      */
     @Override
-    protected void generateRelationships(final GeneratorConfiguration config, final List<Long> nodes) {
-        RelationshipGenerator relationshipGenerator = config.getRelationshipGenerator();
-        List<Pair<Integer, Integer>> relationships = relationshipGenerator.generateEdges();
-
-        Transaction tx = database.beginTx();
-        try {
-            int i = 0;
-            for (Pair<Integer, Integer> input : relationships) {
-                Node first = tx.getNodeById(nodes.get(input.first()));
-                Node second = tx.getNodeById(nodes.get(input.other()));
-                config.getRelationshipCreator().createRelationship(first, second);
-
-                if (++i % config.getBatchSize() == 0) {
+    protected void generateRelationships(final GeneratorConfiguration config, final long[] nodes) {
+        final int batchSize = config.getBatchSize();
+        final RelationshipCreator relationshipCreator = config.getRelationshipCreator();
+
+        try (BatchWriter writer = new BatchWriter(config.getConcurrency())) {
+            final Consumer<int[]> writeBatch = batch -> writer.submit(tx -> {
+                for (int i = 0; i < batch.length; i += 2) {
+                    relationshipCreator.createRelationship(
+                            tx.getNodeById(nodes[batch[i]]), tx.getNodeById(nodes[batch[i + 1]]));
+                }
+            });
+
+            final int[][] batch = {new int[batchSize * 2]};
+            final int[] size = {0};
+            config.getRelationshipGenerator().generateEdges((first, second) -> {
+                batch[0][size[0]++] = first;
+                batch[0][size[0]++] = second;
+                if (size[0] == batch[0].length) {
+                    writeBatch.accept(batch[0]);
+                    batch[0] = new int[batchSize * 2];
+                    size[0] = 0;
+                }
+            });
+            if (size[0] > 0) {
+                writeBatch.accept(Arrays.copyOf(batch[0], size[0]));
+            }
+            writer.awaitAll();
+        }
+    }
+
+    /**
+     * Runs batches on a dedicated thread pool, each in its own transaction, which is retried after a random backoff on
+     * transient failures like deadlocks between batches touching the same nodes. At most twice as many batches as threads are pending
+     * at any time, submitting more waits for the oldest one, so that a fast generator cannot fill up the heap.
+     */
+    private class BatchWriter implements AutoCloseable {
+        private final ExecutorService executor;
+        private final Deque<Future<?>> pending = new ArrayDeque<>();
+        private final int maxPending;
+
+        BatchWriter(int concurrency) {
+            this.executor = Executors.newFixedThreadPool(Math.max(1, concurrency));
+            this.maxPending = Math.max(1, concurrency) * 2;
+        }
+
+        void submit(Consumer<Transaction> batch) {
+            if (pending.size() >= maxPending) {
+                await(pending.removeFirst());
+            }
+            pending.addLast(executor.submit(() -> writeInTx(batch)));
+        }
+
+        void awaitAll() {
+            while (!pending.isEmpty()) {
+                await(pending.removeFirst());
+            }
+        }
+
+        private void writeInTx(Consumer<Transaction> batch) {
+            for (int retry = 0; ; retry++) {
+                try (Transaction tx = database.beginTx()) {
+                    batch.accept(tx);
                     tx.commit();
-                    tx.close();
-                    tx = database.beginTx();
+                    return;
+                } catch (TransientFailureException e) {
+                    if (retry >= MAX_RETRIES) {
+                        throw e;
+                    }
+                    AtomicUtils.backoff(retry);
                 }
             }
+        }
+
+        private void await(Future<?> future) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while generating the graph", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new RuntimeException(e.getCause());
+            }
+        }
 
-            tx.commit();
-        } finally {
-            tx.close();
+        @Override
+        public void close() {
+            executor.shutdownNow();
         }
     }
 }
@@ -23,14 +23,16 @@ import apoc.generate.relationship.RelationshipCreator;
 import apoc.generate.relationship.RelationshipGenerator;
 
 /**
- * Basic implementation of {@link GeneratorConfiguration} where everything can be configured by constructor instantiation,
- * except for batch size, which defaults to 1000.
+ * Basic implementation of {@link GeneratorConfiguration} where everything can be configured by constructor instantiation.
+ * Batch size defaults to 1000 and concurrency to 1, as concurrent batches sharing nodes can deadlock.
  */
 public class BasicGeneratorConfig implements GeneratorConfiguration {
 
     private final RelationshipGenerator relationshipGenerator;
     private final NodeCreator nodeCreator;
     private final RelationshipCreator relationshipCreator;
+    private final int batchSize;
+    private final int concurrency;
 
     /**
      * Create a new configuration.
@@ -43,9 +45,29 @@ public class BasicGeneratorConfig implements GeneratorConfiguration {
             RelationshipGenerator relationshipGenerator,
             NodeCreator nodeCreator,
             RelationshipCreator relationshipCreator) {
+        this(relationshipGenerator, nodeCreator, relationshipCreator, 1000, 1);
+    }
+
+    /**
+     * Create a new configuration.
+     *
+     * @param relationshipGenerator core component, generating the edges.
+     * @param nodeCreator           component capable of creating nodes.
+     * @param relationshipCreator   component capable of creating edges.
+     * @param batchSize             no. nodes/relationships created in a single transaction.
+     * @param concurrency           no. transactions creating nodes/relationships in parallel.
+     */
+    public BasicGeneratorConfig(
+            RelationshipGenerator relationshipGenerator,
+            NodeCreator nodeCreator,
+            RelationshipCreator relationshipCreator,
+            int batchSize,
+            int concurrency) {
         this.relationshipGenerator = relationshipGenerator;
         this.nodeCreator = nodeCreator;
         this.relationshipCreator = relationshipCreator;
+        this.batchSize = batchSize;
+        this.concurrency = concurrency;
     }
 
     /**
@@ -85,6 +107,14 @@ public class BasicGeneratorConfig implements GeneratorConfiguration {
      */
     @Override
     public int getBatchSize() {
-        return 1000;
+        return batchSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getConcurrency() {
+        return concurrency;
     }
 }
@@ -61,4 +61,13 @@ public interface GeneratorConfiguration {
      * @return batch size.
      */
     int getBatchSize();
+
+    /**
+     * Get the no. transactions creating nodes/relationships in parallel.
+     *
+     * @return concurrency.
+     */
+    default int getConcurrency() {
+        return 1;
+    }
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.generate.config;
+
+/**
+ * {@link RelationshipGeneratorConfig} for {@link apoc.generate.relationship.RMatRelationshipGenerator}.
+ *
+ * numberOfNodes: number of nodes in the graph. 1 &lt; numberOfNodes
+ * numberOfEdges: number of edges drawn. 0 &lt; numberOfEdges
+ * a, b, c: probabilities of recursing into the top-left, top-right and bottom-left quadrant of the adjacency matrix.
+ *          The bottom-right quadrant gets the remaining probability d = 1 - a - b - c. All four must not be negative
+ *          and b + c must be positive, otherwise every edge would be a loop.
+ *          The defaults a = 0.57, b = 0.19, c = 0.19 (d = 0.05) are the ones of the Graph500 benchmark.
+ */
+public class RMatConfig extends NumberOfNodesBasedConfig {
+
+    public static final double DEFAULT_A = 0.57;
+    public static final double DEFAULT_B = 0.19;
+    public static final double DEFAULT_C = 0.19;
+
+    private final long numberOfEdges;
+    private final double a;
+    private final double b;
+    private final double c;
+
+    /**
+     * Constructs a new config with the default quadrant probabilities.
+     *
+     * @param numberOfNodes number of nodes present in the network.
+     * @param numberOfEdges number of edges present in the network.
+     */
+    public RMatConfig(int numberOfNodes, long numberOfEdges) {
+        this(numberOfNodes, numberOfEdges, DEFAULT_A, DEFAULT_B, DEFAULT_C);
+    }
+
+    /**
+     * Constructs a new config.
+     *
+     * @param numberOfNodes number of nodes present in the network.
+     * @param numberOfEdges number of edges present in the network.
+     * @param a             probability of the top-left quadrant.
+     * @param b             probability of the top-right quadrant.
+     * @param c             probability of the bottom-left quadrant.
+     */
+    public RMatConfig(int numberOfNodes, long numberOfEdges, double a, double b, double c) {
+        super(numberOfNodes);
+        this.numberOfEdges = numberOfEdges;
+        this.a = a;
+        this.b = b;
+        this.c = c;
+    }
+
+    public long getNumberOfEdges() {
+        return numberOfEdges;
+    }
+
+    public double getA() {
+        return a;
+    }
+
+    public double getB() {
+        return b;
+    }
+
+    public double getC() {
+        return c;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isValid() {
+        return super.isValid() && numberOfEdges > 0 && a >= 0 && b >= 0 && c >= 0 && a + b + c <= 1 && b + c > 0;
+    }
+}
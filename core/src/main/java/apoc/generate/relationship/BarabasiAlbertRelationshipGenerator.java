@@ -19,11 +19,10 @@
 package apoc.generate.relationship;
 
 import apoc.generate.config.BarabasiAlbertConfig;
+import apoc.generate.config.InvalidConfigException;
 import apoc.generate.config.NumberOfNodesBasedConfig;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
-import java.util.Set;
 import org.neo4j.internal.helpers.collection.Pair;
 
 /**
@@ -52,37 +51,62 @@ public class BarabasiAlbertRelationshipGenerator extends BaseRelationshipGenerat
      */
     @Override
     protected List<Pair<Integer, Integer>> doGenerateEdges() {
+        return collectEdges();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The end points of all edges generated so far are kept in a single int array, two entries per edge. Picking a
+     * random entry is the same as picking a random edge and then one of its two ends, i.e. a node with a probability
+     * proportional to its degree.
+     */
+    @Override
+    protected void doGenerateEdges(EdgeConsumer consumer) {
         final int edgesPerNewNode = getConfiguration().getEdgesPerNewNode();
-        final long numberOfNodes = getConfiguration().getNumberOfNodes();
+        final int numberOfNodes = getConfiguration().getNumberOfNodes();
+
+        final long numberOfEdges = (long) edgesPerNewNode * (edgesPerNewNode + 1) / 2
+                + (long) (numberOfNodes - edgesPerNewNode - 1) * edgesPerNewNode;
+        if (numberOfEdges * 2 > Integer.MAX_VALUE - 8) {
+            throw new InvalidConfigException("The Barabasi-Albert generator supports at most "
+                    + (Integer.MAX_VALUE - 8) / 2 + " edges, but " + numberOfEdges + " were requested");
+        }
+        final int[] ends = new int[(int) numberOfEdges * 2];
+        final int[] size = {0};
 
         // Create a completely connected network
-        final List<Pair<Integer, Integer>> edges = new CompleteGraphRelationshipGenerator(
-                        new NumberOfNodesBasedConfig(edgesPerNewNode + 1))
-                .doGenerateEdges();
+        new CompleteGraphRelationshipGenerator(new NumberOfNodesBasedConfig(edgesPerNewNode + 1))
+                .doGenerateEdges((first, second) -> {
+                    ends[size[0]++] = first;
+                    ends[size[0]++] = second;
+                    consumer.accept(first, second);
+                });
 
         // Preferentially attach other nodes
-        final Set<Integer> omit = new HashSet<>(edgesPerNewNode);
+        final int[] omit = new int[edgesPerNewNode];
         for (int source = edgesPerNewNode + 1; source < numberOfNodes; source++) {
-            omit.clear();
-
             for (int edge = 0; edge < edgesPerNewNode; edge++) {
-                while (true) {
-                    Pair<Integer, Integer> randomEdge = edges.get(random.nextInt(edges.size()));
-                    int target = random.nextBoolean() ? randomEdge.first() : randomEdge.other();
-
-                    if (omit.contains(target)) {
-                        continue;
-                    }
-
-                    omit.add(target); // to avoid multi-edges
+                int target;
+                do {
+                    target = ends[random.nextInt(size[0])];
+                } while (target == source || contains(omit, edge, target)); // to avoid loops and multi-edges
 
-                    edges.add(Pair.of(target, source));
+                omit[edge] = target;
 
-                    break;
-                }
+                ends[size[0]++] = target;
+                ends[size[0]++] = source;
+                consumer.accept(target, source);
             }
         }
+    }
 
-        return edges;
+    private static boolean contains(int[] values, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
     }
 }
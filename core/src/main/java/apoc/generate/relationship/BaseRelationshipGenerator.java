@@ -20,6 +20,7 @@ package apoc.generate.relationship;
 
 import apoc.generate.config.InvalidConfigException;
 import apoc.generate.config.RelationshipGeneratorConfig;
+import java.util.ArrayList;
 import java.util.List;
 import org.neo4j.internal.helpers.collection.Pair;
 
@@ -62,6 +63,18 @@ public abstract class BaseRelationshipGenerator<T extends RelationshipGeneratorC
         return doGenerateEdges();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void generateEdges(EdgeConsumer consumer) throws InvalidConfigException {
+        if (!configuration.isValid()) {
+            throw new InvalidConfigException("The supplied config is not valid");
+        }
+
+        doGenerateEdges(consumer);
+    }
+
     /**
      * Perform the actual edge generation.
      *
@@ -69,6 +82,29 @@ public abstract class BaseRelationshipGenerator<T extends RelationshipGeneratorC
      */
     protected abstract List<Pair<Integer, Integer>> doGenerateEdges();
 
+    /**
+     * Perform the actual edge generation, passing every edge to the consumer. Generators that can produce their edges
+     * one by one override this to avoid building the edge list.
+     *
+     * @param consumer receiving the generated edges as pair of node IDs that should be connected.
+     */
+    protected void doGenerateEdges(EdgeConsumer consumer) {
+        for (Pair<Integer, Integer> edge : doGenerateEdges()) {
+            consumer.accept(edge.first(), edge.other());
+        }
+    }
+
+    /**
+     * Collect the edges of {@link #doGenerateEdges(EdgeConsumer)} into a list.
+     *
+     * @return generated edges as pair of node IDs that should be connected.
+     */
+    protected List<Pair<Integer, Integer>> collectEdges() {
+        final List<Pair<Integer, Integer>> edges = new ArrayList<>();
+        doGenerateEdges((first, second) -> edges.add(Pair.of(first, second)));
+        return edges;
+    }
+
     /**
      * Get the configuration of this generator.
      *
@@ -19,7 +19,6 @@
 package apoc.generate.relationship;
 
 import apoc.generate.config.NumberOfNodesBasedConfig;
-import java.util.ArrayList;
 import java.util.List;
 import org.neo4j.internal.helpers.collection.Pair;
 
@@ -43,15 +42,19 @@ public class CompleteGraphRelationshipGenerator extends BaseRelationshipGenerato
      */
     @Override
     protected List<Pair<Integer, Integer>> doGenerateEdges() {
-        List<Pair<Integer, Integer>> graph = new ArrayList<>();
+        return collectEdges();
+    }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doGenerateEdges(EdgeConsumer consumer) {
         // Create a completely connected undirected network
         for (int i = 0; i < getConfiguration().getNumberOfNodes(); i++) {
             for (int j = i + 1; j < getConfiguration().getNumberOfNodes(); j++) {
-                graph.add(Pair.of(i, j));
+                consumer.accept(i, j);
             }
         }
-
-        return graph;
     }
 }
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.generate.relationship;
+
+/**
+ * Receives the edges of a {@link RelationshipGenerator} one at a time, as primitive pairs of node indices, so that
+ * generators do not have to materialise and box the whole edge list.
+ */
+@FunctionalInterface
+public interface EdgeConsumer {
+
+    /**
+     * Accept a generated edge.
+     *
+     * @param first  index of the first node of the edge.
+     * @param second index of the second node of the edge.
+     */
+    void accept(int first, int second);
+}
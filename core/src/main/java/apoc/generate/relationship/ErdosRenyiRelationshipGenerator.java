@@ -19,7 +19,9 @@
 package apoc.generate.relationship;
 
 import apoc.generate.config.ErdosRenyiConfig;
-import java.util.*;
+import java.util.List;
+import java.util.Random;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
 import org.neo4j.internal.helpers.collection.Pair;
 
 /**
@@ -53,15 +55,24 @@ public class ErdosRenyiRelationshipGenerator extends BaseRelationshipGenerator<E
      */
     @Override
     protected List<Pair<Integer, Integer>> doGenerateEdges() {
-        long threshold = getConfiguration().getNumberOfEdges() * 4;
+        return collectEdges();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doGenerateEdges(EdgeConsumer consumer) {
+        long threshold = getConfiguration().getNumberOfEdges() * 4L;
         long potentialEdges = Long.valueOf(getConfiguration().getNumberOfNodes())
                 * (Long.valueOf(getConfiguration().getNumberOfNodes()) - 1);
 
         if (threshold > potentialEdges) {
-            return doGenerateEdgesWithOmitList(); // Make sure to avoid edges
+            doGenerateEdgesWithOmitList(consumer); // Make sure to avoid edges
+            return;
         }
 
-        return doGenerateEdgesSimpler(); // Be more heuristic (pajek implementation using HashSet).
+        doGenerateEdgesSimpler(consumer); // Be more heuristic (pajek implementation using a primitive hash set).
     }
 
     /**
@@ -71,14 +82,17 @@ public class ErdosRenyiRelationshipGenerator extends BaseRelationshipGenerator<E
      * by Vladimir Batagelj and Ulrik Brandes
      * <p/>
      * PHYSICAL REVIEW E 71, 036113, 2005
+     * <p/>
+     * Edges are passed on as soon as they are drawn, only their packed (origin, target) keys are kept to avoid
+     * duplicates.
      *
-     * @return edge list
+     * @param consumer receiving the edges
      */
-    private List<Pair<Integer, Integer>> doGenerateEdgesSimpler() {
+    private void doGenerateEdgesSimpler(EdgeConsumer consumer) {
         final int numberOfNodes = getConfiguration().getNumberOfNodes();
-        final long numberOfEdges = getConfiguration().getNumberOfEdges();
+        final int numberOfEdges = getConfiguration().getNumberOfEdges();
 
-        final Set<Pair<Integer, Integer>> edges = new HashSet<>();
+        final LongHashSet edges = new LongHashSet(numberOfEdges);
 
         while (edges.size() < numberOfEdges) {
             int origin = random.nextInt(numberOfNodes);
@@ -88,10 +102,10 @@ public class ErdosRenyiRelationshipGenerator extends BaseRelationshipGenerator<E
                 continue;
             }
 
-            edges.add(Pair.of(origin, target));
+            if (edges.add(((long) origin << 32) | target)) {
+                consumer.accept(origin, target);
+            }
         }
-
-        return new LinkedList<>(edges);
     }
 
     /**
@@ -100,41 +114,33 @@ public class ErdosRenyiRelationshipGenerator extends BaseRelationshipGenerator<E
      * but is slow with increasing number of edges. Best for denser networks, with
      * a clear giant component.
      *
-     * @return edge list
+     * @param consumer receiving the edges
      */
-    private List<Pair<Integer, Integer>> doGenerateEdgesWithOmitList() {
+    private void doGenerateEdgesWithOmitList(EdgeConsumer consumer) {
         final int numberOfNodes = getConfiguration().getNumberOfNodes();
         final int numberOfEdges = getConfiguration().getNumberOfEdges();
         final long maxEdges = Long.valueOf(numberOfNodes) * (Long.valueOf(numberOfNodes) - 1) / 2;
 
-        final List<Pair<Integer, Integer>> edges = new LinkedList<>();
-
-        for (Long index : edgeIndices(numberOfEdges, maxEdges)) {
-            edges.add(indexToEdgeBijection(index));
+        final LongHashSet indices = new LongHashSet(numberOfEdges);
+        while (indices.size() < numberOfEdges) {
+            long index = nextLong(maxEdges);
+            if (indices.add(index)) {
+                indexToEdgeBijection(index, consumer);
+            }
         }
-
-        return edges;
     }
 
     /**
      * Maps an index in a hypothetical list of all edges to the actual edge.
      *
      * @param index index
-     * @return an edge based on its unique label
+     * @param consumer receiving the edge based on its unique label
      */
-    private Pair<Integer, Integer> indexToEdgeBijection(long index) {
+    private void indexToEdgeBijection(long index, EdgeConsumer consumer) {
         long i = (long) Math.ceil((Math.sqrt(1 + 8 * (index + 1)) - 1) / 2);
         long diff = index + 1 - (i * (i - 1)) / 2;
 
-        return Pair.of((int) i, (int) diff - 1);
-    }
-
-    private Set<Long> edgeIndices(int numberOfEdges, long maxEdges) {
-        Set<Long> result = new HashSet<>(numberOfEdges);
-        while (result.size() < numberOfEdges) {
-            result.add(nextLong(maxEdges));
-        }
-        return result;
+        consumer.accept((int) i, (int) diff - 1);
     }
 
     private long nextLong(long length) {
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.generate.relationship;
+
+import apoc.generate.config.RMatConfig;
+import java.util.List;
+import java.util.Random;
+import org.neo4j.internal.helpers.collection.Pair;
+
+/**
+ * {@link RelationshipGenerator} implemented according to the R-MAT (recursive matrix) model by Chakrabarti, Zhan and
+ * Faloutsos, which generates graphs with power-law degree distributions and community structure, like the ones used
+ * by the Graph500 benchmark.
+ * <p/>
+ * Every edge is placed by recursively descending into one of the four quadrants of the adjacency matrix, chosen with
+ * the probabilities a, b, c and d, until a single cell is left. Edges are independent of each other, so they are
+ * passed on as they are drawn and nothing but the random generator is kept in memory. Cells outside of the requested
+ * number of nodes and loops are drawn again. Two edges may connect the same pair of nodes.
+ */
+public class RMatRelationshipGenerator extends BaseRelationshipGenerator<RMatConfig> {
+
+    private final Random random = new Random();
+
+    /**
+     * Create a new generator.
+     *
+     * @param configuration of the generator.
+     */
+    public RMatRelationshipGenerator(RMatConfig configuration) {
+        super(configuration);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected List<Pair<Integer, Integer>> doGenerateEdges() {
+        return collectEdges();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doGenerateEdges(EdgeConsumer consumer) {
+        final int numberOfNodes = getConfiguration().getNumberOfNodes();
+        final long numberOfEdges = getConfiguration().getNumberOfEdges();
+        final double a = getConfiguration().getA();
+        final double ab = a + getConfiguration().getB();
+        final double abc = ab + getConfiguration().getC();
+        final int scale = 32 - Integer.numberOfLeadingZeros(numberOfNodes - 1);
+
+        for (long edge = 0; edge < numberOfEdges; ) {
+            int origin = 0;
+            int target = 0;
+            for (int bit = 1 << (scale - 1); bit > 0; bit >>>= 1) {
+                double quadrant = random.nextDouble();
+                if (quadrant >= abc) {
+                    origin |= bit; // bottom-right
+                    target |= bit;
+                } else if (quadrant >= ab) {
+                    origin |= bit; // bottom-left
+                } else if (quadrant >= a) {
+                    target |= bit; // top-right
+                }
+            }
+
+            if (origin >= numberOfNodes || target >= numberOfNodes || origin == target) {
+                continue;
+            }
+
+            consumer.accept(origin, target);
+            edge++;
+        }
+    }
+}
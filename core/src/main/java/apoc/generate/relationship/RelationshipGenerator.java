@@ -42,4 +42,17 @@ public interface RelationshipGenerator {
      * @throws InvalidConfigException in case the given distribution is invalid for the generator implementation.
      */
     List<Pair<Integer, Integer>> generateEdges() throws InvalidConfigException;
+
+    /**
+     * Generate edges (relationships) and pass them to the consumer as they are generated, without materialising the
+     * whole edge list.
+     *
+     * @param consumer receiving pairs of node IDs representing edges.
+     * @throws InvalidConfigException in case the given distribution is invalid for the generator implementation.
+     */
+    default void generateEdges(EdgeConsumer consumer) throws InvalidConfigException {
+        for (Pair<Integer, Integer> edge : generateEdges()) {
+            consumer.accept(edge.first(), edge.other());
+        }
+    }
 }
@@ -18,19 +18,25 @@
  */
 package apoc.index;
 
+import apoc.Pools;
 import apoc.result.ListResult;
 import apoc.util.QueueBasedSpliterator;
 import apoc.util.Util;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingDeque;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
+import org.apache.commons.lang3.ArrayUtils;
 import org.neo4j.common.EntityType;
 import org.neo4j.exceptions.KernelException;
 import org.neo4j.graphdb.Label;
@@ -43,7 +49,10 @@ import org.neo4j.internal.helpers.collection.Iterators;
 import org.neo4j.internal.kernel.api.CursorFactory;
 import org.neo4j.internal.kernel.api.IndexQueryConstraints;
 import org.neo4j.internal.kernel.api.IndexReadSession;
+import org.neo4j.internal.kernel.api.NodeCursor;
 import org.neo4j.internal.kernel.api.NodeValueIndexCursor;
+import org.neo4j.internal.kernel.api.PartitionedScan;
+import org.neo4j.internal.kernel.api.PropertyCursor;
 import org.neo4j.internal.kernel.api.PropertyIndexQuery;
 import org.neo4j.internal.kernel.api.Read;
 import org.neo4j.internal.kernel.api.SchemaRead;
@@ -60,6 +69,9 @@ import org.neo4j.procedure.Description;
 import org.neo4j.procedure.Name;
 import org.neo4j.procedure.Procedure;
 import org.neo4j.procedure.TerminationGuard;
+import org.neo4j.storageengine.api.PropertySelection;
+import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.Values;
 
 /**
  * @author mh
@@ -69,6 +81,9 @@ public class SchemaIndex {
 
     private static final PropertyValueCount POISON = new PropertyValueCount("poison", "poison", "poison", -1);
 
+    /** Minimum number of index entries per partition when an index scan is split across threads */
+    private static final long PARTITION_SIZE = 100_000;
+
     @Context
     public GraphDatabaseAPI db;
 
@@ -78,6 +93,9 @@ public class SchemaIndex {
     @Context
     public TerminationGuard terminationGuard;
 
+    @Context
+    public Pools pools;
+
     @Procedure("apoc.schema.properties.distinct")
     @Description("apoc.schema.properties.distinct(label, key) - quickly returns all distinct values for a given key")
     public Stream<ListResult> distinct(@Name("label") String label, @Name("key") String key) {
@@ -165,12 +183,7 @@ public class SchemaIndex {
             KernelTransaction ktx,
             String lblName,
             Transaction threadTx) {
-        try (NodeValueIndexCursor cursor =
-                cursors.allocateNodeValueIndexCursor(ktx.cursorContext(), ktx.memoryTracker())) {
-            // we need to using IndexOrder.NONE here to prevent an exception
-            // however the index guarantees to be scanned in order unless
-            // there are writes done in the same tx beforehand - which we don't do.
-
+        try {
             final IndexReadSession indexSession;
             try {
                 indexSession = read.indexReadSession(indexDescriptor);
@@ -182,16 +195,35 @@ public class SchemaIndex {
                 throw e;
             }
             if (isFullText(indexDefinition)) {
-                // similar to db.index.fulltext.queryNodes procedure
-                read.nodeIndexSeek(
-                        ktx.queryContext(),
-                        indexSession,
-                        cursor,
-                        IndexQueryConstraints.unconstrained(),
-                        PropertyIndexQuery.fulltextSearch("*"));
+                scanFullTextIndex(queue, indexDefinition, key, read, cursors, indexSession, ktx, lblName, threadTx);
             } else {
-                read.nodeIndexScan(indexSession, cursor, IndexQueryConstraints.unorderedValues());
+                scanIndexValues(queue, indexDefinition, key, read, indexDescriptor, indexSession, ktx);
             }
+        } catch (KernelException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void scanFullTextIndex(
+            BlockingQueue<PropertyValueCount> queue,
+            IndexDefinition indexDefinition,
+            String key,
+            Read read,
+            CursorFactory cursors,
+            IndexReadSession indexSession,
+            KernelTransaction ktx,
+            String lblName,
+            Transaction threadTx)
+            throws KernelException {
+        try (NodeValueIndexCursor cursor =
+                cursors.allocateNodeValueIndexCursor(ktx.cursorContext(), ktx.memoryTracker())) {
+            // similar to db.index.fulltext.queryNodes procedure
+            read.nodeIndexSeek(
+                    ktx.queryContext(),
+                    indexSession,
+                    cursor,
+                    IndexQueryConstraints.unconstrained(),
+                    PropertyIndexQuery.fulltextSearch("*"));
 
             Map<String, Map<Object, Integer>> valueCountMap = new HashMap<>();
 
@@ -224,8 +256,198 @@ public class SchemaIndex {
                     putIntoQueue(queue, indexDefinition, key, k, v, label);
                 });
             });
-        } catch (KernelException e) {
-            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Counts the values of a single-label index straight from the index entries, so no node or property
+     * is loaded. Every entry of the index has the label and the property, hence no further checks are needed.
+     * Btree and range indexes return their entries in value order, so for the leading key equal values are
+     * adjacent and are counted as runs; other indexes and keys are counted in a map.
+     * Large ordered indexes are split into range partitions that are counted in parallel.
+     */
+    private void scanIndexValues(
+            BlockingQueue<PropertyValueCount> queue,
+            IndexDefinition indexDefinition,
+            String key,
+            Read read,
+            IndexDescriptor indexDescriptor,
+            IndexReadSession indexSession,
+            KernelTransaction ktx)
+            throws KernelException {
+        final String label = Iterables.single(indexDefinition.getLabels()).name();
+        final int propertyKeyId = ktx.tokenRead().propertyKey(key);
+        final int keyPosition = ArrayUtils.indexOf(indexDescriptor.schema().getPropertyIds(), propertyKeyId);
+        final org.neo4j.internal.schema.IndexType indexType = indexDescriptor.getIndexType();
+        final boolean ordered = keyPosition == 0
+                && (indexType == org.neo4j.internal.schema.IndexType.BTREE
+                        || indexType == org.neo4j.internal.schema.IndexType.RANGE);
+        final BiConsumer<Value, Long> emit =
+                (value, count) -> putIntoQueue(queue, indexDefinition, key, value.asObjectCopy(), count, label);
+
+        int partitions = 1;
+        if (ordered
+                && !read.transactionStateHasChanges()
+                && indexDescriptor.getCapability().supportPartitionedScan(PropertyIndexQuery.allEntries())) {
+            // the label count is exact and bounds the number of index entries, unlike the sampled index size
+            long size = read.countsForNode(indexDescriptor.schema().getLabelId());
+            partitions = (int) Math.min(Runtime.getRuntime().availableProcessors(), size / PARTITION_SIZE);
+        }
+        if (partitions > 1) {
+            scanPartitions(read, indexSession, partitions, ktx, keyPosition, propertyKeyId, emit);
+            return;
+        }
+
+        try (ValueReader reader = new ValueReader(ktx, keyPosition, propertyKeyId)) {
+            // we need to using IndexOrder.NONE here to prevent an exception
+            // however the index guarantees to be scanned in order unless
+            // there are writes done in the same tx beforehand - which we don't do.
+            read.nodeIndexScan(indexSession, reader.cursor, IndexQueryConstraints.unorderedValues());
+            if (ordered) {
+                ValueRuns runs = new ValueRuns(emit);
+                while (reader.next()) {
+                    runs.add(reader.value());
+                }
+                runs.finish(emit);
+            } else {
+                Map<Value, Long> counts = new HashMap<>();
+                while (reader.next()) {
+                    counts.merge(reader.value(), 1L, Long::sum);
+                }
+                counts.forEach(emit);
+            }
+        }
+    }
+
+    private void scanPartitions(
+            Read read,
+            IndexReadSession indexSession,
+            int partitions,
+            KernelTransaction ktx,
+            int keyPosition,
+            int propertyKeyId,
+            BiConsumer<Value, Long> emit)
+            throws KernelException {
+        PartitionedScan<NodeValueIndexCursor> scan = read.nodeIndexScan(indexSession, partitions, ktx.queryContext());
+        // a value can continue across partition boundaries, so the first and last run of each partition
+        // are only complete once all partitions have been counted
+        Map<Value, Long> boundaryRuns = new ConcurrentHashMap<>();
+        List<Future<Void>> futures = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            futures.add(Util.inTxFuture(pools.getDefaultExecutorService(), db, workerTx -> {
+                KernelTransaction workerKtx = ((InternalTransaction) workerTx).kernelTransaction();
+                try (ValueReader reader = new ValueReader(workerKtx, keyPosition, propertyKeyId)) {
+                    while (scan.reservePartition(
+                            reader.cursor,
+                            workerKtx.cursorContext(),
+                            workerKtx.securityContext().mode())) {
+                        ValueRuns runs = new ValueRuns(emit);
+                        while (reader.next()) {
+                            runs.add(reader.value());
+                        }
+                        runs.finish((value, count) -> boundaryRuns.merge(value, count, Long::sum));
+                    }
+                }
+                return null;
+            }));
+        }
+        Util.getAll(futures, "Error during the distinct count of a partitioned index scan");
+        boundaryRuns.forEach(emit);
+    }
+
+    /**
+     * Counts consecutive equal values. Every run but the first and the last one is passed on as soon as
+     * it is complete, the first and last run are handed to {@link #finish(BiConsumer)}.
+     */
+    private static final class ValueRuns {
+        private final BiConsumer<Value, Long> emit;
+        private Value firstValue;
+        private long firstCount;
+        private Value value;
+        private long count;
+
+        ValueRuns(BiConsumer<Value, Long> emit) {
+            this.emit = emit;
+        }
+
+        void add(Value next) {
+            if (value != null && value.equals(next)) {
+                count++;
+                return;
+            }
+            if (value != null) {
+                if (firstValue == null) {
+                    firstValue = value;
+                    firstCount = count;
+                } else {
+                    emit.accept(value, count);
+                }
+            }
+            value = next;
+            count = 1;
+        }
+
+        void finish(BiConsumer<Value, Long> boundary) {
+            if (firstValue != null) {
+                boundary.accept(firstValue, firstCount);
+            }
+            if (value != null) {
+                boundary.accept(value, count);
+            }
+        }
+    }
+
+    /**
+     * Reads the value of one key from index entries, falling back to the property store for indexes
+     * that cannot return values. Entries without a value are skipped.
+     */
+    private static final class ValueReader implements AutoCloseable {
+        private final Read read;
+        private final NodeValueIndexCursor cursor;
+        private final NodeCursor nodeCursor;
+        private final PropertyCursor propertyCursor;
+        private final int keyPosition;
+        private final PropertySelection selection;
+        private Value current;
+
+        ValueReader(KernelTransaction ktx, int keyPosition, int propertyKeyId) {
+            CursorFactory cursors = ktx.cursors();
+            this.read = ktx.dataRead();
+            this.cursor = cursors.allocateNodeValueIndexCursor(ktx.cursorContext(), ktx.memoryTracker());
+            this.nodeCursor = cursors.allocateNodeCursor(ktx.cursorContext());
+            this.propertyCursor = cursors.allocatePropertyCursor(ktx.cursorContext(), ktx.memoryTracker());
+            this.keyPosition = keyPosition;
+            this.selection = PropertySelection.selection(propertyKeyId);
+        }
+
+        boolean next() {
+            while (cursor.next()) {
+                current = cursor.hasValue() ? cursor.propertyValue(keyPosition) : readProperty();
+                if (current != Values.NO_VALUE) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        Value value() {
+            return current;
+        }
+
+        private Value readProperty() {
+            read.singleNode(cursor.nodeReference(), nodeCursor);
+            if (!nodeCursor.next()) {
+                return Values.NO_VALUE;
+            }
+            nodeCursor.properties(propertyCursor, selection);
+            return propertyCursor.next() ? propertyCursor.propertyValue() : Values.NO_VALUE;
+        }
+
+        @Override
+        public void close() {
+            cursor.close();
+            nodeCursor.close();
+            propertyCursor.close();
         }
     }
 
@@ -18,13 +18,26 @@
  */
 package apoc.lock;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.neo4j.graphdb.Entity;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.DeadlockDetectedException;
+import org.neo4j.logging.Log;
 import org.neo4j.procedure.*;
 
+/**
+ * Entities are locked in ascending id order, nodes before relationships and each entity once, so that two
+ * transactions locking overlapping sets acquire the shared locks in the same order and cannot deadlock on them.
+ */
 public class Lock {
 
     @Context
@@ -33,46 +46,90 @@ public class Lock {
     @Context
     public Transaction tx;
 
+    @Context
+    public Log log;
+
     @Procedure(mode = Mode.WRITE)
     @Description("apoc.lock.all([nodes],[relationships]) acquires a write lock on the given nodes and relationships")
     public void all(@Name("nodes") List<Node> nodes, @Name("rels") List<Relationship> rels) {
-        for (Node node : nodes) {
-            tx.acquireWriteLock(node);
-        }
-        for (Relationship rel : rels) {
-            tx.acquireWriteLock(rel);
-        }
+        lock("apoc.lock.all", nodes, rels, true);
     }
 
     @Procedure(mode = Mode.WRITE)
     @Description("apoc.lock.nodes([nodes]) acquires a write lock on the given nodes")
     public void nodes(@Name("nodes") List<Node> nodes) {
-        for (Node node : nodes) {
-            tx.acquireWriteLock(node);
-        }
+        lock("apoc.lock.nodes", nodes, null, true);
     }
 
     @Procedure(mode = Mode.READ, name = "apoc.lock.read.nodes")
     @Description("apoc.lock.read.nodes([nodes]) acquires a read lock on the given nodes")
     public void readLockOnNodes(@Name("nodes") List<Node> nodes) {
-        for (Node node : nodes) {
-            tx.acquireReadLock(node);
-        }
+        lock("apoc.lock.read.nodes", nodes, null, false);
     }
 
     @Procedure(mode = Mode.WRITE)
     @Description("apoc.lock.rels([relationships]) acquires a write lock on the given relationship")
     public void rels(@Name("rels") List<Relationship> rels) {
-        for (Relationship rel : rels) {
-            tx.acquireWriteLock(rel);
-        }
+        lock("apoc.lock.rels", null, rels, true);
     }
 
     @Procedure(mode = Mode.READ, name = "apoc.lock.read.rels")
     @Description("apoc.lock.read.rels([relationships]) acquires a read lock on the given relationship")
     public void readLocksOnRels(@Name("rels") List<Relationship> rels) {
-        for (Relationship rel : rels) {
-            tx.acquireReadLock(rel);
+        lock("apoc.lock.read.rels", null, rels, false);
+    }
+
+    @Procedure(name = "apoc.lock.stats")
+    @Description(
+            "apoc.lock.stats() returns the number of calls, locked entities, lock-wait time and deadlocks of each apoc.lock procedure")
+    public Stream<LockStats.Result> stats() {
+        return LockStats.all();
+    }
+
+    private void lock(String procedure, List<Node> nodes, List<Relationship> rels, boolean write) {
+        final List<Entity> entities = new ArrayList<>();
+        entities.addAll(ordered(nodes));
+        entities.addAll(ordered(rels));
+
+        final LockStats stats = LockStats.of(procedure);
+        final long start = System.nanoTime();
+        try {
+            for (Entity entity : entities) {
+                if (write) {
+                    tx.acquireWriteLock(entity);
+                } else {
+                    tx.acquireReadLock(entity);
+                }
+            }
+        } catch (DeadlockDetectedException e) {
+            stats.deadlock();
+            throw e;
+        } finally {
+            final long waited = System.nanoTime() - start;
+            stats.record(entities.size(), waited);
+            log.debug(
+                    "%s locked %d entities in %d ms",
+                    procedure, entities.size(), TimeUnit.NANOSECONDS.toMillis(waited));
+        }
+    }
+
+    /**
+     * @return the entities sorted by id, without nulls and duplicates.
+     */
+    private static <T extends Entity> List<T> ordered(List<T> entities) {
+        if (entities == null) {
+            return List.of();
+        }
+        final List<T> sorted = entities.stream()
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparingLong(Entity::getId))
+                .collect(Collectors.toList());
+        final List<T> result = new ArrayList<>(sorted.size());
+        for (T entity : sorted) {
+            if (result.isEmpty() || result.get(result.size() - 1).getId() != entity.getId()) {
+                result.add(entity);
+            }
         }
+        return result;
     }
 }
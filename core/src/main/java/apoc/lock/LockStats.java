@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.lock;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Lock-wait statistics of the apoc.lock procedures, one instance per procedure, kept for the lifetime of the JVM.
+ */
+public class LockStats {
+
+    private static final Map<String, LockStats> STATS = new ConcurrentHashMap<>();
+
+    private final String procedure;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder locks = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder deadlocks = new LongAdder();
+
+    private LockStats(String procedure) {
+        this.procedure = procedure;
+    }
+
+    public static LockStats of(String procedure) {
+        return STATS.computeIfAbsent(procedure, LockStats::new);
+    }
+
+    public void record(int locked, long waited) {
+        calls.increment();
+        locks.add(locked);
+        waitNanos.add(waited);
+        maxWaitNanos.accumulate(waited);
+    }
+
+    public void deadlock() {
+        deadlocks.increment();
+    }
+
+    public static Stream<Result> all() {
+        return STATS.values().stream()
+                .map(LockStats::toResult)
+                .sorted((r1, r2) -> r1.procedure.compareTo(r2.procedure));
+    }
+
+    public static void reset() {
+        STATS.clear();
+    }
+
+    private Result toResult() {
+        return new Result(
+                procedure,
+                calls.sum(),
+                locks.sum(),
+                TimeUnit.NANOSECONDS.toMillis(waitNanos.sum()),
+                TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()),
+                deadlocks.sum());
+    }
+
+    public static class Result {
+        public final String procedure;
+        public final long calls;
+        public final long locks;
+        public final long waitMillis;
+        public final long maxWaitMillis;
+        public final long deadlocks;
+
+        public Result(String procedure, long calls, long locks, long waitMillis, long maxWaitMillis, long deadlocks) {
+            this.procedure = procedure;
+            this.calls = calls;
+            this.locks = locks;
+            this.waitMillis = waitMillis;
+            this.maxWaitMillis = maxWaitMillis;
+            this.deadlocks = deadlocks;
+        }
+    }
+}
@@ -0,0 +1,431 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.merge;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import org.neo4j.exceptions.KernelException;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.internal.helpers.collection.Iterables;
+import org.neo4j.internal.kernel.api.CursorFactory;
+import org.neo4j.internal.kernel.api.IndexQueryConstraints;
+import org.neo4j.internal.kernel.api.IndexReadSession;
+import org.neo4j.internal.kernel.api.InternalIndexState;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.NodeValueIndexCursor;
+import org.neo4j.internal.kernel.api.PropertyCursor;
+import org.neo4j.internal.kernel.api.PropertyIndexQuery;
+import org.neo4j.internal.kernel.api.Read;
+import org.neo4j.internal.kernel.api.RelationshipTraversalCursor;
+import org.neo4j.internal.kernel.api.SchemaRead;
+import org.neo4j.internal.kernel.api.Write;
+import org.neo4j.internal.schema.IndexDescriptor;
+import org.neo4j.internal.schema.IndexType;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.storageengine.api.RelationshipSelection;
+import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.Values;
+
+/**
+ * Merges nodes and relationships through the kernel API, for the batched merge procedures.
+ * Tokens, the index chosen for a combination of labels and identifying properties, index read sessions and cursors
+ * are resolved once per batch instead of once per row. Nodes are looked up with an index seek, relationships by
+ * traversing the relationships of the type from the node with the lower degree.
+ */
+class BatchMerger implements AutoCloseable {
+    private static final String[] EMPTY = new String[0];
+
+    private final KernelTransaction ktx;
+    private final Read read;
+    private final Write write;
+
+    private final Map<String, Integer> labels = new HashMap<>();
+    private final Map<String, Integer> propertyKeys = new HashMap<>();
+    private final Map<String, Integer> types = new HashMap<>();
+    private final Map<String, IndexDescriptor> indexes = new HashMap<>();
+    private final Map<IndexDescriptor, IndexReadSession> sessions = new HashMap<>();
+
+    private final NodeValueIndexCursor indexCursor;
+    private final NodeCursor nodeCursor;
+    private final NodeCursor otherNodeCursor;
+    private final RelationshipTraversalCursor relationshipCursor;
+    private final PropertyCursor propertyCursor;
+
+    BatchMerger(KernelTransaction ktx) {
+        this.ktx = ktx;
+        this.read = ktx.dataRead();
+        try {
+            this.write = ktx.dataWrite();
+        } catch (KernelException e) {
+            throw new RuntimeException(e);
+        }
+        CursorFactory cursors = ktx.cursors();
+        this.indexCursor = cursors.allocateNodeValueIndexCursor(ktx.cursorContext(), ktx.memoryTracker());
+        this.nodeCursor = cursors.allocateNodeCursor(ktx.cursorContext());
+        this.otherNodeCursor = cursors.allocateNodeCursor(ktx.cursorContext());
+        this.relationshipCursor = cursors.allocateRelationshipTraversalCursor(ktx.cursorContext());
+        this.propertyCursor = cursors.allocatePropertyCursor(ktx.cursorContext(), ktx.memoryTracker());
+    }
+
+    /**
+     * Merges a node with the given labels and identifying properties.
+     * @return the ids of the matched or created nodes, or null if there is no online index to seek,
+     * in which case the caller merges the node with Cypher
+     */
+    long[] mergeNode(
+            List<String> labelNames,
+            Map<String, Object> identProps,
+            Map<String, Object> onCreateProps,
+            Map<String, Object> onMatchProps)
+            throws KernelException {
+        int[] labelIds = new int[labelNames.size()];
+        for (int i = 0; i < labelIds.length; i++) {
+            labelIds[i] = labelId(labelNames.get(i));
+        }
+        int[] keyIds = new int[identProps.size()];
+        Value[] values = new Value[keyIds.length];
+        int k = 0;
+        for (Map.Entry<String, Object> entry : identProps.entrySet()) {
+            if (entry.getValue() == null) {
+                throw new IllegalArgumentException(String.format(
+                        "Cannot merge the following node because of null property value for '%s'", entry.getKey()));
+            }
+            keyIds[k] = propertyKeyId(entry.getKey());
+            values[k++] = toValue(entry.getKey(), entry.getValue());
+        }
+
+        IndexDescriptor index = index(labelIds, keyIds);
+        if (index == null) {
+            return null;
+        }
+        int[] indexKeys = index.schema().getPropertyIds();
+        PropertyIndexQuery.ExactPredicate[] predicates = new PropertyIndexQuery.ExactPredicate[indexKeys.length];
+        for (int i = 0; i < indexKeys.length; i++) {
+            predicates[i] = PropertyIndexQuery.exact(indexKeys[i], values[indexOf(keyIds, indexKeys[i])]);
+        }
+
+        List<Long> matches = new ArrayList<>(1);
+        if (index.isUnique() && indexKeys.length == keyIds.length) {
+            // locks the index entry like Cypher's MERGE, so concurrent batches cannot create duplicates
+            long nodeId = read.lockingNodeUniqueIndexSeek(index, indexCursor, predicates);
+            if (nodeId != Read.NO_ID && hasLabelsAndProperties(nodeId, labelIds, keyIds, values)) {
+                matches.add(nodeId);
+            }
+        } else {
+            read.nodeIndexSeek(
+                    ktx.queryContext(), session(index), indexCursor, IndexQueryConstraints.unconstrained(), predicates);
+            while (indexCursor.next()) {
+                matches.add(indexCursor.nodeReference());
+            }
+            matches.removeIf(nodeId -> !hasLabelsAndProperties(nodeId, labelIds, keyIds, values));
+        }
+
+        if (matches.isEmpty()) {
+            long nodeId = write.nodeCreateWithLabels(labelIds);
+            for (int i = 0; i < keyIds.length; i++) {
+                write.nodeSetProperty(nodeId, keyIds[i], values[i]);
+            }
+            setNodeProperties(nodeId, onCreateProps);
+            return new long[] {nodeId};
+        }
+        long[] nodeIds = new long[matches.size()];
+        for (int i = 0; i < nodeIds.length; i++) {
+            nodeIds[i] = matches.get(i);
+            setNodeProperties(nodeIds[i], onMatchProps);
+        }
+        return nodeIds;
+    }
+
+    /**
+     * Merges an outgoing relationship of the given type and identifying properties between the nodes.
+     * @return the ids of the matched or created relationships
+     */
+    long[] mergeRelationship(
+            Node startNode,
+            String relType,
+            Map<String, Object> identProps,
+            Map<String, Object> onCreateProps,
+            Node endNode,
+            Map<String, Object> onMatchProps)
+            throws KernelException {
+        int typeId = relationshipTypeId(relType);
+        int[] keyIds = new int[identProps.size()];
+        Value[] values = new Value[keyIds.length];
+        int k = 0;
+        for (Map.Entry<String, Object> entry : identProps.entrySet()) {
+            if (entry.getValue() == null) {
+                throw new IllegalArgumentException(String.format(
+                        "Cannot merge the following relationship because of null property value for '%s'",
+                        entry.getKey()));
+            }
+            keyIds[k] = propertyKeyId(entry.getKey());
+            values[k++] = toValue(entry.getKey(), entry.getValue());
+        }
+
+        long startId = startNode.getId();
+        long endId = endNode.getId();
+        long[] relationshipIds = findRelationships(startId, typeId, endId, keyIds, values);
+        if (relationshipIds.length == 0) {
+            // lock both nodes like Cypher's MERGE and look again, a concurrent transaction may have created it
+            ktx.locks().acquireExclusiveNodeLock(startId == endId ? new long[] {startId} : sorted(startId, endId));
+            relationshipIds = findRelationships(startId, typeId, endId, keyIds, values);
+        }
+        if (relationshipIds.length == 0) {
+            long relationshipId = write.relationshipCreate(startId, typeId, endId);
+            for (int i = 0; i < keyIds.length; i++) {
+                write.relationshipSetProperty(relationshipId, keyIds[i], values[i]);
+            }
+            setRelationshipProperties(relationshipId, onCreateProps);
+            return new long[] {relationshipId};
+        }
+        for (long relationshipId : relationshipIds) {
+            setRelationshipProperties(relationshipId, onMatchProps);
+        }
+        return relationshipIds;
+    }
+
+    private long[] findRelationships(long startId, int typeId, long endId, int[] keyIds, Value[] values) {
+        read.singleNode(startId, nodeCursor);
+        if (!nodeCursor.next()) {
+            throw new IllegalArgumentException("node with id " + startId + " does not exist.");
+        }
+        read.singleNode(endId, otherNodeCursor);
+        if (!otherNodeCursor.next()) {
+            throw new IllegalArgumentException("node with id " + endId + " does not exist.");
+        }
+        RelationshipSelection outgoing = RelationshipSelection.selection(typeId, Direction.OUTGOING);
+        RelationshipSelection incoming = RelationshipSelection.selection(typeId, Direction.INCOMING);
+        // traverse from the node with fewer relationships of the type, a sparse node needs no degree lookup
+        boolean fromStart = !nodeCursor.supportsFastDegreeLookup()
+                || (otherNodeCursor.supportsFastDegreeLookup()
+                        && nodeCursor.degree(outgoing) <= otherNodeCursor.degree(incoming));
+        NodeCursor from = fromStart ? nodeCursor : otherNodeCursor;
+        long other = fromStart ? endId : startId;
+        from.relationships(relationshipCursor, fromStart ? outgoing : incoming);
+        List<Long> matches = new ArrayList<>(1);
+        while (relationshipCursor.next()) {
+            if (relationshipCursor.otherNodeReference() == other) {
+                relationshipCursor.properties(propertyCursor);
+                if (hasProperties(propertyCursor, keyIds, values)) {
+                    matches.add(relationshipCursor.relationshipReference());
+                }
+            }
+        }
+        return matches.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private boolean hasLabelsAndProperties(long nodeId, int[] labelIds, int[] keyIds, Value[] values) {
+        read.singleNode(nodeId, nodeCursor);
+        if (!nodeCursor.next()) {
+            return false;
+        }
+        for (int labelId : labelIds) {
+            if (!nodeCursor.hasLabel(labelId)) {
+                return false;
+            }
+        }
+        nodeCursor.properties(propertyCursor);
+        return hasProperties(propertyCursor, keyIds, values);
+    }
+
+    private static boolean hasProperties(PropertyCursor properties, int[] keyIds, Value[] values) {
+        int found = 0;
+        while (found < keyIds.length && properties.next()) {
+            int i = indexOf(keyIds, properties.propertyKey());
+            if (i >= 0) {
+                if (!values[i].equals(properties.propertyValue())) {
+                    return false;
+                }
+                found++;
+            }
+        }
+        return found == keyIds.length;
+    }
+
+    private void setNodeProperties(long nodeId, Map<String, Object> properties) throws KernelException {
+        if (properties == null) return;
+        for (Map.Entry<String, Object> entry : properties.entrySet()) {
+            int keyId = propertyKeyId(entry.getKey());
+            if (entry.getValue() == null) {
+                write.nodeRemoveProperty(nodeId, keyId);
+            } else {
+                write.nodeSetProperty(nodeId, keyId, toValue(entry.getKey(), entry.getValue()));
+            }
+        }
+    }
+
+    private void setRelationshipProperties(long relationshipId, Map<String, Object> properties) throws KernelException {
+        if (properties == null) return;
+        for (Map.Entry<String, Object> entry : properties.entrySet()) {
+            int keyId = propertyKeyId(entry.getKey());
+            if (entry.getValue() == null) {
+                write.relationshipRemoveProperty(relationshipId, keyId);
+            } else {
+                write.relationshipSetProperty(relationshipId, keyId, toValue(entry.getKey(), entry.getValue()));
+            }
+        }
+    }
+
+    /**
+     * The online index to seek for nodes with all of the labels and properties: unique indexes come first,
+     * then the indexes that cover more of the properties. Returns null if there is no such index.
+     */
+    private IndexDescriptor index(int[] labelIds, int[] keyIds) {
+        String key = Arrays.toString(labelIds) + Arrays.toString(keyIds);
+        IndexDescriptor cached = indexes.get(key);
+        if (cached != null) {
+            return cached == IndexDescriptor.NO_INDEX ? null : cached;
+        }
+        SchemaRead schemaRead = ktx.schemaRead();
+        IndexDescriptor best = null;
+        for (int labelId : labelIds) {
+            Iterator<IndexDescriptor> candidates = schemaRead.indexesGetForLabel(labelId);
+            while (candidates.hasNext()) {
+                IndexDescriptor index = candidates.next();
+                if (isSeekable(schemaRead, index, keyIds) && (best == null || isBetter(index, best))) {
+                    best = index;
+                }
+            }
+        }
+        indexes.put(key, best == null ? IndexDescriptor.NO_INDEX : best);
+        return best;
+    }
+
+    private static boolean isSeekable(SchemaRead schemaRead, IndexDescriptor index, int[] keyIds) {
+        if (index.getIndexType() != IndexType.BTREE && index.getIndexType() != IndexType.RANGE) {
+            return false;
+        }
+        if (index.schema().getEntityTokenIds().length != 1) {
+            return false;
+        }
+        for (int propertyId : index.schema().getPropertyIds()) {
+            if (indexOf(keyIds, propertyId) < 0) {
+                return false;
+            }
+        }
+        try {
+            return schemaRead.indexGetState(index) == InternalIndexState.ONLINE;
+        } catch (KernelException e) {
+            return false;
+        }
+    }
+
+    private static boolean isBetter(IndexDescriptor index, IndexDescriptor than) {
+        if (index.isUnique() != than.isUnique()) {
+            return index.isUnique();
+        }
+        return index.schema().getPropertyIds().length > than.schema().getPropertyIds().length;
+    }
+
+    private IndexReadSession session(IndexDescriptor index) throws KernelException {
+        IndexReadSession session = sessions.get(index);
+        if (session == null) {
+            session = read.indexReadSession(index);
+            sessions.put(index, session);
+        }
+        return session;
+    }
+
+    private int labelId(String name) throws KernelException {
+        Integer id = labels.get(name);
+        if (id == null) {
+            id = ktx.tokenWrite().labelGetOrCreateForName(name);
+            labels.put(name, id);
+        }
+        return id;
+    }
+
+    private int propertyKeyId(String name) throws KernelException {
+        Integer id = propertyKeys.get(name);
+        if (id == null) {
+            id = ktx.tokenWrite().propertyKeyGetOrCreateForName(name);
+            propertyKeys.put(name, id);
+        }
+        return id;
+    }
+
+    private int relationshipTypeId(String name) throws KernelException {
+        Integer id = types.get(name);
+        if (id == null) {
+            id = ktx.tokenWrite().relationshipTypeGetOrCreateForName(name);
+            types.put(name, id);
+        }
+        return id;
+    }
+
+    /**
+     * Converts lists to arrays, like Cypher does when setting properties.
+     * Lists mixing integers and floats are widened to a double array, other mixed lists are rejected.
+     */
+    private static Value toValue(String key, Object value) {
+        if (!(value instanceof Iterable)) return Values.of(value);
+        List<?> list = Iterables.asList((Iterable<?>) value);
+        if (list.isEmpty()) return Values.of(EMPTY);
+        Class<?> type = list.get(0) == null ? null : list.get(0).getClass();
+        boolean numbers = true, floats = false;
+        for (Object element : list) {
+            if (element == null) {
+                throw new IllegalArgumentException(
+                        String.format("Cannot store the list of property '%s' because it contains null", key));
+            }
+            if (element.getClass() != type) type = null;
+            numbers &= element instanceof Number;
+            floats |= element instanceof Double || element instanceof Float;
+        }
+        if (type != null) {
+            return Values.of(list.toArray((Object[]) Array.newInstance(type, list.size())));
+        }
+        if (numbers && floats) {
+            return Values.of(
+                    list.stream().mapToDouble(n -> ((Number) n).doubleValue()).toArray());
+        }
+        if (numbers) {
+            return Values.of(
+                    list.stream().mapToLong(n -> ((Number) n).longValue()).toArray());
+        }
+        throw new IllegalArgumentException(String.format(
+                "Cannot store the list of property '%s' because it mixes values of different types: %s", key, list));
+    }
+
+    private static int indexOf(int[] ids, int id) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) return i;
+        }
+        return -1;
+    }
+
+    private static long[] sorted(long a, long b) {
+        return a < b ? new long[] {a, b} : new long[] {b, a};
+    }
+
+    @Override
+    public void close() {
+        propertyCursor.close();
+        relationshipCursor.close();
+        otherNodeCursor.close();
+        nodeCursor.close();
+        indexCursor.close();
+    }
+}
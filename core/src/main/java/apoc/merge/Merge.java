@@ -18,6 +18,7 @@
  */
 package apoc.merge;
 
+import static java.util.Collections.emptyList;
 import static java.util.Collections.emptyMap;
 
 import apoc.cypher.Cypher;
@@ -26,14 +27,17 @@ import apoc.result.NodeResultWithStats;
 import apoc.result.RelationshipResult;
 import apoc.result.RelationshipResultWithStats;
 import apoc.util.Util;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import org.neo4j.exceptions.KernelException;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.Result;
 import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.api.KernelTransaction;
 import org.neo4j.procedure.*;
 
 public class Merge {
@@ -41,6 +45,9 @@ public class Merge {
     @Context
     public Transaction tx;
 
+    @Context
+    public KernelTransaction ktx;
+
     @Procedure(value = "apoc.merge.node.eager", mode = Mode.WRITE, eager = true)
     @Description(
             "apoc.merge.node.eager(['Label'], identProps:{key:value, ...}, onCreateProps:{key:value,...}, onMatchProps:{key:value,...}}) - merge nodes eagerly, with dynamic labels, with support for setting properties ON CREATE or ON MATCH")
@@ -86,11 +93,43 @@ public class Merge {
                 .map(node -> new NodeResultWithStats((Node) node, Cypher.toMap(nodeResult.getQueryStatistics())));
     }
 
-    private Result getNodeResult(
-            List<String> labelNames,
-            Map<String, Object> identProps,
-            Map<String, Object> onCreateProps,
-            Map<String, Object> onMatchProps) {
+    @Procedure(value = "apoc.merge.nodes", mode = Mode.WRITE)
+    @Description(
+            "apoc.merge.nodes([{labels: ['Label'], identProps:{key:value, ...}, onCreateProps:{key:value,...}, onMatchProps:{key:value,...}}, ...]) - merge a batch of nodes with dynamic labels in one call, seeking an index on the identifying properties instead of planning a query per row")
+    public Stream<NodeResult> nodesBatch(@Name("rows") List<Map<String, Object>> rows) {
+        if (rows == null) return Stream.empty();
+        List<NodeResult> results = new ArrayList<>(rows.size());
+        try (BatchMerger merger = new BatchMerger(ktx)) {
+            for (Map<String, Object> row : rows) {
+                List<String> labelNames = (List<String>) row.getOrDefault("labels", emptyList());
+                Map<String, Object> identProps = (Map<String, Object>) row.get("identProps");
+                Map<String, Object> onCreateProps = (Map<String, Object>) row.get("onCreateProps");
+                Map<String, Object> onMatchProps = (Map<String, Object>) row.get("onMatchProps");
+                validateNode(labelNames, identProps);
+                long[] nodeIds = merger.mergeNode(
+                        labelNames == null ? emptyList() : labelNames, identProps, onCreateProps, onMatchProps);
+                if (nodeIds == null) {
+                    // without an index to seek, fall back to Cypher's MERGE
+                    getNodeResult(
+                                    labelNames,
+                                    identProps,
+                                    onCreateProps == null ? emptyMap() : onCreateProps,
+                                    onMatchProps == null ? emptyMap() : onMatchProps)
+                            .<Node>columnAs("n")
+                            .forEachRemaining(node -> results.add(new NodeResult(node)));
+                } else {
+                    for (long nodeId : nodeIds) {
+                        results.add(new NodeResult(tx.getNodeById(nodeId)));
+                    }
+                }
+            }
+        } catch (KernelException e) {
+            throw new RuntimeException(e);
+        }
+        return results.stream();
+    }
+
+    private static void validateNode(List<String> labelNames, Map<String, Object> identProps) {
         if (identProps == null || identProps.isEmpty()) {
             throw new IllegalArgumentException("you need to supply at least one identifying property for a merge");
         }
@@ -99,6 +138,14 @@ public class Merge {
             throw new IllegalArgumentException(
                     "The list of label names may not contain any `NULL` or empty `STRING` values. If you wish to merge a `NODE` without a label, pass an empty list instead.");
         }
+    }
+
+    private Result getNodeResult(
+            List<String> labelNames,
+            Map<String, Object> identProps,
+            Map<String, Object> onCreateProps,
+            Map<String, Object> onMatchProps) {
+        validateNode(labelNames, identProps);
 
         String labels;
         if (labelNames == null || labelNames.isEmpty()) {
@@ -146,6 +193,43 @@ public class Merge {
                         (Relationship) rel, Cypher.toMap(relResult.getQueryStatistics())));
     }
 
+    @Procedure(value = "apoc.merge.relationships", mode = Mode.WRITE)
+    @Description(
+            "apoc.merge.relationships([{startNode: node, relationshipType: 'TYPE', identProps:{key:value, ...}, onCreateProps:{key:value, ...}, endNode: node, onMatchProps:{key:value, ...}}, ...]) - merge a batch of relationships with dynamic types in one call, without planning a query per row")
+    public Stream<RelationshipResult> relationshipsBatch(@Name("rows") List<Map<String, Object>> rows) {
+        if (rows == null) return Stream.empty();
+        List<RelationshipResult> results = new ArrayList<>(rows.size());
+        try (BatchMerger merger = new BatchMerger(ktx)) {
+            for (Map<String, Object> row : rows) {
+                String relType = (String) row.get("relationshipType");
+                if (relType == null || relType.isEmpty()) {
+                    throw new IllegalArgumentException(
+                            "It is not possible to merge a `RELATIONSHIP` without a `RELATIONSHIP` type.");
+                }
+                Node startNode = (Node) row.get("startNode");
+                Node endNode = (Node) row.get("endNode");
+                if (startNode == null || endNode == null) {
+                    throw new IllegalArgumentException(
+                            "It is not possible to merge a `RELATIONSHIP` without a start and an end node.");
+                }
+                Map<String, Object> identProps = (Map<String, Object>) row.get("identProps");
+                long[] relationshipIds = merger.mergeRelationship(
+                        startNode,
+                        relType,
+                        identProps == null ? emptyMap() : identProps,
+                        (Map<String, Object>) row.get("onCreateProps"),
+                        endNode,
+                        (Map<String, Object>) row.get("onMatchProps"));
+                for (long relationshipId : relationshipIds) {
+                    results.add(new RelationshipResult(tx.getRelationshipById(relationshipId)));
+                }
+            }
+        } catch (KernelException e) {
+            throw new RuntimeException(e);
+        }
+        return results.stream();
+    }
+
     private Result getRelResult(
             Node startNode,
             String relType,
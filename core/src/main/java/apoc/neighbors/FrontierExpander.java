@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.neighbors;
+
+import apoc.path.RelationshipTypeAndDirections;
+import apoc.util.Util;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.internal.helpers.collection.Pair;
+import org.neo4j.internal.kernel.api.CursorFactory;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.Read;
+import org.neo4j.internal.kernel.api.RelationshipTraversalCursor;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
+import org.neo4j.storageengine.api.RelationshipSelection;
+import org.roaringbitmap.longlong.LongIterator;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+/**
+ * Expands a frontier of node ids by one hop using kernel cursors.
+ * Relationship types are resolved to token ids once, and frontiers larger than
+ * {@link #PARALLEL_THRESHOLD} are split into batches expanded by worker transactions
+ * whose results are merged into the target bitmap.
+ * The cursors and the bitmaps used by {@link #toHop(long, long)} and {@link #byHop(long, int)}
+ * are allocated once and reused for every start node handled by the same expander.
+ */
+class FrontierExpander implements AutoCloseable {
+
+    static final int PARALLEL_THRESHOLD = 50_000;
+    static final int BATCH_SIZE = 10_000;
+    private static final String ERROR_MESSAGE = "Error expanding neighbors frontier";
+
+    private final GraphDatabaseService db;
+    private final KernelTransaction ktx;
+    private final ExecutorService executor;
+    private final RelationshipSelection[] selections;
+    private final NodeCursor nodeCursor;
+    private final RelationshipTraversalCursor relationshipCursor;
+
+    private final Roaring64NavigableMap seen = new Roaring64NavigableMap();
+    private final Roaring64NavigableMap frontierA = new Roaring64NavigableMap();
+    private final Roaring64NavigableMap frontierB = new Roaring64NavigableMap();
+    private Roaring64NavigableMap[] hops = new Roaring64NavigableMap[0];
+
+    FrontierExpander(
+            GraphDatabaseService db,
+            KernelTransaction ktx,
+            ExecutorService executor,
+            List<Pair<RelationshipType, Direction>> typesAndDirections) {
+        this(db, ktx, executor, RelationshipTypeAndDirections.selections(ktx.tokenRead(), typesAndDirections));
+    }
+
+    FrontierExpander(
+            GraphDatabaseService db,
+            KernelTransaction ktx,
+            ExecutorService executor,
+            RelationshipSelection[] selections) {
+        this.db = db;
+        this.ktx = ktx;
+        this.executor = executor;
+        this.selections = selections;
+        CursorFactory cursors = ktx.cursors();
+        this.nodeCursor = cursors.allocateNodeCursor(ktx.cursorContext());
+        this.relationshipCursor = cursors.allocateRelationshipTraversalCursor(ktx.cursorContext());
+    }
+
+    /**
+     * Runs a batch of start nodes through expanders which share the resolved selections.
+     * Small batches, or callers with uncommitted changes, run in the current transaction,
+     * otherwise the ids are partitioned across worker transactions on the given executor.
+     *
+     * @param consumer receives an expander and the [from, to) range of ids it should handle
+     */
+    static void forEachBatch(
+            GraphDatabaseService db,
+            KernelTransaction ktx,
+            ExecutorService executor,
+            RelationshipSelection[] selections,
+            int count,
+            int batchSize,
+            BatchConsumer consumer) {
+        if (count <= batchSize || ktx.dataRead().transactionStateHasChanges()) {
+            try (FrontierExpander expander = new FrontierExpander(db, ktx, executor, selections)) {
+                consumer.accept(expander, 0, count);
+            }
+            return;
+        }
+        List<Future<Void>> futures = new ArrayList<>(count / batchSize + 1);
+        for (int from = 0; from < count; from += batchSize) {
+            final int start = from;
+            final int end = Math.min(count, from + batchSize);
+            // workers don't fan out any further, so they can't starve the pool they run on
+            futures.add(Util.inTxFuture(executor, db, workerTx -> {
+                KernelTransaction workerKtx = ((InternalTransaction) workerTx).kernelTransaction();
+                try (FrontierExpander expander = new FrontierExpander(db, workerKtx, null, selections)) {
+                    consumer.accept(expander, start, end);
+                }
+                return null;
+            }));
+        }
+        Util.getAll(futures, ERROR_MESSAGE);
+    }
+
+    interface BatchConsumer {
+        void accept(FrontierExpander expander, int from, int to);
+    }
+
+    /**
+     * The returned bitmap is owned by this expander and is overwritten by the next call.
+     *
+     * @return the distinct ids of the nodes reachable from the given node up to the given distance,
+     * excluding the node itself
+     */
+    Roaring64NavigableMap toHop(long startNodeId, long distance) {
+        Roaring64NavigableMap current = frontierA;
+        Roaring64NavigableMap next = frontierB;
+        seen.clear();
+        current.clear();
+        seen.addLong(startNodeId);
+
+        // First Hop
+        expand(startNodeId, current);
+
+        for (int i = 1; i < distance; i++) {
+            current.andNot(seen);
+            seen.or(current);
+            next.clear();
+            expand(current, next);
+
+            Roaring64NavigableMap tmp = current;
+            current = next;
+            next = tmp;
+        }
+        seen.or(current);
+        // remove starting node
+        seen.removeLong(startNodeId);
+        return seen;
+    }
+
+    /**
+     * The returned bitmaps are owned by this expander and are overwritten by the next call.
+     *
+     * @return for each distance the distinct ids of the nodes first reached at that distance
+     */
+    Roaring64NavigableMap[] byHop(long startNodeId, int distance) {
+        if (hops.length != distance) {
+            Roaring64NavigableMap[] resized = Arrays.copyOf(hops, distance);
+            for (int i = hops.length; i < distance; i++) {
+                resized[i] = new Roaring64NavigableMap();
+            }
+            hops = resized;
+        }
+        for (Roaring64NavigableMap hop : hops) {
+            hop.clear();
+        }
+
+        // First Hop
+        expand(startNodeId, hops[0]);
+
+        for (int i = 1; i < distance; i++) {
+            expand(hops[i - 1], hops[i]);
+            for (int j = 0; j < i; j++) {
+                hops[i].andNot(hops[j]);
+            }
+            hops[i].removeLong(startNodeId);
+        }
+        return hops;
+    }
+
+    /**
+     * Adds the neighbours of the given node to the target bitmap.
+     */
+    void expand(long nodeId, Roaring64NavigableMap target) {
+        expand(ktx.dataRead(), nodeCursor, relationshipCursor, selections, nodeId, target);
+    }
+
+    /**
+     * Adds the neighbours of every node in the frontier to the target bitmap.
+     * Large frontiers are expanded in parallel, unless the current transaction holds changes
+     * which would not be visible to the worker transactions.
+     */
+    void expand(Roaring64NavigableMap frontier, Roaring64NavigableMap target) {
+        long size = frontier.getLongCardinality();
+        if (size < PARALLEL_THRESHOLD || executor == null || ktx.dataRead().transactionStateHasChanges()) {
+            LongIterator iterator = frontier.getLongIterator();
+            while (iterator.hasNext()) {
+                expand(iterator.next(), target);
+            }
+            return;
+        }
+
+        List<Future<Roaring64NavigableMap>> futures = new ArrayList<>((int) (size / BATCH_SIZE) + 1);
+        LongIterator iterator = frontier.getLongIterator();
+        while (iterator.hasNext()) {
+            long[] batch = new long[BATCH_SIZE];
+            int count = 0;
+            while (count < BATCH_SIZE && iterator.hasNext()) {
+                batch[count++] = iterator.next();
+            }
+            final int batchCount = count;
+            futures.add(Util.inTxFuture(executor, db, workerTx -> expandBatch(workerTx, batch, batchCount)));
+        }
+        for (Roaring64NavigableMap local : Util.getAll(futures, ERROR_MESSAGE)) {
+            target.or(local);
+        }
+    }
+
+    private Roaring64NavigableMap expandBatch(Transaction tx, long[] batch, int count) {
+        Roaring64NavigableMap local = new Roaring64NavigableMap();
+        KernelTransaction workerKtx = ((InternalTransaction) tx).kernelTransaction();
+        CursorFactory cursors = workerKtx.cursors();
+        Read read = workerKtx.dataRead();
+        try (NodeCursor workerNodeCursor = cursors.allocateNodeCursor(workerKtx.cursorContext());
+                RelationshipTraversalCursor workerRelationshipCursor =
+                        cursors.allocateRelationshipTraversalCursor(workerKtx.cursorContext())) {
+            for (int i = 0; i < count; i++) {
+                expand(read, workerNodeCursor, workerRelationshipCursor, selections, batch[i], local);
+            }
+        }
+        return local;
+    }
+
+    private static void expand(
+            Read read,
+            NodeCursor nodeCursor,
+            RelationshipTraversalCursor relationshipCursor,
+            RelationshipSelection[] selections,
+            long nodeId,
+            Roaring64NavigableMap target) {
+        read.singleNode(nodeId, nodeCursor);
+        if (!nodeCursor.next()) {
+            return;
+        }
+        for (RelationshipSelection selection : selections) {
+            nodeCursor.relationships(relationshipCursor, selection);
+            while (relationshipCursor.next()) {
+                target.addLong(relationshipCursor.otherNodeReference());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        relationshipCursor.close();
+        nodeCursor.close();
+    }
+}
@@ -20,42 +20,79 @@ package apoc.neighbors;
 
 import static apoc.path.RelationshipTypeAndDirections.parse;
 
+import apoc.Pools;
+import apoc.path.RelationshipTypeAndDirections;
 import apoc.result.ListResult;
 import apoc.result.LongResult;
 import apoc.result.NodeListResult;
 import apoc.result.NodeResult;
+import apoc.util.Util;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 import org.neo4j.graphdb.*;
-import org.neo4j.internal.helpers.collection.Iterables;
 import org.neo4j.internal.helpers.collection.Pair;
+import org.neo4j.kernel.api.KernelTransaction;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Description;
 import org.neo4j.procedure.Name;
 import org.neo4j.procedure.Procedure;
+import org.neo4j.storageengine.api.RelationshipSelection;
 import org.roaringbitmap.longlong.Roaring64NavigableMap;
 
 public class Neighbors {
 
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
     @Context
     public Transaction tx;
 
-    private Iterable<Relationship> getRelationshipsByTypeAndDirection(
-            Node node, Pair<RelationshipType, Direction> typesAndDirection) {
-        // as policy if both elements in the pair are null we return an empty result
-        if (typesAndDirection.first() == null) {
-            return typesAndDirection.other() == null
-                    ? Iterables.empty()
-                    : node.getRelationships(typesAndDirection.other());
+    @Context
+    public KernelTransaction ktx;
+
+    @Context
+    public GraphDatabaseService db;
+
+    @Context
+    public Pools pools;
+
+    private FrontierExpander expander(String types) {
+        List<Pair<RelationshipType, Direction>> typesAndDirections = parse(types);
+        return new FrontierExpander(db, ktx, pools.getDefaultExecutorService(), typesAndDirections);
+    }
+
+    private Roaring64NavigableMap toHop(Node node, String types, long distance) {
+        try (FrontierExpander expander = expander(types)) {
+            return expander.toHop(node.getId(), distance);
         }
-        if (typesAndDirection.other() == null) {
-            return typesAndDirection.first() == null
-                    ? Iterables.empty()
-                    : node.getRelationships(typesAndDirection.first());
+    }
+
+    private Roaring64NavigableMap[] byHop(Node node, String types, long distance) {
+        try (FrontierExpander expander = expander(types)) {
+            return expander.byHop(node.getId(), (int) distance);
         }
-        return node.getRelationships(typesAndDirection.other(), typesAndDirection.first());
+    }
+
+    private void forEachBatch(
+            long[] ids, String types, Map<String, Object> config, FrontierExpander.BatchConsumer consumer) {
+        RelationshipSelection[] selections = RelationshipTypeAndDirections.selections(ktx.tokenRead(), parse(types));
+        int batchSize = Util.toInteger(config.getOrDefault("batchSize", DEFAULT_BATCH_SIZE));
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("The batchSize must be at least 1 but was " + batchSize);
+        }
+        FrontierExpander.forEachBatch(
+                db, ktx, pools.getDefaultExecutorService(), selections, ids.length, batchSize, consumer);
+    }
+
+    private static long[] nodeIds(List<Node> nodes) {
+        return nodes.stream().mapToLong(Node::getId).toArray();
+    }
+
+    private Stream<Node> toNodes(Roaring64NavigableMap ids) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(ids.iterator(), Spliterator.SORTED), false)
+                .map(x -> tx.getNodeById(x));
     }
 
     @Procedure("apoc.neighbors.tohop")
@@ -68,69 +105,7 @@ public class Neighbors {
         if (distance < 1) return Stream.empty();
         if (types == null || types.isEmpty()) return Stream.empty();
 
-        final long startNodeId = node.getId();
-
-        // Initialize bitmaps for iteration
-        Roaring64NavigableMap seen = new Roaring64NavigableMap();
-        Roaring64NavigableMap nextA = new Roaring64NavigableMap();
-        Roaring64NavigableMap nextB = new Roaring64NavigableMap();
-        long nodeId = node.getId();
-        seen.addLong(nodeId);
-        Iterator<Long> iterator;
-
-        List<Pair<RelationshipType, Direction>> typesAndDirections = parse(types);
-
-        // First Hop
-        for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-            for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                nextB.addLong(r.getOtherNodeId(nodeId));
-            }
-        }
-
-        for (int i = 1; i < distance; i++) {
-            // next even Hop
-            nextB.andNot(seen);
-            seen.or(nextB);
-            nextA.clear();
-            iterator = nextB.iterator();
-            while (iterator.hasNext()) {
-                nodeId = iterator.next();
-                node = tx.getNodeById(nodeId);
-                for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                    for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                        nextA.add((r.getOtherNodeId(nodeId)));
-                    }
-                }
-            }
-
-            i++;
-            if (i < distance) {
-                // next odd Hop
-                nextA.andNot(seen);
-                seen.or(nextA);
-                nextB.clear();
-                iterator = nextA.iterator();
-                while (iterator.hasNext()) {
-                    nodeId = iterator.next();
-                    node = tx.getNodeById(nodeId);
-                    for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                        for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                            nextB.add(r.getOtherNodeId(nodeId));
-                        }
-                    }
-                }
-            }
-        }
-        if ((distance % 2) == 0) {
-            seen.or(nextA);
-        } else {
-            seen.or(nextB);
-        }
-        // remove starting node
-        seen.removeLong(startNodeId);
-
-        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(seen.iterator(), Spliterator.SORTED), false)
-                .map(x -> new NodeResult(tx.getNodeById(x)));
+        return toNodes(toHop(node, types, distance)).map(NodeResult::new);
     }
 
     @Procedure("apoc.neighbors.tohop.count")
@@ -143,67 +118,7 @@ public class Neighbors {
         if (distance < 1) return Stream.empty();
         if (types == null || types.isEmpty()) return Stream.empty();
 
-        final long startNodeId = node.getId();
-
-        // Initialize bitmaps for iteration
-        Roaring64NavigableMap seen = new Roaring64NavigableMap();
-        Roaring64NavigableMap nextA = new Roaring64NavigableMap();
-        Roaring64NavigableMap nextB = new Roaring64NavigableMap();
-        long nodeId = node.getId();
-        seen.add(nodeId);
-        Iterator<Long> iterator;
-
-        List<Pair<RelationshipType, Direction>> typesAndDirections = parse(types);
-        // First Hop
-        for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-            for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                nextB.add(r.getOtherNodeId(nodeId));
-            }
-        }
-
-        for (int i = 1; i < distance; i++) {
-            // next even Hop
-            nextB.andNot(seen);
-            seen.or(nextB);
-            nextA.clear();
-            iterator = nextB.iterator();
-            while (iterator.hasNext()) {
-                nodeId = iterator.next();
-                node = tx.getNodeById(nodeId);
-                for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                    for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                        nextA.add(r.getOtherNodeId(nodeId));
-                    }
-                }
-            }
-
-            i++;
-            if (i < distance) {
-                // next odd Hop
-                nextA.andNot(seen);
-                seen.or(nextA);
-                nextB.clear();
-                iterator = nextA.iterator();
-                while (iterator.hasNext()) {
-                    nodeId = iterator.next();
-                    node = tx.getNodeById(nodeId);
-                    for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                        for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                            nextB.add(r.getOtherNodeId(nodeId));
-                        }
-                    }
-                }
-            }
-        }
-        if ((distance % 2) == 0) {
-            seen.or(nextA);
-        } else {
-            seen.or(nextB);
-        }
-        // remove starting node
-        seen.removeLong(startNodeId);
-
-        return Stream.of(new LongResult(seen.getLongCardinality()));
+        return Stream.of(new LongResult(toHop(node, types, distance).getLongCardinality()));
     }
 
     @Procedure("apoc.neighbors.byhop")
@@ -216,44 +131,8 @@ public class Neighbors {
         if (distance < 1) return Stream.empty();
         if (types == null || types.isEmpty()) return Stream.empty();
 
-        // Initialize bitmaps for iteration
-        Roaring64NavigableMap[] seen = new Roaring64NavigableMap[distance.intValue()];
-        for (int i = 0; i < distance; i++) {
-            seen[i] = new Roaring64NavigableMap();
-        }
-        long nodeId = node.getId();
-
-        Iterator<Long> iterator;
-
-        List<Pair<RelationshipType, Direction>> typesAndDirections = parse(types);
-        // First Hop
-        for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-            for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                seen[0].add(r.getOtherNodeId(nodeId));
-            }
-        }
-
-        for (int i = 1; i < distance; i++) {
-            iterator = seen[i - 1].iterator();
-            while (iterator.hasNext()) {
-                node = tx.getNodeById(iterator.next());
-                for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                    for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                        seen[i].add(r.getOtherNodeId(node.getId()));
-                    }
-                }
-            }
-            for (int j = 0; j < i; j++) {
-                seen[i].andNot(seen[j]);
-                seen[i].removeLong(nodeId);
-            }
-        }
-
-        return Arrays.stream(seen)
-                .map(x -> new NodeListResult(StreamSupport.stream(
-                                Spliterators.spliteratorUnknownSize(x.iterator(), Spliterator.SORTED), false)
-                        .map(y -> tx.getNodeById((long) y))
-                        .collect(Collectors.toList())));
+        return Arrays.stream(byHop(node, types, distance))
+                .map(x -> new NodeListResult(toNodes(x).collect(Collectors.toList())));
     }
 
     @Procedure("apoc.neighbors.byhop.count")
@@ -266,42 +145,10 @@ public class Neighbors {
         if (distance < 1) return Stream.empty();
         if (types == null || types.isEmpty()) return Stream.empty();
 
-        // Initialize bitmaps for iteration
-        Roaring64NavigableMap[] seen = new Roaring64NavigableMap[distance.intValue()];
-        for (int i = 0; i < distance; i++) {
-            seen[i] = new Roaring64NavigableMap();
-        }
-        long nodeId = node.getId();
-
-        Iterator<Long> iterator;
-
-        List<Pair<RelationshipType, Direction>> typesAndDirections = parse(types);
-        // First Hop
-        for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-            for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                seen[0].add(r.getOtherNodeId(nodeId));
-            }
-        }
-
-        for (int i = 1; i < distance; i++) {
-            iterator = seen[i - 1].iterator();
-            while (iterator.hasNext()) {
-                node = tx.getNodeById(iterator.next());
-                for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                    for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                        seen[i].add(r.getOtherNodeId(node.getId()));
-                    }
-                }
-            }
-            for (int j = 0; j < i; j++) {
-                seen[i].andNot(seen[j]);
-                seen[i].removeLong(nodeId);
-            }
-        }
-
-        ArrayList counts = new ArrayList<Long>();
-        for (int i = 0; i < distance; i++) {
-            counts.add(seen[i].getLongCardinality());
+        Roaring64NavigableMap[] seen = byHop(node, types, distance);
+        List<Object> counts = new ArrayList<>(seen.length);
+        for (Roaring64NavigableMap hop : seen) {
+            counts.add(hop.getLongCardinality());
         }
 
         return Stream.of(new ListResult(counts));
@@ -317,44 +164,7 @@ public class Neighbors {
         if (distance < 1) return Stream.empty();
         if (types == null || types.isEmpty()) return Stream.empty();
 
-        // Initialize bitmaps for iteration
-        Roaring64NavigableMap[] seen = new Roaring64NavigableMap[distance.intValue()];
-        for (int i = 0; i < distance; i++) {
-            seen[i] = new Roaring64NavigableMap();
-        }
-        long nodeId = node.getId();
-
-        Iterator<Long> iterator;
-
-        List<Pair<RelationshipType, Direction>> typesAndDirections = parse(types);
-        // First Hop
-        for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-            for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                seen[0].add(r.getOtherNodeId(nodeId));
-            }
-        }
-
-        for (int i = 1; i < distance; i++) {
-            iterator = seen[i - 1].iterator();
-            while (iterator.hasNext()) {
-                node = tx.getNodeById(iterator.next());
-                for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                    for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                        seen[i].add(r.getOtherNodeId(node.getId()));
-                    }
-                }
-            }
-            for (int j = 0; j < i; j++) {
-                seen[i].andNot(seen[j]);
-                seen[i].removeLong(nodeId);
-            }
-        }
-
-        return StreamSupport.stream(
-                        Spliterators.spliteratorUnknownSize(
-                                seen[distance.intValue() - 1].iterator(), Spliterator.SORTED),
-                        false)
-                .map(y -> new NodeResult(tx.getNodeById(y)));
+        return toNodes(byHop(node, types, distance)[distance.intValue() - 1]).map(NodeResult::new);
     }
 
     @Procedure("apoc.neighbors.athop.count")
@@ -367,39 +177,79 @@ public class Neighbors {
         if (distance < 1) return Stream.empty();
         if (types == null || types.isEmpty()) return Stream.empty();
 
-        // Initialize bitmaps for iteration
-        Roaring64NavigableMap[] seen = new Roaring64NavigableMap[distance.intValue()];
-        for (int i = 0; i < distance; i++) {
-            seen[i] = new Roaring64NavigableMap();
-        }
-        long nodeId = node.getId();
+        return Stream.of(new LongResult(byHop(node, types, distance)[distance.intValue() - 1].getLongCardinality()));
+    }
 
-        Iterator<Long> iterator;
+    @Procedure("apoc.neighbors.tohop.counts")
+    @Description(
+            "apoc.neighbors.tohop.counts(nodes, rel-direction-pattern, distance, {batchSize:1000}) - returns for each of the given nodes the distinct count of nodes of the given relationships in the pattern up to a certain distance, can use '>' or '<' for all outgoing or incoming relationships")
+    public Stream<NodeCountResult> neighborsCounts(
+            @Name("nodes") List<Node> nodes,
+            @Name(value = "types", defaultValue = "") String types,
+            @Name(value = "distance", defaultValue = "1") Long distance,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+        if (distance < 1) return Stream.empty();
+        if (types == null || types.isEmpty()) return Stream.empty();
+        if (nodes == null || nodes.isEmpty()) return Stream.empty();
 
-        List<Pair<RelationshipType, Direction>> typesAndDirections = parse(types);
-        // First Hop
-        for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-            for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                seen[0].add(r.getOtherNodeId(nodeId));
+        List<Node> startNodes = nodes.stream().filter(Objects::nonNull).collect(Collectors.toList());
+        long[] ids = nodeIds(startNodes);
+        long[] counts = new long[ids.length];
+        forEachBatch(ids, types, config, (expander, from, to) -> {
+            for (int i = from; i < to; i++) {
+                counts[i] = expander.toHop(ids[i], distance).getLongCardinality();
             }
-        }
+        });
+
+        return IntStream.range(0, ids.length).mapToObj(i -> new NodeCountResult(startNodes.get(i), counts[i]));
+    }
 
-        for (int i = 1; i < distance; i++) {
-            iterator = seen[i - 1].iterator();
-            while (iterator.hasNext()) {
-                node = tx.getNodeById(iterator.next());
-                for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                    for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                        seen[i].add(r.getOtherNodeId(node.getId()));
-                    }
+    @Procedure("apoc.neighbors.byhop.counts")
+    @Description(
+            "apoc.neighbors.byhop.counts(nodes, rel-direction-pattern, distance, {batchSize:1000}) - returns for each of the given nodes the distinct count of nodes of the given relationships in the pattern at each distance, can use '>' or '<' for all outgoing or incoming relationships")
+    public Stream<NodeCountsResult> neighborsByHopCounts(
+            @Name("nodes") List<Node> nodes,
+            @Name(value = "types", defaultValue = "") String types,
+            @Name(value = "distance", defaultValue = "1") Long distance,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+        if (distance < 1) return Stream.empty();
+        if (types == null || types.isEmpty()) return Stream.empty();
+        if (nodes == null || nodes.isEmpty()) return Stream.empty();
+
+        List<Node> startNodes = nodes.stream().filter(Objects::nonNull).collect(Collectors.toList());
+        long[] ids = nodeIds(startNodes);
+        List<List<Long>> counts = new ArrayList<>(Collections.nCopies(ids.length, null));
+        forEachBatch(ids, types, config, (expander, from, to) -> {
+            for (int i = from; i < to; i++) {
+                Roaring64NavigableMap[] seen = expander.byHop(ids[i], distance.intValue());
+                List<Long> hopCounts = new ArrayList<>(seen.length);
+                for (Roaring64NavigableMap hop : seen) {
+                    hopCounts.add(hop.getLongCardinality());
                 }
+                counts.set(i, hopCounts);
             }
-            for (int j = 0; j < i; j++) {
-                seen[i].andNot(seen[j]);
-                seen[i].removeLong(nodeId);
-            }
+        });
+
+        return IntStream.range(0, ids.length).mapToObj(i -> new NodeCountsResult(startNodes.get(i), counts.get(i)));
+    }
+
+    public static class NodeCountResult {
+        public final Node node;
+        public final long value;
+
+        public NodeCountResult(Node node, long value) {
+            this.node = node;
+            this.value = value;
         }
+    }
+
+    public static class NodeCountsResult {
+        public final Node node;
+        public final List<Long> value;
 
-        return Stream.of(new LongResult(seen[distance.intValue() - 1].getLongCardinality()));
+        public NodeCountsResult(Node node, List<Long> value) {
+            this.node = node;
+            this.value = value;
+        }
     }
 }
@@ -22,21 +22,33 @@ import static java.util.Collections.*;
 
 import apoc.Description;
 import apoc.Pools;
+import apoc.result.VirtualGraphArena;
 import apoc.result.VirtualNode;
-import apoc.result.VirtualRelationship;
 import apoc.util.Util;
+import apoc.util.kernel.MultiThreadedGlobalGraphOperations;
+import apoc.util.kernel.MultiThreadedGlobalGraphOperations.BatchJobResult;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+import org.eclipse.collections.impl.map.mutable.primitive.LongIntHashMap;
+import org.eclipse.collections.impl.set.mutable.primitive.IntHashSet;
+import org.neo4j.exceptions.KernelException;
 import org.neo4j.graphdb.*;
 import org.neo4j.internal.helpers.collection.Iterables;
+import org.neo4j.internal.kernel.api.EntityCursor;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.PropertyCursor;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Name;
 import org.neo4j.procedure.Procedure;
+import org.neo4j.storageengine.api.PropertySelection;
 
 /**
  * @author mh
@@ -110,7 +122,6 @@ public class Grouping {
                 (aggregations.size() > 1) ? toStringListMap(aggregations.get(1)) : emptyMap();
         String[] relAggKeys = keyArray(relAggNames, "*");
 
-        // todo bitset
         Set<String> includeRels = computeIncludedRels(config);
 
         /*
@@ -127,111 +138,124 @@ public class Grouping {
         // also filter (esp. max) during aggregation?
         Map<String, Number> filter = configuredFilter(config);
 
-        Map<NodeKey, Set<Node>> grouped = new ConcurrentHashMap<>();
-        Map<NodeKey, VirtualNode> virtualNodes = new ConcurrentHashMap<>();
-        Map<RelKey, VirtualRelationship> virtualRels = new ConcurrentHashMap<>();
+        KernelTransaction ktx = ((InternalTransaction) tx).kernelTransaction();
+        TokenRead tokenRead = ktx.tokenRead();
+        int[] keyIds = propertyKeyIds(tokenRead, keys);
+        int[] nodeAggKeyIds = propertyKeyIds(tokenRead, nodeAggKeys);
+        int[] relAggKeyIds = propertyKeyIds(tokenRead, relAggKeys);
+        IntHashSet includeTypes = null;
+        if (includeRels != null) {
+            includeTypes = new IntHashSet();
+            for (String type : includeRels) {
+                includeTypes.add(tokenRead.relationshipType(type));
+            }
+        }
+        IntHashSet includedTypes = includeTypes;
 
-        List<Future> futures = new ArrayList<>(1000);
+        // groups are aggregated per worker and merged into these once a scan is done, group members are
+        // kept as node id -> group index per label, to find the groups of relationship end points
+        Map<NodeKey, Group> groups = new HashMap<>();
+        List<Group> groupList = new ArrayList<>();
+        List<LongIntHashMap> members = new ArrayList<>();
+        Map<RelGroupKey, Map<String, Object>> relGroups = new HashMap<>();
 
+        GraphDatabaseAPI api = (GraphDatabaseAPI) db;
         ExecutorService pool = pools.getDefaultExecutorService();
         for (String labelName : labels) {
-            Label label = Label.label(labelName);
-            Label[] singleLabel = {label};
-
-            try (ResourceIterator<Node> nodes =
-                    (labelName.equals("*")) ? tx.getAllNodes().iterator() : tx.findNodes(label)) {
-                while (nodes.hasNext()) {
-                    List<Node> batch = Util.take(nodes, BATCHSIZE);
-                    futures.add(Util.inTxFuture(pool, db, txInThread -> {
-                        try {
-                            for (Node node : batch) {
-                                final Node boundNode = Util.rebind(txInThread, node);
-                                NodeKey key = keyFor(boundNode, labelName, keys);
-                                grouped.compute(key, (k, v) -> {
-                                    if (v == null) v = new HashSet<>();
-                                    v.add(boundNode);
-                                    return v;
-                                });
-                                virtualNodes.compute(key, (k, v) -> {
-                                    if (v == null) {
-                                        v = new VirtualNode(singleLabel, propertiesFor(boundNode, keys));
-                                    }
-                                    VirtualNode vn = v;
-                                    if (!nodeAggNames.isEmpty()) {
-                                        aggregate(
-                                                vn,
-                                                nodeAggNames,
-                                                nodeAggKeys.length > 0
-                                                        ? boundNode.getProperties(nodeAggKeys)
-                                                        : Collections.emptyMap());
-                                    }
-                                    return vn;
-                                });
-                            }
-                        } catch (Exception e) {
-                            log.error("Error grouping nodes", e);
+            int labelId = tokenRead.nodeLabel(labelName);
+            if (labelId == TokenRead.NO_TOKEN) continue;
+            LongIntHashMap labelMembers = new LongIntHashMap();
+            members.add(labelMembers);
+
+            BatchJobResult result = MultiThreadedGlobalGraphOperations.forAllNodesWithLabel(
+                    api,
+                    pool,
+                    BATCHSIZE,
+                    labelId,
+                    cursors -> new HashMap<NodeKey, Group>(),
+                    (localGroups, cursors, labelCursor) -> {
+                        NodeCursor node = cursors.nodeCursor();
+                        cursors.read().singleNode(labelCursor.nodeReference(), node);
+                        if (!node.next()) return;
+                        Map<String, Object> groupValues = new HashMap<>(keys.length);
+                        for (String key : keys) {
+                            groupValues.put(key, null);
                         }
-                        return null;
+                        readProperties(node, cursors.propertyCursor(), keys, keyIds, groupValues);
+                        Group group =
+                                localGroups.computeIfAbsent(new NodeKey(labelName, groupValues), k -> new Group());
+                        group.members.add(node.nodeReference());
+                        if (!nodeAggNames.isEmpty()) {
+                            Map<String, Object> properties = new HashMap<>(nodeAggKeys.length);
+                            readProperties(node, cursors.propertyCursor(), nodeAggKeys, nodeAggKeyIds, properties);
+                            aggregate(group.aggregates, nodeAggNames, properties);
+                        }
+                    },
+                    localGroups -> localGroups.forEach((key, localGroup) -> {
+                        Group group = groups.computeIfAbsent(key, k -> {
+                            Group g = new Group(k, groupList.size());
+                            groupList.add(g);
+                            return g;
+                        });
+                        mergeAggregates(group.aggregates, localGroup.aggregates);
+                        localGroup.members.forEach(id -> labelMembers.put(id, group.index));
                     }));
-                    Util.removeFinished(futures);
-                }
+            if (result.getFailures() > 0) {
+                log.error("Error grouping nodes, %d nodes with label %s failed", result.getFailures(), labelName);
             }
         }
-        Util.waitForFutures(futures);
-        futures.clear();
-        Iterator<Map.Entry<NodeKey, Set<Node>>> entries = grouped.entrySet().iterator();
-        int size = 0;
-        List<Map.Entry<NodeKey, Set<Node>>> batch = new ArrayList<>();
-        while (entries.hasNext()) {
-            Map.Entry<NodeKey, Set<Node>> outerEntry = entries.next();
-            batch.add(outerEntry);
-            size += outerEntry.getValue().size();
-            if (size > BATCHSIZE || !entries.hasNext()) {
-                ArrayList<Map.Entry<NodeKey, Set<Node>>> submitted = new ArrayList<>(batch);
-                batch.clear();
-                size = 0;
-                futures.add(Util.inTxFuture(pool, db, txInThread -> {
-                    try {
-                        for (Map.Entry<NodeKey, Set<Node>> entry : submitted) {
-                            for (Node node : entry.getValue()) {
-                                node = Util.rebind(txInThread, node);
-                                NodeKey startKey = entry.getKey();
-                                VirtualNode v1 = virtualNodes.get(startKey);
-                                for (Relationship rel : node.getRelationships(Direction.OUTGOING)) {
-                                    if (includeRels != null
-                                            && !includeRels.contains(
-                                                    rel.getType().name())) continue;
-                                    Node endNode = rel.getEndNode();
-                                    for (NodeKey endKey : keysFor(endNode, labels, keys)) {
-                                        VirtualNode v2 = virtualNodes.get(endKey);
-                                        if (v2 == null) continue;
-                                        if (!selfRels && startKey.equals(endKey)) continue;
-                                        virtualRels.compute(new RelKey(startKey, endKey, rel), (rk, vRel) -> {
-                                            if (vRel == null) vRel = v1.createRelationshipTo(v2, rel.getType());
-                                            if (!relAggNames.isEmpty()) {
-                                                aggregate(
-                                                        vRel,
-                                                        relAggNames,
-                                                        relAggKeys.length > 0
-                                                                ? rel.getProperties(relAggKeys)
-                                                                : Collections.emptyMap());
-                                            }
-                                            return vRel;
-                                        });
+
+        if (!groupList.isEmpty()) {
+            BatchJobResult result = MultiThreadedGlobalGraphOperations.forAllRelationships(
+                    api,
+                    pool,
+                    BATCHSIZE,
+                    cursors -> new HashMap<RelGroupKey, Map<String, Object>>(),
+                    (localRels, cursors, rel) -> {
+                        int type = rel.type();
+                        if (includedTypes != null && !includedTypes.contains(type)) return;
+                        Map<String, Object> properties = null;
+                        for (LongIntHashMap startMembers : members) {
+                            int startGroup = startMembers.getIfAbsent(rel.sourceNodeReference(), -1);
+                            if (startGroup == -1) continue;
+                            for (LongIntHashMap endMembers : members) {
+                                int endGroup = endMembers.getIfAbsent(rel.targetNodeReference(), -1);
+                                if (endGroup == -1) continue;
+                                if (!selfRels && startGroup == endGroup) continue;
+                                Map<String, Object> aggregates = localRels.computeIfAbsent(
+                                        new RelGroupKey(startGroup, endGroup, type), k -> new HashMap<>());
+                                if (!relAggNames.isEmpty()) {
+                                    if (properties == null) {
+                                        properties = new HashMap<>(relAggKeys.length);
+                                        readProperties(
+                                                rel, cursors.propertyCursor(), relAggKeys, relAggKeyIds, properties);
                                     }
+                                    aggregate(aggregates, relAggNames, properties);
                                 }
                             }
                         }
-                    } catch (Exception e) {
-                        log.error("Error grouping relationships", e);
-                    }
-                    return null;
-                }));
-                Util.removeFinished(futures);
+                    },
+                    localRels -> localRels.forEach((key, aggregates) ->
+                            mergeAggregates(relGroups.computeIfAbsent(key, k -> new HashMap<>()), aggregates)));
+            if (result.getFailures() > 0) {
+                log.error("Error grouping relationships, %d relationships failed", result.getFailures());
             }
         }
-        Util.waitForFutures(futures);
-        Stream<VirtualNode> stream = fixAggregates(virtualNodes.values()).stream();
+
+        VirtualGraphArena arena = new VirtualGraphArena();
+        List<VirtualNode> virtualNodes = new ArrayList<>(groupList.size());
+        for (Group group : groupList) {
+            VirtualNode node = arena.createNode(new Label[] {Label.label(group.key.label)}, group.key.values);
+            group.aggregates.forEach(node::setProperty);
+            virtualNodes.add(node);
+        }
+        Map<Integer, RelationshipType> types = new HashMap<>();
+        relGroups.forEach((key, aggregates) -> {
+            RelationshipType type = types.computeIfAbsent(key.type, id -> relationshipType(tokenRead, id));
+            arena.createRelationship(virtualNodes.get(key.start), virtualNodes.get(key.end), type, aggregates);
+        });
+
+        Stream<VirtualNode> stream = fixAggregates(virtualNodes).stream();
         // apply filter
         if (filter != null) stream = stream.filter(n -> filter(n.getLabels(), n.getAllProperties(), filter));
         if (limitNodes > -1) stream = stream.limit(limitNodes);
@@ -342,47 +366,49 @@ public class Grouping {
         return pcs;
     }
 
-    private void aggregate(Entity pc, Map<String, List<String>> aggregations, Map<String, Object> properties) {
+    private void aggregate(
+            Map<String, Object> aggregates, Map<String, List<String>> aggregations, Map<String, Object> properties) {
         aggregations.forEach((k2, aggNames) -> {
             for (String aggName : aggNames) {
                 String key = aggName + "_" + k2;
                 if ("count_*".equals(key)) {
-                    pc.setProperty(key, ((Number) pc.getProperty(key, 0)).longValue() + 1);
+                    aggregates.put(key, ((Number) aggregates.getOrDefault(key, 0)).longValue() + 1);
                 } else {
                     Object value = properties.get(k2);
                     if (value != null) {
                         switch (aggName) {
                             case "collect":
-                                List<Object> existing = (List<Object>) pc.getProperty(key, new ArrayList<>());
+                                List<Object> existing =
+                                        (List<Object>) aggregates.computeIfAbsent(key, k -> new ArrayList<>());
                                 existing.add(value);
-                                pc.setProperty(key, existing);
                                 break;
                             case "count":
-                                pc.setProperty(key, ((Number) pc.getProperty(key, 0)).longValue() + 1);
+                                aggregates.put(key, ((Number) aggregates.getOrDefault(key, 0)).longValue() + 1);
                                 break;
                             case "sum":
-                                pc.setProperty(
-                                        key, ((Number) pc.getProperty(key, 0)).doubleValue() + Util.toDouble(value));
+                                aggregates.put(
+                                        key,
+                                        ((Number) aggregates.getOrDefault(key, 0)).doubleValue()
+                                                + Util.toDouble(value));
                                 break;
                             case "min":
-                                pc.setProperty(
+                                aggregates.put(
                                         key,
                                         Math.min(
-                                                ((Number) pc.getProperty(key, Double.MAX_VALUE)).doubleValue(),
+                                                ((Number) aggregates.getOrDefault(key, Double.MAX_VALUE)).doubleValue(),
                                                 Util.toDouble(value)));
                                 break;
                             case "max":
-                                pc.setProperty(
+                                aggregates.put(
                                         key,
                                         Math.max(
-                                                ((Number) pc.getProperty(key, Double.MIN_VALUE)).doubleValue(),
+                                                ((Number) aggregates.getOrDefault(key, Double.MIN_VALUE)).doubleValue(),
                                                 Util.toDouble(value)));
                                 break;
                             case "avg": {
-                                double[] avg = (double[]) pc.getProperty(key, new double[2]);
+                                double[] avg = (double[]) aggregates.computeIfAbsent(key, k -> new double[2]);
                                 avg[0] += Util.toDouble(value);
                                 avg[1] += 1;
-                                pc.setProperty(key, avg);
                                 break;
                             }
                         }
@@ -393,56 +419,65 @@ public class Grouping {
     }
 
     /**
-     * Returns the properties for the given node according to the specified keys. If a node does not have a property
-     * assigned to given key, the value is set to {@code null}.
-     *
-     * @param node node
-     * @param keys property keys
-     * @return node properties for keys
+     * Merges the partial aggregates of a worker into the given ones, the aggregation is the prefix of each key.
      */
-    private Map<String, Object> propertiesFor(Node node, String[] keys) {
-        Map<String, Object> props = new HashMap<>(keys.length);
-
-        for (String key : keys) {
-            props.put(key, node.getProperty(key, null));
-        }
-
-        return props;
+    private void mergeAggregates(Map<String, Object> aggregates, Map<String, Object> partial) {
+        partial.forEach((key, value) -> aggregates.merge(key, value, (current, other) -> {
+            switch (key.substring(0, key.indexOf('_'))) {
+                case "collect":
+                    ((List<Object>) current).addAll((List<Object>) other);
+                    return current;
+                case "count":
+                    return ((Number) current).longValue() + ((Number) other).longValue();
+                case "sum":
+                    return ((Number) current).doubleValue() + ((Number) other).doubleValue();
+                case "min":
+                    return Math.min(((Number) current).doubleValue(), ((Number) other).doubleValue());
+                case "max":
+                    return Math.max(((Number) current).doubleValue(), ((Number) other).doubleValue());
+                case "avg":
+                    double[] avg = (double[]) current;
+                    avg[0] += ((double[]) other)[0];
+                    avg[1] += ((double[]) other)[1];
+                    return avg;
+                default:
+                    return current;
+            }
+        }));
     }
 
-    /**
-     * Creates a grouping key for the given node using its label and grouping properties.
-     *
-     * @param node  node
-     * @param label node label
-     * @param keys  property keys
-     * @return grouping key
-     */
-    private NodeKey keyFor(Node node, String label, String[] keys) {
-        return new NodeKey(label, propertiesFor(node, keys));
+    private int[] propertyKeyIds(TokenRead tokenRead, String[] keys) {
+        int[] ids = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            ids[i] = tokenRead.propertyKey(keys[i]);
+        }
+        return ids;
     }
 
     /**
-     * Creates a grouping key for each specified label.
-     *
-     * @param node   node
-     * @param labels node labels
-     * @param keys   property keys
-     * @return grouping keys
+     * Reads the given properties of the entity at the cursor into the map, absent properties are left out.
      */
-    private Collection<NodeKey> keysFor(Node node, Collection<String> labels, String[] keys) {
-        Map<String, Object> props = propertiesFor(node, keys);
-        List<NodeKey> result = new ArrayList<>(labels.size());
-        if (labels.contains("*")) {
-            result.add(new NodeKey("*", props));
-        } else {
-            for (Label label : node.getLabels()) {
-                if (labels.contains(label.name())) {
-                    result.add(new NodeKey(label.name(), props));
+    private void readProperties(
+            EntityCursor entity, PropertyCursor cursor, String[] keys, int[] keyIds, Map<String, Object> properties) {
+        if (keys.length == 0) return;
+        entity.properties(cursor, PropertySelection.selection(keyIds));
+        while (cursor.next()) {
+            int keyId = cursor.propertyKey();
+            for (int i = 0; i < keyIds.length; i++) {
+                if (keyIds[i] == keyId) {
+                    properties.put(keys[i], cursor.propertyValue().asObjectCopy());
+                    break;
                 }
             }
         }
-        return result;
+    }
+
+    private RelationshipType relationshipType(TokenRead tokenRead, int id) {
+        try {
+            return RelationshipType.withName(tokenRead.relationshipTypeName(id));
+        } catch (KernelException e) {
+            throw new RuntimeException(e);
+        }
     }
 
     /**
@@ -475,19 +510,36 @@ public class Grouping {
     }
 
     /**
-     * Represents a grouping key for relationships.
+     * Aggregates of a group of nodes, with the ids of its members while it is local to a worker.
      */
-    private static class RelKey {
-        private final int hash;
-        private final NodeKey startKey;
-        private final NodeKey endKey;
-        private final String type;
-
-        RelKey(NodeKey startKey, NodeKey endKey, Relationship rel) {
-            this.startKey = startKey;
-            this.endKey = endKey;
-            this.type = rel.getType().name();
-            hash = 31 * (31 * startKey.hashCode() + endKey.hashCode()) + type.hashCode();
+    private static class Group {
+        private final NodeKey key;
+        private final int index;
+        private final Map<String, Object> aggregates = new HashMap<>();
+        private final LongArrayList members = new LongArrayList();
+
+        Group() {
+            this(null, -1);
+        }
+
+        Group(NodeKey key, int index) {
+            this.key = key;
+            this.index = index;
+        }
+    }
+
+    /**
+     * Represents a grouping key for relationships, by the indexes of the start and end node groups.
+     */
+    private static class RelGroupKey {
+        private final int start;
+        private final int end;
+        private final int type;
+
+        RelGroupKey(int start, int end, int type) {
+            this.start = start;
+            this.end = end;
+            this.type = type;
         }
 
         @Override
@@ -495,14 +547,13 @@ public class Grouping {
             if (this == o) return true;
             if (o == null || getClass() != o.getClass()) return false;
 
-            RelKey relKey = (RelKey) o;
-
-            return startKey.equals(relKey.startKey) && endKey.equals(relKey.endKey) && type.equals(relKey.type);
+            RelGroupKey key = (RelGroupKey) o;
+            return start == key.start && end == key.end && type == key.type;
         }
 
         @Override
         public int hashCode() {
-            return hash;
+            return 31 * (31 * start + end) + type;
         }
     }
 }
@@ -67,7 +67,6 @@ import org.neo4j.internal.helpers.collection.Pair;
 import org.neo4j.internal.kernel.api.CursorFactory;
 import org.neo4j.internal.kernel.api.NodeCursor;
 import org.neo4j.internal.kernel.api.Read;
-// import org.neo4j.internal.kernel.api.RelationshipGroupCursor;
 import org.neo4j.internal.kernel.api.RelationshipTraversalCursor;
 import org.neo4j.internal.kernel.api.TokenRead;
 import org.neo4j.kernel.api.KernelTransaction;
@@ -248,38 +247,39 @@ public class Nodes {
         if (start == null || end == null) return false;
         if (start.equals(end)) return true;
 
-        long startId = start.getId();
-        long endId = end.getId();
         List<Pair<RelationshipType, Direction>> pairs = (types == null || types.isEmpty()) ? null : parse(types);
+        try (ConnectedCursors cursors = new ConnectedCursors(typedDirections(ktx.tokenRead(), pairs, true))) {
+            return cursors.connected(start.getId(), end.getId());
+        }
+    }
 
-        Read dataRead = ktx.dataRead();
-        TokenRead tokenRead = ktx.tokenRead();
-        CursorFactory cursors = ktx.cursors();
-
-        try (NodeCursor startNodeCursor = cursors.allocateNodeCursor(ktx.cursorContext());
-                NodeCursor endNodeCursor = cursors.allocateNodeCursor(ktx.cursorContext())) {
-
-            dataRead.singleNode(startId, startNodeCursor);
-            if (!startNodeCursor.next()) {
-                throw new IllegalArgumentException("node with id " + startId + " does not exist.");
-            }
-
-            //            boolean startDense = startNodeCursor.supportsFastDegreeLookup();
-            dataRead.singleNode(endId, endNodeCursor);
-            if (!endNodeCursor.next()) {
-                throw new IllegalArgumentException("node with id " + endId + " does not exist.");
+    @UserFunction("apoc.nodes.connectedPairs")
+    @Description(
+            "apoc.nodes.connectedPairs([[start, end], ...], rel-direction-pattern) - returns for each pair of nodes true when the start node is connected to the end node, optimized for dense nodes")
+    public List<Boolean> connectedPairs(
+            @Name("pairs") List<List<Node>> pairs, @Name(value = "types", defaultValue = "") String types) {
+        if (pairs == null) return null;
+        List<Pair<RelationshipType, Direction>> typesAndDirections =
+                (types == null || types.isEmpty()) ? null : parse(types);
+        List<Boolean> result = new ArrayList<>(pairs.size());
+        try (ConnectedCursors cursors =
+                new ConnectedCursors(typedDirections(ktx.tokenRead(), typesAndDirections, true))) {
+            for (List<Node> pair : pairs) {
+                if (pair == null || pair.size() != 2) {
+                    throw new IllegalArgumentException("each pair must contain exactly two nodes, but was " + pair);
+                }
+                Node start = pair.get(0);
+                Node end = pair.get(1);
+                if (start == null || end == null) {
+                    result.add(false);
+                } else if (start.equals(end)) {
+                    result.add(true);
+                } else {
+                    result.add(cursors.connected(start.getId(), end.getId()));
+                }
             }
-            //            boolean endDense = endNodeCursor.supportsFastDegreeLookup();
-
-            return connected(startNodeCursor, endId, typedDirections(tokenRead, pairs, true));
-
-            //            if (!startDense) return connected(startNodeCursor, endId, typedDirections(tokenRead, pairs,
-            // true));
-            //            if (!endDense) return connected(endNodeCursor, startId, typedDirections(tokenRead, pairs,
-            // false));
-            //            return connectedDense(startNodeCursor, endNodeCursor, typedDirections(tokenRead, pairs,
-            // true));
         }
+        return result;
     }
 
     @Procedure
@@ -372,38 +372,90 @@ public class Nodes {
     }
 
     /**
-     * TODO: be more efficient, in
-     * @param start
-     * @param end
-     * @param typedDirections
-     * @return
+     * Cursors shared by all connectivity checks with the same relationship pattern.
+     * Relationships are scanned from a sparse node if there is one, otherwise from the dense node which has the lower
+     * degree for the pattern; on dense nodes the typed selections only touch the matching relationship groups.
      */
-    private boolean connected(NodeCursor start, long end, int[][] typedDirections) {
-        try (RelationshipTraversalCursor relationship =
-                ktx.cursors().allocateRelationshipTraversalCursor(ktx.cursorContext())) {
-            start.relationships(relationship, RelationshipSelection.selection(Direction.BOTH));
-            while (relationship.next()) {
-                if (relationship.otherNodeReference() == end) {
-                    if (typedDirections == null) {
+    private class ConnectedCursors implements AutoCloseable {
+        private final NodeCursor startNode;
+        private final NodeCursor endNode;
+        private final RelationshipTraversalCursor relationship;
+        // selections of the pattern as seen from the start node and as seen from the end node
+        private final RelationshipSelection[] fromStart;
+        private final RelationshipSelection[] fromEnd;
+
+        ConnectedCursors(int[][] typedDirections) {
+            CursorFactory cursors = ktx.cursors();
+            this.startNode = cursors.allocateNodeCursor(ktx.cursorContext());
+            this.endNode = cursors.allocateNodeCursor(ktx.cursorContext());
+            this.relationship = cursors.allocateRelationshipTraversalCursor(ktx.cursorContext());
+            this.fromStart = selections(typedDirections, false);
+            this.fromEnd = selections(typedDirections, true);
+        }
+
+        boolean connected(long startId, long endId) {
+            Read dataRead = ktx.dataRead();
+            dataRead.singleNode(startId, startNode);
+            if (!startNode.next()) {
+                throw new IllegalArgumentException("node with id " + startId + " does not exist.");
+            }
+            dataRead.singleNode(endId, endNode);
+            if (!endNode.next()) {
+                throw new IllegalArgumentException("node with id " + endId + " does not exist.");
+            }
+
+            boolean startDense = startNode.supportsFastDegreeLookup();
+            if (!startDense) return connected(startNode, endId, fromStart);
+            boolean endDense = endNode.supportsFastDegreeLookup();
+            if (!endDense) return connected(endNode, startId, fromEnd);
+            return degree(startNode, fromStart) <= degree(endNode, fromEnd)
+                    ? connected(startNode, endId, fromStart)
+                    : connected(endNode, startId, fromEnd);
+        }
+
+        private boolean connected(NodeCursor node, long other, RelationshipSelection[] selections) {
+            for (RelationshipSelection selection : selections) {
+                node.relationships(relationship, selection);
+                while (relationship.next()) {
+                    if (relationship.otherNodeReference() == other) {
                         return true;
-                    } else {
-                        int direction = relationship.targetNodeReference() == end ? 0 : 1;
-                        int[] types = typedDirections[direction];
-                        if (arrayContains(types, relationship.type())) return true;
                     }
                 }
             }
+            return false;
         }
-        return false;
-    }
 
-    private boolean arrayContains(int[] array, int element) {
-        for (int i = 0; i < array.length; i++) {
-            if (array[i] == element) {
-                return true;
+        private long degree(NodeCursor node, RelationshipSelection[] selections) {
+            long degree = 0;
+            for (RelationshipSelection selection : selections) {
+                degree += node.degree(selection);
             }
+            return degree;
+        }
+
+        @Override
+        public void close() {
+            relationship.close();
+            endNode.close();
+            startNode.close();
         }
-        return false;
+    }
+
+    /**
+     * @param typedDirections as returned by {@link #typedDirections(TokenRead, List, boolean)} for the start node,
+     *                        or null for all relationships
+     * @param reverse true to get the selections as seen from the other side of the relationships
+     */
+    private static RelationshipSelection[] selections(int[][] typedDirections, boolean reverse) {
+        if (typedDirections == null) {
+            return new RelationshipSelection[] {RelationshipSelection.ALL_RELATIONSHIPS};
+        }
+        int[] outgoing = typedDirections[reverse ? 1 : 0];
+        int[] incoming = typedDirections[reverse ? 0 : 1];
+        List<RelationshipSelection> selections = new ArrayList<>(2);
+        if (outgoing.length > 0) selections.add(RelationshipSelection.selection(outgoing, Direction.OUTGOING));
+        if (incoming.length > 0) selections.add(RelationshipSelection.selection(incoming, Direction.INCOMING));
+        return selections.toArray(new RelationshipSelection[0]);
     }
 
     /**
@@ -440,82 +492,6 @@ public class Nodes {
         return result;
     }
 
-    static class Degree implements Comparable<Degree> {
-        public final long node;
-        private final long group;
-        public final int degree;
-        public final long other;
-
-        public Degree(long node, long group, int degree, long other) {
-            this.node = node;
-            this.group = group;
-            this.degree = degree;
-            this.other = other;
-        }
-
-        @Override
-        public int compareTo(Degree o) {
-            return Integer.compare(degree, o.degree);
-        }
-
-        public boolean isConnected(Read read, RelationshipTraversalCursor relationship) {
-            read.relationships(node, group, RelationshipSelection.ALL_RELATIONSHIPS, relationship);
-            while (relationship.next()) {
-                if (relationship.otherNodeReference() == other) {
-                    return true;
-                }
-            }
-            return false;
-        }
-    }
-
-    //    private boolean connectedDense(NodeCursor start, NodeCursor end, int[][] typedDirections) {
-    //        List<Degree> degrees = new ArrayList<>(32);
-    //
-    //        Read read = ktx.dataRead();
-    //
-    //        try (RelationshipGroupCursor relationshipGroup = ktx.cursors().allocateRelationshipGroupCursor()) {
-    //            addDegreesForNode(read, start, end, degrees, relationshipGroup, typedDirections);
-    //            addDegreesForNode(read, end, start, degrees, relationshipGroup, typedDirections);
-    //        }
-    //
-    //
-    //        Collections.sort(degrees);
-    //        try (RelationshipTraversalCursor relationship = ktx.cursors().allocateRelationshipTraversalCursor()) {
-    //            for (Degree degree : degrees) {
-    //                if (degree.isConnected(ktx.dataRead(), relationship)) return true;
-    //            }
-    //            return false;
-    //        }
-    //    }
-    //
-    //    private void addDegreesForNode(Read dataRead, NodeCursor node, NodeCursor other, List<Degree> degrees,
-    // RelationshipGroupCursor relationshipGroup, int[][] typedDirections) {
-    //        long nodeId = node.nodeReference();
-    //        long otherId = other.nodeReference();
-    //
-    //        dataRead.relationshipGroups(nodeId, node.relationshipGroupReference(), relationshipGroup);
-    //        while (relationshipGroup.next()) {
-    //            int type = relationshipGroup.type();
-    //            if ((typedDirections==null) || (arrayContains(typedDirections[0], type))) {
-    //                addDegreeWithDirection(degrees, relationshipGroup.outgoingReference(),
-    // relationshipGroup.outgoingCount(), nodeId, otherId);
-    //            }
-    //
-    //            if ((typedDirections==null) || (arrayContains(typedDirections[1], type))) {
-    //                addDegreeWithDirection(degrees, relationshipGroup.incomingReference(),
-    // relationshipGroup.incomingCount(), nodeId, otherId);
-    //            }
-    //        }
-    //    }
-
-    private void addDegreeWithDirection(
-            List<Degree> degrees, long relationshipGroup, int degree, long nodeId, long otherId) {
-        if (degree > 0) {
-            degrees.add(new Degree(nodeId, relationshipGroup, degree, otherId));
-        }
-    }
-
     @UserFunction("apoc.node.labels")
     @Description("returns labels for (virtual) nodes")
     public List<String> labels(@Name("node") Node node) {
@@ -20,6 +20,7 @@ package apoc.path;
 
 import java.util.*;
 import java.util.stream.Collectors;
+import org.neo4j.internal.kernel.api.TokenRead;
 
 /**
  * A generic label matcher which evaluates whether or not a node has at least one of the labels added on the matcher.
@@ -54,6 +55,11 @@ public class LabelMatcher {
         public boolean isEmpty() {
             return false;
         }
+
+        @Override
+        int[][] labelIds(TokenRead tokenRead) {
+            return null;
+        }
     };
 
     public static LabelMatcher acceptsAllLabelMatcher() {
@@ -113,4 +119,34 @@ public class LabelMatcher {
     public boolean isEmpty() {
         return labels.isEmpty() && (compoundLabels == null || compoundLabels.isEmpty());
     }
+
+    /**
+     * Resolves the labels of this matcher to token ids, a node matches if it has all the ids of one of the returned arrays.
+     * Labels which don't exist in the database are left out, as no node can have them.
+     *
+     * @return the label ids for each (compound) label, or null if the matcher accepts all labels
+     */
+    int[][] labelIds(TokenRead tokenRead) {
+        List<int[]> result = new ArrayList<>();
+        for (String label : labels) {
+            addLabelIds(tokenRead, Collections.singletonList(label), result);
+        }
+        if (compoundLabels != null) {
+            for (List<String> compoundLabel : compoundLabels) {
+                addLabelIds(tokenRead, compoundLabel, result);
+            }
+        }
+        return result.toArray(new int[0][]);
+    }
+
+    private static void addLabelIds(TokenRead tokenRead, List<String> labels, List<int[]> result) {
+        int[] ids = new int[labels.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = tokenRead.nodeLabel(labels.get(i));
+            if (ids[i] == TokenRead.NO_TOKEN) {
+                return;
+            }
+        }
+        result.add(ids);
+    }
 }
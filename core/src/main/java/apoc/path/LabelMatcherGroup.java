@@ -21,7 +21,9 @@ package apoc.path;
 import static org.neo4j.graphdb.traversal.Evaluation.*;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Predicate;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.traversal.Evaluation;
 
@@ -91,25 +93,37 @@ public class LabelMatcherGroup {
         Set<String> nodeLabels = new HashSet<>();
         node.getLabels().forEach(label -> nodeLabels.add(label.name()));
 
-        if (blacklistMatcher.matchesLabels(nodeLabels)) {
+        return evaluate(matcher -> matcher.matchesLabels(nodeLabels), belowMinLevel);
+    }
+
+    /**
+     * Evaluates a node through the given test of whether its labels match one of the matchers of this group,
+     * for callers which hold the labels of the node in another form than a {@link Node}.
+     */
+    Evaluation evaluate(Predicate<LabelMatcher> matches, boolean belowMinLevel) {
+        if (matches.test(blacklistMatcher)) {
             return EXCLUDE_AND_PRUNE;
         }
 
-        if (terminatorNodeMatcher.matchesLabels(nodeLabels)) {
+        if (matches.test(terminatorNodeMatcher)) {
             return belowMinLevel ? EXCLUDE_AND_CONTINUE : INCLUDE_AND_PRUNE;
         }
 
-        if (endNodeMatcher.matchesLabels(nodeLabels)) {
+        if (matches.test(endNodeMatcher)) {
             return belowMinLevel ? EXCLUDE_AND_CONTINUE : INCLUDE_AND_CONTINUE;
         }
 
-        if (whitelistMatcher.isEmpty() || whitelistMatcher.matchesLabels(nodeLabels)) {
+        if (whitelistMatcher.isEmpty() || matches.test(whitelistMatcher)) {
             return endNodesOnly || belowMinLevel ? EXCLUDE_AND_CONTINUE : INCLUDE_AND_CONTINUE;
         }
 
         return EXCLUDE_AND_PRUNE;
     }
 
+    List<LabelMatcher> matchers() {
+        return List.of(whitelistMatcher, blacklistMatcher, endNodeMatcher, terminatorNodeMatcher);
+    }
+
     public boolean isEndNodesOnly() {
         return endNodesOnly;
     }
@@ -25,6 +25,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Path;
 import org.neo4j.graphdb.traversal.Evaluation;
@@ -84,8 +86,23 @@ public class LabelSequenceEvaluator implements Evaluator {
 
     @Override
     public Evaluation evaluate(Path path) {
-        int depth = path.length();
         Node node = path.endNode();
+        return evaluate(path.length(), (matcherGroup, belowMinLevel) -> matcherGroup.evaluate(node, belowMinLevel));
+    }
+
+    /**
+     * Evaluates the node at the given depth through the given test of whether its labels match a {@link LabelMatcher},
+     * for callers which don't traverse {@link Path}s.
+     */
+    Evaluation evaluate(int depth, Predicate<LabelMatcher> matches) {
+        return evaluate(depth, (matcherGroup, belowMinLevel) -> matcherGroup.evaluate(matches, belowMinLevel));
+    }
+
+    List<LabelMatcherGroup> matcherGroups() {
+        return sequenceMatchers;
+    }
+
+    private Evaluation evaluate(int depth, BiFunction<LabelMatcherGroup, Boolean, Evaluation> groupEvaluation) {
         boolean belowMinLevel = depth < minLevel;
 
         // if start node shouldn't be filtered, exclude/include based on if using termination/endnode filter or not
@@ -99,6 +116,6 @@ public class LabelSequenceEvaluator implements Evaluator {
         LabelMatcherGroup matcherGroup =
                 sequenceMatchers.get((beginSequenceAtStart ? depth : depth - 1) % sequenceMatchers.size());
 
-        return matcherGroup.evaluate(node, belowMinLevel);
+        return groupEvaluation.apply(matcherGroup, belowMinLevel);
     }
 }
@@ -0,0 +1,467 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.path;
+
+import apoc.util.Util;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+import org.eclipse.collections.impl.map.mutable.primitive.LongLongHashMap;
+import org.neo4j.graphalgo.impl.util.PathImpl;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Path;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.traversal.Evaluation;
+import org.neo4j.graphdb.traversal.Uniqueness;
+import org.neo4j.internal.kernel.api.CursorFactory;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.Read;
+import org.neo4j.internal.kernel.api.RelationshipTraversalCursor;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.internal.kernel.api.TokenSet;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
+import org.neo4j.storageengine.api.RelationshipSelection;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+/**
+ * Breadth first expansion with NODE_GLOBAL uniqueness over kernel cursors, which replaces the traversal framework
+ * for {@link PathExplorer} calls that only need each reachable node once.
+ * Relationship types and labels are resolved to token ids up front, visited nodes are kept in a bitmap and
+ * the node a node was reached from in primitive maps, so a {@link Path} is only built when one is asked for.
+ * Nodes are evaluated exactly like the label sequence and level evaluators of {@link PathExplorer#traverse} would,
+ * and are returned in the same breadth first order.
+ * When paths aren't needed, the levels can also be expanded by several threads with {@link #parallelNodeIds}.
+ */
+final class NodeGlobalTraversal implements AutoCloseable {
+
+    private final Transaction tx;
+    private final Read read;
+    private final RelationshipSelection[] selections;
+    private final LabelSequenceEvaluator labelEvaluator;
+    private final Map<LabelMatcher, int[][]> labelIds = new IdentityHashMap<>();
+    private final long minLevel;
+    private final long maxLevel;
+
+    private final NodeCursor nodeCursor;
+    private final NodeCursor labelCursor;
+    private final RelationshipTraversalCursor relationshipCursor;
+
+    private final Roaring64NavigableMap visited = new Roaring64NavigableMap();
+    private final LongLongHashMap previousNode = new LongLongHashMap();
+    private final LongLongHashMap previousRelationship = new LongLongHashMap();
+    private final LongArrayList queue = new LongArrayList();
+    private final LongArrayList found = new LongArrayList();
+    private boolean closed;
+
+    NodeGlobalTraversal(
+            Transaction tx,
+            KernelTransaction ktx,
+            String pathFilter,
+            String labelFilter,
+            long minLevel,
+            long maxLevel,
+            boolean filterStartNode,
+            boolean beginSequenceAtStart) {
+        this.tx = tx;
+        this.read = ktx.dataRead();
+        TokenRead tokenRead = ktx.tokenRead();
+        boolean allRelationships = pathFilter == null || pathFilter.trim().isEmpty();
+        this.selections = RelationshipTypeAndDirections.selections(
+                tokenRead, RelationshipTypeAndDirections.parse(allRelationships ? null : pathFilter.trim()));
+        if (labelFilter != null && !labelFilter.trim().isEmpty()) {
+            this.labelEvaluator = new LabelSequenceEvaluator(
+                    labelFilter.trim(), filterStartNode, beginSequenceAtStart, (int) minLevel);
+            for (LabelMatcherGroup group : labelEvaluator.matcherGroups()) {
+                for (LabelMatcher matcher : group.matchers()) {
+                    labelIds.put(matcher, matcher.labelIds(tokenRead));
+                }
+            }
+        } else {
+            this.labelEvaluator = null;
+        }
+        this.minLevel = minLevel;
+        this.maxLevel = maxLevel;
+        CursorFactory cursors = ktx.cursors();
+        this.nodeCursor = cursors.allocateNodeCursor(ktx.cursorContext());
+        this.labelCursor = cursors.allocateNodeCursor(ktx.cursorContext());
+        this.relationshipCursor = cursors.allocateRelationshipTraversalCursor(ktx.cursorContext());
+    }
+
+    /**
+     * @return true if a traversal with these options visits each node once in breadth first order,
+     * and uses no filter this class doesn't implement
+     */
+    static boolean supports(
+            Uniqueness uniqueness,
+            boolean bfs,
+            String pathFilter,
+            String sequence,
+            EnumMap<PathExplorer.NodeFilter, List<Node>> nodeFilter) {
+        return uniqueness == Uniqueness.NODE_GLOBAL
+                && bfs
+                && (sequence == null || sequence.trim().isEmpty())
+                && (pathFilter == null || !pathFilter.contains(","))
+                && (nodeFilter == null || nodeFilter.isEmpty());
+    }
+
+    /**
+     * @return the ids of the nodes the traversal includes, lazily expanded in breadth first order
+     */
+    LongStream nodeIds(List<Node> startNodes) {
+        for (Node startNode : startNodes) {
+            visit(startNode.getId(), 0);
+        }
+        PrimitiveIterator.OfLong iterator = new PrimitiveIterator.OfLong() {
+            private int foundIndex;
+            private int queueIndex;
+            private int levelEnd = queue.size();
+            private int depth;
+
+            @Override
+            public boolean hasNext() {
+                while (foundIndex == found.size()) {
+                    found.clear();
+                    foundIndex = 0;
+                    if (queueIndex == queue.size()) {
+                        close();
+                        return false;
+                    }
+                    if (queueIndex == levelEnd) {
+                        levelEnd = queue.size();
+                        depth++;
+                    }
+                    expand(queue.get(queueIndex++), depth + 1);
+                }
+                return true;
+            }
+
+            @Override
+            public long nextLong() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return found.get(foundIndex++);
+            }
+        };
+        return StreamSupport.longStream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .onClose(this::close);
+    }
+
+    /**
+     * @return the path through which the traversal first reached the given node
+     */
+    Path path(long nodeId) {
+        LongArrayList relationships = new LongArrayList();
+        long startNodeId = nodeId;
+        while (previousNode.containsKey(startNodeId)) {
+            relationships.add(previousRelationship.get(startNodeId));
+            startNodeId = previousNode.get(startNodeId);
+        }
+        PathImpl.Builder builder = new PathImpl.Builder(tx.getNodeById(startNodeId));
+        for (int i = relationships.size() - 1; i >= 0; i--) {
+            builder = builder.push(tx.getRelationshipById(relationships.get(i)));
+        }
+        return builder.build();
+    }
+
+    private void expand(long nodeId, int depth) {
+        read.singleNode(nodeId, nodeCursor);
+        if (!nodeCursor.next()) {
+            return;
+        }
+        for (RelationshipSelection selection : selections) {
+            nodeCursor.relationships(relationshipCursor, selection);
+            while (relationshipCursor.next()) {
+                long otherNodeId = relationshipCursor.otherNodeReference();
+                if (!visited.contains(otherNodeId)) {
+                    previousNode.put(otherNodeId, nodeId);
+                    previousRelationship.put(otherNodeId, relationshipCursor.relationshipReference());
+                    visit(otherNodeId, depth);
+                }
+            }
+        }
+    }
+
+    private void visit(long nodeId, int depth) {
+        if (visited.contains(nodeId)) {
+            return;
+        }
+        visited.addLong(nodeId);
+        Evaluation evaluation = evaluate(nodeId, depth);
+        if (evaluation.includes()) {
+            found.add(nodeId);
+        }
+        if (evaluation.continues()) {
+            queue.add(nodeId);
+        }
+    }
+
+    /**
+     * Expands from the start nodes level by level, splitting every level larger than {@code batchSize} into batches
+     * which are expanded by worker transactions on the given executor. The workers claim nodes in a shared
+     * {@link ConcurrentBitmap}, so each node is still evaluated once, at the depth it is first reached, and the
+     * included nodes are the same as those of {@link #nodeIds(List)}. Only their order within a level can differ.
+     * Must not be used when the current transaction has changes, as the workers wouldn't see them.
+     *
+     * @return the ids of the included nodes, at most {@code limit} of them unless it is -1
+     */
+    long[] parallelNodeIds(
+            GraphDatabaseService db, ExecutorService executor, List<Node> startNodes, long limit, int batchSize) {
+        ConcurrentBitmap claimed = new ConcurrentBitmap();
+        AtomicLong included = new AtomicLong();
+        long[] startNodeIds = startNodes.stream().mapToLong(Node::getId).toArray();
+        Level level = expandLevel(
+                read,
+                nodeCursor,
+                labelCursor,
+                relationshipCursor,
+                startNodeIds,
+                0,
+                startNodeIds.length,
+                0,
+                claimed,
+                included,
+                limit);
+        LongArrayList result = new LongArrayList();
+        result.addAll(level.found);
+        long[] frontier = level.next.toArray();
+        for (int depth = 1; frontier.length > 0 && !reached(limit, result.size()); depth++) {
+            List<Level> levels = new ArrayList<>();
+            if (frontier.length <= batchSize) {
+                levels.add(expandLevel(
+                        read,
+                        nodeCursor,
+                        labelCursor,
+                        relationshipCursor,
+                        frontier,
+                        0,
+                        frontier.length,
+                        depth,
+                        claimed,
+                        included,
+                        limit));
+            } else {
+                List<Future<Level>> futures = new ArrayList<>(frontier.length / batchSize + 1);
+                for (int from = 0; from < frontier.length; from += batchSize) {
+                    final long[] ids = frontier;
+                    final int start = from;
+                    final int end = Math.min(frontier.length, from + batchSize);
+                    final int levelDepth = depth;
+                    futures.add(Util.inTxFuture(executor, db, workerTx -> {
+                        KernelTransaction workerKtx = ((InternalTransaction) workerTx).kernelTransaction();
+                        CursorFactory cursors = workerKtx.cursors();
+                        try (NodeCursor workerNodeCursor = cursors.allocateNodeCursor(workerKtx.cursorContext());
+                                NodeCursor workerLabelCursor = cursors.allocateNodeCursor(workerKtx.cursorContext());
+                                RelationshipTraversalCursor workerRelationshipCursor =
+                                        cursors.allocateRelationshipTraversalCursor(workerKtx.cursorContext())) {
+                            return expandLevel(
+                                    workerKtx.dataRead(),
+                                    workerNodeCursor,
+                                    workerLabelCursor,
+                                    workerRelationshipCursor,
+                                    ids,
+                                    start,
+                                    end,
+                                    levelDepth,
+                                    claimed,
+                                    included,
+                                    limit);
+                        }
+                    }));
+                }
+                levels.addAll(Util.getAll(futures, "Error expanding subgraph in parallel"));
+            }
+            LongArrayList next = new LongArrayList();
+            for (Level batch : levels) {
+                result.addAll(batch.found);
+                next.addAll(batch.next);
+            }
+            frontier = next.toArray();
+        }
+        long[] ids = result.toArray();
+        return reached(limit, ids.length) ? Arrays.copyOf(ids, (int) limit) : ids;
+    }
+
+    private static boolean reached(long limit, long count) {
+        return limit != -1 && count >= limit;
+    }
+
+    /**
+     * Claims and evaluates the start nodes at depth 0, or the unclaimed neighbours of the given range of nodes
+     * at the given depth.
+     */
+    private Level expandLevel(
+            Read read,
+            NodeCursor nodeCursor,
+            NodeCursor labelCursor,
+            RelationshipTraversalCursor relationshipCursor,
+            long[] nodeIds,
+            int from,
+            int to,
+            int depth,
+            ConcurrentBitmap claimed,
+            AtomicLong included,
+            long limit) {
+        Level level = new Level();
+        for (int i = from; i < to && !reached(limit, included.get()); i++) {
+            if (depth == 0) {
+                if (claimed.add(nodeIds[i])) {
+                    level.add(evaluate(read, labelCursor, nodeIds[i], depth), nodeIds[i], included);
+                }
+                continue;
+            }
+            read.singleNode(nodeIds[i], nodeCursor);
+            if (!nodeCursor.next()) {
+                continue;
+            }
+            for (RelationshipSelection selection : selections) {
+                nodeCursor.relationships(relationshipCursor, selection);
+                while (relationshipCursor.next()) {
+                    long otherNodeId = relationshipCursor.otherNodeReference();
+                    if (claimed.add(otherNodeId)) {
+                        level.add(evaluate(read, labelCursor, otherNodeId, depth), otherNodeId, included);
+                    }
+                }
+            }
+        }
+        return level;
+    }
+
+    /**
+     * The nodes a batch of one level includes and those it continues from.
+     */
+    private static class Level {
+        final LongArrayList found = new LongArrayList();
+        final LongArrayList next = new LongArrayList();
+
+        void add(Evaluation evaluation, long nodeId, AtomicLong included) {
+            if (evaluation.includes()) {
+                found.add(nodeId);
+                included.incrementAndGet();
+            }
+            if (evaluation.continues()) {
+                next.add(nodeId);
+            }
+        }
+    }
+
+    /**
+     * A set of node ids which threads can add to concurrently. The ids are kept in pages of bits,
+     * which are only allocated for the id ranges in use.
+     */
+    private static class ConcurrentBitmap {
+        private static final int PAGE_SHIFT = 16;
+        private static final long PAGE_MASK = (1L << PAGE_SHIFT) - 1;
+
+        private final ConcurrentHashMap<Long, AtomicLongArray> pages = new ConcurrentHashMap<>();
+
+        /**
+         * @return true if the id was not in the set yet
+         */
+        boolean add(long id) {
+            AtomicLongArray page =
+                    pages.computeIfAbsent(id >>> PAGE_SHIFT, ignored -> new AtomicLongArray(1 << (PAGE_SHIFT - 6)));
+            int index = (int) ((id & PAGE_MASK) >>> 6);
+            long bit = 1L << (id & 63);
+            long word;
+            do {
+                word = page.get(index);
+                if ((word & bit) != 0) {
+                    return false;
+                }
+            } while (!page.compareAndSet(index, word, word | bit));
+            return true;
+        }
+    }
+
+    private Evaluation evaluate(long nodeId, int depth) {
+        return evaluate(read, labelCursor, nodeId, depth);
+    }
+
+    /**
+     * Evaluates the node like the label sequence and level evaluators would. Safe to call from several threads,
+     * each with its own read and cursor.
+     */
+    private Evaluation evaluate(Read read, NodeCursor labelCursor, long nodeId, int depth) {
+        boolean includes = minLevel == -1 || depth >= minLevel;
+        boolean continues = maxLevel == -1 || depth < maxLevel;
+        if (labelEvaluator != null) {
+            read.singleNode(nodeId, labelCursor);
+            TokenSet labels = labelCursor.next() ? labelCursor.labels() : null;
+            Evaluation evaluation = labelEvaluator.evaluate(depth, matcher -> matches(matcher, labels));
+            includes &= evaluation.includes();
+            continues &= evaluation.continues();
+        }
+        return Evaluation.of(includes, continues);
+    }
+
+    private boolean matches(LabelMatcher matcher, TokenSet labels) {
+        int[][] alternatives = labelIds.get(matcher);
+        if (alternatives == null) {
+            return true;
+        }
+        if (labels == null) {
+            return false;
+        }
+        for (int[] alternative : alternatives) {
+            boolean all = true;
+            for (int labelId : alternative) {
+                if (!labels.contains(labelId)) {
+                    all = false;
+                    break;
+                }
+            }
+            if (all) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Closes the cursors, which happens by itself once all nodes are returned.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        relationshipCursor.close();
+        labelCursor.close();
+        nodeCursor.close();
+    }
+}
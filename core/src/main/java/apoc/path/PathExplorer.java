@@ -20,21 +20,26 @@ package apoc.path;
 
 import static apoc.path.PathExplorer.NodeFilter.*;
 
+import apoc.Pools;
 import apoc.algo.Cover;
 import apoc.result.GraphResult;
 import apoc.result.NodeResult;
 import apoc.result.PathResult;
 import apoc.util.Util;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
+import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Path;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.traversal.*;
 import org.neo4j.internal.helpers.collection.Iterables;
+import org.neo4j.kernel.api.KernelTransaction;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Description;
@@ -44,10 +49,20 @@ import org.neo4j.procedure.Procedure;
 public class PathExplorer {
     public static final Uniqueness UNIQUENESS = Uniqueness.RELATIONSHIP_PATH;
     public static final boolean BFS = true;
+    public static final int PARALLEL_BATCH_SIZE = 10_000;
 
     @Context
     public Transaction tx;
 
+    @Context
+    public KernelTransaction ktx;
+
+    @Context
+    public GraphDatabaseService db;
+
+    @Context
+    public Pools pools;
+
     @Context
     public Log log;
 
@@ -85,12 +100,13 @@ public class PathExplorer {
                     + "expand from start node following the given relationships from min to max-level adhering to the label filters. ")
     public Stream<PathResult> expandConfig(@Name("start") Object start, @Name("config") Map<String, Object> config)
             throws Exception {
-        return expandConfigPrivate(start, config).map(PathResult::new);
+        return expandConfigPrivate(start, config, false, path -> path, NodeGlobalTraversal::path)
+                .map(PathResult::new);
     }
 
     @Procedure("apoc.path.subgraphNodes")
     @Description(
-            "apoc.path.subgraphNodes(startNode <id>|Node|list, {maxLevel,relationshipFilter,labelFilter,bfs:true, filterStartNode:false, limit:-1, optional:false, endNodes:[], terminatorNodes:[], sequence, beginSequenceAtStart:true}) yield node - expand the subgraph nodes reachable from start node following relationships to max-level adhering to the label filters")
+            "apoc.path.subgraphNodes(startNode <id>|Node|list, {maxLevel,relationshipFilter,labelFilter,bfs:true, filterStartNode:false, limit:-1, optional:false, endNodes:[], terminatorNodes:[], sequence, beginSequenceAtStart:true, parallel:false, batchSize:10000}) yield node - expand the subgraph nodes reachable from start node following relationships to max-level adhering to the label filters")
     public Stream<NodeResult> subgraphNodes(@Name("start") Object start, @Name("config") Map<String, Object> config)
             throws Exception {
         Map<String, Object> configMap = new HashMap<>(config);
@@ -102,13 +118,13 @@ public class PathExplorer {
             throw new IllegalArgumentException("minLevel can only be 0 or 1 in subgraphNodes()");
         }
 
-        return expandConfigPrivate(start, configMap)
-                .map(path -> path == null ? new NodeResult(null) : new NodeResult(path.endNode()));
+        return expandConfigPrivate(start, configMap, true, Path::endNode, (traversal, nodeId) -> tx.getNodeById(nodeId))
+                .map(NodeResult::new);
     }
 
     @Procedure("apoc.path.subgraphAll")
     @Description(
-            "apoc.path.subgraphAll(startNode <id>|Node|list, {maxLevel,relationshipFilter,labelFilter,bfs:true, filterStartNode:false, limit:-1, endNodes:[], terminatorNodes:[], sequence, beginSequenceAtStart:true}) yield nodes, relationships - expand the subgraph reachable from start node following relationships to max-level adhering to the label filters, and also return all relationships within the subgraph")
+            "apoc.path.subgraphAll(startNode <id>|Node|list, {maxLevel,relationshipFilter,labelFilter,bfs:true, filterStartNode:false, limit:-1, endNodes:[], terminatorNodes:[], sequence, beginSequenceAtStart:true, parallel:false, batchSize:10000}) yield nodes, relationships - expand the subgraph reachable from start node following relationships to max-level adhering to the label filters, and also return all relationships within the subgraph")
     public Stream<GraphResult> subgraphAll(@Name("start") Object start, @Name("config") Map<String, Object> config)
             throws Exception {
         Map<String, Object> configMap = new HashMap<>(config);
@@ -121,8 +137,11 @@ public class PathExplorer {
             throw new IllegalArgumentException("minLevel can only be 0 or 1 in subgraphAll()");
         }
 
-        List<Node> subgraphNodes =
-                expandConfigPrivate(start, configMap).map(Path::endNode).collect(Collectors.toList());
+        List<Node> subgraphNodes;
+        try (Stream<Node> nodes = expandConfigPrivate(
+                start, configMap, true, Path::endNode, (traversal, nodeId) -> tx.getNodeById(nodeId))) {
+            subgraphNodes = nodes.collect(Collectors.toList());
+        }
         List<Relationship> subgraphRels = Cover.coverNodes(subgraphNodes).collect(Collectors.toList());
 
         return Stream.of(new GraphResult(subgraphNodes, subgraphRels));
@@ -142,7 +161,8 @@ public class PathExplorer {
             throw new IllegalArgumentException("minLevel can only be 0 or 1 in spanningTree()");
         }
 
-        return expandConfigPrivate(start, configMap).map(PathResult::new);
+        return expandConfigPrivate(start, configMap, false, path -> path, NodeGlobalTraversal::path)
+                .map(PathResult::new);
     }
 
     private Uniqueness getUniqueness(String uniqueness) {
@@ -183,7 +203,18 @@ public class PathExplorer {
                 "Unsupported data type for start parameter a Node or an Identifier (long) of a Node must be given!");
     }
 
-    private Stream<Path> expandConfigPrivate(@Name("start") Object start, @Name("config") Map<String, Object> config)
+    /**
+     * Expands according to the config, through the traversal framework or, where it can,
+     * through a {@link NodeGlobalTraversal} which doesn't build paths for nodes that are returned without one.
+     *
+     * @param nodesOnly true if the results are only the end nodes, so the traversal may honour the `parallel` option
+     */
+    private <T> Stream<T> expandConfigPrivate(
+            Object start,
+            Map<String, Object> config,
+            boolean nodesOnly,
+            Function<Path, T> fromPath,
+            NodeIdMapper<T> fromNodeId)
             throws Exception {
         List<Node> nodes = startToNodes(start);
 
@@ -221,19 +252,51 @@ public class PathExplorer {
             nodeFilter.put(BLACKLIST_NODES, blacklistNodes);
         }
 
-        Stream<Path> results = explorePathPrivate(
-                nodes,
-                relationshipFilter,
-                labelFilter,
-                minLevel,
-                maxLevel,
-                bfs,
-                getUniqueness(uniqueness),
-                filterStartNode,
-                limit,
-                nodeFilter,
-                sequence,
-                beginSequenceAtStart);
+        Stream<T> results;
+        Uniqueness uniquenessValue = getUniqueness(uniqueness);
+        if (NodeGlobalTraversal.supports(uniquenessValue, bfs, relationshipFilter, sequence, nodeFilter)) {
+            NodeGlobalTraversal traversal = new NodeGlobalTraversal(
+                    tx,
+                    ktx,
+                    relationshipFilter,
+                    labelFilter,
+                    minLevel,
+                    maxLevel,
+                    filterStartNode,
+                    beginSequenceAtStart);
+            boolean parallel = nodesOnly
+                    && Util.toBoolean(config.getOrDefault("parallel", false))
+                    && !ktx.dataRead().transactionStateHasChanges();
+            if (parallel) {
+                int batchSize = Util.toInteger(config.getOrDefault("batchSize", PARALLEL_BATCH_SIZE));
+                long[] nodeIds;
+                try (traversal) {
+                    nodeIds = traversal.parallelNodeIds(
+                            db, pools.getDefaultExecutorService(), nodes, limit, Math.max(1, batchSize));
+                }
+                results = LongStream.of(nodeIds).mapToObj(nodeId -> fromNodeId.map(traversal, nodeId));
+            } else {
+                results = traversal.nodeIds(nodes).mapToObj(nodeId -> fromNodeId.map(traversal, nodeId));
+                if (limit != -1) {
+                    results = results.limit(limit);
+                }
+            }
+        } else {
+            results = explorePathPrivate(
+                            nodes,
+                            relationshipFilter,
+                            labelFilter,
+                            minLevel,
+                            maxLevel,
+                            bfs,
+                            uniquenessValue,
+                            filterStartNode,
+                            limit,
+                            nodeFilter,
+                            sequence,
+                            beginSequenceAtStart)
+                    .map(fromPath);
+        }
 
         if (optional) {
             return optionalStream(results);
@@ -242,6 +305,10 @@ public class PathExplorer {
         }
     }
 
+    private interface NodeIdMapper<T> {
+        T map(NodeGlobalTraversal traversal, long nodeId);
+    }
+
     private Stream<Path> explorePathPrivate(
             Iterable<Node> startNodes,
             String pathFilter,
@@ -282,13 +349,15 @@ public class PathExplorer {
      * @param stream the input stream
      * @return a stream of a single null value if the input stream is empty, otherwise returns the equivalent of the input stream
      */
-    private Stream<Path> optionalStream(Stream<Path> stream) {
-        Stream<Path> optionalStream;
-        Iterator<Path> itr = stream.iterator();
+    private <T> Stream<T> optionalStream(Stream<T> stream) {
+        Stream<T> optionalStream;
+        Iterator<T> itr = stream.iterator();
         if (itr.hasNext()) {
-            optionalStream = StreamSupport.stream(Spliterators.spliteratorUnknownSize(itr, 0), false);
+            optionalStream = StreamSupport.stream(Spliterators.spliteratorUnknownSize(itr, 0), false)
+                    .onClose(stream::close);
         } else {
-            List<Path> listOfNull = new ArrayList<>();
+            stream.close();
+            List<T> listOfNull = new ArrayList<>();
             listOfNull.add(null);
             optionalStream = listOfNull.stream();
         }
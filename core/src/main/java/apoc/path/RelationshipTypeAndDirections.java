@@ -27,6 +27,8 @@ import java.util.List;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.RelationshipType;
 import org.neo4j.internal.helpers.collection.Pair;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.storageengine.api.RelationshipSelection;
 
 /**
  * helper class parsing relationship types and directions
@@ -73,4 +75,29 @@ public abstract class RelationshipTypeAndDirections {
         }
         return name.trim().isEmpty() ? null : RelationshipType.withName(name);
     }
+
+    /**
+     * Resolves the parsed relationship type and direction pairs to type-id based selections for kernel cursors.
+     * A pair without type and direction selects nothing and a type which does not exist in the database can never match.
+     */
+    public static RelationshipSelection[] selections(
+            TokenRead tokenRead, List<Pair<RelationshipType, Direction>> typesAndDirections) {
+        List<RelationshipSelection> result = new ArrayList<>(typesAndDirections.size());
+        for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
+            RelationshipType type = pair.first();
+            Direction direction = pair.other();
+            if (type == null) {
+                if (direction != null) {
+                    result.add(RelationshipSelection.selection(direction));
+                }
+                continue;
+            }
+            int typeId = tokenRead.relationshipType(type.name());
+            if (typeId == TokenRead.NO_TOKEN) {
+                continue;
+            }
+            result.add(RelationshipSelection.selection(typeId, direction == null ? BOTH : direction));
+        }
+        return result.toArray(new RelationshipSelection[0]);
+    }
 }
@@ -32,6 +32,9 @@ import apoc.result.NodeResult;
 import apoc.result.RelationshipResult;
 import apoc.util.Util;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.function.BiFunction;
@@ -39,13 +42,23 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 import org.apache.commons.collections4.IterableUtils;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
 import org.neo4j.graphdb.*;
 import org.neo4j.graphdb.schema.ConstraintType;
 import org.neo4j.internal.helpers.collection.Iterables;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.PropertyCursor;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.*;
+import org.neo4j.storageengine.api.PropertySelection;
 
 public class GraphRefactoring {
+    private static final int IN_FLIGHT_BATCHES = 2 * Runtime.getRuntime().availableProcessors();
+    private static final int PROGRESS_BATCHES = 100;
+
     @Context
     public Transaction tx;
 
@@ -527,28 +540,61 @@ public class GraphRefactoring {
                             + String.format("CREATE CONSTRAINT ON (n:`%s`) ASSERT n.`%s` IS UNIQUE", label, targetKey));
         }
 
-        // Create batches of nodes
-        List<Node> batch = null;
-        List<Future<Void>> futures = new ArrayList<>();
-        for (Node node : tx.getAllNodes()) {
-            if (batch == null) {
-                batch = new ArrayList<>((int) batchSize);
+        KernelTransaction ktx = ((InternalTransaction) tx).kernelTransaction();
+        int sourceKeyId = ktx.tokenRead().propertyKey(sourceKey);
+        if (sourceKeyId == TokenRead.NO_TOKEN) {
+            // no node carries the property
+            return;
+        }
+
+        // only the ids of nodes with the property are collected, at most IN_FLIGHT_BATCHES batches are
+        // processed or queued at any time, and each category node is merged once per distinct value
+        Map<Object, CompletableFuture<Long>> categories = new ConcurrentHashMap<>();
+        Deque<Future<Void>> inFlight = new ArrayDeque<>();
+        long nodes = 0;
+        long batches = 0;
+        try (NodeCursor nodeCursor = ktx.cursors().allocateNodeCursor(ktx.cursorContext());
+                PropertyCursor propertyCursor =
+                        ktx.cursors().allocatePropertyCursor(ktx.cursorContext(), ktx.memoryTracker())) {
+            PropertySelection selection = PropertySelection.selection(sourceKeyId);
+            ktx.dataRead().allNodesScan(nodeCursor);
+            LongArrayList batch = new LongArrayList((int) batchSize);
+            while (nodeCursor.next()) {
+                nodeCursor.properties(propertyCursor, selection);
+                if (!propertyCursor.next()) continue;
+                batch.add(nodeCursor.nodeReference());
+                if (batch.size() == batchSize) {
+                    inFlight.add(categorizeNodes(
+                            batch, sourceKey, relationshipType, outgoing, label, targetKey, copiedKeys, categories));
+                    nodes += batch.size();
+                    batches++;
+                    batch = new LongArrayList((int) batchSize);
+                    if (inFlight.size() >= IN_FLIGHT_BATCHES) {
+                        Pools.force(inFlight.poll());
+                        terminationGuard.check();
+                    }
+                    if (batches % PROGRESS_BATCHES == 0) {
+                        log.info(
+                                "apoc.refactor.categorize: %d nodes in %d batches submitted, %d categories",
+                                nodes, batches, categories.size());
+                    }
+                }
             }
-            batch.add(node);
-            if (batch.size() == batchSize) {
-                futures.add(
-                        categorizeNodes(batch, sourceKey, relationshipType, outgoing, label, targetKey, copiedKeys));
-                batch = null;
+            if (!batch.isEmpty()) {
+                inFlight.add(categorizeNodes(
+                        batch, sourceKey, relationshipType, outgoing, label, targetKey, copiedKeys, categories));
+                nodes += batch.size();
+                batches++;
             }
         }
-        if (batch != null) {
-            futures.add(categorizeNodes(batch, sourceKey, relationshipType, outgoing, label, targetKey, copiedKeys));
-        }
 
         // Await processing of node batches
-        for (Future<Void> future : futures) {
-            Pools.force(future);
+        while (!inFlight.isEmpty()) {
+            Pools.force(inFlight.poll());
         }
+        log.info(
+                "apoc.refactor.categorize: %d nodes in %d batches categorized into %d categories",
+                nodes, batches, categories.size());
     }
 
     @Procedure(mode = Mode.WRITE)
@@ -639,33 +685,31 @@ public class GraphRefactoring {
     }
 
     private Future<Void> categorizeNodes(
-            List<Node> batch,
+            LongArrayList batch,
             String sourceKey,
             String relationshipType,
             Boolean outgoing,
             String label,
             String targetKey,
-            List<String> copiedKeys) {
-
-        return pools.processBatch(batch, db, (innerTx, node) -> {
-            node = Util.rebind(innerTx, node);
-            Object value = node.getProperty(sourceKey, null);
-            if (value != null) {
-                String nodeLabel = Util.sanitize(label);
-                String key = Util.sanitize(targetKey);
-                String relType = Util.sanitize(relationshipType);
-                String q = "WITH $node AS n " + "MERGE (cat:`"
-                        + nodeLabel + "` {`" + key + "`: $value}) "
-                        + (outgoing
-                                ? "MERGE (n)-[:`" + relType + "`]->(cat) "
-                                : "MERGE (n)<-[:`" + relType + "`]-(cat) ")
-                        + "RETURN cat";
-                Map<String, Object> params = new HashMap<>(2);
-                params.put("node", node);
-                params.put("value", value);
-                Result result = innerTx.execute(q, params);
-                if (result.hasNext()) {
-                    Node cat = (Node) result.next().get("cat");
+            List<String> copiedKeys,
+            Map<Object, CompletableFuture<Long>> categories) {
+
+        RelationshipType relType = RelationshipType.withName(relationshipType);
+        Direction direction = outgoing ? Direction.OUTGOING : Direction.INCOMING;
+        return pools.getDefaultExecutorService().submit(() -> {
+            try (Transaction innerTx = db.beginTx()) {
+                batch.forEach(id -> {
+                    Node node = innerTx.getNodeById(id);
+                    Object value = node.getProperty(sourceKey, null);
+                    if (value == null) return;
+                    Node cat = innerTx.getNodeById(categoryId(categories, label, targetKey, value));
+                    if (!isConnected(node, cat, relType, direction)) {
+                        if (outgoing) {
+                            node.createRelationshipTo(cat, relType);
+                        } else {
+                            cat.createRelationshipTo(node, relType);
+                        }
+                    }
                     for (String copiedKey : copiedKeys) {
                         Object copiedValue = node.getProperty(copiedKey, null);
                         if (copiedValue != null) {
@@ -678,14 +722,64 @@ public class GraphRefactoring {
                             }
                         }
                     }
-                }
-                assert (!result.hasNext());
-                result.close();
-                node.removeProperty(sourceKey);
+                    node.removeProperty(sourceKey);
+                });
+                innerTx.commit();
             }
+            return null;
         });
     }
 
+    /**
+     * Returns the id of the category node for the given value. The first batch asking for a value merges the node
+     * outside of the cache, the others wait for its id, so that batches with other values are not blocked.
+     * If the merge fails, the value is removed again and the next batch asking for it retries.
+     */
+    private long categoryId(
+            Map<Object, CompletableFuture<Long>> categories, String label, String targetKey, Object value) {
+        CompletableFuture<Long> id = categories.get(value);
+        if (id == null) {
+            CompletableFuture<Long> merged = new CompletableFuture<>();
+            id = categories.putIfAbsent(value, merged);
+            if (id == null) {
+                try {
+                    merged.complete(mergeCategory(label, targetKey, value));
+                } catch (RuntimeException e) {
+                    categories.remove(value, merged);
+                    merged.completeExceptionally(e);
+                    throw e;
+                }
+                id = merged;
+            }
+        }
+        try {
+            return id.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    /**
+     * Merges the category node for the given value in its own transaction, so that its id can be shared
+     * with all batches. A batch failing later on leaves the category node behind, without the relationships of
+     * that batch, and running categorize again reuses it.
+     */
+    private long mergeCategory(String label, String targetKey, Object value) {
+        String q = "MERGE (cat:`" + Util.sanitize(label) + "` {`" + Util.sanitize(targetKey) + "`: $value}) "
+                + "RETURN id(cat) AS id";
+        return db.executeTransactionally(q, Collections.singletonMap("value", value), result ->
+                (Long) result.next().get("id"));
+    }
+
+    private boolean isConnected(Node node, Node cat, RelationshipType relType, Direction direction) {
+        for (Relationship rel : node.getRelationships(direction, relType)) {
+            if (rel.getOtherNode(node).equals(cat)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private void mergeNodes(Node source, Node target, RefactorConfig conf, List<Long> excludeRelIds) {
         try {
             Map<String, Object> properties = source.getAllProperties();
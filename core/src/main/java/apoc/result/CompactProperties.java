@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.result;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A property map that keeps only an array of values and refers to a shared {@link PropertyShape} for the keys,
+ * which is much smaller than a HashMap per element when many elements have the same keys.
+ * Not thread-safe, like the HashMap it replaces.
+ */
+final class CompactProperties extends AbstractMap<String, Object> {
+    private static final Object[] NO_VALUES = new Object[0];
+
+    private PropertyShape shape;
+    private Object[] values;
+
+    CompactProperties(PropertyShape root, Map<String, Object> properties) {
+        PropertyShape shape = root;
+        Object[] values = properties.isEmpty() ? NO_VALUES : new Object[properties.size()];
+        int i = 0;
+        for (Map.Entry<String, Object> entry : properties.entrySet()) {
+            shape = shape.with(entry.getKey());
+            values[i++] = entry.getValue();
+        }
+        this.shape = shape;
+        this.values = values;
+    }
+
+    @Override
+    public int size() {
+        return shape.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return shape.indexOf(key) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int index = shape.indexOf(key);
+        return index < 0 ? null : values[index];
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        int index = shape.indexOf(key);
+        if (index >= 0) {
+            Object old = values[index];
+            values[index] = value;
+            return old;
+        }
+        shape = shape.with(key);
+        values = Arrays.copyOf(values, values.length + 1);
+        values[values.length - 1] = value;
+        return null;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        int index = shape.indexOf(key);
+        return index < 0 ? null : removeAt(index);
+    }
+
+    private Object removeAt(int index) {
+        Object old = values[index];
+        shape = shape.without(index);
+        Object[] remaining = new Object[values.length - 1];
+        System.arraycopy(values, 0, remaining, 0, index);
+        System.arraycopy(values, index + 1, remaining, index, remaining.length - index);
+        values = remaining;
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        while (shape.size() > 0) {
+            removeAt(shape.size() - 1);
+        }
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public int size() {
+                return shape.size();
+            }
+
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new Iterator<>() {
+                    private int next;
+                    private int current = -1;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < shape.size();
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        if (!hasNext()) throw new NoSuchElementException();
+                        current = next++;
+                        return new PropertyEntry(current);
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (current < 0) throw new IllegalStateException();
+                        removeAt(current);
+                        next = current;
+                        current = -1;
+                    }
+                };
+            }
+        };
+    }
+
+    private final class PropertyEntry implements Entry<String, Object> {
+        private final String key;
+        private final int index;
+        private final PropertyShape entryShape;
+
+        PropertyEntry(int index) {
+            this.entryShape = shape;
+            this.key = shape.keys[index];
+            this.index = index;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public Object getValue() {
+            return entryShape == shape ? values[index] : get(key);
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            return entryShape == shape ? setAt(index, value) : put(key, value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry)) return false;
+            Entry<?, ?> other = (Entry<?, ?>) o;
+            return key.equals(other.getKey()) && Objects.equals(getValue(), other.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + getValue();
+        }
+    }
+
+    private Object setAt(int index, Object value) {
+        Object old = values[index];
+        values[index] = value;
+        return old;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.result;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The ordered property keys of a {@link CompactProperties} map, shared by all maps with the same keys.
+ * Shapes form a tree: adding a key transitions to a child shape, which is created once and then reused,
+ * so elements that are built the same way end up with the same shape instance.
+ */
+final class PropertyShape {
+    private static final int LINEAR_SEARCH_LIMIT = 8;
+
+    private final PropertyShape root;
+    final String[] keys;
+    private final Map<String, Integer> positions;
+    private final Map<String, PropertyShape> transitions = new ConcurrentHashMap<>(4);
+
+    PropertyShape() {
+        this.root = this;
+        this.keys = new String[0];
+        this.positions = null;
+    }
+
+    private PropertyShape(PropertyShape root, String[] keys) {
+        this.root = root;
+        this.keys = keys;
+        if (keys.length > LINEAR_SEARCH_LIMIT) {
+            positions = new HashMap<>(keys.length * 2);
+            for (int i = 0; i < keys.length; i++) {
+                positions.put(keys[i], i);
+            }
+        } else {
+            positions = null;
+        }
+    }
+
+    int size() {
+        return keys.length;
+    }
+
+    int indexOf(Object key) {
+        if (positions != null) {
+            Integer position = positions.get(key);
+            return position == null ? -1 : position;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i].equals(key)) return i;
+        }
+        return -1;
+    }
+
+    /** The shape with the key appended */
+    PropertyShape with(String key) {
+        PropertyShape shape = transitions.get(key);
+        if (shape == null) {
+            String[] childKeys = new String[keys.length + 1];
+            System.arraycopy(keys, 0, childKeys, 0, keys.length);
+            childKeys[keys.length] = key;
+            shape = transitions.computeIfAbsent(key, k -> new PropertyShape(root, childKeys));
+        }
+        return shape;
+    }
+
+    /** The shape without the key at the given index */
+    PropertyShape without(int index) {
+        PropertyShape shape = root;
+        for (int i = 0; i < keys.length; i++) {
+            if (i != index) shape = shape.with(keys[i]);
+        }
+        return shape;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.result;
+
+import java.util.Collections;
+import java.util.Map;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
+
+/**
+ * Allocates the elements of a large virtual graph.
+ * Ids are reserved in blocks from the virtual id sequences, so they never clash with other virtual elements without
+ * contending on the shared counters for every element. The properties of all elements are stored as value arrays
+ * that share the key arrays of elements with the same keys.
+ * The arena keeps no references to the elements, it is meant to be used by a single thread and the elements it
+ * created can be used like any other virtual element.
+ */
+public class VirtualGraphArena {
+    private static final int ID_BLOCK_SIZE = 1024;
+
+    private final PropertyShape shapes = new PropertyShape();
+
+    private long nextNodeId;
+    private int nodeIdsLeft;
+    private long nextRelationshipId;
+    private int relationshipIdsLeft;
+
+    public VirtualNode createNode(Label[] labels, Map<String, Object> props) {
+        if (nodeIdsLeft == 0) {
+            nextNodeId = VirtualNode.reserveIds(ID_BLOCK_SIZE);
+            nodeIdsLeft = ID_BLOCK_SIZE;
+        }
+        nodeIdsLeft--;
+        return new VirtualNode(nextNodeId--, labels, properties(props));
+    }
+
+    /**
+     * Creates a relationship and registers it on the start and end node if they are virtual.
+     */
+    public VirtualRelationship createRelationship(
+            Node startNode, Node endNode, RelationshipType type, Map<String, Object> props) {
+        VirtualRelationship.validateNodes(startNode, endNode);
+        if (relationshipIdsLeft == 0) {
+            nextRelationshipId = VirtualRelationship.reserveIds(ID_BLOCK_SIZE);
+            relationshipIdsLeft = ID_BLOCK_SIZE;
+        }
+        relationshipIdsLeft--;
+        VirtualRelationship rel =
+                new VirtualRelationship(nextRelationshipId--, startNode, endNode, type, properties(props));
+        if (startNode instanceof VirtualNode) {
+            ((VirtualNode) startNode).add(rel);
+        }
+        if (endNode instanceof VirtualNode && endNode != startNode) {
+            ((VirtualNode) endNode).add(rel);
+        }
+        return rel;
+    }
+
+    private CompactProperties properties(Map<String, Object> props) {
+        return new CompactProperties(shapes, props == null ? Collections.emptyMap() : props);
+    }
+}
@@ -37,25 +37,43 @@ public class VirtualNode implements Node {
 
     private static AtomicLong MIN_ID = new AtomicLong(-1);
     private final Set<String> labels = new LinkedHashSet<>();
-    private final Map<String, Object> props = new HashMap<>();
+    private final Map<String, Object> props;
     private final List<Relationship> rels = new ArrayList<>();
+    // the relationships again by type, created with the first relationship
+    private Map<String, TypedRelationships> relsByType;
     private final long id;
 
     public VirtualNode(Label[] labels, Map<String, Object> props) {
         // to not overlap this ids with ids from VirtualNode(Node node, List<String> propertyNames)
         this.id = MIN_ID.decrementAndGet();
         addLabels(asList(labels));
-        this.props.putAll(props);
+        this.props = new HashMap<>(props);
     }
 
     public VirtualNode(long nodeId, Label[] labels, Map<String, Object> props) {
         this.id = nodeId;
         addLabels(asList(labels));
-        this.props.putAll(props);
+        this.props = new HashMap<>(props);
     }
 
     public VirtualNode(long nodeId) {
         this.id = nodeId;
+        this.props = new HashMap<>();
+    }
+
+    /** Used by {@link VirtualGraphArena}, which passes a compact property map and an id of a reserved block */
+    VirtualNode(long nodeId, Label[] labels, CompactProperties props) {
+        this.id = nodeId;
+        addLabels(asList(labels));
+        this.props = props;
+    }
+
+    /**
+     * Reserves a block of ids that no other virtual node created by the constructors gets.
+     * @return the first id of the block, the ids of the block count down from it
+     */
+    static long reserveIds(int count) {
+        return MIN_ID.getAndAdd(-count) - 1;
     }
 
     public VirtualNode(Node node, List<String> propertyNames) {
@@ -67,7 +85,7 @@ public class VirtualNode implements Node {
         MIN_ID.updateAndGet(x -> Math.min(x, this.id));
         this.labels.addAll(Util.labelStrings(node));
         String[] keys = propertyNames.toArray(new String[propertyNames.size()]);
-        this.props.putAll(node.getProperties(keys));
+        this.props = new HashMap<>(node.getProperties(keys));
     }
 
     public static VirtualNode from(Node node) {
@@ -81,7 +99,8 @@ public class VirtualNode implements Node {
 
     @Override
     public void delete() {
-        for (Relationship rel : rels) {
+        // deleting a relationship removes it from this node
+        for (Relationship rel : new ArrayList<>(rels)) {
             rel.delete();
         }
     }
@@ -98,19 +117,27 @@ public class VirtualNode implements Node {
 
     @Override
     public Iterable<Relationship> getRelationships(RelationshipType... relationshipTypes) {
-        return new FilteringIterable<>(rels, (r) -> isType(r, relationshipTypes));
+        return getRelationships(Direction.BOTH, relationshipTypes);
     }
 
-    private boolean isType(Relationship r, RelationshipType... relationshipTypes) {
-        for (RelationshipType type : relationshipTypes) {
-            if (r.isType(type)) return true;
+    @Override
+    public Iterable<Relationship> getRelationships(Direction direction, RelationshipType... relationshipTypes) {
+        if (relsByType == null) return Collections.emptyList();
+        List<Relationship> result = new ArrayList<>(getDegree(direction, relationshipTypes));
+        for (RelationshipType type : distinct(relationshipTypes)) {
+            TypedRelationships typed = relsByType.get(type.name());
+            if (typed != null) typed.addTo(result, direction);
         }
-        return false;
+        return result;
     }
 
-    @Override
-    public Iterable<Relationship> getRelationships(Direction direction, RelationshipType... relationshipTypes) {
-        return new FilteringIterable<>(rels, (r) -> isType(r, relationshipTypes) && isDirection(r, direction));
+    private static RelationshipType[] distinct(RelationshipType[] relationshipTypes) {
+        if (relationshipTypes.length < 2) return relationshipTypes;
+        Map<String, RelationshipType> types = new LinkedHashMap<>();
+        for (RelationshipType type : relationshipTypes) {
+            types.putIfAbsent(type.name(), type);
+        }
+        return types.values().toArray(new RelationshipType[0]);
     }
 
     private boolean isDirection(Relationship r, Direction direction) {
@@ -121,22 +148,23 @@ public class VirtualNode implements Node {
 
     @Override
     public boolean hasRelationship(RelationshipType... relationshipTypes) {
-        return getRelationships(relationshipTypes).iterator().hasNext();
+        return getDegree(Direction.BOTH, relationshipTypes) > 0;
     }
 
     @Override
     public boolean hasRelationship(Direction direction, RelationshipType... relationshipTypes) {
-        return getRelationships(direction, relationshipTypes).iterator().hasNext();
+        return getDegree(direction, relationshipTypes) > 0;
     }
 
     @Override
     public Iterable<Relationship> getRelationships(Direction direction) {
+        if (direction == Direction.BOTH) return rels;
         return new FilteringIterable<>(rels, (r) -> isDirection(r, direction));
     }
 
     @Override
     public boolean hasRelationship(Direction direction) {
-        return getRelationships(direction).iterator().hasNext();
+        return getDegree(direction) > 0;
     }
 
     @Override
@@ -147,37 +175,43 @@ public class VirtualNode implements Node {
     @Override
     public VirtualRelationship createRelationshipTo(Node node, RelationshipType relationshipType) {
         VirtualRelationship rel = new VirtualRelationship(this, node, relationshipType);
-        rels.add(rel);
-        if (node
-                instanceof
-                VirtualNode) { // register the inverse relationship into the target virtual node only if it is not a
-            // self relationship
-            VirtualNode target = (VirtualNode) node;
-            if (!target.rels.contains(rel)) {
-                target.rels.add(rel);
-            }
+        add(rel);
+        // register the inverse relationship into the target virtual node only if it is not a self relationship
+        if (node instanceof VirtualNode && node != this) {
+            ((VirtualNode) node).add(rel);
         }
         return rel;
     }
 
     public VirtualRelationship createRelationshipFrom(Node start, RelationshipType relationshipType) {
         VirtualRelationship rel = new VirtualRelationship(start, this, relationshipType);
-        rels.add(rel);
-        if (start
-                instanceof
-                VirtualNode) { // register the inverse relationship into the start virtual node only if it is not a self
-            // relationship
-            VirtualNode startVirtual = (VirtualNode) start;
-            if (!startVirtual.rels.contains(rel)) {
-                startVirtual.rels.add(rel);
-            }
+        add(rel);
+        // register the inverse relationship into the start virtual node only if it is not a self relationship
+        if (start instanceof VirtualNode && start != this) {
+            ((VirtualNode) start).add(rel);
         }
         return rel;
     }
 
+    /** Adds a relationship of this node, which must not have been added before */
+    void add(Relationship rel) {
+        rels.add(rel);
+        if (relsByType == null) {
+            relsByType = new HashMap<>(4);
+        }
+        relsByType
+                .computeIfAbsent(rel.getType().name(), name -> new TypedRelationships(rel.getType()))
+                .add(rel, rel.getStartNode().equals(this), rel.getEndNode().equals(this));
+    }
+
     @Override
     public Iterable<RelationshipType> getRelationshipTypes() {
-        return rels.stream().map(Relationship::getType).collect(Collectors.toList());
+        if (relsByType == null) return Collections.emptyList();
+        List<RelationshipType> types = new ArrayList<>(relsByType.size());
+        for (TypedRelationships typed : relsByType.values()) {
+            if (typed.degree(Direction.BOTH) > 0) types.add(typed.type);
+        }
+        return types;
     }
 
     @Override
@@ -187,17 +221,32 @@ public class VirtualNode implements Node {
 
     @Override
     public int getDegree(RelationshipType relationshipType) {
-        return (int) Iterables.count(getRelationships(relationshipType));
+        return getDegree(Direction.BOTH, relationshipType);
     }
 
     @Override
     public int getDegree(Direction direction) {
-        return (int) Iterables.count(getRelationships(direction));
+        if (direction == Direction.BOTH || relsByType == null) return rels.size();
+        int degree = 0;
+        for (TypedRelationships typed : relsByType.values()) {
+            degree += typed.degree(direction);
+        }
+        return degree;
     }
 
     @Override
     public int getDegree(RelationshipType relationshipType, Direction direction) {
-        return (int) Iterables.count(getRelationships(direction, relationshipType));
+        return getDegree(direction, relationshipType);
+    }
+
+    private int getDegree(Direction direction, RelationshipType... relationshipTypes) {
+        if (relsByType == null) return 0;
+        int degree = 0;
+        for (RelationshipType type : distinct(relationshipTypes)) {
+            TypedRelationships typed = relsByType.get(type.name());
+            if (typed != null) degree += typed.degree(direction);
+        }
+        return degree;
     }
 
     @Override
@@ -270,7 +319,66 @@ public class VirtualNode implements Node {
     }
 
     void delete(Relationship rel) {
-        rels.remove(rel);
+        if (rels.remove(rel) && relsByType != null) {
+            TypedRelationships typed = relsByType.get(rel.getType().name());
+            if (typed != null) typed.remove(rel);
+        }
+    }
+
+    /**
+     * The relationships of one type, split by direction so that typed lookups and degrees do not scan all
+     * relationships of the node. Self relationships are kept once and count for both directions.
+     */
+    private static final class TypedRelationships {
+        private final RelationshipType type;
+        private final List<Relationship> outgoing = new ArrayList<>(2);
+        private final List<Relationship> incoming = new ArrayList<>(2);
+        private List<Relationship> loops;
+        private List<Relationship> other;
+
+        TypedRelationships(RelationshipType type) {
+            this.type = type;
+        }
+
+        void add(Relationship rel, boolean isStart, boolean isEnd) {
+            if (isStart && isEnd) {
+                if (loops == null) loops = new ArrayList<>(1);
+                loops.add(rel);
+            } else if (isStart) {
+                outgoing.add(rel);
+            } else if (isEnd) {
+                incoming.add(rel);
+            } else {
+                // registered on a node it does not belong to, it only shows up for both directions
+                if (other == null) other = new ArrayList<>(1);
+                other.add(rel);
+            }
+        }
+
+        void remove(Relationship rel) {
+            if (!outgoing.remove(rel) && !incoming.remove(rel)) {
+                if ((loops == null || !loops.remove(rel)) && other != null) other.remove(rel);
+            }
+        }
+
+        int degree(Direction direction) {
+            int loopCount = loops == null ? 0 : loops.size();
+            switch (direction) {
+                case OUTGOING:
+                    return outgoing.size() + loopCount;
+                case INCOMING:
+                    return incoming.size() + loopCount;
+                default:
+                    return outgoing.size() + incoming.size() + loopCount + (other == null ? 0 : other.size());
+            }
+        }
+
+        void addTo(List<Relationship> result, Direction direction) {
+            if (direction != Direction.INCOMING) result.addAll(outgoing);
+            if (direction != Direction.OUTGOING) result.addAll(incoming);
+            if (loops != null) result.addAll(loops);
+            if (direction == Direction.BOTH && other != null) result.addAll(other);
+        }
     }
 
     @Override
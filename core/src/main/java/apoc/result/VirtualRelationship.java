@@ -43,7 +43,7 @@ public class VirtualRelationship implements Relationship {
     private final Node endNode;
     private final RelationshipType type;
     private final long id;
-    private final Map<String, Object> props = new HashMap<>();
+    private final Map<String, Object> props;
 
     public VirtualRelationship(Node startNode, Node endNode, RelationshipType type, Map<String, Object> props) {
         this(startNode, endNode, type);
@@ -56,6 +56,7 @@ public class VirtualRelationship implements Relationship {
         this.startNode = startNode;
         this.endNode = endNode;
         this.type = type;
+        this.props = new HashMap<>();
     }
 
     public VirtualRelationship(
@@ -65,7 +66,25 @@ public class VirtualRelationship implements Relationship {
         this.startNode = startNode;
         this.endNode = endNode;
         this.type = type;
-        this.props.putAll(props);
+        this.props = new HashMap<>(props);
+    }
+
+    /** Used by {@link VirtualGraphArena}, which passes a compact property map and an id of a reserved block */
+    VirtualRelationship(long id, Node startNode, Node endNode, RelationshipType type, CompactProperties props) {
+        validateNodes(startNode, endNode);
+        this.id = id;
+        this.startNode = startNode;
+        this.endNode = endNode;
+        this.type = type;
+        this.props = props;
+    }
+
+    /**
+     * Reserves a block of ids that no other virtual relationship created by the constructors gets.
+     * @return the first id of the block, the ids of the block count down from it
+     */
+    static long reserveIds(int count) {
+        return MIN_ID.getAndAdd(-count);
     }
 
     public static Relationship from(VirtualNode start, VirtualNode end, Relationship rel) {
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.sketch;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+
+/**
+ * A HyperLogLog sketch (Flajolet et al.) to estimate the number of distinct values in constant memory.
+ * The sketch keeps {@code 2^precision} registers of one byte, the relative error is about {@code 1.04 / sqrt(2^precision)}.
+ * Values are hashed with a stable 64 bit hash, so sketches can be serialised to a byte array and merged later.
+ */
+public class HyperLogLog {
+    public static final int DEFAULT_PRECISION = 14;
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 18;
+
+    private static final byte TYPE = 'H';
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = 3;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("The precision of a distinct count sketch must be between "
+                    + MIN_PRECISION + " and " + MAX_PRECISION + " but was " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    public int precision() {
+        return precision;
+    }
+
+    public void add(Object value) {
+        if (value != null) {
+            addHash(hash(value));
+        }
+    }
+
+    void addHash(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // the sentinel bit bounds the rank to 64 - precision + 1
+        byte rank = (byte) (Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException(
+                    "Cannot merge distinct count sketches of precision " + precision + " and " + other.precision);
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    public long cardinality() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1D / (1L << register);
+            if (register == 0) zeros++;
+        }
+        double estimate = alpha(m) * m * m / sum;
+        // linear counting is more accurate for small cardinalities
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+
+    public byte[] toBytes() {
+        return ByteBuffer.allocate(HEADER_SIZE + registers.length)
+                .put(TYPE)
+                .put(VERSION)
+                .put((byte) precision)
+                .put(registers)
+                .array();
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        if (bytes == null
+                || bytes.length < HEADER_SIZE
+                || bytes[0] != TYPE
+                || bytes[1] != VERSION
+                || bytes[2] < MIN_PRECISION
+                || bytes[2] > MAX_PRECISION
+                || bytes.length != HEADER_SIZE + (1 << bytes[2])) {
+            throw new IllegalArgumentException("The value is not a serialised distinct count sketch");
+        }
+        HyperLogLog sketch = new HyperLogLog(bytes[2]);
+        System.arraycopy(bytes, HEADER_SIZE, sketch.registers, 0, sketch.registers.length);
+        return sketch;
+    }
+
+    /**
+     * A 64 bit hash that is stable across JVMs, so serialised sketches stay comparable.
+     * Like in Cypher, integral floating point numbers hash like the equal integer.
+     */
+    static long hash(Object value) {
+        if (value instanceof Double || value instanceof Float) {
+            double d = ((Number) value).doubleValue();
+            if (d == Math.rint(d) && !Double.isInfinite(d) && Math.abs(d) < 0x1p63) {
+                return mix((long) d);
+            }
+            return mix(Double.doubleToLongBits(d) ^ 0x5bd1e9955bd1e995L);
+        }
+        if (value instanceof Number) {
+            return mix(((Number) value).longValue());
+        }
+        if (value instanceof String) {
+            return hashChars((String) value);
+        }
+        if (value instanceof Boolean) {
+            return mix((Boolean) value ? 0x9e3779b97f4a7c15L : 0xc2b2ae3d27d4eb4fL);
+        }
+        if (value instanceof Node) {
+            return mix(((Node) value).getId() ^ 0x27d4eb2f165667c5L);
+        }
+        if (value instanceof Relationship) {
+            return mix(((Relationship) value).getId() ^ 0x165667b19e3779f9L);
+        }
+        if (value instanceof List) {
+            long hash = 0x94d049bb133111ebL;
+            for (Object item : (List<?>) value) {
+                hash = mix(hash * 31 + (item == null ? 0 : hash(item)));
+            }
+            return hash;
+        }
+        if (value instanceof Map) {
+            return hash(new TreeMap<>((Map<?, ?>) value).toString());
+        }
+        return hashChars(value.toString());
+    }
+
+    private static long hashChars(CharSequence value) {
+        // FNV-1a over the chars, finished with the murmur3 mixer for a good distribution of the high bits
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.sketch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.neo4j.procedure.Description;
+import org.neo4j.procedure.Name;
+import org.neo4j.procedure.UserFunction;
+
+public class Sketches {
+
+    @UserFunction("apoc.sketch.percentiles")
+    @Description(
+            "apoc.sketch.percentiles(sketch, [percentiles = 0.5,0.75,0.9,0.95,0.99]) - returns the estimated percentiles of the values in a quantile sketch")
+    public List<Double> percentiles(
+            @Name("sketch") byte[] sketch,
+            @Name(value = "percentiles", defaultValue = "[0.5,0.75,0.9,0.95,0.99]") List<Double> percentiles) {
+        if (sketch == null || percentiles == null) return null;
+        TDigest digest = TDigest.fromBytes(sketch);
+        List<Double> result = new ArrayList<>(percentiles.size());
+        for (Double percentile : percentiles) {
+            result.add(percentile == null || digest.isEmpty() ? null : digest.quantile(percentile));
+        }
+        return result;
+    }
+
+    @UserFunction("apoc.sketch.quantileCount")
+    @Description("apoc.sketch.quantileCount(sketch) - returns the number of values in a quantile sketch")
+    public Long quantileCount(@Name("sketch") byte[] sketch) {
+        return sketch == null ? null : TDigest.fromBytes(sketch).count();
+    }
+
+    @UserFunction("apoc.sketch.mergeQuantiles")
+    @Description("apoc.sketch.mergeQuantiles([sketches]) - merges a list of quantile sketches into one")
+    public byte[] mergeQuantiles(@Name("sketches") List<Object> sketches) {
+        if (sketches == null) return null;
+        TDigest digest = null;
+        for (Object sketch : sketches) {
+            if (sketch == null) continue;
+            TDigest other = TDigest.fromBytes(toBytes(sketch));
+            if (digest == null) {
+                digest = other;
+            } else {
+                digest.merge(other);
+            }
+        }
+        return digest == null ? null : digest.toBytes();
+    }
+
+    @UserFunction("apoc.sketch.distinctCount")
+    @Description(
+            "apoc.sketch.distinctCount(sketch) - returns the estimated number of distinct values in a distinct count sketch")
+    public Long distinctCount(@Name("sketch") byte[] sketch) {
+        return sketch == null ? null : HyperLogLog.fromBytes(sketch).cardinality();
+    }
+
+    @UserFunction("apoc.sketch.mergeDistinct")
+    @Description("apoc.sketch.mergeDistinct([sketches]) - merges a list of distinct count sketches into one")
+    public byte[] mergeDistinct(@Name("sketches") List<Object> sketches) {
+        if (sketches == null) return null;
+        HyperLogLog merged = null;
+        for (Object sketch : sketches) {
+            if (sketch == null) continue;
+            HyperLogLog other = HyperLogLog.fromBytes(toBytes(sketch));
+            if (merged == null) {
+                merged = other;
+            } else {
+                merged.merge(other);
+            }
+        }
+        return merged == null ? null : merged.toBytes();
+    }
+
+    @UserFunction("apoc.sketch.topK")
+    @Description(
+            "apoc.sketch.topK(sketch, k) - returns the k most frequent values in a top-k sketch as a list of {item, count, error}")
+    public List<Map<String, Object>> topK(@Name("sketch") byte[] sketch, @Name("k") long k) {
+        return sketch == null ? null : SpaceSaving.fromBytes(sketch).top((int) k);
+    }
+
+    @UserFunction("apoc.sketch.mergeTopK")
+    @Description("apoc.sketch.mergeTopK([sketches]) - merges a list of top-k sketches into one")
+    public byte[] mergeTopK(@Name("sketches") List<Object> sketches) {
+        if (sketches == null) return null;
+        SpaceSaving merged = null;
+        for (Object sketch : sketches) {
+            if (sketch == null) continue;
+            SpaceSaving other = SpaceSaving.fromBytes(toBytes(sketch));
+            if (merged == null) {
+                merged = other;
+            } else {
+                merged.merge(other);
+            }
+        }
+        return merged == null ? null : merged.toBytes();
+    }
+
+    /** Byte arrays inside of lists are passed as lists of numbers */
+    static byte[] toBytes(Object sketch) {
+        if (sketch instanceof byte[]) {
+            return (byte[]) sketch;
+        }
+        if (sketch instanceof List) {
+            List<?> list = (List<?>) sketch;
+            byte[] bytes = new byte[list.size()];
+            for (int i = 0; i < bytes.length; i++) {
+                Object value = list.get(i);
+                if (!(value instanceof Number)) {
+                    throw new IllegalArgumentException("The value is not a serialised sketch");
+                }
+                bytes[i] = ((Number) value).byteValue();
+            }
+            return bytes;
+        }
+        throw new IllegalArgumentException("The value is not a serialised sketch");
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.sketch;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The space-saving heavy hitters sketch (Metwally et al.), it keeps at most {@code capacity} counters.
+ * A new item takes over the counter with the smallest count, whose count becomes the error bound of the new item.
+ * Every item that occurs more often than {@code total / capacity} is guaranteed to be kept.
+ * The counters are kept in an indexed min-heap, so an update is O(log capacity).
+ * Items can be strings, numbers and booleans, so that the sketch can be serialised and merged later.
+ */
+public class SpaceSaving {
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    private static final byte TYPE = 'K';
+    private static final byte VERSION = 1;
+
+    private static final byte STRING = 1;
+    private static final byte LONG = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte BOOLEAN = 4;
+
+    private final int capacity;
+    private final Map<Object, Integer> slots;
+    private final Object[] items;
+    private final long[] counts;
+    private final long[] errors;
+    // heap of slots ordered by count, position of every slot in the heap
+    private final int[] heap;
+    private final int[] positions;
+    private int size;
+
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity of a top-k sketch must be positive but was " + capacity);
+        }
+        this.capacity = capacity;
+        this.slots = new HashMap<>(Math.min(capacity, 1 << 16) * 2);
+        this.items = new Object[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.heap = new int[capacity];
+        this.positions = new int[capacity];
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public void add(Object item) {
+        add(item, 1, 0);
+    }
+
+    private void add(Object item, long count, long error) {
+        if (item == null) return;
+        item = normalize(item);
+        Integer slot = slots.get(item);
+        if (slot != null) {
+            counts[slot] += count;
+            errors[slot] += error;
+            siftDown(positions[slot]);
+        } else if (size < capacity) {
+            slot = size;
+            items[slot] = item;
+            counts[slot] = count;
+            errors[slot] = error;
+            heap[size] = slot;
+            positions[slot] = size;
+            size++;
+            slots.put(item, slot);
+            siftUp(positions[slot]);
+        } else {
+            slot = heap[0];
+            long min = counts[slot];
+            slots.remove(items[slot]);
+            items[slot] = item;
+            counts[slot] = min + count;
+            errors[slot] = min + error;
+            slots.put(item, slot);
+            siftDown(0);
+        }
+    }
+
+    private long minCount() {
+        return size < capacity ? 0 : counts[heap[0]];
+    }
+
+    /**
+     * Merges the other sketch into this one (Agarwal et al., mergeable summaries):
+     * items missing from one sketch may have occurred up to its minimal count there, which is added as error.
+     */
+    public void merge(SpaceSaving other) {
+        long minThis = minCount();
+        long minOther = other.minCount();
+        Map<Object, long[]> merged = new HashMap<>();
+        for (int slot = 0; slot < size; slot++) {
+            merged.put(items[slot], new long[] {counts[slot] + minOther, errors[slot] + minOther});
+        }
+        for (int slot = 0; slot < other.size; slot++) {
+            long[] counter = merged.get(other.items[slot]);
+            if (counter == null) {
+                merged.put(other.items[slot], new long[] {other.counts[slot] + minThis, other.errors[slot] + minThis});
+            } else {
+                counter[0] += other.counts[slot] - minOther;
+                counter[1] += other.errors[slot] - minOther;
+            }
+        }
+        List<Map.Entry<Object, long[]>> entries = new ArrayList<>(merged.entrySet());
+        entries.sort((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]));
+        clear();
+        for (int i = 0; i < Math.min(capacity, entries.size()); i++) {
+            Map.Entry<Object, long[]> entry = entries.get(i);
+            add(entry.getKey(), entry.getValue()[0], entry.getValue()[1]);
+        }
+    }
+
+    private void clear() {
+        slots.clear();
+        Arrays.fill(items, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * The {@code k} items with the highest counts, as maps of {@code item}, {@code count} and {@code error},
+     * the actual count of an item is between {@code count - error} and {@code count}.
+     */
+    public List<Map<String, Object>> top(int k) {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Long.compare(counts[b], counts[a]));
+        int limit = k < 0 ? size : Math.min(k, size);
+        List<Map<String, Object>> result = new ArrayList<>(limit);
+        for (int i = 0; i < limit; i++) {
+            int slot = order[i];
+            Map<String, Object> row = new LinkedHashMap<>(4);
+            row.put("item", items[slot]);
+            row.put("count", counts[slot]);
+            row.put("error", errors[slot]);
+            result.add(row);
+        }
+        return result;
+    }
+
+    private void siftUp(int position) {
+        int slot = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (counts[heap[parent]] <= counts[slot]) break;
+            place(heap[parent], position);
+            position = parent;
+        }
+        place(slot, position);
+    }
+
+    private void siftDown(int position) {
+        int slot = heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) break;
+            if (child + 1 < size && counts[heap[child + 1]] < counts[heap[child]]) child++;
+            if (counts[heap[child]] >= counts[slot]) break;
+            place(heap[child], position);
+            position = child;
+        }
+        place(slot, position);
+    }
+
+    private void place(int slot, int position) {
+        heap[position] = slot;
+        positions[slot] = position;
+    }
+
+    private static Object normalize(Object item) {
+        if (item instanceof String || item instanceof Boolean || item instanceof Long || item instanceof Double) {
+            return item;
+        }
+        if (item instanceof Float) {
+            return ((Float) item).doubleValue();
+        }
+        if (item instanceof Number) {
+            return ((Number) item).longValue();
+        }
+        throw new IllegalArgumentException(
+                "Only strings, numbers and booleans can be counted in a top-k sketch, but got " + item);
+    }
+
+    public byte[] toBytes() {
+        List<byte[]> strings = new ArrayList<>();
+        int length = 2 + 2 * Integer.BYTES;
+        for (int slot = 0; slot < size; slot++) {
+            length += 1 + 2 * Long.BYTES;
+            if (items[slot] instanceof String) {
+                byte[] bytes = ((String) items[slot]).getBytes(StandardCharsets.UTF_8);
+                strings.add(bytes);
+                length += Integer.BYTES + bytes.length;
+            } else if (items[slot] instanceof Boolean) {
+                length += 1;
+            } else {
+                length += Long.BYTES;
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.put(TYPE).put(VERSION).putInt(capacity).putInt(size);
+        int string = 0;
+        for (int slot = 0; slot < size; slot++) {
+            Object item = items[slot];
+            if (item instanceof String) {
+                byte[] bytes = strings.get(string++);
+                buffer.put(STRING).putInt(bytes.length).put(bytes);
+            } else if (item instanceof Long) {
+                buffer.put(LONG).putLong((Long) item);
+            } else if (item instanceof Double) {
+                buffer.put(DOUBLE).putDouble((Double) item);
+            } else {
+                buffer.put(BOOLEAN).put((byte) ((Boolean) item ? 1 : 0));
+            }
+            buffer.putLong(counts[slot]).putLong(errors[slot]);
+        }
+        return buffer.array();
+    }
+
+    public static SpaceSaving fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length < 2 + 2 * Integer.BYTES || bytes[0] != TYPE || bytes[1] != VERSION) {
+            throw new IllegalArgumentException("The value is not a serialised top-k sketch");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 2, bytes.length - 2);
+        SpaceSaving sketch = new SpaceSaving(buffer.getInt());
+        int size = buffer.getInt();
+        for (int i = 0; i < size; i++) {
+            Object item;
+            byte type = buffer.get();
+            switch (type) {
+                case STRING:
+                    byte[] string = new byte[buffer.getInt()];
+                    buffer.get(string);
+                    item = new String(string, StandardCharsets.UTF_8);
+                    break;
+                case LONG:
+                    item = buffer.getLong();
+                    break;
+                case DOUBLE:
+                    item = buffer.getDouble();
+                    break;
+                case BOOLEAN:
+                    item = buffer.get() != 0;
+                    break;
+                default:
+                    throw new IllegalArgumentException("The value is not a serialised top-k sketch");
+            }
+            sketch.add(item, buffer.getLong(), buffer.getLong());
+        }
+        return sketch;
+    }
+}
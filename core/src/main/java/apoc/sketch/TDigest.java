@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.sketch;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A merging t-digest (Dunning), a quantile sketch of bounded size.
+ * Values are buffered and merged into at most about {@code compression} centroids using the arcsine scale
+ * function, which keeps centroids near the tails small, so extreme quantiles stay accurate.
+ * Digests can be serialised to a byte array and merged with each other.
+ */
+public class TDigest {
+    public static final double DEFAULT_COMPRESSION = 100;
+
+    private static final byte TYPE = 'T';
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = 2 + 3 * Double.BYTES + Integer.BYTES;
+
+    private final double compression;
+    private final double normalizer;
+
+    private double[] means;
+    private double[] weights;
+    private int centroids;
+    private double totalWeight;
+
+    private final double[] bufferMeans;
+    private final double[] bufferWeights;
+    private int buffered;
+
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public TDigest(double compression) {
+        if (!(compression >= 10)) {
+            throw new IllegalArgumentException("The compression of a quantile sketch must be at least 10");
+        }
+        this.compression = compression;
+        this.normalizer = compression / (2 * Math.PI);
+        int capacity = (int) Math.ceil(compression) + 10;
+        this.means = new double[capacity];
+        this.weights = new double[capacity];
+        this.bufferMeans = new double[5 * capacity];
+        this.bufferWeights = new double[5 * capacity];
+    }
+
+    public double compression() {
+        return compression;
+    }
+
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    private void add(double mean, double weight) {
+        if (Double.isNaN(mean)) {
+            return;
+        }
+        if (buffered == bufferMeans.length) {
+            compress();
+        }
+        bufferMeans[buffered] = mean;
+        bufferWeights[buffered] = weight;
+        buffered++;
+        min = Math.min(min, mean);
+        max = Math.max(max, mean);
+    }
+
+    public void merge(TDigest other) {
+        other.compress();
+        for (int i = 0; i < other.centroids; i++) {
+            add(other.means[i], other.weights[i]);
+        }
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /** Number of values added to this digest and all digests merged into it */
+    public long count() {
+        compress();
+        return Math.round(totalWeight);
+    }
+
+    public boolean isEmpty() {
+        return centroids == 0 && buffered == 0;
+    }
+
+    /**
+     * Estimates the value at the given quantile between 0 and 1, interpolating between centroids.
+     * Returns NaN for an empty digest.
+     */
+    public double quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("The quantile must be between 0 and 1 but was " + q);
+        }
+        compress();
+        if (centroids == 0) {
+            return Double.NaN;
+        }
+        if (centroids == 1) {
+            return means[0];
+        }
+        double index = q * totalWeight;
+        if (index <= weights[0] / 2) {
+            return interpolate(min, means[0], index / (weights[0] / 2));
+        }
+        double weightSoFar = weights[0] / 2;
+        for (int i = 0; i < centroids - 1; i++) {
+            double delta = (weights[i] + weights[i + 1]) / 2;
+            if (weightSoFar + delta > index) {
+                return interpolate(means[i], means[i + 1], (index - weightSoFar) / delta);
+            }
+            weightSoFar += delta;
+        }
+        double lastHalf = weights[centroids - 1] / 2;
+        return interpolate(means[centroids - 1], max, Math.min(1, (index - weightSoFar) / lastHalf));
+    }
+
+    private static double interpolate(double from, double to, double fraction) {
+        return from + (to - from) * fraction;
+    }
+
+    private void compress() {
+        if (buffered == 0) {
+            return;
+        }
+        sort(bufferMeans, bufferWeights, 0, buffered - 1);
+
+        // merge the sorted centroids with the sorted buffer
+        int size = centroids + buffered;
+        double[] sortedMeans = new double[size];
+        double[] sortedWeights = new double[size];
+        int c = 0, b = 0;
+        for (int i = 0; i < size; i++) {
+            if (b == buffered || (c < centroids && means[c] <= bufferMeans[b])) {
+                sortedMeans[i] = means[c];
+                sortedWeights[i] = weights[c++];
+            } else {
+                sortedMeans[i] = bufferMeans[b];
+                sortedWeights[i] = bufferWeights[b++];
+            }
+        }
+        for (int i = 0; i < buffered; i++) {
+            totalWeight += bufferWeights[i];
+        }
+        buffered = 0;
+
+        // a centroid may grow as long as it stays within one unit of the scale function
+        centroids = 0;
+        double weightSoFar = 0;
+        double mean = sortedMeans[0];
+        double weight = sortedWeights[0];
+        double weightLimit = totalWeight * quantileOf(scaleOf(0) + 1);
+        for (int i = 1; i < size; i++) {
+            if (weightSoFar + weight + sortedWeights[i] <= weightLimit) {
+                weight += sortedWeights[i];
+                mean += (sortedMeans[i] - mean) * sortedWeights[i] / weight;
+            } else {
+                weightSoFar += weight;
+                append(mean, weight);
+                mean = sortedMeans[i];
+                weight = sortedWeights[i];
+                weightLimit = totalWeight * quantileOf(scaleOf(weightSoFar / totalWeight) + 1);
+            }
+        }
+        append(mean, weight);
+    }
+
+    private void append(double mean, double weight) {
+        if (centroids == means.length) {
+            int capacity = means.length * 2;
+            means = Arrays.copyOf(means, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+        }
+        means[centroids] = mean;
+        weights[centroids] = weight;
+        centroids++;
+    }
+
+    private double scaleOf(double q) {
+        return normalizer * Math.asin(2 * q - 1);
+    }
+
+    private double quantileOf(double k) {
+        return (Math.sin(Math.min(k / normalizer, Math.PI / 2)) + 1) / 2;
+    }
+
+    /** Sorts the values by mean, moving the weights along */
+    private static void sort(double[] values, double[] other, int from, int to) {
+        while (to - from > 16) {
+            double pivot = values[(from + to) >>> 1];
+            int i = from, j = to;
+            while (i <= j) {
+                while (values[i] < pivot) i++;
+                while (values[j] > pivot) j--;
+                if (i <= j) {
+                    swap(values, other, i++, j--);
+                }
+            }
+            // recurse into the smaller half to bound the stack depth
+            if (j - from < to - i) {
+                sort(values, other, from, j);
+                from = i;
+            } else {
+                sort(values, other, i, to);
+                to = j;
+            }
+        }
+        for (int i = from + 1; i <= to; i++) {
+            for (int j = i; j > from && values[j - 1] > values[j]; j--) {
+                swap(values, other, j, j - 1);
+            }
+        }
+    }
+
+    private static void swap(double[] values, double[] other, int i, int j) {
+        double value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+        value = other[i];
+        other[i] = other[j];
+        other[j] = value;
+    }
+
+    public byte[] toBytes() {
+        compress();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + centroids * 2 * Double.BYTES);
+        buffer.put(TYPE).put(VERSION);
+        buffer.putDouble(compression).putDouble(min).putDouble(max);
+        buffer.putInt(centroids);
+        for (int i = 0; i < centroids; i++) {
+            buffer.putDouble(means[i]).putDouble(weights[i]);
+        }
+        return buffer.array();
+    }
+
+    public static TDigest fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length < HEADER_SIZE || bytes[0] != TYPE || bytes[1] != VERSION) {
+            throw new IllegalArgumentException("The value is not a serialised quantile sketch");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 2, bytes.length - 2);
+        TDigest digest = new TDigest(buffer.getDouble());
+        double min = buffer.getDouble();
+        double max = buffer.getDouble();
+        int centroids = buffer.getInt();
+        for (int i = 0; i < centroids; i++) {
+            digest.add(buffer.getDouble(), buffer.getDouble());
+        }
+        digest.min = min;
+        digest.max = max;
+        return digest;
+    }
+}
@@ -27,8 +27,10 @@ import apoc.util.kernel.MultiThreadedGlobalGraphOperations;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.HdrHistogram.AtomicHistogram;
+import org.HdrHistogram.Histogram;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.RelationshipType;
 import org.neo4j.internal.helpers.collection.Pair;
@@ -63,6 +65,19 @@ public class DegreeDistribution {
             record(degree);
         }
 
+        /** A histogram for a single worker, to be merged back with {@link #merge(Histogram)} */
+        public Histogram newLocalHistogram() {
+            return new Histogram(total, 3);
+        }
+
+        public void computeDegree(NodeCursor nodeCursor, CursorFactory cursors, Histogram localHistogram) {
+            localHistogram.recordValue(DegreeUtil.degree(nodeCursor, cursors, type, direction));
+        }
+
+        public void merge(Histogram localHistogram) {
+            histogram.add(localHistogram);
+        }
+
         public static class Result {
             public String type;
             public String direction;
@@ -116,11 +131,22 @@ public class DegreeDistribution {
     public Stream<DegreeStats.Result> degrees(@Name(value = "types", defaultValue = "") String types) {
         List<DegreeStats> stats = prepareStats(types);
 
+        // every worker records into its own histograms, which are merged once the scan is done
         MultiThreadedGlobalGraphOperations.forAllNodes(
                 db,
                 pools.getDefaultExecutorService(),
                 BATCHSIZE,
-                (ktx, nodeCursor) -> stats.forEach((s) -> s.computeDegree(nodeCursor, ktx.cursors())));
+                cursors -> stats.stream().map(DegreeStats::newLocalHistogram).collect(Collectors.toList()),
+                (histograms, cursors, nodeCursor) -> {
+                    for (int i = 0; i < histograms.size(); i++) {
+                        stats.get(i).computeDegree(nodeCursor, cursors.ktx().cursors(), histograms.get(i));
+                    }
+                },
+                histograms -> {
+                    for (int i = 0; i < histograms.size(); i++) {
+                        stats.get(i).merge(histograms.get(i));
+                    }
+                });
         return stats.stream().map(DegreeStats::done);
     }
 
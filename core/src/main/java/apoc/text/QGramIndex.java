@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.text;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.text.similarity.JaroWinklerSimilarity;
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+import org.eclipse.collections.impl.map.mutable.primitive.IntIntHashMap;
+import org.eclipse.collections.impl.map.mutable.primitive.LongObjectHashMap;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
+
+/**
+ * Finds the pairs of similar texts without comparing every text with every other one.
+ * <p>
+ * Every text is split into its distinct q-grams, padded at both ends, and an inverted list of the texts containing
+ * each q-gram is built. Only texts sharing at least one q-gram are compared. For the Levenshtein similarity, the
+ * q-gram count filter also skips the pairs which share too few q-grams to be within the edit distance the threshold
+ * allows, so it finds exactly the pairs a full cross product would find among the texts sharing a q-gram. Q-grams
+ * skipped for being too frequent no longer produce candidates, but are still allowed for by the count filter.
+ * The texts are probed in parallel, and Levenshtein distances are computed in a band of the allowed distance, in
+ * arrays reused by each worker. The Jaro-Winkler score is the similarity, {@code 1 - apoc.text.jaroWinklerDistance}.
+ */
+class QGramIndex {
+
+    private static final char PADDING = '\u0000';
+    private static final int BIG = Integer.MAX_VALUE / 2;
+    private static final int CHUNK_SIZE = 256;
+
+    enum Algorithm {
+        LEVENSHTEIN,
+        JARO_WINKLER,
+        SORENSEN_DICE;
+
+        static Algorithm from(String name) {
+            String normalized = name.replaceAll("[_\\s-]", "").toUpperCase(Locale.ROOT);
+            for (Algorithm algorithm : values()) {
+                if (algorithm.name().replace("_", "").equals(normalized)) {
+                    return algorithm;
+                }
+            }
+            throw new IllegalArgumentException(
+                    "Unknown similarity algorithm " + name + ", supported are: levenshtein, jaroWinkler, sorensenDice");
+        }
+    }
+
+    static class Match {
+        final int first;
+        final int second;
+        final double score;
+
+        Match(int first, int second, double score) {
+            this.first = first;
+            this.second = second;
+            this.score = score;
+        }
+    }
+
+    private final String[] texts;
+    private final int q;
+    private final long[][] grams;
+    private final LongObjectHashMap<int[]> postings;
+
+    QGramIndex(String[] texts, int q) {
+        if (q < 1 || q > 4) {
+            throw new IllegalArgumentException("The q-gram size must be between 1 and 4, but was " + q);
+        }
+        this.texts = texts;
+        this.q = q;
+        this.grams = new long[texts.length][];
+
+        LongObjectHashMap<IntArrayList> lists = new LongObjectHashMap<>();
+        LongHashSet distinct = new LongHashSet();
+        for (int i = 0; i < texts.length; i++) {
+            distinct.clear();
+            if (texts[i] != null) {
+                addGrams(texts[i], distinct);
+            }
+            grams[i] = distinct.toArray();
+            for (long gram : grams[i]) {
+                lists.getIfAbsentPut(gram, IntArrayList::new).add(i); // ascending, as i grows
+            }
+        }
+        this.postings = new LongObjectHashMap<>(lists.size());
+        lists.forEachKeyValue((gram, list) -> postings.put(gram, list.toArray()));
+    }
+
+    private void addGrams(String text, LongHashSet target) {
+        int length = text.length() + 2 * (q - 1);
+        for (int start = 0; start + q <= length; start++) {
+            long gram = 0;
+            for (int k = start; k < start + q; k++) {
+                int position = k - (q - 1);
+                char c = position < 0 || position >= text.length() ? PADDING : text.charAt(position);
+                gram = (gram << 16) | c;
+            }
+            target.add(gram);
+        }
+    }
+
+    /**
+     * Returns every pair of texts, the first one before the second one, with a similarity of at least the threshold.
+     *
+     * @param maxBlockSize q-grams contained in more texts are ignored for finding candidates, 0 for no limit.
+     */
+    List<Match> join(
+            Algorithm algorithm, double threshold, int maxBlockSize, ExecutorService executor, int concurrency) {
+        int[] skipped = maxBlockSize > 0 ? skippedGrams(maxBlockSize) : null;
+        AtomicInteger next = new AtomicInteger();
+        List<Future<List<Match>>> futures = new ArrayList<>();
+        for (int worker = 0; worker < Math.max(1, concurrency); worker++) {
+            futures.add(executor.submit(() -> {
+                Prober prober = new Prober(algorithm, threshold, maxBlockSize, skipped);
+                for (int from = next.getAndAdd(CHUNK_SIZE); from < texts.length; from = next.getAndAdd(CHUNK_SIZE)) {
+                    for (int i = from; i < Math.min(texts.length, from + CHUNK_SIZE); i++) {
+                        prober.probe(i);
+                    }
+                }
+                return prober.matches;
+            }));
+        }
+
+        List<Match> matches = new ArrayList<>();
+        try {
+            for (Future<List<Match>> future : futures) {
+                matches.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while matching texts", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+        return matches;
+    }
+
+    /** @return for each text, the number of its q-grams contained in more than maxBlockSize texts */
+    private int[] skippedGrams(int maxBlockSize) {
+        int[] skipped = new int[texts.length];
+        for (int i = 0; i < texts.length; i++) {
+            for (long gram : grams[i]) {
+                if (postings.get(gram).length > maxBlockSize) {
+                    skipped[i]++;
+                }
+            }
+        }
+        return skipped;
+    }
+
+    /** The state of one worker, reused for all texts it probes */
+    private class Prober {
+        private final Algorithm algorithm;
+        private final double threshold;
+        private final int maxBlockSize;
+        private final int[] skipped;
+        // the number of q-grams shared with the probed text by each candidate, emptied key by key after each probe
+        private final IntIntHashMap shared = new IntIntHashMap();
+        private final IntArrayList candidates = new IntArrayList();
+        private final JaroWinklerSimilarity jaroWinkler = new JaroWinklerSimilarity();
+        private final List<Match> matches = new ArrayList<>();
+        private int[] previousRow = new int[0];
+        private int[] currentRow = new int[0];
+
+        Prober(Algorithm algorithm, double threshold, int maxBlockSize, int[] skipped) {
+            this.algorithm = algorithm;
+            this.threshold = threshold;
+            this.maxBlockSize = maxBlockSize;
+            this.skipped = skipped;
+        }
+
+        void probe(int i) {
+            for (long gram : grams[i]) {
+                int[] list = postings.get(gram);
+                if (maxBlockSize > 0 && list.length > maxBlockSize) {
+                    continue;
+                }
+                int start = Arrays.binarySearch(list, i) + 1; // i itself is always in the list
+                for (int p = start; p < list.length; p++) {
+                    int j = list[p];
+                    if (shared.addToValue(j, 1) == 1) {
+                        candidates.add(j);
+                    }
+                }
+            }
+            for (int c = 0; c < candidates.size(); c++) {
+                int j = candidates.get(c);
+                double score = score(i, j, shared.removeKeyIfAbsent(j, 0));
+                if (score >= threshold) {
+                    matches.add(new Match(i, j, score));
+                }
+            }
+            candidates.clear();
+        }
+
+        /** @return the similarity of the two texts, or -1 if they cannot reach the threshold */
+        private double score(int i, int j, int sharedGrams) {
+            String first = texts[i];
+            String second = texts[j];
+            switch (algorithm) {
+                case JARO_WINKLER:
+                    return jaroWinkler.apply(first, second);
+                case SORENSEN_DICE:
+                    return SorensenDiceCoefficient.compute(first, second);
+                default:
+                    int longer = Math.max(first.length(), second.length());
+                    if (longer == 0) {
+                        return 1.0;
+                    }
+                    // the largest edit distance which still reaches the threshold, every edit destroys at most q grams
+                    int maxDistance = (int) Math.floor((1 - threshold) * longer + 1e-9);
+                    // skipped q-grams are not counted, the two texts can share at most the fewer of them
+                    int uncounted = skipped == null ? 0 : Math.min(skipped[i], skipped[j]);
+                    if (Math.abs(first.length() - second.length()) > maxDistance
+                            || sharedGrams + uncounted < Math.max(grams[i].length, grams[j].length) - maxDistance * q) {
+                        return -1;
+                    }
+                    int distance = levenshtein(first, second, maxDistance);
+                    return distance > maxDistance ? -1 : (longer - distance) / (double) longer;
+            }
+        }
+
+        /** @return the Levenshtein distance, or any value above maxDistance if it is larger than that */
+        private int levenshtein(String first, String second, int maxDistance) {
+            int n = first.length();
+            int m = second.length();
+            if (previousRow.length < m + 2) {
+                previousRow = new int[m + 2];
+                currentRow = new int[m + 2];
+            }
+            int[] previous = previousRow;
+            int[] current = currentRow;
+            for (int j = 0; j <= m; j++) {
+                previous[j] = j <= maxDistance ? j : BIG;
+            }
+            for (int i = 1; i <= n; i++) {
+                // only cells within maxDistance of the diagonal can be within maxDistance
+                int from = Math.max(1, i - maxDistance);
+                int to = Math.min(m, i + maxDistance);
+                current[0] = i <= maxDistance ? i : BIG;
+                if (from > 1) {
+                    current[from - 1] = BIG;
+                }
+                int rowMinimum = from == 1 ? current[0] : BIG;
+                char c = first.charAt(i - 1);
+                for (int j = from; j <= to; j++) {
+                    int cost = c == second.charAt(j - 1) ? 0 : 1;
+                    int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                    current[j] = value;
+                    rowMinimum = Math.min(rowMinimum, value);
+                }
+                if (to < m) {
+                    current[to + 1] = BIG;
+                }
+                if (rowMinimum > maxDistance) {
+                    return BIG;
+                }
+                int[] swap = previous;
+                previous = current;
+                current = swap;
+            }
+            return previous[m];
+        }
+    }
+}
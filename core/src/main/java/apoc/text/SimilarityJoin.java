@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.text;
+
+import apoc.Pools;
+import apoc.util.Util;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.procedure.Context;
+import org.neo4j.procedure.Description;
+import org.neo4j.procedure.Name;
+import org.neo4j.procedure.Procedure;
+
+/**
+ * Bulk fuzzy matching: finds all pairs of similar texts of a list, or of a property of the nodes with a label, using a
+ * {@link QGramIndex} instead of a cross product of all texts.
+ */
+public class SimilarityJoin {
+
+    @Context
+    public Transaction tx;
+
+    @Context
+    public Pools pools;
+
+    @Procedure("apoc.text.similarPairs")
+    @Description(
+            "apoc.text.similarPairs(texts, {algorithm:'levenshtein', threshold:0.8, q:3}) - returns the pairs of the given texts with a similarity of at least the threshold")
+    public Stream<TextPairResult> similarPairs(
+            @Name("texts") List<String> texts,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+        if (texts == null || texts.isEmpty()) {
+            return Stream.empty();
+        }
+        String[] values = texts.toArray(new String[0]);
+        return join(values, config)
+                .map(match -> new TextPairResult(
+                        match.first, match.second, values[match.first], values[match.second], match.score));
+    }
+
+    @Procedure("apoc.text.similarNodes")
+    @Description(
+            "apoc.text.similarNodes(label, property, {algorithm:'levenshtein', threshold:0.8, q:3}) - returns the pairs of nodes with the label whose string property has a similarity of at least the threshold")
+    public Stream<NodePairResult> similarNodes(
+            @Name("label") String label,
+            @Name("property") String property,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+        LongArrayList ids = new LongArrayList();
+        List<String> texts = new ArrayList<>();
+        try (ResourceIterator<Node> nodes = tx.findNodes(Label.label(label))) {
+            while (nodes.hasNext()) {
+                Node node = nodes.next();
+                Object value = node.getProperty(property, null);
+                if (value instanceof String) {
+                    ids.add(node.getId());
+                    texts.add((String) value);
+                }
+            }
+        }
+        String[] values = texts.toArray(new String[0]);
+        return join(values, config)
+                .map(match -> new NodePairResult(
+                        tx.getNodeById(ids.get(match.first)),
+                        tx.getNodeById(ids.get(match.second)),
+                        values[match.first],
+                        values[match.second],
+                        match.score));
+    }
+
+    private Stream<QGramIndex.Match> join(String[] texts, Map<String, Object> config) {
+        if (config == null) config = Collections.emptyMap();
+        QGramIndex.Algorithm algorithm = QGramIndex.Algorithm.from(
+                config.getOrDefault("algorithm", "levenshtein").toString());
+        double threshold = Util.toDouble(config.getOrDefault("threshold", 0.8));
+        int q = Util.toInteger(config.getOrDefault("q", 3));
+        int maxBlockSize = Util.toInteger(config.getOrDefault("maxBlockSize", 0));
+        int concurrency = Util.toInteger(
+                config.getOrDefault("concurrency", Runtime.getRuntime().availableProcessors()));
+
+        return new QGramIndex(texts, q)
+                .join(algorithm, threshold, maxBlockSize, pools.getDefaultExecutorService(), concurrency).stream();
+    }
+
+    public static class TextPairResult {
+        public final long index1;
+        public final long index2;
+        public final String text1;
+        public final String text2;
+        public final double score;
+
+        public TextPairResult(long index1, long index2, String text1, String text2, double score) {
+            this.index1 = index1;
+            this.index2 = index2;
+            this.text1 = text1;
+            this.text2 = text2;
+            this.score = score;
+        }
+    }
+
+    public static class NodePairResult {
+        public final Node node1;
+        public final Node node2;
+        public final String text1;
+        public final String text2;
+        public final double score;
+
+        public NodePairResult(Node node1, Node node2, String text1, String text2, double score) {
+            this.node1 = node1;
+            this.node2 = node2;
+            this.text1 = text1;
+            this.text2 = text2;
+            this.score = score;
+        }
+    }
+}
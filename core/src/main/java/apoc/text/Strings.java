@@ -22,6 +22,7 @@ import static apoc.util.Util.quote;
 import static java.lang.Math.toIntExact;
 import static java.util.Arrays.asList;
 
+import apoc.util.PatternCache;
 import apoc.util.Util;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
@@ -43,6 +44,7 @@ import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.text.similarity.HammingDistance;
@@ -55,6 +57,7 @@ import org.neo4j.internal.helpers.collection.Pair;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Description;
 import org.neo4j.procedure.Name;
+import org.neo4j.procedure.Procedure;
 import org.neo4j.procedure.UserFunction;
 
 /**
@@ -149,7 +152,7 @@ public class Strings {
         if (text == null || regex == null || replacement == null) {
             return null;
         }
-        return text.replaceAll(regex, replacement);
+        return PatternCache.get(regex).matcher(text).replaceAll(replacement);
     }
 
     @UserFunction
@@ -161,7 +164,7 @@ public class Strings {
         if (text == null || regex == null || limit == null) {
             return null;
         }
-        String[] resultArray = text.split(regex, limit.intValue());
+        String[] resultArray = PatternCache.get(regex).split(text, limit.intValue());
         return new ArrayList<>(asList(resultArray));
     }
 
@@ -171,7 +174,7 @@ public class Strings {
         if (text == null || regex == null) {
             return Collections.EMPTY_LIST;
         } else {
-            final Pattern pattern = Pattern.compile(regex);
+            final Pattern pattern = PatternCache.get(regex);
             final Matcher matcher = pattern.matcher(text);
 
             List<List<String>> result = new ArrayList<>();
@@ -186,6 +189,13 @@ public class Strings {
         }
     }
 
+    @Procedure("apoc.text.regexCacheStats")
+    @Description(
+            "apoc.text.regexCacheStats() - returns the size, hits, misses and evictions of the cache of compiled regular expressions")
+    public Stream<PatternCache.Stats> regexCacheStats() {
+        return Stream.of(PatternCache.stats());
+    }
+
     @UserFunction
     @Description("apoc.text.join(['text1','text2',...], delimiter) - join the given strings with the given delimiter.")
     public String join(final @Name("texts") List<String> texts, final @Name("delimiter") String delimiter) {
@@ -315,6 +325,13 @@ public class Strings {
 
     private static Pattern cleanPattern = Pattern.compile("[^\\p{L}\\p{N}]+");
     private static Pattern specialCharPattern = Pattern.compile("\\p{IsM}+");
+    private static final Pattern slugPattern = Pattern.compile("[^\\p{L}0-9_]+");
+    private static final Pattern camelCaseSeparatorPattern = Pattern.compile("[^\\p{L}0-9]|_");
+    private static final Pattern whitespacePattern = Pattern.compile("(\\s+)");
+    private static final Pattern snakeCasePattern = Pattern.compile("^([\\p{Lu}0-9_]+)$");
+    private static final Pattern snakeCaseSplitPattern = Pattern.compile("(?=[^\\p{Ll}0-9])");
+    private static final Pattern upperCaseSplitPattern = Pattern.compile("(?=[^a-z0-9]+)");
+    private static final Pattern upperCaseCleanPattern = Pattern.compile("[^A-Z0-9]+");
     private static String[][] UMLAUT_REPLACEMENTS = {
         {new String("Ä"), "Ae"},
         {new String("Ü"), "Ue"},
@@ -383,7 +400,7 @@ public class Strings {
     public String slug(@Name("text") String text, @Name(value = "delim", defaultValue = "-") String delim) {
         if (text == null) return null;
         if (delim == null) return null;
-        return text.trim().replaceAll("[^\\p{L}0-9_]+", delim);
+        return slugPattern.matcher(text.trim()).replaceAll(delim);
     }
 
     private static final String lower = "abcdefghijklmnopqrstuvwxyz";
@@ -456,9 +473,9 @@ public class Strings {
     @UserFunction
     @Description("apoc.text.camelCase(text) YIELD value - Convert a string to camelCase")
     public String camelCase(@Name("text") String text) {
-        text = text.replaceAll("[^\\p{L}0-9]|_", " ");
+        text = camelCaseSeparatorPattern.matcher(text).replaceAll(" ");
 
-        String[] parts = text.split("(\\s+)");
+        String[] parts = whitespacePattern.split(text);
         StringBuilder output = new StringBuilder();
 
         for (String part : parts) {
@@ -482,11 +499,11 @@ public class Strings {
     @Description("apoc.text.snakeCase(text) YIELD value - Convert a string to snake-case")
     public String snakeCase(@Name("text") String text) {
         // Convert Snake Case
-        if (text.matches("^([\\p{Lu}0-9_]+)$")) {
+        if (snakeCasePattern.matcher(text).matches()) {
             text = text.toLowerCase().replace("_", " ");
         }
 
-        String[] parts = text.split("(?=[^\\p{Ll}0-9])");
+        String[] parts = snakeCaseSplitPattern.split(text);
         StringBuilder output = new StringBuilder();
 
         for (String part : parts) {
@@ -507,11 +524,11 @@ public class Strings {
     @UserFunction
     @Description("apoc.text.toUpperCase(text) YIELD value - Convert a string to UPPER_CASE")
     public String toUpperCase(@Name("text") String text) {
-        String[] parts = text.split("(?=[^a-z0-9]+)");
+        String[] parts = upperCaseSplitPattern.split(text);
         StringBuilder output = new StringBuilder();
 
         for (String part : parts) {
-            part = part.trim().toUpperCase().replaceAll("[^A-Z0-9]+", "");
+            part = upperCaseCleanPattern.matcher(part.trim().toUpperCase()).replaceAll("");
 
             if (part.length() > 0) {
                 if (output.length() > 0) {
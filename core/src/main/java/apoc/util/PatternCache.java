@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.util.regex.Pattern;
+
+/**
+ * A bounded, concurrent cache of compiled regular expressions, shared by the functions that take a regex as argument,
+ * so that applying the same regex to millions of values compiles it only once.
+ * The least recently used patterns are evicted once {@link #MAX_SIZE} patterns are cached.
+ */
+public class PatternCache {
+
+    public static final int MAX_SIZE = 1000;
+
+    private static final Cache<String, Pattern> CACHE =
+            CacheBuilder.newBuilder().maximumSize(MAX_SIZE).recordStats().build();
+
+    private PatternCache() {}
+
+    /**
+     * @return the compiled regex, an invalid regex throws the same {@link java.util.regex.PatternSyntaxException}
+     * as {@link Pattern#compile(String)} and is not cached.
+     */
+    public static Pattern get(String regex) {
+        Pattern pattern = CACHE.getIfPresent(regex);
+        if (pattern == null) {
+            // two threads missing at the same time both compile, the patterns are equivalent
+            pattern = Pattern.compile(regex);
+            CACHE.put(regex, pattern);
+        }
+        return pattern;
+    }
+
+    public static Stats stats() {
+        CacheStats stats = CACHE.stats();
+        return new Stats(CACHE.size(), stats.hitCount(), stats.missCount(), stats.hitRate(), stats.evictionCount());
+    }
+
+    public static class Stats {
+        public final long size;
+        public final long hits;
+        public final long misses;
+        public final double hitRate;
+        public final long evictions;
+
+        public Stats(long size, long hits, long misses, double hitRate, long evictions) {
+            this.size = size;
+            this.hits = hits;
+            this.misses = misses;
+            this.hitRate = hitRate;
+            this.evictions = evictions;
+        }
+    }
+}
@@ -902,6 +902,27 @@ public class Util {
         }
     }
 
+    /**
+     * Waits for all futures and returns their results in order. On the first failure the remaining futures
+     * are cancelled and the cause is rethrown wrapped with the given message.
+     */
+    public static <T> List<T> getAll(List<Future<T>> futures, String errorMessage) {
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(f -> f.cancel(true));
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw new RuntimeException(errorMessage, e.getCause());
+        }
+    }
+
     public static void removeFinished(List<Future> futures) {
         if (futures.size() > 25) {
             futures.removeIf(Future::isDone);
@@ -18,19 +18,25 @@
  */
 package apoc.util.kernel;
 
+import apoc.util.Util;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.Future;
 import java.util.function.BiConsumer;
-import java.util.function.Supplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import org.neo4j.common.DependencyResolver;
 import org.neo4j.graphdb.Transaction;
+import org.neo4j.internal.kernel.api.Cursor;
 import org.neo4j.internal.kernel.api.CursorFactory;
 import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.NodeLabelIndexCursor;
+import org.neo4j.internal.kernel.api.PropertyCursor;
 import org.neo4j.internal.kernel.api.Read;
 import org.neo4j.internal.kernel.api.RelationshipScanCursor;
+import org.neo4j.internal.kernel.api.RelationshipTraversalCursor;
+import org.neo4j.internal.kernel.api.Scan;
 import org.neo4j.internal.recordstorage.RecordStorageEngine;
 import org.neo4j.kernel.api.KernelTransaction;
 import org.neo4j.kernel.impl.coreapi.InternalTransaction;
@@ -38,6 +44,12 @@ import org.neo4j.kernel.impl.store.CommonAbstractStore;
 import org.neo4j.kernel.impl.store.NeoStores;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
 
+/**
+ * Runs work over all nodes or relationships of the store in parallel.
+ * A single kernel scan is shared by all workers, each worker reserves batches of the store from it in its own
+ * transaction, so only records in use are visited. Workers keep their own state and cursors, which are
+ * handed back to the caller once the scan is complete.
+ */
 public class MultiThreadedGlobalGraphOperations {
 
     public enum GlobalOperationsTypes {
@@ -45,12 +57,26 @@ public class MultiThreadedGlobalGraphOperations {
         RELATIONSHIPS
     }
 
+    /**
+     * Called for every entity of a scan with the state and cursors of the worker that visits it.
+     */
+    @FunctionalInterface
+    public interface ScanConsumer<S, C extends Cursor> {
+        void accept(S state, WorkerCursors cursors, C cursor);
+    }
+
     public static BatchJobResult forAllNodes(
             GraphDatabaseAPI db,
             ExecutorService executorService,
             int batchSize,
             BiConsumer<KernelTransaction, NodeCursor> consumer) {
-        return forAll(db, executorService, batchSize, GlobalOperationsTypes.NODES, consumer);
+        return forAllNodes(
+                db,
+                executorService,
+                batchSize,
+                WorkerCursors::ktx,
+                (ktx, cursors, nodeCursor) -> consumer.accept(ktx, nodeCursor),
+                ignored -> {});
     }
 
     public static BatchJobResult forAllRelationships(
@@ -58,34 +84,155 @@ public class MultiThreadedGlobalGraphOperations {
             ExecutorService executorService,
             int batchSize,
             BiConsumer<KernelTransaction, RelationshipScanCursor> consumer) {
-        return forAll(db, executorService, batchSize, GlobalOperationsTypes.RELATIONSHIPS, consumer);
+        return forAllRelationships(
+                db,
+                executorService,
+                batchSize,
+                WorkerCursors::ktx,
+                (ktx, cursors, relationshipCursor) -> consumer.accept(ktx, relationshipCursor),
+                ignored -> {});
     }
 
-    private static BatchJobResult forAll(
+    /**
+     * Visits all nodes in parallel. Every worker creates its own state with {@code workerState}, which is passed
+     * to {@code consumer} for each node it visits, and handed to {@code merge} on the calling thread at the end.
+     */
+    public static <S> BatchJobResult forAllNodes(
             GraphDatabaseAPI db,
             ExecutorService executorService,
             int batchSize,
-            GlobalOperationsTypes type,
-            BiConsumer consumer) {
-        try {
-            DependencyResolver dependencyResolver = db.getDependencyResolver();
-            long maxId = getHighestIdInUseForStore(dependencyResolver, type);
-
-            List<BatchJob> taskList = new ArrayList<>();
-            BatchJobResult result = new BatchJobResult();
-
-            result.startStopWatch();
-            for (long batchStart = 0; batchStart < maxId; batchStart += batchSize) {
-                taskList.add(new BatchJob(type, batchStart, batchSize, db, consumer, result));
-            }
-            executorService.invokeAll(taskList);
-            result.stopStopWatch();
-            result.setBatches(taskList.size());
-            return result;
+            Function<WorkerCursors, S> workerState,
+            ScanConsumer<S, NodeCursor> consumer,
+            Consumer<S> merge) {
+        long maxId = getHighestIdInUseForStore(db.getDependencyResolver(), GlobalOperationsTypes.NODES);
+        BatchJobResult result = forAll(
+                db,
+                executorService,
+                batchSize,
+                maxId,
+                "nodes",
+                read -> read.allNodesScan(),
+                WorkerCursors::nodeScanCursor,
+                workerState,
+                consumer,
+                merge);
+        result.missing = Math.max(0, maxId - result.succeeded - result.failures);
+        return result;
+    }
+
+    /**
+     * Visits all nodes with the given label in parallel using the label index, see
+     * {@link #forAllNodes(GraphDatabaseAPI, ExecutorService, int, Function, ScanConsumer, Consumer)}.
+     */
+    public static <S> BatchJobResult forAllNodesWithLabel(
+            GraphDatabaseAPI db,
+            ExecutorService executorService,
+            int batchSize,
+            int label,
+            Function<WorkerCursors, S> workerState,
+            ScanConsumer<S, NodeLabelIndexCursor> consumer,
+            Consumer<S> merge) {
+        long count;
+        try (Transaction countTx = db.beginTx()) {
+            count = ((InternalTransaction) countTx)
+                    .kernelTransaction()
+                    .dataRead()
+                    .countsForNode(label);
+        }
+        return forAll(
+                db,
+                executorService,
+                batchSize,
+                count,
+                "nodes with label " + label,
+                read -> read.nodeLabelScan(label),
+                WorkerCursors::nodeLabelCursor,
+                workerState,
+                consumer,
+                merge);
+    }
+
+    /**
+     * Visits all relationships in parallel, see {@link #forAllNodes(GraphDatabaseAPI, ExecutorService, int, Function, ScanConsumer, Consumer)}.
+     */
+    public static <S> BatchJobResult forAllRelationships(
+            GraphDatabaseAPI db,
+            ExecutorService executorService,
+            int batchSize,
+            Function<WorkerCursors, S> workerState,
+            ScanConsumer<S, RelationshipScanCursor> consumer,
+            Consumer<S> merge) {
+        long maxId = getHighestIdInUseForStore(db.getDependencyResolver(), GlobalOperationsTypes.RELATIONSHIPS);
+        BatchJobResult result = forAll(
+                db,
+                executorService,
+                batchSize,
+                maxId,
+                "relationships",
+                read -> read.allRelationshipsScan(),
+                WorkerCursors::relationshipScanCursor,
+                workerState,
+                consumer,
+                merge);
+        result.missing = Math.max(0, maxId - result.succeeded - result.failures);
+        return result;
+    }
+
+    private static <S, C extends Cursor> BatchJobResult forAll(
+            GraphDatabaseAPI db,
+            ExecutorService executorService,
+            int batchSize,
+            long size,
+            String description,
+            Function<Read, Scan<C>> scanFactory,
+            Function<WorkerCursors, C> scanCursor,
+            Function<WorkerCursors, S> workerState,
+            ScanConsumer<S, C> consumer,
+            Consumer<S> merge) {
+        int workers = (int)
+                Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), (size + batchSize - 1) / batchSize));
 
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
+        BatchJobResult result = new BatchJobResult();
+        result.startStopWatch();
+        // the scan is created in a transaction without changes, so workers only see committed data
+        try (Transaction scanTx = db.beginTx()) {
+            Scan<C> scan = scanFactory.apply(
+                    ((InternalTransaction) scanTx).kernelTransaction().dataRead());
+            List<Future<Worker<S>>> futures = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                futures.add(Util.inTxFuture(executorService, db, tx -> {
+                    KernelTransaction ktx = ((InternalTransaction) tx).kernelTransaction();
+                    try (WorkerCursors cursors = new WorkerCursors(ktx)) {
+                        Worker<S> worker = new Worker<>(workerState.apply(cursors));
+                        C cursor = scanCursor.apply(cursors);
+                        while (scan.reserveBatch(
+                                cursor,
+                                batchSize,
+                                ktx.cursorContext(),
+                                ktx.securityContext().mode())) {
+                            worker.batches++;
+                            while (cursor.next()) {
+                                try {
+                                    consumer.accept(worker.state, cursors, cursor);
+                                    worker.succeeded++;
+                                } catch (Exception e) {
+                                    worker.failures++;
+                                }
+                            }
+                        }
+                        return worker;
+                    }
+                }));
+            }
+            for (Worker<S> worker : Util.getAll(futures, "Error during the parallel scan of all " + description)) {
+                result.succeeded += worker.succeeded;
+                result.failures += worker.failures;
+                result.batches += worker.batches;
+                merge.accept(worker.state);
+            }
         }
+        result.stopStopWatch();
+        return result;
     }
 
     public static long getHighestIdInUseForStore(DependencyResolver dependencyResolver, GlobalOperationsTypes type) {
@@ -106,35 +253,23 @@ public class MultiThreadedGlobalGraphOperations {
     }
 
     public static class BatchJobResult {
-        final AtomicLong succeeded = new AtomicLong(0);
-        final AtomicLong missing = new AtomicLong(0);
-        final AtomicLong failures = new AtomicLong(0);
+        long succeeded;
+        long missing;
+        long failures;
         private long started;
         private long duration;
         private int batches;
 
-        public void incrementSuceeded() {
-            succeeded.incrementAndGet();
-        }
-
-        public void incrementMissing() {
-            missing.incrementAndGet();
-        }
-
-        public void incrementFailures() {
-            failures.incrementAndGet();
-        }
-
         public long getSucceeded() {
-            return succeeded.get();
+            return succeeded;
         }
 
         public long getMissing() {
-            return missing.get();
+            return missing;
         }
 
         public long getFailures() {
-            return failures.get();
+            return failures;
         }
 
         public long getDuration() {
@@ -158,86 +293,100 @@ public class MultiThreadedGlobalGraphOperations {
         }
     }
 
-    private static class BatchJob implements Callable<Void> {
-        private final GlobalOperationsTypes type;
-        private final long batchStart;
-        private final int batchSize;
-        private final GraphDatabaseAPI db;
-        private final BiConsumer consumer;
-        private final BatchJobResult result;
-
-        public BatchJob(
-                GlobalOperationsTypes type,
-                long batchStart,
-                int batchSize,
-                GraphDatabaseAPI db,
-                BiConsumer consumer,
-                BatchJobResult result) {
-            this.type = type;
-            this.batchStart = batchStart;
-            this.batchSize = batchSize;
-            this.db = db;
-            this.consumer = consumer;
-            this.result = result;
+    /**
+     * Cursors of a single worker, allocated on first use and reused for every entity the worker visits.
+     */
+    public static class WorkerCursors implements AutoCloseable {
+        private final KernelTransaction ktx;
+        private final CursorFactory cursors;
+        private NodeCursor nodeScanCursor;
+        private RelationshipScanCursor relationshipScanCursor;
+        private NodeLabelIndexCursor nodeLabelCursor;
+        private NodeCursor nodeCursor;
+        private RelationshipTraversalCursor relationshipCursor;
+        private PropertyCursor propertyCursor;
+
+        WorkerCursors(KernelTransaction ktx) {
+            this.ktx = ktx;
+            this.cursors = ktx.cursors();
         }
 
-        @Override
-        public Void call() {
-            try (Transaction tx = db.beginTx()) {
-                KernelTransaction ktx = ((InternalTransaction) tx).kernelTransaction();
-                CursorFactory cursors = ktx.cursors();
-                Read read = ktx.dataRead();
-
-                switch (type) {
-                    case NODES:
-                        iterateForNodes(ktx, read, cursors, result);
-                        break;
-                    case RELATIONSHIPS:
-                        iterateForRelationships(ktx, read, cursors, result);
-                        break;
-                    default:
-                        throw new IllegalArgumentException("dunno how to deal with type " + type);
-                }
-                tx.commit();
-                return null;
+        public KernelTransaction ktx() {
+            return ktx;
+        }
+
+        public Read read() {
+            return ktx.dataRead();
+        }
+
+        NodeCursor nodeScanCursor() {
+            if (nodeScanCursor == null) {
+                nodeScanCursor = cursors.allocateNodeCursor(ktx.cursorContext());
+            }
+            return nodeScanCursor;
+        }
+
+        RelationshipScanCursor relationshipScanCursor() {
+            if (relationshipScanCursor == null) {
+                relationshipScanCursor = cursors.allocateRelationshipScanCursor(ktx.cursorContext());
             }
+            return relationshipScanCursor;
         }
 
-        private void iterateForNodes(KernelTransaction ktx, Read read, CursorFactory cursors, BatchJobResult result) {
-            try (NodeCursor cursor = cursors.allocateNodeCursor(ktx.cursorContext())) {
-                for (long id = batchStart; id < batchStart + batchSize; id++) {
-                    read.singleNode(id, cursor);
-                    processAndReport(ktx, cursor::next, consumer, cursor, result);
-                }
+        NodeLabelIndexCursor nodeLabelCursor() {
+            if (nodeLabelCursor == null) {
+                nodeLabelCursor = cursors.allocateNodeLabelIndexCursor(ktx.cursorContext());
             }
+            return nodeLabelCursor;
         }
 
-        private void iterateForRelationships(
-                KernelTransaction ktx, Read read, CursorFactory cursors, BatchJobResult result) {
-            try (RelationshipScanCursor cursor = cursors.allocateRelationshipScanCursor(ktx.cursorContext())) {
-                for (long id = batchStart; id < batchStart + batchSize; id++) {
-                    read.singleRelationship(id, cursor);
-                    processAndReport(ktx, cursor::next, consumer, cursor, result);
-                }
+        /** A node cursor for single node lookups, independent of the cursor of the scan */
+        public NodeCursor nodeCursor() {
+            if (nodeCursor == null) {
+                nodeCursor = cursors.allocateNodeCursor(ktx.cursorContext());
             }
+            return nodeCursor;
         }
 
-        private void processAndReport(
-                KernelTransaction ktx,
-                Supplier<Boolean> nextMethod,
-                BiConsumer consumer,
-                Object parameter,
-                BatchJobResult result) {
-            if (nextMethod.get()) {
-                try {
-                    consumer.accept(ktx, parameter);
-                    result.incrementSuceeded();
-                } catch (Exception e) {
-                    result.incrementFailures();
-                }
-            } else {
-                result.incrementMissing();
+        public RelationshipTraversalCursor relationshipCursor() {
+            if (relationshipCursor == null) {
+                relationshipCursor = cursors.allocateRelationshipTraversalCursor(ktx.cursorContext());
             }
+            return relationshipCursor;
+        }
+
+        public PropertyCursor propertyCursor() {
+            if (propertyCursor == null) {
+                propertyCursor = cursors.allocatePropertyCursor(ktx.cursorContext(), ktx.memoryTracker());
+            }
+            return propertyCursor;
+        }
+
+        @Override
+        public void close() {
+            closeCursor(nodeScanCursor);
+            closeCursor(relationshipScanCursor);
+            closeCursor(nodeLabelCursor);
+            closeCursor(nodeCursor);
+            closeCursor(relationshipCursor);
+            closeCursor(propertyCursor);
+        }
+
+        private static void closeCursor(Cursor cursor) {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+    }
+
+    private static class Worker<S> {
+        private final S state;
+        private long succeeded;
+        private long failures;
+        private int batches;
+
+        Worker(S state) {
+            this.state = state;
         }
     }
 }
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.agg;
+
+import static apoc.util.TestUtil.testCall;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import apoc.sketch.Sketches;
+import apoc.util.TestUtil;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.neo4j.test.rule.DbmsRule;
+import org.neo4j.test.rule.ImpermanentDbmsRule;
+
+public class DistinctSketchTest {
+
+    @ClassRule
+    public static DbmsRule db = new ImpermanentDbmsRule();
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        TestUtil.registerProcedure(db, DistinctSketch.class, Sketches.class);
+    }
+
+    @AfterClass
+    public static void teardown() {
+        db.shutdown();
+    }
+
+    @Test
+    public void testDistinctCount() throws Exception {
+        testCall(db, "UNWIND [] as value RETURN apoc.agg.distinctCount(value) as count", (row) -> {
+            assertEquals(0L, row.get("count"));
+        });
+        testCall(
+                db,
+                "UNWIND [1, 1.0, 2, '2', 'a', 'a', null, true, [1,2], [1,2]] as value RETURN apoc.agg.distinctCount(value) as count",
+                (row) -> assertEquals(6L, row.get("count")));
+        testCall(
+                db,
+                "UNWIND range(1, 100000) as value RETURN apoc.agg.distinctCount(value % 50000) as count",
+                (row) -> assertEquals(50000D, (long) row.get("count"), 50000 * 0.03));
+        testCall(
+                db,
+                "UNWIND range(1, 100000) as value RETURN apoc.agg.distinctCount('user' + value, 10) as count",
+                (row) -> assertEquals(100000D, (long) row.get("count"), 100000 * 0.12));
+    }
+
+    @Test
+    public void testDistinctSketchRoundTrip() throws Exception {
+        db.executeTransactionally("UNWIND range(0,3) as day CREATE (:Day {day: day})");
+        // every day sees 20000 users, consecutive days overlap by half
+        db.executeTransactionally("MATCH (d:Day) "
+                + "UNWIND range(d.day * 10000, d.day * 10000 + 19999) as user "
+                + "WITH d, apoc.agg.distinctSketch(user) as sketch "
+                + "SET d.users = sketch");
+        testCall(
+                db,
+                "MATCH (d:Day) WITH apoc.agg.distinctSketchMerge(d.users) as sketch "
+                        + "RETURN apoc.sketch.distinctCount(sketch) as count",
+                (row) -> assertEquals(50000D, (long) row.get("count"), 50000 * 0.03));
+        testCall(
+                db,
+                "MATCH (d:Day) WHERE d.day < 2 WITH collect(d.users) as sketches "
+                        + "RETURN apoc.sketch.distinctCount(apoc.sketch.mergeDistinct(sketches)) as count",
+                (row) -> assertEquals(30000D, (long) row.get("count"), 30000 * 0.03));
+        testCall(
+                db,
+                "UNWIND [] as value RETURN apoc.agg.distinctSketch(value) as sketch",
+                (row) -> assertNull(row.get("sketch")));
+    }
+}
@@ -20,12 +20,15 @@ package apoc.agg;
 
 import static apoc.util.TestUtil.testCall;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
 
 import apoc.util.TestUtil;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.ClassRule;
 import org.junit.Test;
+import org.neo4j.graphdb.QueryExecutionException;
 import org.neo4j.test.rule.DbmsRule;
 import org.neo4j.test.rule.ImpermanentDbmsRule;
 
@@ -62,4 +65,31 @@ public class MedianTest {
             assertEquals(2D, row.get("p"));
         });
     }
+
+    @Test
+    public void testMedianSketch() throws Exception {
+        testCall(db, "UNWIND [0,1,2,3] as value RETURN apoc.agg.median(value, {mode:'exact'}) as p", (row) -> {
+            assertEquals(1.5D, row.get("p"));
+        });
+        testCall(db, "UNWIND [] as value RETURN apoc.agg.median(value, {mode:'sketch'}) as p", (row) -> {
+            assertEquals(null, row.get("p"));
+        });
+        testCall(
+                db,
+                "UNWIND range(1,10001) as value RETURN apoc.agg.median(value, {mode:'sketch', compression: 200}) as p",
+                (row) -> {
+                    assertEquals(5001D, (double) row.get("p"), 10);
+                });
+    }
+
+    @Test
+    public void testMedianWithUnknownMode() {
+        QueryExecutionException error = assertThrows(
+                QueryExecutionException.class,
+                () -> testCall(
+                        db, "UNWIND [0,1,2,3] as value RETURN apoc.agg.median(value, {mode:'foo'}) as p", (row) -> {}));
+        assertTrue(
+                error.getMessage(),
+                error.getMessage().contains("Unknown quantile mode foo, supported are: exact, sketch, histogram"));
+    }
 }
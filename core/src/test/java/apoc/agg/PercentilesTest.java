@@ -21,7 +21,9 @@ package apoc.agg;
 import static apoc.util.TestUtil.testCall;
 import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
+import apoc.sketch.Sketches;
 import apoc.util.TestUtil;
 import java.util.List;
 import org.junit.AfterClass;
@@ -39,7 +41,7 @@ public class PercentilesTest {
 
     @BeforeClass
     public static void setUp() throws Exception {
-        TestUtil.registerProcedure(db, Percentiles.class);
+        TestUtil.registerProcedure(db, Percentiles.class, QuantileSketch.class, Sketches.class);
     }
 
     @AfterClass
@@ -85,6 +87,53 @@ public class PercentilesTest {
                 });
     }
 
+    @Test
+    public void testPercentilesExactAndSketch() throws Exception {
+        testCall(
+                db,
+                "UNWIND [1,1,1,1,2,2,3,4] as value RETURN apoc.agg.percentiles(value,[0.5,0.75,0.9,0.95,0.99],{mode:'exact'}) as p",
+                (row) -> assertSameValues(asList(1D, 2D, 3D, 4D, 4D), row.get("p")));
+        testCall(
+                db,
+                "UNWIND range(1,10000) as value RETURN apoc.agg.percentiles(value,[0.01,0.5,0.99],{mode:'sketch'}) as p",
+                (row) -> assertCloseTo(asList(100D, 5000D, 9900D), row.get("p"), 20));
+    }
+
+    @Test
+    public void testQuantileSketchRoundTrip() throws Exception {
+        db.executeTransactionally("UNWIND range(0,9) as part CREATE (:Bucket {part: part})");
+        db.executeTransactionally("MATCH (b:Bucket) "
+                + "WITH b, [x IN range(1,10000) WHERE x % 10 = b.part] as values "
+                + "UNWIND values as value "
+                + "WITH b, apoc.agg.quantileSketch(value, 200) as sketch "
+                + "SET b.sketch = sketch");
+        testCall(
+                db,
+                "MATCH (b:Bucket) WITH apoc.agg.quantileSketchMerge(b.sketch) as sketch "
+                        + "RETURN apoc.sketch.percentiles(sketch, [0.1,0.5,0.9]) as p, apoc.sketch.quantileCount(sketch) as count",
+                (row) -> {
+                    assertCloseTo(asList(1000D, 5000D, 9000D), row.get("p"), 20);
+                    assertEquals(10000L, row.get("count"));
+                });
+        testCall(
+                db,
+                "MATCH (b:Bucket) WITH collect(b.sketch) as sketches "
+                        + "RETURN apoc.sketch.percentiles(apoc.sketch.mergeQuantiles(sketches), [0.5]) as p",
+                (row) -> assertCloseTo(asList(5000D), row.get("p"), 20));
+        testCall(
+                db,
+                "UNWIND [] as value RETURN apoc.agg.quantileSketch(value) as sketch",
+                (row) -> assertNull(row.get("sketch")));
+    }
+
+    private static void assertCloseTo(List<Double> expected, Object values, double delta) {
+        List<Double> doubleValues = (List<Double>) values;
+        assertEquals(expected.size(), doubleValues.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(expected.get(i), doubleValues.get(i), delta);
+        }
+    }
+
     private static void assertSameValues(List<Double> expected, Object values) {
         List<Double> doubleValues = (List<Double>) values;
         for (int i = 0; i < expected.size(); i++) {
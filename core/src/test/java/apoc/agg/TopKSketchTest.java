@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.agg;
+
+import static apoc.util.TestUtil.testCall;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import apoc.sketch.Sketches;
+import apoc.util.TestUtil;
+import java.util.List;
+import java.util.Map;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.neo4j.test.rule.DbmsRule;
+import org.neo4j.test.rule.ImpermanentDbmsRule;
+
+public class TopKSketchTest {
+
+    @ClassRule
+    public static DbmsRule db = new ImpermanentDbmsRule();
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        TestUtil.registerProcedure(db, TopKSketch.class, Sketches.class);
+    }
+
+    @AfterClass
+    public static void teardown() {
+        db.shutdown();
+    }
+
+    @Test
+    public void testTopK() throws Exception {
+        testCall(db, "UNWIND ['a','b','a','c','a','b',null] as value RETURN apoc.agg.topK(value, 2) as top", (row) -> {
+            List<Map<String, Object>> top = (List<Map<String, Object>>) row.get("top");
+            assertEquals(2, top.size());
+            assertEquals(Map.of("item", "a", "count", 3L, "error", 0L), top.get(0));
+            assertEquals(Map.of("item", "b", "count", 2L, "error", 0L), top.get(1));
+        });
+        // the heavy hitters survive a sketch much smaller than the number of distinct values
+        testCall(
+                db,
+                "UNWIND range(1, 20000) as value "
+                        + "WITH CASE WHEN value % 4 = 0 THEN 'hot' WHEN value % 10 = 1 THEN 'warm' ELSE toString(value) END as item "
+                        + "RETURN apoc.agg.topK(item, 2, 50) as top",
+                (row) -> {
+                    List<Map<String, Object>> top = (List<Map<String, Object>>) row.get("top");
+                    assertEquals("hot", top.get(0).get("item"));
+                    assertEquals("warm", top.get(1).get("item"));
+                    assertCount(5000, top.get(0));
+                    assertCount(2000, top.get(1));
+                });
+    }
+
+    @Test
+    public void testTopKSketchRoundTrip() throws Exception {
+        db.executeTransactionally("UNWIND range(0,4) as part CREATE (:Segment {part: part})");
+        db.executeTransactionally("MATCH (s:Segment) "
+                + "UNWIND range(1, 2000) as value "
+                + "WITH s, CASE WHEN value % 3 = 0 THEN -1 WHEN value % 5 = s.part THEN 'part' + s.part ELSE value * 10 + s.part END as item "
+                + "WITH s, apoc.agg.topKSketch(item, 100) as sketch "
+                + "SET s.top = sketch");
+        testCall(
+                db,
+                "MATCH (s:Segment) WITH apoc.agg.topKSketchMerge(s.top) as sketch "
+                        + "RETURN apoc.sketch.topK(sketch, 1) as top",
+                (row) -> {
+                    List<Map<String, Object>> top = (List<Map<String, Object>>) row.get("top");
+                    assertEquals(1, top.size());
+                    assertEquals(-1L, top.get(0).get("item"));
+                    assertCount(5 * 666, top.get(0));
+                });
+        testCall(
+                db,
+                "MATCH (s:Segment) WITH collect(s.top) as sketches "
+                        + "RETURN apoc.sketch.topK(apoc.sketch.mergeTopK(sketches), 6) as top",
+                (row) -> {
+                    List<Map<String, Object>> top = (List<Map<String, Object>>) row.get("top");
+                    assertEquals(-1L, top.get(0).get("item"));
+                    for (int i = 1; i < 6; i++) {
+                        assertTrue(top.get(i).get("item").toString().startsWith("part"));
+                    }
+                });
+    }
+
+    private static void assertCount(long expected, Map<String, Object> counter) {
+        long count = (long) counter.get("count");
+        long error = (long) counter.get("error");
+        assertTrue(counter.toString(), count - error <= expected && expected <= count);
+    }
+}
@@ -161,6 +161,94 @@ public class PathFindingTest {
                 });
     }
 
+    @Test
+    public void testAStarKernelEngine() {
+        db.executeTransactionally(SETUP_GEO);
+        testResult(
+                db,
+                "MATCH (from:City {name:'München'}), (to:City {name:'Hamburg'}) "
+                        + "CALL apoc.algo.aStar(from, to, 'DIRECT', 'dist', 'lat', 'lon', {engine:'kernel'}) yield path, weight "
+                        + "RETURN path, weight",
+                AlgoUtil::assertAStarResult);
+        testResult(
+                db,
+                "MATCH (from:City {name:'München'}), (to:City {name:'Hamburg'}) "
+                        + "CALL apoc.algo.aStarConfig(from, to, 'DIRECT', {pointPropName:'coords', weight:'dist', default:100, engine:'kernel'}) yield path, weight "
+                        + "RETURN path, weight",
+                AlgoUtil::assertAStarResult);
+    }
+
+    @Test
+    public void testDijkstraKernelEngine() {
+        db.executeTransactionally(SETUP_SIMPLE);
+        testCall(
+                db,
+                "MATCH (from:Loc{name:'A'}), (to:Loc{name:'D'}) "
+                        + "CALL apoc.algo.dijkstra(from, to, 'ROAD>', 'd', 0.0/0.0, 1, {engine:'kernel'}) yield path, weight "
+                        + "RETURN path, weight",
+                row -> {
+                    assertEquals(50.0, row.get("weight"));
+                    assertEquals(2, ((Path) (row.get("path"))).length());
+                });
+        testResult(
+                db,
+                "MATCH (from:Loc{name:'A'}), (to:Loc{name:'D'}) "
+                        + "CALL apoc.algo.dijkstra(from, to, 'ROAD>', 'd', 99999, 3, {engine:'kernel'}) yield path, weight "
+                        + "RETURN path, weight",
+                result -> {
+                    List<Map<String, Object>> records = Iterators.asList(result);
+                    assertThat(map(records, map -> map.get("weight")), contains(50.0, 60.0, 100.0));
+                    assertThat(map(records, map -> ((Path) map.get("path")).length()), contains(2, 3, 1));
+                });
+        testResult(
+                db,
+                "MATCH (from:Loc{name:'A'}), (to:Loc{name:'D'}) "
+                        + "CALL apoc.algo.dijkstra(from, to, 'ROAD<', 'd', 0.0/0.0, 1, {engine:'kernel'}) yield path, weight "
+                        + "RETURN path, weight",
+                result -> assertEquals(false, result.hasNext()));
+    }
+
+    @Test
+    public void testDijkstraKernelEngineWithDefaultWeight() {
+        db.executeTransactionally(SETUP_MISSING_PROPERTY);
+        testCall(
+                db,
+                "MATCH (from:Loc{name:'A'}), (to:Loc{name:'D'}) "
+                        + "CALL apoc.algo.dijkstra(from, to, 'ROAD>', 'd', 10.5, 1, {engine:'kernel'}) yield path, weight "
+                        + "RETURN path, weight",
+                row -> {
+                    assertEquals(30.5, row.get("weight"));
+                    assertEquals(2, ((Path) (row.get("path"))).length());
+                });
+    }
+
+    @Test
+    public void testDijkstraMany() {
+        db.executeTransactionally(SETUP_SIMPLE);
+        testResult(
+                db,
+                "MATCH (from:Loc{name:'A'}) MATCH (to:Loc) WHERE to.name IN ['D', 'B', 'C'] "
+                        + "WITH from, collect(to) AS targets "
+                        + "CALL apoc.algo.dijkstraMany(from, targets, 'ROAD>', 'd') yield path, weight "
+                        + "RETURN last(nodes(path)).name AS name, length(path) AS length, weight",
+                result -> {
+                    List<Map<String, Object>> records = Iterators.asList(result);
+                    assertThat(map(records, map -> map.get("name")), contains("B", "C", "D"));
+                    assertThat(map(records, map -> map.get("weight")), contains(10.0, 20.0, 50.0));
+                    assertThat(map(records, map -> map.get("length")), contains(1L, 1L, 2L));
+                });
+        testResult(
+                db,
+                "MATCH (from:Loc{name:'A'}) MATCH (to:Loc) WHERE to.name IN ['D', 'B', 'C'] "
+                        + "WITH from, collect(to) AS targets "
+                        + "CALL apoc.algo.dijkstraMany(from, targets, 'ROAD>', 'd', 0.0/0.0, {maxCost: 25}) yield path, weight "
+                        + "RETURN last(nodes(path)).name AS name, weight",
+                result -> {
+                    List<Map<String, Object>> records = Iterators.asList(result);
+                    assertThat(map(records, map -> map.get("name")), contains("B", "C"));
+                });
+    }
+
     @Test
     public void testAllSimplePaths() {
         db.executeTransactionally(SETUP_MISSING_PROPERTY);
@@ -486,6 +486,73 @@ public class AtomicTest {
         assertEquals(100L, salary);
     }
 
+    @Test
+    public void testConcurrentAddSharded() throws Exception {
+        db.executeTransactionally("CREATE (p:Page {url:'/home', views: 100})");
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+
+        for (int i = 0; i < 200; i++) {
+            executorService.execute(
+                    () -> db.executeTransactionally(
+                            "MATCH (p:Page {url:'/home'}) CALL apoc.atomic.addSharded(p,'views',1,{shards:4}) YIELD shard RETURN shard"));
+        }
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(30, TimeUnit.SECONDS));
+
+        // increments only touch the shards, the read function sums them with the node's own value
+        testCall(
+                db,
+                "MATCH (p:Page {url:'/home'}) RETURN p.views AS base, apoc.atomic.shardedValue(p,'views') AS views",
+                (r) -> {
+                    assertEquals(100L, r.get("base"));
+                    assertEquals(300L, r.get("views"));
+                });
+        long shards = TestUtil.singleResultFirstColumn(
+                db, "MATCH (:AtomicShard {property:'views'})-[:SHARD_OF]->(:Page) RETURN count(*) AS shards");
+        assertTrue(shards >= 1 && shards <= 4);
+
+        testCall(
+                db,
+                "MATCH (p:Page {url:'/home'}) CALL apoc.atomic.compactSharded(p,'views') YIELD oldValue, newValue RETURN *",
+                (r) -> {
+                    assertEquals(100L, r.get("oldValue"));
+                    assertEquals(300L, r.get("newValue"));
+                });
+        testCall(
+                db,
+                "MATCH (p:Page {url:'/home'}) RETURN p.views AS base, apoc.atomic.shardedValue(p,'views') AS views",
+                (r) -> {
+                    assertEquals(300L, r.get("base"));
+                    assertEquals(300L, r.get("views"));
+                });
+    }
+
+    @Test
+    public void testAddShardedByKey() {
+        db.executeTransactionally("CREATE (p:Page {url:'/home'})");
+
+        String query =
+                "MATCH (p:Page {url:'/home'}) CALL apoc.atomic.addSharded(p,'views',$value,{shards:16,key:'session-1'}) YIELD shard, oldValue, newValue RETURN *";
+        long[] shard = new long[1];
+        testCall(db, query, map("value", 2), (r) -> {
+            shard[0] = (long) r.get("shard");
+            assertEquals(0L, r.get("oldValue"));
+            assertEquals(2L, r.get("newValue"));
+        });
+        testCall(db, query, map("value", 3.5), (r) -> {
+            assertEquals(shard[0], r.get("shard"));
+            assertEquals(2L, r.get("oldValue"));
+            assertEquals(5L, r.get("newValue"));
+        });
+        testCall(
+                db,
+                "MATCH (p:Page {url:'/home'}) RETURN apoc.atomic.shardedValue(p,'views') AS views, apoc.atomic.shardedValue(p,'other') AS other",
+                (r) -> {
+                    assertEquals(5L, r.get("views"));
+                    assertNull(r.get("other"));
+                });
+    }
+
     @Test
     public void testPropertyNamesWithSpecialCharacters() {
         db.executeTransactionally("" + "CREATE (p:Person { "
@@ -217,6 +217,48 @@ public class CollTest {
                 (row) -> assertEquals(asList(1L, 2L, 3L), row.get("value")));
     }
 
+    @Test
+    public void testNumericFunctionsOnLargeAndMixedLists() throws Exception {
+        Random random = new Random(42);
+        List<Long> longs = new ArrayList<>();
+        List<Double> doubles = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            longs.add(random.nextLong());
+            doubles.add(random.nextGaussian());
+        }
+        doubles.add(-0.0);
+        doubles.add(0.0);
+        List<Long> sortedLongs = new ArrayList<>(longs);
+        Collections.sort(sortedLongs);
+        List<Double> sortedDoubles = new ArrayList<>(doubles);
+        Collections.sort(sortedDoubles);
+
+        testCall(
+                db,
+                "RETURN apoc.coll.sort($longs) AS longs, apoc.coll.sort($doubles) AS doubles, "
+                        + "apoc.coll.min($longs) AS minLong, apoc.coll.max($doubles) AS maxDouble",
+                map("longs", longs, "doubles", doubles),
+                (row) -> {
+                    assertEquals(sortedLongs, row.get("longs"));
+                    assertEquals(sortedDoubles, row.get("doubles"));
+                    assertEquals(Collections.min(longs), row.get("minLong"));
+                    assertEquals(Collections.max(doubles), row.get("maxDouble"));
+                });
+
+        // lists that are not purely integers or floats keep the Cypher comparison
+        testCall(db, "RETURN apoc.coll.min([2, 1.5, 3]) AS value", (row) -> assertEquals(1.5D, row.get("value")));
+        testCall(db, "RETURN apoc.coll.max([null, 1, 3, 2]) AS value", (row) -> assertEquals(3L, row.get("value")));
+        testCall(db, "RETURN apoc.coll.min(['b', 'a', 'c']) AS value", (row) -> assertEquals("a", row.get("value")));
+        testCall(
+                db,
+                "RETURN apoc.coll.sort(['b', 'a']) AS value",
+                (row) -> assertEquals(asList("a", "b"), row.get("value")));
+        testCall(
+                db,
+                "RETURN apoc.coll.runningTotal([1, 2.5, 0.5]) AS value",
+                (row) -> assertEquals(asList(1L, 3.5D, 4L), row.get("value")));
+    }
+
     @Test
     public void testIN() throws Exception {
         testCall(db, "RETURN apoc.coll.contains([1,2,3],1) AS value", (res) -> assertEquals(true, res.get("value")));
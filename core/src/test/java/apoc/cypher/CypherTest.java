@@ -39,6 +39,7 @@ import apoc.util.TestUtil;
 import apoc.util.Util;
 import apoc.util.Utils;
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -52,6 +53,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.QueryExecutionException;
 import org.neo4j.graphdb.Result;
@@ -267,6 +269,74 @@ public class CypherTest {
         assertEquals(1, count);
     }
 
+    @Test
+    public void testRunManyFastMode() {
+        String cypher = "// nodes\nCREATE (n:Node {name:'create index on'});\n"
+                + "CREATE INDEX FOR (n:Node) ON (n.name);\n"
+                + "CREATE (n:Node {name:$name});\n"
+                + "MATCH (n:Node {name:$name}) CREATE (n)-[:X]->(n);\n";
+        testResult(
+                db,
+                "CALL apoc.cypher.runMany($cypher, {name: 'John'}, {fastMode: true, batchSize: 2})",
+                map("cypher", cypher),
+                r -> {
+                    Map<String, Object> row = r.next();
+                    assertEquals(1L, toLong(((Map) row.get("result")).get("nodesCreated")));
+                    row = r.next();
+                    assertEquals(1L, toLong(((Map) row.get("result")).get("nodesCreated")));
+                    row = r.next();
+                    assertEquals(1L, toLong(((Map) row.get("result")).get("relationshipsCreated")));
+                    assertFalse(r.hasNext());
+                });
+        testCall(db, "MATCH (n:Node) RETURN count(n) AS count", row -> assertEquals(2L, row.get("count")));
+        try (Transaction tx = db.beginTx()) {
+            assertFalse(tx.schema().getIndexes(Label.label("Node")).iterator().hasNext());
+        }
+    }
+
+    @Test
+    public void testStatementBatcherEmitsRowsOfReplayedStatementsOnlyAfterCommit() {
+        List<Object> rows = new ArrayList<>();
+        List<Exception> errors = new ArrayList<>();
+        try (StatementBatcher<Object> batcher = new StatementBatcher<>(
+                db,
+                emptyMap(),
+                2,
+                (result, sink) -> result.forEachRemaining(row -> sink.accept(row.get("x"))),
+                rows::add,
+                errors::add)) {
+            batcher.add("RETURN 1 AS x");
+            // returns a row before it fails, so the batch fails and both statements are replayed one by one
+            batcher.add("UNWIND [1, 0] AS y RETURN 2 / y AS x");
+        }
+        assertEquals(List.of(1L), rows);
+        assertEquals(1, errors.size());
+        assertThat(errors.get(0).getMessage(), Matchers.containsString("/ by zero"));
+    }
+
+    @Test
+    public void testStatementBatcherClassifiesLexically() {
+        assertTrue(StatementBatcher.isSchemaStatement("// schema\n create  TEXT index foo FOR (n:Node) ON (n.name)"));
+        assertTrue(StatementBatcher.isSchemaStatement("DROP CONSTRAINT foo"));
+        assertTrue(StatementBatcher.isSchemaStatement(
+                "CALL db.createIndex('foo', ['Node'], ['name'], 'native-btree-1.0')"));
+        assertFalse(StatementBatcher.isSchemaStatement("CREATE (n:Node {text: 'create index'})"));
+        assertFalse(StatementBatcher.isSchemaStatement("CREATE (n:Index)"));
+
+        assertTrue(StatementBatcher.isPeriodicStatement(
+                "/* load */ USING PERIODIC COMMIT 10 LOAD CSV FROM 'x' AS r RETURN r"));
+        assertTrue(StatementBatcher.isPeriodicStatement(
+                "UNWIND range(1,10) AS i CALL { WITH i CREATE (:Node {id: i}) }\n IN TRANSACTIONS OF 5 ROWS"));
+        assertFalse(StatementBatcher.isPeriodicStatement("CREATE (:Node {text: '} in transactions'})"));
+        assertFalse(StatementBatcher.isPeriodicStatement("MATCH (n) CALL { WITH n RETURN n.id AS id } RETURN id"));
+        assertTrue(StatementBatcher.isPeriodicStatement(
+                "CALL apoc.periodic.iterate('MATCH (n) RETURN n', 'SET n.done = true', {batchSize: 10})"));
+        assertTrue(StatementBatcher.isPeriodicStatement("MATCH (n) WITH collect(n) AS nodes\n"
+                + "call  apoc.export.csv.data(nodes, [], 'nodes.csv', {}) YIELD file RETURN file"));
+        assertFalse(StatementBatcher.isPeriodicStatement("CALL apoc.create.node(['Periodic'], {})"));
+        assertFalse(StatementBatcher.isPeriodicStatement("CREATE (:Node {text: 'CALL apoc.periodic.commit'})"));
+    }
+
     @Test
     public void testRunManyReadOnlyShouldFail() {
         final Map<String, Object> map = map("name", "John", "name2", "Doe");
@@ -361,6 +361,29 @@ public class SchemaIndexTest {
         });
     }
 
+    @Test
+    public void testDistinctCountOnPartitionedIndex() {
+        // large enough to be split into partitions, with runs of equal values crossing the partition boundaries
+        db.executeTransactionally("CREATE INDEX FOR (n:Partitioned) ON (n.bucket)");
+        db.executeTransactionally(
+                "UNWIND range(1, 250000) AS id CREATE (:Partitioned {bucket: id % 7}) ", Collections.emptyMap());
+        db.executeTransactionally("CALL db.awaitIndexes()");
+        try {
+            testResult(db, SCHEMA_DISTINCT_COUNT_ORDERED, map("label", "Partitioned", "key", "bucket"), result -> {
+                for (long bucket = 0; bucket < 7; bucket++) {
+                    long expected = 250000 / 7 + (bucket >= 1 && bucket <= 250000 % 7 ? 1 : 0);
+                    assertEquals(
+                            map("label", "Partitioned", "key", "bucket", "value", bucket, "count", expected),
+                            result.next());
+                }
+                assertFalse(result.hasNext());
+            });
+        } finally {
+            db.executeTransactionally("DROP INDEX ON :Partitioned(bucket)");
+            db.executeTransactionally("MATCH (n:Partitioned) CALL { WITH n DELETE n } IN TRANSACTIONS");
+        }
+    }
+
     private <T> void assertDistinctCountProperties(
             String label, String key, Collection<T> values, Long counts, Result result) {
 
@@ -19,12 +19,20 @@
 package apoc.lock;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import apoc.util.TestUtil;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.ClassRule;
@@ -87,4 +95,53 @@ public class LockTest {
             tx.commit();
         }
     }
+
+    @Test
+    public void shouldLockOverlappingSetsInTheSameOrder() throws Exception {
+        long[] ids = new long[2];
+        try (Transaction tx = db.beginTx()) {
+            ids[0] = tx.createNode().getId();
+            ids[1] = tx.createNode().getId();
+            tx.commit();
+        }
+
+        // the two threads pass the nodes in opposite orders, with duplicates
+        List<Future<?>> futures = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        for (int t = 0; t < 2; t++) {
+            final List<Long> order = t == 0 ? List.of(ids[0], ids[1], ids[0]) : List.of(ids[1], ids[0], ids[1]);
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 50; i++) {
+                    db.executeTransactionally(
+                            "UNWIND $ids AS id MATCH (n) WHERE id(n) = id WITH collect(n) AS nodes "
+                                    + "CALL apoc.lock.nodes(nodes) "
+                                    + "UNWIND nodes AS n SET n.count = coalesce(n.count, 0) + 1",
+                            Map.of("ids", order));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        try (Transaction tx = db.beginTx()) {
+            // every transaction counts the nodes it passes, duplicates included
+            assertEquals(150L, tx.getNodeById(ids[0]).getProperty("count"));
+            assertEquals(150L, tx.getNodeById(ids[1]).getProperty("count"));
+            tx.getNodeById(ids[0]).delete();
+            tx.getNodeById(ids[1]).delete();
+            tx.commit();
+        }
+
+        TestUtil.testCall(
+                db,
+                "CALL apoc.lock.stats() YIELD procedure, calls, locks, deadlocks "
+                        + "WHERE procedure = 'apoc.lock.nodes' RETURN calls, locks, deadlocks",
+                (r) -> {
+                    assertTrue((long) r.get("calls") >= 100);
+                    assertTrue((long) r.get("locks") >= 200);
+                    assertEquals(0L, r.get("deadlocks"));
+                });
+    }
 }
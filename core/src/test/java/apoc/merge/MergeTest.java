@@ -25,6 +25,7 @@ import static org.junit.Assert.*;
 import apoc.util.MapUtil;
 import apoc.util.TestUtil;
 import java.util.Map;
+import java.util.Objects;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
@@ -528,4 +529,131 @@ public class MergeTest {
             }
         }
     }
+
+    @Test
+    public void testMergeNodesBatchWithConstraint() {
+        db.executeTransactionally("CREATE CONSTRAINT FOR (p:Person) REQUIRE p.id IS UNIQUE");
+        db.executeTransactionally("CREATE (:Person:Customer {id: 1, name: 'Existing'})");
+        db.executeTransactionally("CALL db.awaitIndexes()");
+
+        String query = "UNWIND range(1, 3) AS id "
+                + "WITH collect({labels: ['Person', CASE id % 2 WHEN 0 THEN 'Even' ELSE 'Customer' END], identProps: {id: id}, "
+                + "onCreateProps: {created: true}, onMatchProps: {matched: id}}) AS rows "
+                + "CALL apoc.merge.nodes(rows + rows[2]) YIELD node "
+                + "RETURN node.id AS id, node.created AS created, node.matched AS matched";
+        testResult(db, query, result -> {
+            assertEquals(Map.of("id", 1L, "matched", 1L), withoutNulls(result.next()));
+            assertEquals(Map.of("id", 2L, "created", true), withoutNulls(result.next()));
+            // the repeated row matches the node created earlier in the same batch
+            assertEquals(Map.of("id", 3L, "created", true, "matched", 3L), withoutNulls(result.next()));
+            assertEquals(Map.of("id", 3L, "created", true, "matched", 3L), withoutNulls(result.next()));
+            assertFalse(result.hasNext());
+        });
+        testCall(
+                db,
+                "MATCH (p:Person) RETURN count(p) AS count, sum(CASE WHEN p:Even THEN 1 ELSE 0 END) AS even",
+                row -> {
+                    assertEquals(3L, row.get("count"));
+                    assertEquals(1L, row.get("even"));
+                });
+    }
+
+    private static Map<String, Object> withoutNulls(Map<String, Object> row) {
+        row.values().removeIf(Objects::isNull);
+        return row;
+    }
+
+    @Test
+    public void testMergeNodesBatchWithIndexAndWithout() {
+        db.executeTransactionally("CREATE INDEX FOR (p:Person) ON (p.name)");
+        db.executeTransactionally("CALL db.awaitIndexes()");
+        db.executeTransactionally("CREATE (:Person {name: 'John', city: 'London', tags: ['a', 'b']})");
+
+        String query = "CALL apoc.merge.nodes(["
+                + "{labels: ['Person'], identProps: {name: 'John', city: 'Paris'}},"
+                + "{labels: ['Person'], identProps: {name: 'John', city: 'London', tags: ['a', 'b']}, onMatchProps: {tags: null}},"
+                + "{labels: ['Place'], identProps: {name: 'London'}, onCreateProps: {tags: ['x']}},"
+                + "{labels: ['Place'], identProps: {name: 'London'}, onMatchProps: {visited: true}},"
+                + "{identProps: {name: 'Unlabelled'}}"
+                + "]) YIELD node RETURN count(*) AS count";
+        testCall(db, query, row -> assertEquals(5L, row.get("count")));
+        testResult(
+                db, "MATCH (p:Person {name: 'John'}) RETURN p.city AS city, p.tags AS tags ORDER BY city", result -> {
+                    Map<String, Object> london = result.next();
+                    assertEquals("London", london.get("city"));
+                    assertNull(london.get("tags"));
+                    assertEquals("Paris", result.next().get("city"));
+                });
+        testCall(db, "MATCH (p:Place) RETURN count(p) AS count, p.tags AS tags, p.visited AS visited", row -> {
+            assertEquals(1L, row.get("count"));
+            assertArrayEquals(new String[] {"x"}, (String[]) row.get("tags"));
+            assertEquals(true, row.get("visited"));
+        });
+        testCall(
+                db,
+                "MATCH (n {name: 'Unlabelled'}) RETURN count(n) AS count",
+                row -> assertEquals(1L, row.get("count")));
+
+        try {
+            testCall(db, "CALL apoc.merge.nodes([{labels: ['Person'], identProps: {name: null}}])", row -> {});
+            fail();
+        } catch (QueryExecutionException e) {
+            assertTrue(e.getMessage().contains("null property value for 'name'"));
+        }
+    }
+
+    @Test
+    public void testMergeNodesBatchWithMixedNumberLists() {
+        db.executeTransactionally("CREATE INDEX FOR (s:Score) ON (s.name)");
+        db.executeTransactionally("CALL db.awaitIndexes()");
+        db.executeTransactionally("CALL apoc.merge.node(['Score'], {name: 'single'}, {values: [1, 2.5]})");
+        testCall(
+                db,
+                "CALL apoc.merge.nodes([{labels: ['Score'], identProps: {name: 'batch', values: [1, 2.5]}, onCreateProps: {ids: [1, 2]}}])",
+                row -> {});
+        testResult(
+                db, "MATCH (s:Score) RETURN s.name AS name, s.values AS values, s.ids AS ids ORDER BY name", result -> {
+                    Map<String, Object> batch = result.next();
+                    Map<String, Object> single = result.next();
+                    assertArrayEquals((double[]) single.get("values"), (double[]) batch.get("values"), 0);
+                    assertArrayEquals(new double[] {1, 2.5}, (double[]) batch.get("values"), 0);
+                    assertArrayEquals(new long[] {1, 2}, (long[]) batch.get("ids"));
+                });
+
+        try {
+            testCall(
+                    db,
+                    "CALL apoc.merge.nodes([{labels: ['Score'], identProps: {name: 'mixed'}, onCreateProps: {tags: [1, 'a']}}])",
+                    row -> {});
+            fail();
+        } catch (QueryExecutionException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("property 'tags'"));
+        }
+    }
+
+    @Test
+    public void testMergeRelationshipsBatch() {
+        db.executeTransactionally(
+                "CREATE (:Person {name: 'Foo'})-[:KNOWS {rid: 1, since: 2000}]->(:Person {name: 'Bar'})");
+        String query = "MATCH (s:Person {name: 'Foo'}), (e:Person {name: 'Bar'}) "
+                + "CALL apoc.merge.relationships(["
+                + "{startNode: s, relationshipType: 'KNOWS', identProps: {rid: 1}, endNode: e, onMatchProps: {since: 2010}},"
+                + "{startNode: s, relationshipType: 'KNOWS', identProps: {rid: 2}, onCreateProps: {since: 2020}, endNode: e},"
+                + "{startNode: s, relationshipType: 'KNOWS', identProps: {rid: 2}, endNode: e},"
+                + "{startNode: e, relationshipType: 'KNOWS', identProps: {rid: 1}, endNode: s},"
+                + "{startNode: s, relationshipType: 'LIKES', endNode: s}"
+                + "]) YIELD rel "
+                + "RETURN startNode(rel).name AS start, type(rel) AS type, rel.rid AS rid, rel.since AS since";
+        testResult(db, query, result -> {
+            assertEquals(Map.of("start", "Foo", "type", "KNOWS", "rid", 1L, "since", 2010L), result.next());
+            assertEquals(Map.of("start", "Foo", "type", "KNOWS", "rid", 2L, "since", 2020L), result.next());
+            assertEquals(Map.of("start", "Foo", "type", "KNOWS", "rid", 2L, "since", 2020L), result.next());
+            Map<String, Object> reverse = result.next();
+            assertEquals("Bar", reverse.get("start"));
+            assertEquals(1L, reverse.get("rid"));
+            assertEquals("LIKES", result.next().get("type"));
+            assertFalse(result.hasNext());
+        });
+        testCall(db, "MATCH ()-[r]->() RETURN count(r) AS count", row -> assertEquals(4L, row.get("count")));
+    }
 }
@@ -19,16 +19,21 @@
 package apoc.neighbors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
 
 import apoc.util.TestUtil;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.QueryExecutionException;
+import org.neo4j.internal.helpers.collection.Iterators;
 import org.neo4j.test.rule.DbmsRule;
 import org.neo4j.test.rule.ImpermanentDbmsRule;
 
@@ -211,4 +216,106 @@ public class NeighborsTest {
                         + "RETURN number",
                 (row) -> assertEquals(1L, row.get("number")));
     }
+
+    @Test
+    public void getNeighborsCountWithLargeFrontier() {
+        db.executeTransactionally("CREATE (:Hub)");
+        db.executeTransactionally("UNWIND range(0, 99) AS id CREATE (:Leaf {id: id})");
+        db.executeTransactionally("MATCH (h:Hub) UNWIND range(1, 60000) AS id CREATE (h)-[:LINK]->(m:Middle {id: id})");
+        db.executeTransactionally("MATCH (m:Middle), (l:Leaf {id: m.id % 100}) CREATE (m)-[:LINK]->(l)");
+
+        TestUtil.testCall(
+                db,
+                "MATCH (n:Hub) CALL apoc.neighbors.tohop.count(n,'LINK>', 2) YIELD value RETURN value",
+                (row) -> assertEquals(60100L, row.get("value")));
+        TestUtil.testCall(
+                db,
+                "MATCH (n:Hub) CALL apoc.neighbors.byhop.count(n,'LINK>', 3) YIELD value RETURN value",
+                (row) -> assertEquals(Arrays.asList(60000L, 100L, 0L), row.get("value")));
+        TestUtil.testCall(
+                db,
+                "MATCH (n:Hub) CALL apoc.neighbors.tohop.count(n,'LINK', 3) YIELD value RETURN value",
+                (row) -> assertEquals(60100L, row.get("value")));
+    }
+
+    @Test
+    public void getNeighborsCountSeesTransactionState() {
+        TestUtil.testCall(
+                db,
+                "MATCH (n:First) CREATE (n)-[:KNOWS]->(:Neighbor {name: 'e'}) WITH n "
+                        + "CALL apoc.neighbors.tohop.count(n,'KNOWS>', 2) YIELD value RETURN value",
+                (row) -> assertEquals(3L, row.get("value")));
+    }
+
+    @Test
+    public void getNeighborsWithUnknownType() {
+        TestUtil.testCall(
+                db,
+                "MATCH (n:First) CALL apoc.neighbors.tohop.count(n,'UNKNOWN>|KNOWS>', 2) YIELD value RETURN value",
+                (row) -> assertEquals(2L, row.get("value")));
+    }
+
+    @Test
+    public void getNeighborsCountsForManyNodes() {
+        TestUtil.testResult(
+                db,
+                "MATCH (n) WITH n ORDER BY n.name WITH collect(n) AS nodes "
+                        + "CALL apoc.neighbors.tohop.counts(nodes, 'KNOWS>', 2, {batchSize: 1}) YIELD node, value "
+                        + "RETURN node.name AS name, value",
+                (result) -> {
+                    List<Map<String, Object>> rows = Iterators.asList(result);
+                    assertEquals(4, rows.size());
+                    assertEquals(Map.of("name", "b", "value", 3L), rows.get(0));
+                    assertEquals(Map.of("name", "c", "value", 1L), rows.get(1));
+                    assertEquals(Map.of("name", "d", "value", 0L), rows.get(2));
+                    assertEquals(2L, rows.get(3).get("value"));
+                });
+    }
+
+    @Test
+    public void getNeighborsByHopCountsForManyNodes() {
+        TestUtil.testResult(
+                db,
+                "MATCH (n) WITH n ORDER BY n.name WITH collect(n) AS nodes "
+                        + "CALL apoc.neighbors.byhop.counts(nodes, 'KNOWS>', 2, {batchSize: 2}) YIELD node, value "
+                        + "RETURN node.name AS name, value",
+                (result) -> {
+                    List<Map<String, Object>> rows = Iterators.asList(result);
+                    assertEquals(4, rows.size());
+                    assertEquals(Arrays.asList(2L, 1L), rows.get(0).get("value"));
+                    assertEquals(Arrays.asList(1L, 0L), rows.get(1).get("value"));
+                    assertEquals(Arrays.asList(0L, 0L), rows.get(2).get("value"));
+                    assertEquals(Arrays.asList(1L, 1L), rows.get(3).get("value"));
+                });
+    }
+
+    @Test
+    public void getNeighborsCountsMatchesSingleNodeCount() {
+        TestUtil.testCall(
+                db,
+                "MATCH (n) WITH collect(n) AS nodes "
+                        + "CALL apoc.neighbors.tohop.counts(nodes, 'KNOWS', 3) YIELD node, value "
+                        + "CALL apoc.neighbors.tohop.count(node, 'KNOWS', 3) YIELD value AS single "
+                        + "RETURN collect(value) = collect(single) AS same",
+                (row) -> assertEquals(true, row.get("same")));
+    }
+
+    @Test
+    public void rejectBatchSizeBelowOne() {
+        for (String procedure : List.of("apoc.neighbors.tohop.counts", "apoc.neighbors.byhop.counts")) {
+            for (int batchSize : new int[] {0, -1}) {
+                QueryExecutionException error = assertThrows(
+                        QueryExecutionException.class,
+                        () -> TestUtil.testResult(
+                                db,
+                                "MATCH (n) WITH collect(n) AS nodes CALL " + procedure
+                                        + "(nodes, 'KNOWS>', 2, {batchSize: $batchSize}) YIELD node RETURN node",
+                                Map.of("batchSize", batchSize),
+                                Iterators::count));
+                assertTrue(
+                        error.getMessage(),
+                        error.getMessage().contains("The batchSize must be at least 1 but was " + batchSize));
+            }
+        }
+    }
 }
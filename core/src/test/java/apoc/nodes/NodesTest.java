@@ -579,6 +579,41 @@ public class NodesTest {
         // todo inverse e,s then also incoming
     }
 
+    @Test
+    public void testConnectedPairs() {
+        db.executeTransactionally("CREATE (st:StartThin),(et:EndThin),(ed:EndDense),(o:Other)");
+        int relCount = 20;
+        for (int rel = 0; rel < relCount; rel++) {
+            db.executeTransactionally(
+                    "MATCH (st:StartThin),(et:EndThin),(ed:EndDense) " + " CREATE (st)-[:REL"
+                            + rel + "]->(et) " + " WITH * UNWIND RANGE(1,$count) AS id CREATE (st)-[:REL"
+                            + rel + "]->(ed)",
+                    map("count", relCount - rel));
+        }
+        db.executeTransactionally("MATCH (ed:EndDense),(o:Other) CREATE (o)-[:REL3]->(ed)");
+
+        TestUtil.testCall(
+                db,
+                "MATCH (s:StartThin),(et:EndThin),(ed:EndDense),(o:Other) "
+                        + "RETURN apoc.nodes.connectedPairs([[s,et],[s,ed],[et,s],[ed,s],[o,ed],[ed,o],[o,s],[s,s],[s,null]]) as value",
+                (r) -> assertEquals(asList(true, true, true, true, true, true, false, true, false), r.get("value")));
+        TestUtil.testCall(
+                db,
+                "MATCH (s:StartThin),(et:EndThin),(ed:EndDense),(o:Other) "
+                        + "RETURN apoc.nodes.connectedPairs([[s,et],[et,s],[s,ed],[ed,s],[o,ed],[ed,o]], 'REL10>') as value",
+                (r) -> assertEquals(asList(true, false, true, false, false, false), r.get("value")));
+        TestUtil.testCall(
+                db,
+                "MATCH (s:StartThin),(et:EndThin),(ed:EndDense),(o:Other) "
+                        + "RETURN apoc.nodes.connectedPairs([[s,et],[s,ed],[o,ed],[ed,o]], '<REL3|REL20') as value",
+                (r) -> assertEquals(asList(false, false, false, true), r.get("value")));
+        TestUtil.testCall(
+                db,
+                "MATCH (s:StartThin),(ed:EndDense) "
+                        + "RETURN [p IN [[s,ed],[ed,s]] | apoc.nodes.connected(p[0], p[1], 'REL19')] = apoc.nodes.connectedPairs([[s,ed],[ed,s]], 'REL19') as value",
+                (r) -> assertEquals(true, r.get("value")));
+    }
+
     @Test
     public void testDegreeTypeAndDirection() {
         db.executeTransactionally(
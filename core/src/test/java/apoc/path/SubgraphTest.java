@@ -27,8 +27,11 @@ import apoc.result.NodeResult;
 import apoc.result.RelationshipResult;
 import apoc.util.TestUtil;
 import apoc.util.Util;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 import org.apache.commons.lang3.StringUtils;
 import org.hamcrest.Description;
 import org.hamcrest.TypeSafeMatcher;
@@ -38,9 +41,15 @@ import org.junit.ClassRule;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.QueryExecutionException;
 import org.neo4j.graphdb.Result;
 import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.traversal.Traverser;
+import org.neo4j.graphdb.traversal.Uniqueness;
+import org.neo4j.internal.helpers.collection.Iterables;
+import org.neo4j.internal.helpers.collection.Iterators;
 import org.neo4j.test.rule.DbmsRule;
 import org.neo4j.test.rule.ImpermanentDbmsRule;
 
@@ -343,6 +352,72 @@ public class SubgraphTest {
                 "MATCH (m:Movie {title: 'The Matrix'}) CALL apoc.path.spanningTree(m,{minLevel:2}) yield path return count(distinct path) as cnt");
     }
 
+    @Test
+    public void testSpanningTreeMatchesTraversalFramework() throws Throwable {
+        List<Map<String, Object>> configs = List.of(
+                Util.map("maxLevel", 3L),
+                Util.map("labelFilter", "+Person|Movie", "maxLevel", 4L),
+                Util.map("labelFilter", ">Movie", "maxLevel", 3L),
+                Util.map("labelFilter", "/Movie|-BigBrother"),
+                Util.map("relationshipFilter", "ACTED_IN>|<FOLLOWS", "labelFilter", "-BigBrother"),
+                Util.map("labelFilter", "Person,Movie", "minLevel", 1L, "filterStartNode", true));
+        for (Map<String, Object> config : configs) {
+            List<List<Object>> expected;
+            try (Transaction tx = db.beginTx()) {
+                Node keanu = tx.findNode(Label.label("Person"), "name", "Keanu Reeves");
+                Traverser traverser = PathExplorer.traverse(
+                        tx.traversalDescription(),
+                        List.of(keanu),
+                        (String) config.get("relationshipFilter"),
+                        (String) config.get("labelFilter"),
+                        (long) config.getOrDefault("minLevel", -1L),
+                        (long) config.getOrDefault("maxLevel", -1L),
+                        Uniqueness.NODE_GLOBAL,
+                        true,
+                        (boolean) config.getOrDefault("filterStartNode", false),
+                        null,
+                        null,
+                        true);
+                expected = Iterables.stream(traverser)
+                        .map(path -> List.<Object>of(path.endNode().getId(), (long) path.length()))
+                        .collect(Collectors.toList());
+            }
+            TestUtil.testResult(
+                    db,
+                    "MATCH (k:Person {name: 'Keanu Reeves'}) CALL apoc.path.spanningTree(k, $config) yield path "
+                            + "RETURN [id(last(nodes(path))), length(path)] AS row",
+                    Util.map("config", config),
+                    result -> assertEquals(String.valueOf(config), expected, Iterators.asList(result.columnAs("row"))));
+        }
+    }
+
+    @Test
+    public void testParallelSubgraphNodesFromManySeeds() throws Throwable {
+        List<Map<String, Object>> configs = List.of(
+                Util.map("maxLevel", 2L),
+                Util.map("labelFilter", "+Person|Movie|-BigBrother"),
+                Util.map("labelFilter", ">Movie", "maxLevel", 3L),
+                Util.map("relationshipFilter", "ACTED_IN>|DIRECTED>", "minLevel", 1L));
+        String query = "MATCH (p:Person) WHERE p.name STARTS WITH 'K' WITH collect(p) AS seeds "
+                + "CALL apoc.path.subgraphNodes(seeds, $config) yield node RETURN collect(id(node)) AS ids";
+        for (Map<String, Object> config : configs) {
+            List<Long> expected = TestUtil.singleResultFirstColumn(db, query, Util.map("config", config));
+            Map<String, Object> parallelConfig = new HashMap<>(config);
+            parallelConfig.put("parallel", true);
+            parallelConfig.put("batchSize", 2L);
+            List<Long> actual = TestUtil.singleResultFirstColumn(db, query, Util.map("config", parallelConfig));
+            assertEquals(String.valueOf(config), new HashSet<>(expected), new HashSet<>(actual));
+            assertEquals(String.valueOf(config), expected.size(), actual.size());
+        }
+
+        TestUtil.testCall(
+                db,
+                "MATCH (p:Person) WITH collect(p) AS seeds "
+                        + "CALL apoc.path.subgraphAll(seeds, {parallel: true, batchSize: 5, maxLevel: 1, limit: 25}) yield nodes "
+                        + "RETURN size(nodes) AS count",
+                row -> assertEquals(25L, row.get("count")));
+    }
+
     public class RootCauseMatcher<T> extends TypeSafeMatcher<Throwable> {
         private final Class<T> rootCause;
         private final String message;
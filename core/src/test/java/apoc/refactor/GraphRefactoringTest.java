@@ -1260,6 +1260,34 @@ public class GraphRefactoringTest {
         db.executeTransactionally("DROP CONSTRAINT ON (n:`" + label + "`) ASSERT n.`" + targetKey + "` IS UNIQUE");
     }
 
+    @Test
+    public void testRefactorCategorizeManyBatches() {
+        final String label = "Bucket";
+        final String targetKey = "name";
+        db.executeTransactionally("CREATE CONSTRAINT ON (n:`" + label + "`) ASSERT n.`" + targetKey + "` IS UNIQUE");
+        db.executeTransactionally("UNWIND range(1, 1000) AS id CREATE (:Item {id: id, bucket: 'b' + (id % 5)})");
+
+        db.executeTransactionally(
+                "CALL apoc.refactor.categorize('bucket', 'IN_BUCKET', true, $label, $targetKey, [], 7)",
+                map("label", label, "targetKey", targetKey));
+
+        final long buckets = TestUtil.singleResultFirstColumn(db, "MATCH (b:Bucket) RETURN count(b) AS buckets");
+        assertEquals(5, buckets);
+        final long relsCount = TestUtil.singleResultFirstColumn(
+                db, "MATCH (:Item)-[r:IN_BUCKET]->(:Bucket) RETURN count(r) AS relsCount");
+        assertEquals(1000, relsCount);
+        final long remaining = TestUtil.singleResultFirstColumn(
+                db, "MATCH (i:Item) WHERE i.bucket IS NOT NULL RETURN count(i) AS remaining");
+        assertEquals(0, remaining);
+
+        // a property no node carries is a no-op
+        db.executeTransactionally(
+                "CALL apoc.refactor.categorize('missingKey', 'IN_BUCKET', true, $label, $targetKey, [], 7)",
+                map("label", label, "targetKey", targetKey));
+        db.executeTransactionally("MATCH (n) WHERE n:Item OR n:Bucket DETACH DELETE n");
+        db.executeTransactionally("DROP CONSTRAINT ON (n:`" + label + "`) ASSERT n.`" + targetKey + "` IS UNIQUE");
+    }
+
     @Test
     public void testRefactorCategoryDoesntAllowCypherInjection() {
         // given
@@ -21,8 +21,13 @@ package apoc.result;
 import static org.junit.Assert.*;
 
 import apoc.util.Util;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 import org.junit.AfterClass;
 import org.junit.ClassRule;
 import org.junit.Test;
@@ -129,4 +134,101 @@ public class VirtualNodeTest {
         assertEquals(1, Iterables.count(end.getRelationships(Direction.INCOMING, relationshipType)));
         assertEquals(start, end.getRelationships().iterator().next().getOtherNode(end));
     }
+
+    @Test
+    public void shouldIndexRelationshipsByTypeAndDirection() {
+        Label[] labels = {Label.label("Test")};
+        VirtualNode node = new VirtualNode(labels, Map.of());
+        VirtualNode other = new VirtualNode(labels, Map.of());
+        RelationshipType knows = RelationshipType.withName("KNOWS");
+        RelationshipType likes = RelationshipType.withName("LIKES");
+        node.createRelationshipTo(other, knows);
+        node.createRelationshipTo(other, knows);
+        Relationship incoming = node.createRelationshipFrom(other, knows);
+        Relationship loop = node.createRelationshipTo(node, likes);
+        other.createRelationshipTo(node, likes);
+
+        assertEquals(5, node.getDegree());
+        assertEquals(3, node.getDegree(Direction.OUTGOING));
+        assertEquals(3, node.getDegree(Direction.INCOMING));
+        assertEquals(2, node.getDegree(knows, Direction.OUTGOING));
+        assertEquals(1, node.getDegree(knows, Direction.INCOMING));
+        assertEquals(3, node.getDegree(knows));
+        assertEquals(1, node.getDegree(likes, Direction.OUTGOING));
+        assertEquals(2, node.getDegree(likes, Direction.INCOMING));
+        assertEquals(5, Iterables.count(node.getRelationships(knows, likes, knows)));
+        assertEquals(List.of(loop), Iterables.asList(node.getRelationships(Direction.OUTGOING, likes)));
+        assertEquals(List.of("KNOWS", "LIKES"), relationshipTypes(node));
+        assertEquals(4, other.getDegree());
+        assertFalse(other.hasRelationship(Direction.INCOMING, likes));
+
+        incoming.delete();
+        loop.delete();
+        assertEquals(3, node.getDegree());
+        assertEquals(0, node.getDegree(knows, Direction.INCOMING));
+        assertEquals(1, node.getDegree(likes));
+        assertEquals(3, other.getDegree());
+
+        node.delete();
+        assertEquals(0, node.getDegree());
+        assertEquals(0, other.getDegree());
+        assertEquals(List.of(), relationshipTypes(node));
+    }
+
+    @Test
+    public void shouldRemoveRelationshipsOfOtherNodes() {
+        Label[] labels = {Label.label("Test")};
+        VirtualNode node = new VirtualNode(labels, Map.of());
+        VirtualNode start = new VirtualNode(labels, Map.of());
+        VirtualNode end = new VirtualNode(labels, Map.of());
+        RelationshipType knows = RelationshipType.withName("KNOWS");
+        VirtualRelationship rel = new VirtualRelationship(start, end, knows);
+        node.add(rel);
+        assertEquals(1, node.getDegree(knows));
+
+        node.delete(rel);
+        assertEquals(0, node.getDegree(knows));
+        assertEquals(0, Iterables.count(node.getRelationships(knows)));
+    }
+
+    private static List<String> relationshipTypes(VirtualNode node) {
+        return Iterables.stream(node.getRelationshipTypes())
+                .map(RelationshipType::name)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void shouldCreateElementsInArena() {
+        VirtualGraphArena arena = new VirtualGraphArena();
+        Label[] labels = {Label.label("Test")};
+        Set<Long> ids = new HashSet<>();
+        VirtualNode previous = null;
+        for (int i = 0; i < 3000; i++) {
+            VirtualNode node = arena.createNode(labels, Util.map("name", "n" + i, "value", i));
+            assertTrue(ids.add(node.getId()));
+            if (previous != null) {
+                arena.createRelationship(previous, node, RelationshipType.withName("NEXT"), Util.map("weight", i));
+            }
+            previous = node;
+        }
+        VirtualNode plain = new VirtualNode(labels, Map.of());
+        assertFalse(ids.contains(plain.getId()));
+
+        Map<String, Object> props = previous.getAllProperties();
+        assertEquals(Util.map("name", "n2999", "value", 2999), props);
+        previous.setProperty("extra", true);
+        previous.removeProperty("name");
+        assertEquals(Util.map("value", 2999, "extra", true), props);
+        for (Map.Entry<String, Object> entry : props.entrySet()) {
+            entry.setValue(entry.getKey());
+        }
+        assertEquals(Util.map("value", "value", "extra", "extra"), new HashMap<>(props));
+        props.entrySet().removeIf(e -> e.getKey().equals("value"));
+        assertEquals(Set.of("extra"), props.keySet());
+
+        Relationship rel = Iterables.single(previous.getRelationships(Direction.INCOMING));
+        assertEquals(2999, rel.getProperty("weight"));
+        assertEquals(1, rel.getStartNode().getDegree(Direction.OUTGOING));
+    }
 }
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.text;
+
+import static apoc.util.MapUtil.map;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import apoc.util.TestUtil;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.apache.commons.text.similarity.JaroWinklerSimilarity;
+import org.apache.commons.text.similarity.LevenshteinDistance;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.QueryExecutionException;
+import org.neo4j.test.rule.DbmsRule;
+import org.neo4j.test.rule.ImpermanentDbmsRule;
+
+public class SimilarityJoinTest {
+
+    @ClassRule
+    public static DbmsRule db = new ImpermanentDbmsRule();
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        TestUtil.registerProcedure(db, SimilarityJoin.class, Strings.class);
+    }
+
+    @AfterClass
+    public static void teardown() {
+        db.shutdown();
+    }
+
+    @Test
+    public void shouldFindSimilarPairsOfAList() {
+        List<String> names = List.of("Jonathan", "Jonathon", "Johnathan", "Michael", "Micheal", "Bob");
+        Map<String, Double> pairs = pairs(names, map("threshold", 0.75));
+
+        assertEquals(Set.of("Jonathan|Jonathon", "Jonathan|Johnathan", "Jonathon|Johnathan"), pairs.keySet());
+        assertEquals(7 / 8.0, pairs.get("Jonathan|Jonathon"), 1e-9);
+        assertEquals(5 / 7.0, pairs(names, map("threshold", 0.7)).get("Michael|Micheal"), 1e-9);
+    }
+
+    @Test
+    public void shouldFindTheSamePairsAsACrossProduct() {
+        Random random = new Random(42);
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            StringBuilder text = new StringBuilder();
+            for (int c = 1 + random.nextInt(8); c > 0; c--) {
+                text.append((char) ('a' + random.nextInt(4)));
+            }
+            texts.add(text.toString());
+        }
+
+        for (double threshold : new double[] {0.5, 0.75, 0.9}) {
+            for (int q : new int[] {1, 2, 3}) {
+                Map<String, Double> expected = new HashMap<>();
+                LevenshteinDistance levenshtein = LevenshteinDistance.getDefaultInstance();
+                for (int i = 0; i < texts.size(); i++) {
+                    for (int j = i + 1; j < texts.size(); j++) {
+                        String first = texts.get(i), second = texts.get(j);
+                        int longer = Math.max(first.length(), second.length());
+                        double score = (longer - levenshtein.apply(first, second)) / (double) longer;
+                        // pairs without a common q-gram are never compared
+                        if (score >= threshold && shareQGram(first, second, q)) {
+                            expected.put(i + "|" + j, score);
+                        }
+                    }
+                }
+
+                Map<String, Double> actual = new HashMap<>();
+                TestUtil.testResult(
+                        db,
+                        "CALL apoc.text.similarPairs($texts, $config) YIELD index1, index2, score RETURN *",
+                        map("texts", texts, "config", map("threshold", threshold, "q", q, "concurrency", 4)),
+                        result -> result.forEachRemaining(row ->
+                                actual.put(row.get("index1") + "|" + row.get("index2"), (Double) row.get("score"))));
+                assertEquals("threshold " + threshold + ", q " + q, expected.keySet(), actual.keySet());
+                expected.forEach((pair, score) -> assertEquals(score, actual.get(pair), 1e-9));
+            }
+        }
+    }
+
+    @Test
+    public void shouldKeepPairsSharingSkippedQGrams() {
+        // the q-grams of the common prefix "abc" are in more than maxBlockSize texts and are skipped,
+        // the pair is still found through its other q-grams and must pass the q-gram count filter
+        List<String> texts = List.of("abcdefgh", "abcdefgx", "abcz", "abcy", "abcw", "abcv");
+        Map<String, Double> pairs = pairs(texts, map("threshold", 0.8, "q", 3, "maxBlockSize", 3));
+
+        assertEquals(Set.of("abcdefgh|abcdefgx"), pairs.keySet());
+        assertEquals(7 / 8.0, pairs.get("abcdefgh|abcdefgx"), 1e-9);
+    }
+
+    @Test
+    public void shouldScoreWithJaroWinkler() {
+        List<String> names = List.of("Martha", "Marhta", "Dwayne", "Duane", "Dixon", "Dicksonx");
+        Map<String, Double> pairs = pairs(names, map("algorithm", "jaroWinkler", "threshold", 0.8, "q", 2));
+
+        JaroWinklerSimilarity jaroWinkler = new JaroWinklerSimilarity();
+        assertTrue(pairs.containsKey("Martha|Marhta"));
+        assertEquals(jaroWinkler.apply("Martha", "Marhta"), pairs.get("Martha|Marhta"), 1e-9);
+        assertEquals(jaroWinkler.apply("Dwayne", "Duane"), pairs.get("Dwayne|Duane"), 1e-9);
+        // the score is a similarity, the scalar function returns the distance
+        TestUtil.testCall(
+                db,
+                "RETURN 1 - apoc.text.jaroWinklerDistance('Martha', 'Marhta') AS score",
+                row -> assertEquals((double) row.get("score"), pairs.get("Martha|Marhta"), 1e-9));
+        pairs.values().forEach(score -> assertTrue(score >= 0.8));
+    }
+
+    @Test
+    public void shouldFindSimilarNodes() {
+        db.executeTransactionally(
+                "UNWIND ['Acme Corp', 'Acme Corp.', 'ACME Corporation', 'Globex'] AS name CREATE (:Company {name: name})");
+        db.executeTransactionally("CREATE (:Company {name: 42}), (:Company)");
+
+        Set<Set<String>> pairs = new HashSet<>();
+        TestUtil.testResult(
+                db,
+                "CALL apoc.text.similarNodes('Company', 'name', {threshold: 0.85}) YIELD node1, node2, text1, text2, score RETURN *",
+                result -> result.forEachRemaining(row -> {
+                    assertEquals(row.get("text1"), ((Node) row.get("node1")).getProperty("name"));
+                    assertEquals(row.get("text2"), ((Node) row.get("node2")).getProperty("name"));
+                    pairs.add(Set.of((String) row.get("text1"), (String) row.get("text2")));
+                }));
+        assertEquals(Set.of(Set.of("Acme Corp", "Acme Corp.")), pairs);
+    }
+
+    @Test
+    public void shouldFailForUnknownAlgorithm() {
+        try {
+            pairs(List.of("a", "b"), map("algorithm", "soundex"));
+            fail("expecting an unknown algorithm to fail");
+        } catch (QueryExecutionException e) {
+            assertTrue(e.getMessage().contains("Unknown similarity algorithm soundex"));
+        }
+    }
+
+    private static boolean shareQGram(String first, String second, int q) {
+        String padding = "\u0000".repeat(q - 1);
+        String paddedFirst = padding + first + padding, paddedSecond = padding + second + padding;
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + q <= paddedFirst.length(); i++) {
+            grams.add(paddedFirst.substring(i, i + q));
+        }
+        for (int i = 0; i + q <= paddedSecond.length(); i++) {
+            if (grams.contains(paddedSecond.substring(i, i + q))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Map<String, Double> pairs(List<String> texts, Map<String, Object> config) {
+        Map<String, Double> pairs = new HashMap<>();
+        TestUtil.testResult(
+                db,
+                "CALL apoc.text.similarPairs($texts, $config) YIELD text1, text2, score RETURN *",
+                map("texts", texts, "config", config),
+                result -> result.forEachRemaining(
+                        row -> pairs.put(row.get("text1") + "|" + row.get("text2"), (Double) row.get("score"))));
+        return pairs;
+    }
+}
@@ -547,6 +547,47 @@ public class StringsTest {
         testCall(db, "RETURN apoc.text.regexGroups('abc',null) AS result", row -> {});
     }
 
+    @Test
+    public void testRegexFunctionsShareCompiledPatterns() {
+        long[] before = new long[2];
+        testCall(db, "CALL apoc.text.regexCacheStats()", row -> {
+            before[0] = (long) row.get("hits");
+            before[1] = (long) row.get("misses");
+        });
+
+        // the same regex used by different functions and on many rows is compiled once
+        testResult(
+                db,
+                "UNWIND range(1, 100) AS i "
+                        + "RETURN apoc.text.regexGroups('key' + i + '=value', '(k\\w+)=(v\\w+)')[0][1] AS key, "
+                        + "apoc.text.split('key' + i + '=value', '(k\\w+)=(v\\w+)') AS parts, "
+                        + "apoc.text.regreplace('key' + i + '=value', '(k\\w+)=(v\\w+)', '$2') AS value",
+                result -> {
+                    int count = 0;
+                    while (result.hasNext()) {
+                        Map<String, Object> row = result.next();
+                        assertEquals("key" + ++count, row.get("key"));
+                        assertEquals(List.of(), row.get("parts"));
+                        assertEquals("value", row.get("value"));
+                    }
+                    assertEquals(100, count);
+                });
+
+        testCall(db, "CALL apoc.text.regexCacheStats()", row -> {
+            assertEquals(1L, (long) row.get("misses") - before[1]);
+            assertEquals(299L, (long) row.get("hits") - before[0]);
+            assertTrue((long) row.get("size") >= 1);
+        });
+
+        // invalid regexes fail as before and are not cached
+        try {
+            testCall(db, "RETURN apoc.text.regreplace('abc', '(', '') AS value", row -> {});
+            fail("expecting an invalid regex to fail");
+        } catch (QueryExecutionException e) {
+            assertTrue(e.getMessage().contains("Unclosed group"));
+        }
+    }
+
     @Test
     public void testSlug() {
         testCall(db, "RETURN apoc.text.slug('a-b','-') AS value", row -> assertEquals("a-b", row.get("value")));
@@ -22,10 +22,12 @@ import static apoc.util.kernel.MultiThreadedGlobalGraphOperations.*;
 import static apoc.util.kernel.MultiThreadedGlobalGraphOperations.GlobalOperationsTypes.NODES;
 import static apoc.util.kernel.MultiThreadedGlobalGraphOperations.GlobalOperationsTypes.RELATIONSHIPS;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import apoc.util.TestUtil;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.ClassRule;
@@ -65,7 +67,35 @@ public class MultiThreadedGlobalGraphOperationsTest {
 
         long countOfNodes = TestUtil.singleResultFirstColumn(db, "match (n) return count(n) as count");
 
-        assertEquals(9, result.getMissing()); // TODO: why do we get 9 missings ?
+        // only ids up to the high id are visited, missing are the unused ids below it
+        assertEquals(highestIdInUse - countOfNodes, result.getMissing());
+        assertEquals(0, result.getFailures());
+    }
+
+    @Test
+    public void shouldMergeWorkerStates() {
+        AtomicLong total = new AtomicLong();
+        AtomicInteger workers = new AtomicInteger();
+        BatchJobResult result = forAllRelationships(
+                db,
+                Executors.newFixedThreadPool(4),
+                10,
+                cursors -> new long[1],
+                (sum, cursors, relationshipCursor) -> {
+                    relationshipCursor.properties(cursors.propertyCursor());
+                    while (cursors.propertyCursor().next()) {
+                        sum[0] += ((Number)
+                                        cursors.propertyCursor().propertyValue().asObject())
+                                .longValue();
+                    }
+                },
+                sum -> {
+                    workers.incrementAndGet();
+                    total.addAndGet(sum[0]);
+                });
+        assertEquals(1000L * 1001 / 2, total.get());
+        assertTrue(workers.get() >= 1);
+        assertEquals(1000, result.getSucceeded());
         assertEquals(0, result.getFailures());
     }
 
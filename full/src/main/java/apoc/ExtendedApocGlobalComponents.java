@@ -69,9 +69,7 @@ public class ExtendedApocGlobalComponents implements ApocGlobalComponents {
                                 dependencies.apocConfig(),
                                 dependencies.scheduler(),
                                 dependencies.pools()),
-                "directory",
-                        new LoadDirectoryHandler(
-                                db, dependencies.log().getUserLog(LoadDirectory.class), dependencies.pools()),
+                "directory", new LoadDirectoryHandler(db, dependencies.log().getUserLog(LoadDirectory.class)),
                 "cypherProcedures", cypherProcedureHandler);
     }
 
@@ -41,6 +41,7 @@ import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -48,6 +49,8 @@ import java.util.Scanner;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.function.Consumer;
 import java.util.regex.Matcher;
@@ -149,6 +152,24 @@ public class CypherExtended {
         boolean addStatistics = Util.toBoolean(config.getOrDefault("statistics", defaultStatistics));
         int timeout = Util.toInteger(config.getOrDefault("timeout", 10));
         int queueCapacity = Util.toInteger(config.getOrDefault("queueCapacity", 100));
+        // in fast mode statements are classified lexically and grouped into transactions of batchSize statements
+        int batchSize = Util.toBoolean(config.get("fastMode"))
+                ? Util.toInteger(config.getOrDefault("batchSize", Cypher.DEFAULT_FAST_MODE_BATCH_SIZE))
+                : 0;
+        if (Util.toBoolean(config.get("parallel"))) {
+            int concurrency = Util.toInteger(
+                    config.getOrDefault("concurrency", Runtime.getRuntime().availableProcessors()));
+            return runFilesInParallel(
+                    fileNames,
+                    parameters,
+                    schemaOperation,
+                    addStatistics,
+                    timeout,
+                    queueCapacity,
+                    reportError,
+                    batchSize,
+                    concurrency);
+        }
         var result = fileNames.stream().flatMap(fileName -> {
             final Reader reader = readerForFile(fileName);
             final Scanner scanner = createScannerFor(reader);
@@ -160,6 +181,7 @@ public class CypherExtended {
                             timeout,
                             queueCapacity,
                             reportError,
+                            batchSize,
                             fileName)
                     .onClose(() -> Util.close(
                             scanner,
@@ -172,6 +194,126 @@ public class CypherExtended {
         return result;
     }
 
+    /**
+     * Runs the files in phases, as written by the multi-file export: first the schema files and the files of unknown
+     * kind one after the other, then the node files concurrently, then the relationship files concurrently,
+     * and finally the clean-up files. The rows of all files are streamed through one queue.
+     * Schema files are rejected unless only schema statements are requested: the statements of the other files run
+     * without schema access, so their constraints would silently be missing from the import.
+     */
+    private Stream<RowResult> runFilesInParallel(
+            List<String> fileNames,
+            Map<String, Object> parameters,
+            boolean schemaOperation,
+            boolean addStatistics,
+            int timeout,
+            int queueCapacity,
+            boolean reportError,
+            int batchSize,
+            int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("The concurrency must be at least 1 but was " + concurrency);
+        }
+        Map<FileKind, List<String>> phases = phasesOf(fileNames);
+        if (!schemaOperation && phases.containsKey(FileKind.SCHEMA)) {
+            throw new IllegalArgumentException("The schema files " + phases.get(FileKind.SCHEMA)
+                    + " cannot be run by apoc.cypher.runFiles, run them first with apoc.cypher.runSchemaFiles");
+        }
+        BlockingQueue<RowResult> queue = runInSeparateThreadAndSendTombstone(
+                queueCapacity,
+                internalQueue -> {
+                    ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+                    try {
+                        for (Map.Entry<FileKind, List<String>> phase : phases.entrySet()) {
+                            List<Future<?>> futures = new ArrayList<>();
+                            for (String fileName : phase.getValue()) {
+                                Runnable runFile = () -> runFileStatements(
+                                        fileName,
+                                        internalQueue,
+                                        parameters,
+                                        schemaOperation,
+                                        addStatistics,
+                                        timeout,
+                                        reportError,
+                                        batchSize);
+                                if (phase.getKey().concurrent) {
+                                    futures.add(executor.submit(runFile));
+                                } else {
+                                    runFile.run();
+                                }
+                            }
+                            for (Future<?> future : futures) {
+                                future.get();
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (ExecutionException e) {
+                        throw new RuntimeException(e.getCause());
+                    } finally {
+                        executor.shutdownNow();
+                    }
+                },
+                RowResult.TOMBSTONE);
+        return StreamSupport.stream(
+                new QueueBasedSpliterator<>(queue, RowResult.TOMBSTONE, terminationGuard, Integer.MAX_VALUE), false);
+    }
+
+    private void runFileStatements(
+            String fileName,
+            BlockingQueue<RowResult> queue,
+            Map<String, Object> params,
+            boolean schemaOperation,
+            boolean addStatistics,
+            int timeout,
+            boolean reportError,
+            int batchSize) {
+        try (Scanner scanner = createScannerFor(readerForFile(fileName))) {
+            if (batchSize > 0) {
+                runStatementsInBatches(
+                        scanner, queue, params, schemaOperation, addStatistics, reportError, batchSize, fileName);
+            } else if (schemaOperation) {
+                runSchemaStatementsInTx(scanner, queue, params, addStatistics, timeout, reportError, fileName);
+            } else {
+                runDataStatementsInTx(scanner, queue, params, addStatistics, timeout, reportError, fileName);
+            }
+        } catch (Exception e) {
+            // as in the sequential mode, a failing file stops only its own statements
+            log.warn("Error executing the statements of file " + fileName, e);
+        }
+    }
+
+    enum FileKind {
+        SCHEMA(false),
+        OTHER(false),
+        NODES(true),
+        RELATIONSHIPS(true),
+        CLEANUP(false);
+
+        private final boolean concurrent;
+
+        FileKind(boolean concurrent) {
+            this.concurrent = concurrent;
+        }
+
+        private static final Pattern EXPORT_FILE =
+                Pattern.compile("\\.(schema|nodes|relationships|cleanup)\\.cypher$", Pattern.CASE_INSENSITIVE);
+
+        static FileKind of(String fileName) {
+            Matcher matcher = EXPORT_FILE.matcher(fileName);
+            return matcher.find() ? valueOf(matcher.group(1).toUpperCase()) : OTHER;
+        }
+    }
+
+    static Map<FileKind, List<String>> phasesOf(List<String> fileNames) {
+        Map<FileKind, List<String>> phases = new EnumMap<>(FileKind.class);
+        for (String fileName : fileNames) {
+            phases.computeIfAbsent(FileKind.of(fileName), kind -> new ArrayList<>())
+                    .add(fileName);
+        }
+        return phases;
+    }
+
     @Procedure(mode = Mode.SCHEMA)
     @Description(
             "apoc.cypher.runSchemaFile(file or url,[{statistics:true,timeout:10}]) - allows only schema operations, runs each schema statement in the file, all semicolon separated")
@@ -199,11 +341,22 @@ public class CypherExtended {
             int timeout,
             int queueCapacity,
             boolean reportError,
+            int batchSize,
             String fileName) {
         BlockingQueue<RowResult> queue = runInSeparateThreadAndSendTombstone(
                 queueCapacity,
                 internalQueue -> {
-                    if (schemaOperation) {
+                    if (batchSize > 0) {
+                        runStatementsInBatches(
+                                scanner,
+                                internalQueue,
+                                params,
+                                schemaOperation,
+                                addStatistics,
+                                reportError,
+                                batchSize,
+                                fileName);
+                    } else if (schemaOperation) {
                         runSchemaStatementsInTx(
                                 scanner, internalQueue, params, addStatistics, timeout, reportError, fileName);
                     } else {
@@ -285,6 +438,32 @@ public class CypherExtended {
         }
     }
 
+    private void runStatementsInBatches(
+            Scanner scanner,
+            BlockingQueue<RowResult> queue,
+            Map<String, Object> params,
+            boolean schemaOperation,
+            boolean addStatistics,
+            boolean reportError,
+            int batchSize,
+            String fileName) {
+        try (StatementBatcher<RowResult> batcher = new StatementBatcher<>(
+                db,
+                params,
+                batchSize,
+                (result, rows) -> consumeResult(result, rows, addStatistics, tx, fileName),
+                putInto(queue),
+                e -> collectError(queue, reportError, e, fileName))) {
+            while (scanner.hasNext()) {
+                String stmt = removeShellControlCommands(scanner.next());
+                if (stmt.trim().isEmpty()) continue;
+                if (StatementBatcher.isSchemaStatement(stmt) == schemaOperation) {
+                    batcher.add(stmt);
+                }
+            }
+        }
+    }
+
     private void collectError(BlockingQueue<RowResult> queue, boolean reportError, Exception e, String fileName) {
         if (!reportError) {
             throw new RuntimeException(e);
@@ -336,22 +515,33 @@ public class CypherExtended {
 
     private Object consumeResult(
             Result result, BlockingQueue<RowResult> queue, boolean addStatistics, Transaction tx, String fileName) {
-        try {
-            long time = System.currentTimeMillis();
-            int row = 0;
-            while (result.hasNext()) {
-                terminationGuard.check();
-                Map<String, Object> res = EntityUtil.anyRebind(tx, result.next());
-                queue.put(new RowResult(row++, res, fileName));
-            }
-            if (addStatistics) {
-                queue.put(new RowResult(
-                        -1, toMap(result.getQueryStatistics(), System.currentTimeMillis() - time, row), fileName));
+        return consumeResult(result, putInto(queue), addStatistics, tx, fileName);
+    }
+
+    private static Consumer<RowResult> putInto(BlockingQueue<RowResult> queue) {
+        return row -> {
+            try {
+                queue.put(row);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
             }
-            return row;
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
+        };
+    }
+
+    private int consumeResult(
+            Result result, Consumer<RowResult> rows, boolean addStatistics, Transaction tx, String fileName) {
+        long time = System.currentTimeMillis();
+        int row = 0;
+        while (result.hasNext()) {
+            terminationGuard.check();
+            Map<String, Object> res = EntityUtil.anyRebind(tx, result.next());
+            rows.accept(new RowResult(row++, res, fileName));
+        }
+        if (addStatistics) {
+            rows.accept(new RowResult(
+                    -1, toMap(result.getQueryStatistics(), System.currentTimeMillis() - time, row), fileName));
         }
+        return row;
     }
 
     private String removeShellControlCommands(String stmt) {
@@ -24,6 +24,7 @@ import apoc.generate.node.DefaultNodeCreator;
 import apoc.generate.node.NodeCreator;
 import apoc.generate.node.SocialNetworkNodeCreator;
 import apoc.generate.relationship.*;
+import apoc.util.Util;
 import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -33,6 +34,8 @@ import org.neo4j.procedure.*;
 @Extended
 public class Generate {
 
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+
     @Context
     public GraphDatabaseService db;
 
@@ -122,8 +125,49 @@ public class Generate {
         generateGraph(relationshipGenerator, label, relationshipType);
     }
 
+    @Procedure(name = "apoc.generate.rmat", mode = Mode.WRITE)
+    @Description(
+            "apoc.generate.rmat(noNodes, noEdges, label, type, config) - generates a random graph with a power-law degree distribution according to the R-MAT model")
+    public void rmat(
+            @Name("noNodes") Long noNodes,
+            @Name("noEdges") Long noEdges,
+            @Name("label") String label,
+            @Name("type") String relationshipType,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config)
+            throws IOException {
+        if (noNodes == null) noNodes = 1000L;
+        if (noEdges == null) noEdges = 10000L;
+        if (config == null) config = Collections.emptyMap();
+
+        RMatConfig rMatConfig = new RMatConfig(
+                noNodes.intValue(),
+                noEdges,
+                Util.toDouble(config.getOrDefault("a", RMatConfig.DEFAULT_A)),
+                Util.toDouble(config.getOrDefault("b", RMatConfig.DEFAULT_B)),
+                Util.toDouble(config.getOrDefault("c", RMatConfig.DEFAULT_C)));
+        RelationshipGenerator relationshipGenerator = new RMatRelationshipGenerator(rMatConfig);
+
+        int batchSize = Util.toInteger(config.getOrDefault("batchSize", DEFAULT_BATCH_SIZE));
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("The batchSize must be at least 1 but was " + batchSize);
+        }
+        int concurrency = Util.toInteger(
+                config.getOrDefault("concurrency", Runtime.getRuntime().availableProcessors()));
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("The concurrency must be at least 1 but was " + concurrency);
+        }
+        generateGraph(relationshipGenerator, label, relationshipType, batchSize, concurrency);
+    }
+
     private void generateGraph(RelationshipGenerator relationshipGenerator, String label, String type)
             throws IOException {
+        // the edges of these generators share nodes across batches, which deadlock when written concurrently
+        generateGraph(relationshipGenerator, label, type, DEFAULT_BATCH_SIZE, 1);
+    }
+
+    private void generateGraph(
+            RelationshipGenerator relationshipGenerator, String label, String type, int batchSize, int concurrency)
+            throws IOException {
         NodeCreator nodeCreator;
         if (label == null || "Person".equals(label)) {
             nodeCreator = new SocialNetworkNodeCreator();
@@ -138,8 +182,8 @@ public class Generate {
             relationshipCreator = new DefaultRelationshipCreator(type);
         }
 
-        GeneratorConfiguration configuration =
-                new BasicGeneratorConfig(relationshipGenerator, nodeCreator, relationshipCreator);
+        GeneratorConfiguration configuration = new BasicGeneratorConfig(
+                relationshipGenerator, nodeCreator, relationshipCreator, batchSize, concurrency);
         new Neo4jGraphGenerator(db).generateGraph(configuration);
     }
 }
@@ -27,20 +27,30 @@ import static java.nio.file.WatchEvent.Kind;
 import static org.apache.commons.lang3.StringUtils.replaceOnce;
 
 import apoc.ApocConfig;
-import apoc.Pools;
+import apoc.util.Util;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
 import java.nio.file.FileSystems;
 import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
 import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 import org.apache.commons.io.filefilter.WildcardFileFilter;
 import org.apache.commons.lang3.exception.ExceptionUtils;
@@ -49,18 +59,34 @@ import org.neo4j.graphdb.Transaction;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
 import org.neo4j.logging.Log;
 
+/**
+ * Watches the directories of all listeners with one shared {@link WatchService} and a single watcher thread.
+ * Events are coalesced per listener and file until the file has been quiet for the listener's interval,
+ * then handed over to a bounded queue, from which an ingestion thread runs them in batches,
+ * one transaction per listener and batch.
+ */
 public class LoadDirectoryHandler extends LifecycleAdapter {
 
-    public final Map<LoadDirectoryItem, Future> storage = new ConcurrentHashMap<>();
+    static final int QUEUE_CAPACITY = 10_000;
+    static final int BATCH_SIZE = 1_000;
+    private static final long MAX_POLL_MILLIS = 1000;
+
+    public final Map<LoadDirectoryItem, Listener> storage = new ConcurrentHashMap<>();
 
     private final Log log;
     private final GraphDatabaseService db;
-    private final Pools pools;
 
-    public LoadDirectoryHandler(GraphDatabaseService db, Log log, Pools pools) {
+    private final BlockingQueue<FileEvent> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    // only accessed by the watcher thread
+    private final Map<PendingKey, FileEvent> pending = new LinkedHashMap<>();
+
+    private WatchService watcher;
+    private Thread watcherThread;
+    private Thread ingestionThread;
+
+    public LoadDirectoryHandler(GraphDatabaseService db, Log log) {
         this.db = db;
         this.log = log;
-        this.pools = pools;
     }
 
     private static Kind[] fromListStringToKindArray(List<String> listenEventType) {
@@ -86,8 +112,19 @@ public class LoadDirectoryHandler extends LifecycleAdapter {
     public void start() {}
 
     @Override
-    public void stop() {
+    public synchronized void stop() {
         removeAll();
+        if (watcher != null) {
+            watcherThread.interrupt();
+            ingestionThread.interrupt();
+            try {
+                watcher.close();
+            } catch (IOException e) {
+                log.warn("Error while closing the directory watcher", e);
+            }
+            watcher = null;
+            queue.clear();
+        }
     }
 
     public void remove(String name) {
@@ -95,25 +132,28 @@ public class LoadDirectoryHandler extends LifecycleAdapter {
         remove(loadDirectoryItem);
     }
 
-    private void remove(LoadDirectoryItem loadDirectoryItem) {
-        Future removed = storage.remove(loadDirectoryItem);
+    private synchronized void remove(LoadDirectoryItem loadDirectoryItem) {
+        Listener removed = storage.remove(loadDirectoryItem);
         if (removed == null) {
             String name = loadDirectoryItem.getName();
             throw new RuntimeException("Listener with name: " + name + " doesn't exists");
         }
-        removed.cancel(true);
+        unregister(removed);
     }
 
-    public void add(LoadDirectoryItem loadDirectoryItem) {
-        storage.compute(loadDirectoryItem, (k, v) -> {
-            if (v != null) {
-                try {
-                    v.cancel(true);
-                } catch (Exception ignored) {
-                }
-            }
-            return pools.getDefaultExecutorService().submit(createListener(loadDirectoryItem));
-        });
+    public synchronized void add(LoadDirectoryItem loadDirectoryItem) {
+        Listener previous = storage.remove(loadDirectoryItem);
+        if (previous != null) {
+            unregister(previous);
+        }
+        Listener listener = new Listener(loadDirectoryItem);
+        storage.put(loadDirectoryItem, listener);
+        try {
+            listener.key = register(listener);
+            loadDirectoryItem.setStatusRunning();
+        } catch (Exception e) {
+            setError(loadDirectoryItem, e);
+        }
     }
 
     public Stream<LoadDirectoryItem.LoadDirectoryResult> list() {
@@ -125,61 +165,167 @@ public class LoadDirectoryHandler extends LifecycleAdapter {
         keys.forEach(this::remove);
     }
 
-    private Runnable createListener(LoadDirectoryItem item) {
-        return () -> {
-            try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
-
-                final LoadDirectoryItem.LoadDirectoryConfig config = item.getConfig();
-
-                getPathFromUrlString(item.getUrlDir())
-                        .register(watcher, fromListStringToKindArray(config.getListenEventType()));
-
-                item.setStatusRunning();
-                while (true) {
-                    WatchKey watchKey = watcher.take();
-                    if (watchKey != null) {
-                        watchKey.reset();
-                        Path dir = (Path) watchKey.watchable();
-                        for (WatchEvent event : watchKey.pollEvents()) {
-                            Path filePath = dir.resolve((Path) event.context());
-                            WildcardFileFilter fileFilter = new WildcardFileFilter(item.getPattern());
-                            final String fileName = filePath.getFileName().toString();
-                            boolean matchFilePattern = fileFilter.accept(dir.toFile(), fileName);
-                            if (matchFilePattern) {
-                                try (Transaction tx = db.beginTx()) {
-                                    final String stringFileDirectory = getPathDependingOnUseNeo4jConfig(dir.toString());
-                                    final String stringFilePath = getPathDependingOnUseNeo4jConfig(filePath.toString());
-
-                                    tx.execute(
-                                            item.getCypher(),
-                                            Map.of(
-                                                    "fileName",
-                                                    fileName,
-                                                    "filePath",
-                                                    stringFilePath,
-                                                    "fileDirectory",
-                                                    stringFileDirectory,
-                                                    "listenEventType",
-                                                    event.kind().name().replace("ENTRY_", "")));
-                                    tx.commit();
-                                }
-                            }
-                        }
-                    }
-                    Thread.sleep(config.getInterval());
+    /**
+     * Registers the directory of the listener with the shared watch service. Listeners of the same directory share
+     * one watch key, registered for the union of their event types, and each of them filters the events it gets.
+     */
+    private WatchKey register(Listener listener) throws IOException {
+        startWatcher();
+        Path dir = getPathFromUrlString(listener.item.getUrlDir());
+        Set<Kind<?>> kinds = new HashSet<>(listener.kinds);
+        for (Listener other : storage.values()) {
+            if (other.key != null && dir.equals(other.key.watchable())) {
+                kinds.addAll(other.kinds);
+            }
+        }
+        return dir.register(watcher, kinds.toArray(Kind[]::new));
+    }
+
+    private void unregister(Listener listener) {
+        listener.active = false;
+        if (listener.key == null) {
+            return;
+        }
+        boolean shared = storage.values().stream().anyMatch(other -> other.key == listener.key);
+        if (!shared) {
+            listener.key.cancel();
+        }
+    }
+
+    private void startWatcher() throws IOException {
+        if (watcher != null) {
+            return;
+        }
+        watcher = FileSystems.getDefault().newWatchService();
+        WatchService watchService = watcher;
+        watcherThread = Util.newDaemonThread(() -> watch(watchService));
+        watcherThread.setName("apoc-load-directory-watcher");
+        watcherThread.start();
+        ingestionThread = Util.newDaemonThread(this::ingest);
+        ingestionThread.setName("apoc-load-directory-ingestion");
+        ingestionThread.start();
+    }
+
+    private void watch(WatchService watchService) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey watchKey = watchService.poll(nextPollMillis(), TimeUnit.MILLISECONDS);
+                while (watchKey != null) {
+                    collect(watchKey);
+                    watchKey = watchService.poll();
+                }
+                flushDueEvents();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // the handler has been stopped
+        }
+    }
+
+    private long nextPollMillis() {
+        long now = System.currentTimeMillis();
+        long next = now + MAX_POLL_MILLIS;
+        for (FileEvent event : pending.values()) {
+            next = Math.min(next, event.dueAt);
+        }
+        return Math.max(1, next - now);
+    }
+
+    private void collect(WatchKey watchKey) {
+        Path dir = (Path) watchKey.watchable();
+        List<WatchEvent<?>> events = watchKey.pollEvents();
+        watchKey.reset();
+        long now = System.currentTimeMillis();
+        for (WatchEvent<?> event : events) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                log.warn("Events of the directory " + dir + " have been lost because too many of them occurred");
+                continue;
+            }
+            Path filePath = dir.resolve((Path) event.context());
+            final String fileName = filePath.getFileName().toString();
+            for (Listener listener : storage.values()) {
+                if (listener.key != watchKey
+                        || !listener.kinds.contains(event.kind())
+                        || !listener.fileFilter.accept(dir.toFile(), fileName)) {
+                    continue;
                 }
-            } catch (Exception e) {
-                if (e instanceof InterruptedException) {
-                    return;
+                long dueAt = now + listener.item.getConfig().getInterval();
+                pending.merge(
+                        new PendingKey(listener, filePath),
+                        new FileEvent(listener, dir, filePath, event.kind(), dueAt),
+                        FileEvent::coalesce);
+            }
+        }
+    }
+
+    private void flushDueEvents() throws InterruptedException {
+        long now = System.currentTimeMillis();
+        Iterator<FileEvent> iterator = pending.values().iterator();
+        while (iterator.hasNext()) {
+            FileEvent event = iterator.next();
+            if (event.dueAt <= now) {
+                iterator.remove();
+                // blocks while the ingestion is behind, the watch service keeps buffering meanwhile
+                queue.put(event);
+            }
+        }
+    }
+
+    private void ingest() {
+        List<FileEvent> batch = new ArrayList<>(BATCH_SIZE);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                batch.add(queue.take());
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                Map<Listener, List<FileEvent>> byListener = new IdentityHashMap<>();
+                for (FileEvent event : batch) {
+                    byListener
+                            .computeIfAbsent(event.listener, listener -> new ArrayList<>())
+                            .add(event);
                 }
-                log.warn(String.format(
-                        "Error while executing procedure with name %s . "
-                                + "The status of the directory listener is changed to ERROR. "
-                                + "Type `call apoc.load.directory.async.list` to more details.",
-                        item.getName()));
-                item.setError(ExceptionUtils.getStackTrace(e));
+                byListener.forEach(this::runEvents);
+                batch.clear();
             }
-        };
+        } catch (InterruptedException e) {
+            // the handler has been stopped
+        }
+    }
+
+    private void runEvents(Listener listener, List<FileEvent> events) {
+        LoadDirectoryItem item = listener.item;
+        if (!listener.active) {
+            return;
+        }
+        try (Transaction tx = db.beginTx()) {
+            for (FileEvent event : events) {
+                final String stringFileDirectory = getPathDependingOnUseNeo4jConfig(event.dir.toString());
+                final String stringFilePath = getPathDependingOnUseNeo4jConfig(event.filePath.toString());
+
+                tx.execute(
+                        item.getCypher(),
+                        Map.of(
+                                "fileName",
+                                event.filePath.getFileName().toString(),
+                                "filePath",
+                                stringFilePath,
+                                "fileDirectory",
+                                stringFileDirectory,
+                                "listenEventType",
+                                event.kind.name().replace("ENTRY_", "")));
+            }
+            tx.commit();
+        } catch (Exception e) {
+            listener.active = false;
+            setError(item, e);
+        }
+    }
+
+    private void setError(LoadDirectoryItem item, Exception e) {
+        log.warn(String.format(
+                "Error while executing procedure with name %s . "
+                        + "The status of the directory listener is changed to ERROR. "
+                        + "Type `call apoc.load.directory.async.list` to more details.",
+                item.getName()));
+        item.setError(ExceptionUtils.getStackTrace(e));
     }
 
     public static String getPathDependingOnUseNeo4jConfig(String urlFile) {
@@ -187,4 +333,67 @@ public class LoadDirectoryHandler extends LifecycleAdapter {
                 ? replaceOnce(urlFile, ApocConfig.apocConfig().getImportDir() + File.separator, "")
                 : urlFile;
     }
+
+    public static class Listener {
+        private final LoadDirectoryItem item;
+        private final Set<Kind<?>> kinds;
+        private final WildcardFileFilter fileFilter;
+        private volatile WatchKey key;
+        // cleared once the listener has been removed or replaced, or has failed
+        private volatile boolean active = true;
+
+        private Listener(LoadDirectoryItem item) {
+            this.item = item;
+            this.kinds = Set.of(fromListStringToKindArray(item.getConfig().getListenEventType()));
+            this.fileFilter = new WildcardFileFilter(item.getPattern());
+        }
+    }
+
+    private static class PendingKey {
+        private final Listener listener;
+        private final Path filePath;
+
+        private PendingKey(Listener listener, Path filePath) {
+            this.listener = listener;
+            this.filePath = filePath;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            PendingKey that = (PendingKey) o;
+            return listener == that.listener && filePath.equals(that.filePath);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(listener), filePath);
+        }
+    }
+
+    private static class FileEvent {
+        private final Listener listener;
+        private final Path dir;
+        private final Path filePath;
+        private final Kind<?> kind;
+        private final long dueAt;
+
+        private FileEvent(Listener listener, Path dir, Path filePath, Kind<?> kind, long dueAt) {
+            this.listener = listener;
+            this.dir = dir;
+            this.filePath = filePath;
+            this.kind = kind;
+            this.dueAt = dueAt;
+        }
+
+        /**
+         * A file that is created and then written to is reported once as created,
+         * otherwise the latest event type wins. Every new event postpones the file.
+         */
+        private static FileEvent coalesce(FileEvent previous, FileEvent next) {
+            Kind<?> kind = previous.kind == ENTRY_CREATE && next.kind == ENTRY_MODIFY ? ENTRY_CREATE : next.kind;
+            return new FileEvent(next.listener, next.dir, next.filePath, kind, next.dueAt);
+        }
+    }
 }
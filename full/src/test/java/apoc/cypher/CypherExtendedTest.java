@@ -18,6 +18,7 @@
  */
 package apoc.cypher;
 
+import static apoc.ApocConfig.APOC_EXPORT_FILE_ENABLED;
 import static apoc.ApocConfig.APOC_IMPORT_FILE_ENABLED;
 import static apoc.ApocConfig.apocConfig;
 import static apoc.util.TestUtil.testCall;
@@ -31,6 +32,7 @@ import static org.hamcrest.Matchers.hasEntry;
 import static org.junit.Assert.*;
 import static org.neo4j.driver.internal.util.Iterables.count;
 
+import apoc.export.cypher.ExportCypher;
 import apoc.text.Strings;
 import apoc.util.TestUtil;
 import apoc.util.Util;
@@ -40,6 +42,7 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -89,7 +92,8 @@ public class CypherExtendedTest {
                 Utils.class,
                 CypherFunctions.class,
                 Timeboxed.class,
-                Strings.class);
+                Strings.class,
+                ExportCypher.class);
     }
 
     @AfterClass
@@ -200,6 +204,134 @@ public class CypherExtendedTest {
         });
     }
 
+    @Test
+    public void testRunFileFastMode() {
+        testResult(db, "CALL apoc.cypher.runFile('create_delete.cypher', {fastMode: true})", r -> {
+            assertCreateDeleteFile(r);
+            assertFalse(r.hasNext());
+        });
+        testCall(db, "CALL apoc.cypher.runFile('in_transaction.cypher', {fastMode: true})", row -> {
+            Map result = (Map) row.get("result");
+            assertEquals(2000, result.get("nodesCreated"));
+        });
+    }
+
+    @Test
+    public void testRunFileFastModeWithFailingStatement() {
+        db.executeTransactionally("CREATE CONSTRAINT FOR (n:Fail) REQUIRE n.foo IS UNIQUE");
+        db.executeTransactionally("CREATE (n:Fail {foo: 1})");
+
+        // the failing statement is isolated from the other statements of its batch
+        testResult(
+                db,
+                "CALL apoc.cypher.runFile('fast_mode.cypher', {fastMode: true, batchSize: 10, reportError: true})",
+                r -> {
+                    Map<String, Object> row = r.next();
+                    assertEquals(1L, toLong(((Map) row.get("result")).get("nodesCreated")));
+                    assertErrorResult("already exists with label `Fail` and property `foo` = 1", r.next());
+                    row = r.next();
+                    assertEquals(1L, toLong(((Map) row.get("result")).get("nodesCreated")));
+                    assertFalse(r.hasNext());
+                });
+        testCall(db, "MATCH (n:FastMode) RETURN count(n) AS count", row -> assertEquals(2L, row.get("count")));
+        testCallEmpty(db, "SHOW INDEXES WHERE 'FastMode' IN labelsOrTypes", Collections.emptyMap());
+
+        testCall(db, "CALL apoc.cypher.runSchemaFile('fast_mode.cypher', {fastMode: true})", row -> {
+            assertEquals(1L, toLong(((Map) row.get("result")).get("indexesAdded")));
+        });
+    }
+
+    @Test
+    public void testRunFilesParallel() {
+        List<String> files = List.of(
+                "people.cleanup.cypher", "people.relationships.cypher", "people.nodes.cypher", "movies.nodes.cypher");
+        assertEquals(
+                List.of("people.nodes.cypher", "movies.nodes.cypher"),
+                CypherExtended.phasesOf(files).get(CypherExtended.FileKind.NODES));
+
+        testResult(
+                db,
+                "CALL apoc.cypher.runFiles($files, {parallel: true, concurrency: 2, reportError: true})",
+                Map.of("files", files),
+                r -> {
+                    Map<String, Long> nodesCreated = new HashMap<>();
+                    List<String> fileOrder = new ArrayList<>();
+                    while (r.hasNext()) {
+                        Map<String, Object> row = r.next();
+                        String fileName = (String) row.get("fileName");
+                        Map result = (Map) row.get("result");
+                        nodesCreated.merge(fileName, toLong(result.get("nodesCreated")), Long::sum);
+                        fileOrder.remove(fileName);
+                        fileOrder.add(fileName);
+                    }
+                    assertEquals(
+                            Map.of(
+                                    "people.nodes.cypher", 2L,
+                                    "movies.nodes.cypher", 1L,
+                                    "people.relationships.cypher", 0L,
+                                    "people.cleanup.cypher", 0L),
+                            nodesCreated);
+                    assertEquals(
+                            List.of("people.relationships.cypher", "people.cleanup.cypher"), fileOrder.subList(2, 4));
+                });
+        testCall(
+                db,
+                "MATCH (p:Person {imported: true})-[r:ACTED_IN]->(:Movie) RETURN count(r) AS count",
+                row -> assertEquals(2L, row.get("count")));
+    }
+
+    @Test
+    public void testRunFilesParallelOfSeparateFilesExport() {
+        apocConfig().setProperty(APOC_EXPORT_FILE_ENABLED, true);
+        db.executeTransactionally("UNWIND range(1, 50) AS id CREATE (:Person {id: id})-[:KNOWS {id: id}]->(:Person)");
+        testCall(db, "CALL apoc.export.cypher.all('separate.cypher', {separateFiles: true})", row -> {});
+        List<String> files = List.of(
+                "separate.cleanup.cypher",
+                "separate.relationships.cypher",
+                "separate.nodes.cypher",
+                "separate.schema.cypher");
+        try {
+            db.executeTransactionally("MATCH (n) DETACH DELETE n");
+
+            QueryExecutionException error = assertThrows(
+                    QueryExecutionException.class,
+                    () -> testCall(
+                            db,
+                            "CALL apoc.cypher.runFiles($files, {parallel: true})",
+                            Map.of("files", files),
+                            row -> {}));
+            assertThat(error.getMessage(), containsString("run them first with apoc.cypher.runSchemaFiles"));
+
+            testCall(
+                    db,
+                    "CALL apoc.cypher.runSchemaFiles(['separate.schema.cypher'])",
+                    row -> assertEquals(1L, toLong(((Map) row.get("result")).get("constraintsAdded"))));
+            db.executeTransactionally(
+                    "CALL apoc.cypher.runFiles($files, {parallel: true, concurrency: 2})",
+                    Map.of("files", files.subList(0, 3)),
+                    Result::resultAsString);
+            testCall(
+                    db,
+                    "CALL apoc.cypher.runSchemaFiles(['separate.cleanup.cypher'])",
+                    row -> assertEquals(1L, toLong(((Map) row.get("result")).get("constraintsRemoved"))));
+
+            testCall(db, "MATCH (:Person)-[r:KNOWS]->(:Person) RETURN count(r) AS count, sum(r.id) AS ids", row -> {
+                assertEquals(50L, row.get("count"));
+                assertEquals(1275L, row.get("ids"));
+            });
+            testCall(
+                    db,
+                    "MATCH (n) WHERE n:`UNIQUE IMPORT LABEL` OR n.`UNIQUE IMPORT ID` IS NOT NULL RETURN count(n) AS count",
+                    row -> assertEquals(0L, row.get("count")));
+            try (Transaction tx = db.beginTx()) {
+                assertEquals(0, Iterators.count(tx.schema().getConstraints().iterator()));
+            }
+        } finally {
+            files.forEach(file -> new File(IMPORT_DIR, file).delete());
+            apocConfig().setProperty(APOC_EXPORT_FILE_ENABLED, false);
+        }
+    }
+
     @Test
     public void testRunFileWithAutoTransaction() {
         final int expectedCount = 2000;
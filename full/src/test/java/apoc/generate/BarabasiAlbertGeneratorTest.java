@@ -18,14 +18,20 @@
  */
 package apoc.generate;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
 import apoc.generate.config.BarabasiAlbertConfig;
 import apoc.generate.config.BasicGeneratorConfig;
 import apoc.generate.node.SocialNetworkNodeCreator;
 import apoc.generate.relationship.BarabasiAlbertRelationshipGenerator;
 import apoc.generate.relationship.SocialNetworkRelationshipCreator;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 import org.junit.After;
 import org.junit.Ignore;
 import org.junit.Rule;
@@ -71,6 +77,17 @@ public class BarabasiAlbertGeneratorTest {
         // System.out.println(ArrayUtils.toString(degrees.toArray(new Integer[degrees.size()])));
     }
 
+    @Test
+    public void shouldStreamEdgesWithoutLoopsOrMultiEdges() {
+        Set<Long> edges = new HashSet<>();
+        new BarabasiAlbertRelationshipGenerator(new BarabasiAlbertConfig(1000, 3)).generateEdges((first, second) -> {
+            assertNotEquals(first, second);
+            assertTrue(edges.add((long) Math.min(first, second) << 32 | Math.max(first, second)));
+        });
+
+        assertEquals(3 * 4 / 2 + (1000 - 4) * 3, edges.size());
+    }
+
     @Test(timeout = 10 * 1000)
     @Ignore
     public void shouldGenerateRelationshipsForLargeGraphInAReasonableAmountOfTime() {
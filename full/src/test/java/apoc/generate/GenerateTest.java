@@ -19,6 +19,8 @@
 package apoc.generate;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 import static org.neo4j.internal.helpers.collection.Iterables.count;
 import static org.neo4j.internal.helpers.collection.Iterables.firstOrNull;
@@ -28,6 +30,9 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.QueryExecutionException;
+import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.test.rule.DbmsRule;
 import org.neo4j.test.rule.ImpermanentDbmsRule;
@@ -273,4 +278,65 @@ public class GenerateTest {
             tx.commit();
         }
     }
+
+    @Test
+    public void shouldGenerateRMat1() {
+        db.executeTransactionally("CALL apoc.generate.rmat(null,null,null,null)");
+
+        try (Transaction tx = db.beginTx()) {
+            assertEquals(1000, count(tx.getAllNodes()));
+            assertEquals(10000, count(tx.getAllRelationships()));
+            assertEquals(
+                    "Person",
+                    firstOrNull(firstOrNull(tx.getAllNodes()).getLabels()).name());
+            assertEquals(
+                    "FRIEND_OF", firstOrNull(tx.getAllRelationships()).getType().name());
+            assertTrue(firstOrNull(tx.getAllNodes()).hasProperty("name"));
+            tx.commit();
+        }
+    }
+
+    @Test
+    public void shouldGenerateRMat2() {
+        db.executeTransactionally(
+                "CALL apoc.generate.rmat(3000,20000,'TestLabel','TEST_REL',{a: 0.6, b: 0.15, c: 0.15, batchSize: 100, concurrency: 4})");
+
+        try (Transaction tx = db.beginTx()) {
+            assertEquals(3000, count(tx.getAllNodes()));
+            assertEquals(20000, count(tx.getAllRelationships()));
+            assertEquals(
+                    "TestLabel",
+                    firstOrNull(firstOrNull(tx.getAllNodes()).getLabels()).name());
+            assertEquals(
+                    "TEST_REL", firstOrNull(tx.getAllRelationships()).getType().name());
+            assertTrue(firstOrNull(tx.getAllNodes()).hasProperty("uuid"));
+
+            // power-law: the hubs have far more than the average degree of 2 * 20000 / 3000 and there are no loops
+            int maxDegree = 0;
+            for (Node node : tx.getAllNodes()) {
+                maxDegree = Math.max(maxDegree, node.getDegree());
+            }
+            assertTrue(maxDegree > 100);
+            for (Relationship relationship : tx.getAllRelationships()) {
+                assertNotEquals(relationship.getStartNodeId(), relationship.getEndNodeId());
+            }
+            tx.commit();
+        }
+    }
+
+    @Test
+    public void shouldRejectRMatBatchSizeAndConcurrencyBelowOne() {
+        for (String config : new String[] {"{batchSize: 0}", "{batchSize: -5}", "{concurrency: 0}"}) {
+            QueryExecutionException error = assertThrows(
+                    QueryExecutionException.class,
+                    () -> db.executeTransactionally(
+                            "CALL apoc.generate.rmat(100, 200, 'TestLabel', 'TEST_REL', " + config + ")"));
+            assertTrue(error.getMessage(), error.getMessage().contains("must be at least 1"));
+        }
+
+        try (Transaction tx = db.beginTx()) {
+            assertEquals(0, count(tx.getAllNodes()));
+            tx.commit();
+        }
+    }
 }
@@ -0,0 +1,6 @@
+:begin
+CREATE INDEX ON :FastMode(id);
+CREATE (n:FastMode {id: 1});
+CREATE (n:Fail {foo: 1});
+CREATE (n:FastMode {id: 2});
+:commit
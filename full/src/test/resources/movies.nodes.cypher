@@ -0,0 +1 @@
+CREATE (:Movie {id: 10});
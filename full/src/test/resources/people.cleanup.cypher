@@ -0,0 +1,2 @@
+MATCH (n:Person)
+SET n.imported = true;
@@ -0,0 +1,2 @@
+CREATE (:Person {id: 1});
+CREATE (:Person {id: 2});
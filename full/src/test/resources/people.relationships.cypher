@@ -0,0 +1,2 @@
+MATCH (p:Person), (m:Movie)
+CREATE (p)-[:ACTED_IN]->(m);